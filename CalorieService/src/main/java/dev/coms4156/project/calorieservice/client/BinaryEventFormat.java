@@ -0,0 +1,472 @@
+package dev.coms4156.project.calorieservice.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * A compact binary encoding of client events, used instead of JSON lines when
+ * {@code client-log.format=binary}.
+ *
+ * <p>A segment file starts with the four bytes {@code CEVT} and a version byte, followed by
+ * records. Every record is framed as a varint payload length, a type byte, the payload and
+ * a big-endian CRC-32C of the type and payload, so a reader can skip, verify and stop
+ * cleanly at a record cut short by a crash. There are two record types:
+ * <ul>
+ *   <li>{@code 'S'} adds a string to the segment's dictionary. Its payload is the UTF-8
+ *       bytes; its id is the number of strings defined before it.</li>
+ *   <li>{@code 'E'} is an event. Its payload is a varint bit set of the fields present,
+ *       followed by those fields in declaration order: strings as varint dictionary ids,
+ *       {@code serviceClientId} and {@code recipeId} as zigzag varints, and the timestamp as
+ *       a zigzag varint of its distance in milliseconds from the previous event's timestamp
+ *       (or from the epoch, for the first).</li>
+ * </ul>
+ *
+ * <p>A string is defined the first time an event in the segment uses it, right before that
+ * event, so segments stay append-only and each one can be read on its own. Timestamps that
+ * would not print back exactly as ISO-8601 instants are kept as dictionary strings.
+ */
+public final class BinaryEventFormat {
+
+  /** The bytes every segment starts with. */
+  public static final byte[] MAGIC = {'C', 'E', 'V', 'T'};
+
+  /** The format version written after {@link #MAGIC}. */
+  public static final byte VERSION = 1;
+
+  /** The length of the segment header. */
+  public static final int HEADER_SIZE = MAGIC.length + 1;
+
+  private static final byte STRING_RECORD = 'S';
+  private static final byte EVENT_RECORD = 'E';
+  // The smallest length, type and CRC around a payload
+  private static final int MIN_FRAME_SIZE = 1 + 1 + 4;
+
+  private static final int INSTANCE_ID = 1;
+  private static final int SERVICE_CLIENT_ID = 1 << 1;
+  private static final int USER_ID = 1 << 2;
+  private static final int TYPE = 1 << 3;
+  private static final int EVENT = 1 << 4;
+  private static final int RECIPE_ID = 1 << 5;
+  private static final int RECIPE_TITLE = 1 << 6;
+  private static final int TIMESTAMP_MILLIS = 1 << 7;
+  private static final int TIMESTAMP_TEXT = 1 << 8;
+  // Set with TIMESTAMP_MILLIS when the text always showed three fraction digits
+  private static final int TIMESTAMP_FIXED_MILLIS = 1 << 9;
+
+  private static final DateTimeFormatter FIXED_MILLIS =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+  private BinaryEventFormat() {
+  }
+
+  /**
+   * Returns the header every segment starts with.
+   */
+  public static byte[] header() {
+    byte[] header = new byte[HEADER_SIZE];
+    System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+    header[MAGIC.length] = VERSION;
+    return header;
+  }
+
+  /**
+   * Encodes events into one segment, remembering which strings the segment has defined.
+   * Not safe for concurrent use.
+   */
+  public static final class Encoder {
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+    private final CRC32C crc = new CRC32C();
+    private long previousMillis;
+
+    /**
+     * Forgets the dictionary and the previous timestamp, for a new segment.
+     */
+    public void reset() {
+      dictionary.clear();
+      previousMillis = 0;
+    }
+
+    /**
+     * Appends the records for an event, and for any strings it is the first to use, to
+     * {@code out}.
+     *
+     * @param event the event to encode
+     * @param out where the records are written
+     */
+    public void encode(ClientEvent event, ByteArrayOutputStream out) {
+      int instanceId = define(event.getInstanceId(), out);
+      int userId = define(event.getUserId(), out);
+      int type = define(event.getType(), out);
+      int name = define(event.getEvent(), out);
+      int recipeTitle = define(event.getRecipeTitle(), out);
+      String timestamp = event.getTimestamp();
+      long millis = 0;
+      int timestampFlag = 0;
+      int timestampText = -1;
+      if (timestamp != null) {
+        timestampFlag = timestampStyle(timestamp);
+        if (timestampFlag == TIMESTAMP_TEXT) {
+          timestampText = define(timestamp, out);
+        } else {
+          millis = Instant.parse(timestamp).toEpochMilli();
+        }
+      }
+
+      int present = (instanceId >= 0 ? INSTANCE_ID : 0)
+          | (event.getServiceClientId() != null ? SERVICE_CLIENT_ID : 0)
+          | (userId >= 0 ? USER_ID : 0)
+          | (type >= 0 ? TYPE : 0)
+          | (name >= 0 ? EVENT : 0)
+          | (event.getRecipeId() != null ? RECIPE_ID : 0)
+          | (recipeTitle >= 0 ? RECIPE_TITLE : 0)
+          | timestampFlag;
+      payload.reset();
+      writeVarint(payload, present);
+      writeIdIfPresent(payload, instanceId);
+      if (event.getServiceClientId() != null) {
+        writeVarint(payload, zigzag(event.getServiceClientId()));
+      }
+      writeIdIfPresent(payload, userId);
+      writeIdIfPresent(payload, type);
+      writeIdIfPresent(payload, name);
+      if (event.getRecipeId() != null) {
+        writeVarint(payload, zigzag(event.getRecipeId()));
+      }
+      writeIdIfPresent(payload, recipeTitle);
+      if (timestampText >= 0) {
+        writeVarint(payload, timestampText);
+      } else if (timestamp != null) {
+        writeVarint(payload, zigzag(millis - previousMillis));
+        previousMillis = millis;
+      }
+      writeRecord(out, EVENT_RECORD, payload.toByteArray());
+    }
+
+    private int define(String value, ByteArrayOutputStream out) {
+      if (value == null) {
+        return -1;
+      }
+      Integer id = dictionary.get(value);
+      if (id == null) {
+        id = dictionary.size();
+        dictionary.put(value, id);
+        writeRecord(out, STRING_RECORD, value.getBytes(StandardCharsets.UTF_8));
+      }
+      return id;
+    }
+
+    private void writeRecord(ByteArrayOutputStream out, byte recordType, byte[] bytes) {
+      crc.reset();
+      crc.update(recordType);
+      crc.update(bytes);
+      writeVarint(out, bytes.length);
+      out.write(recordType);
+      out.write(bytes, 0, bytes.length);
+      writeInt(out, (int) crc.getValue());
+    }
+  }
+
+  /**
+   * Reads the events of one segment from a buffer, such as a memory-mapped file, checking
+   * every record's CRC. Not safe for concurrent use.
+   */
+  public static final class Reader {
+
+    private final ByteBuffer buffer;
+    private final List<String> dictionary = new ArrayList<>();
+    private final CRC32C crc = new CRC32C();
+    private long timestampMillis;
+    private long previousMillis;
+    private long eventOffset;
+    private int stringsRead;
+    private boolean truncated;
+
+    /**
+     * Creates a reader positioned after the segment header.
+     *
+     * @param buffer the segment's bytes, from position zero
+     * @throws IOException if the buffer does not start with a segment header
+     */
+    public Reader(ByteBuffer buffer) throws IOException {
+      this(buffer, List.of());
+    }
+
+    /**
+     * Creates a reader positioned after the segment header that already knows the first
+     * strings of the segment's dictionary, as returned by {@link #dictionary} of an earlier
+     * reader. Together with {@link #seek}, this resumes reading a segment, or a longer
+     * mapping of it, where that reader left off.
+     *
+     * @param buffer the segment's bytes, from position zero
+     * @param dictionary the strings the segment defines first, in order
+     * @throws IOException if the buffer does not start with a segment header
+     */
+    public Reader(ByteBuffer buffer, List<String> dictionary) throws IOException {
+      this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+      if (!isSegment(this.buffer)) {
+        throw new IOException("Not a binary client event segment");
+      }
+      this.buffer.position(HEADER_SIZE);
+      this.dictionary.addAll(dictionary);
+    }
+
+    /**
+     * Returns whether {@code bytes}, from its position, starts with a segment header.
+     */
+    public static boolean isSegment(ByteBuffer bytes) {
+      if (bytes.remaining() < HEADER_SIZE) {
+        return false;
+      }
+      for (int i = 0; i < MAGIC.length; i++) {
+        if (bytes.get(bytes.position() + i) != MAGIC[i]) {
+          return false;
+        }
+      }
+      return bytes.get(bytes.position() + MAGIC.length) == VERSION;
+    }
+
+    /**
+     * Reads the next event.
+     *
+     * @return the event, or {@code null} at the end of the segment
+     * @throws IOException if a record is corrupt
+     */
+    public ClientEvent next() throws IOException {
+      while (buffer.remaining() >= MIN_FRAME_SIZE) {
+        int start = buffer.position();
+        long length;
+        try {
+          length = readVarint(buffer);
+        } catch (BufferUnderflowException e) {
+          length = -1;
+        }
+        int typeAt = buffer.position();
+        if (length < 0 || length > buffer.limit() - typeAt - 5) {
+          // The last record was cut short, most likely by a crash during the write
+          buffer.position(start);
+          truncated = true;
+          return null;
+        }
+        byte recordType = buffer.get(typeAt);
+        ByteBuffer body = buffer.slice(typeAt + 1, (int) length);
+        crc.reset();
+        crc.update(recordType);
+        crc.update(body.duplicate());
+        int end = typeAt + 1 + (int) length;
+        if ((int) crc.getValue() != buffer.getInt(end)) {
+          throw new IOException("Corrupt client event record at offset " + start);
+        }
+        buffer.position(end + 4);
+        try {
+          if (recordType == STRING_RECORD) {
+            // After a seek, strings up to the dictionary's end are being read a second time
+            if (stringsRead == dictionary.size()) {
+              dictionary.add(StandardCharsets.UTF_8.decode(body).toString());
+            }
+            stringsRead++;
+          } else if (recordType == EVENT_RECORD) {
+            eventOffset = start;
+            return decodeEvent(body);
+          } else {
+            throw new IOException("Unknown client event record type at offset " + start);
+          }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+          throw new IOException("Malformed client event record at offset " + start, e);
+        }
+      }
+      truncated = buffer.hasRemaining();
+      return null;
+    }
+
+    /**
+     * Returns the epoch milliseconds of the last event read, or {@link Long#MIN_VALUE} if
+     * it had no timestamp or one that is not an ISO-8601 instant.
+     */
+    public long timestampMillis() {
+      return timestampMillis;
+    }
+
+    /**
+     * Returns the offset in the segment of the record holding the last event read.
+     */
+    public long eventOffset() {
+      return eventOffset;
+    }
+
+    /**
+     * Returns the offset in the segment of the next record to be read.
+     */
+    public long position() {
+      return buffer.position();
+    }
+
+    /**
+     * Returns the timestamp the next event's is stored relative to; pass it to
+     * {@link #seek} with {@link #position} to resume reading here later.
+     */
+    public long timestampBase() {
+      return previousMillis;
+    }
+
+    /**
+     * Returns how many string records have been passed on the way to {@link #position};
+     * pass it to {@link #seek} to resume reading here later.
+     */
+    public int stringsRead() {
+      return stringsRead;
+    }
+
+    /**
+     * Returns a copy of the strings defined so far, in id order.
+     */
+    public List<String> dictionary() {
+      return List.copyOf(dictionary);
+    }
+
+    /**
+     * Moves to a record offset taken from {@link #position}, or from {@link #eventOffset}
+     * before the event was read. Only the strings the reader already knows can be used,
+     * so this is for moving within the part of the segment that has been read.
+     *
+     * @param offset the offset of a record
+     * @param timestampBase the {@link #timestampBase} when the reader was at that offset
+     * @param stringsRead the {@link #stringsRead} when the reader was at that offset
+     */
+    public void seek(long offset, long timestampBase, int stringsRead) {
+      buffer.position((int) offset);
+      previousMillis = timestampBase;
+      this.stringsRead = stringsRead;
+      truncated = false;
+    }
+
+    /**
+     * Returns whether reading stopped at a record that was cut short.
+     */
+    public boolean isTruncated() {
+      return truncated;
+    }
+
+    private ClientEvent decodeEvent(ByteBuffer body) throws IOException {
+      int present = (int) readVarint(body);
+      ClientEvent event = new ClientEvent();
+      if ((present & INSTANCE_ID) != 0) {
+        event.setInstanceId(string(body));
+      }
+      if ((present & SERVICE_CLIENT_ID) != 0) {
+        event.setServiceClientId((int) unzigzag(readVarint(body)));
+      }
+      if ((present & USER_ID) != 0) {
+        event.setUserId(string(body));
+      }
+      if ((present & TYPE) != 0) {
+        event.setType(string(body));
+      }
+      if ((present & EVENT) != 0) {
+        event.setEvent(string(body));
+      }
+      if ((present & RECIPE_ID) != 0) {
+        event.setRecipeId((int) unzigzag(readVarint(body)));
+      }
+      if ((present & RECIPE_TITLE) != 0) {
+        event.setRecipeTitle(string(body));
+      }
+      timestampMillis = Long.MIN_VALUE;
+      if ((present & TIMESTAMP_TEXT) != 0) {
+        event.setTimestamp(string(body));
+      } else if ((present & TIMESTAMP_MILLIS) != 0) {
+        timestampMillis = previousMillis + unzigzag(readVarint(body));
+        previousMillis = timestampMillis;
+        Instant instant = Instant.ofEpochMilli(timestampMillis);
+        event.setTimestamp((present & TIMESTAMP_FIXED_MILLIS) != 0
+            ? FIXED_MILLIS.format(instant) : instant.toString());
+      }
+      return event;
+    }
+
+    private String string(ByteBuffer body) throws IOException {
+      long id = readVarint(body);
+      if (id >= dictionary.size()) {
+        throw new IOException("Undefined client event string " + id);
+      }
+      return dictionary.get((int) id);
+    }
+  }
+
+  /**
+   * Returns how a timestamp can be stored: as epoch milliseconds in the style it prints
+   * back in, or as text.
+   */
+  private static int timestampStyle(String timestamp) {
+    try {
+      Instant instant = Instant.parse(timestamp);
+      if (instant.getNano() % 1_000_000 != 0) {
+        return TIMESTAMP_TEXT;
+      }
+      if (instant.toString().equals(timestamp)) {
+        return TIMESTAMP_MILLIS;
+      }
+      if (FIXED_MILLIS.format(instant).equals(timestamp)) {
+        return TIMESTAMP_MILLIS | TIMESTAMP_FIXED_MILLIS;
+      }
+    } catch (DateTimeException | ArithmeticException e) {
+      return TIMESTAMP_TEXT;
+    }
+    return TIMESTAMP_TEXT;
+  }
+
+  private static void writeIdIfPresent(ByteArrayOutputStream out, int id) {
+    if (id >= 0) {
+      writeVarint(out, id);
+    }
+  }
+
+  private static void writeInt(ByteArrayOutputStream out, int value) {
+    out.write(value >>> 24);
+    out.write(value >>> 16);
+    out.write(value >>> 8);
+    out.write(value);
+  }
+
+  private static void writeVarint(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static long readVarint(ByteBuffer in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint in client event record");
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
@@ -0,0 +1,83 @@
+package dev.coms4156.project.calorieservice.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Converts client event logs between JSON lines and the {@link BinaryEventFormat}.
+ */
+public final class ClientEventConverter {
+
+  private ClientEventConverter() {
+  }
+
+  /**
+   * Writes the events of a JSON lines log to a new binary segment. Blank lines are skipped.
+   *
+   * @param objectMapper the object mapper used to read each line
+   * @param jsonLines the JSON lines log to read
+   * @param segment the binary segment to create or replace
+   * @return the number of events converted
+   * @throws IOException if a file cannot be read or written, or a line is not an event
+   */
+  public static long toBinary(ObjectMapper objectMapper, Path jsonLines, Path segment)
+      throws IOException {
+    BinaryEventFormat.Encoder encoder = new BinaryEventFormat.Encoder();
+    ByteArrayOutputStream records = new ByteArrayOutputStream(64 * 1024);
+    long count = 0;
+    try (BufferedReader in = Files.newBufferedReader(jsonLines, StandardCharsets.UTF_8);
+        OutputStream out = Files.newOutputStream(segment)) {
+      out.write(BinaryEventFormat.header());
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+        encoder.encode(objectMapper.readValue(line, ClientEvent.class), records);
+        count++;
+        if (records.size() >= 64 * 1024) {
+          records.writeTo(out);
+          records.reset();
+        }
+      }
+      records.writeTo(out);
+    }
+    return count;
+  }
+
+  /**
+   * Writes the events of a binary segment to a new JSON lines log, one event per line.
+   *
+   * @param objectMapper the object mapper used to write each line
+   * @param segment the binary segment to read
+   * @param jsonLines the JSON lines log to create or replace
+   * @return the number of events converted
+   * @throws IOException if a file cannot be read or written, or a record is corrupt
+   */
+  public static long toJsonLines(ObjectMapper objectMapper, Path segment, Path jsonLines)
+      throws IOException {
+    long count = 0;
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ);
+        Writer out = Files.newBufferedWriter(jsonLines, StandardCharsets.UTF_8)) {
+      MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      BinaryEventFormat.Reader reader = new BinaryEventFormat.Reader(bytes);
+      ClientEvent event;
+      while ((event = reader.next()) != null) {
+        out.write(objectMapper.writeValueAsString(event));
+        out.write(System.lineSeparator());
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,585 @@
+package dev.coms4156.project.calorieservice.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.coms4156.project.calorieservice.util.RingBuffer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Appends client events to the client event log without making request threads wait on
+ * the disk. Events are queued in a bounded lock-free {@link RingBuffer}; one writer thread
+ * drains whatever has queued up every flush interval, encodes it as JSON lines or in the
+ * {@link BinaryEventFormat} and appends the whole batch to a {@link FileChannel} that stays
+ * open between batches (group commit).
+ * Events appended together with {@link #appendAll} take one slot in the buffer and are
+ * written next to each other in the same write.
+ *
+ * <p>The file is rolled over by size and by time into archived segments, which a
+ * {@link ClientLogArchiver} compresses and prunes in the background. It is also reopened
+ * when it has been deleted or moved away, so an external log rotation does not send events
+ * into an unlinked file. What happens when producers outrun the writer is set by the
+ * {@link Overflow} policy, and how often the file is forced to the storage device by the
+ * {@link Fsync} policy.
+ */
+@Component
+public class ClientEventLog {
+
+  private static final Logger logger = LoggerFactory.getLogger(ClientEventLog.class);
+
+  /** What {@link #append} does when the buffer is full. */
+  public enum Overflow {
+    /** Reject the event. */
+    DROP,
+    /** Wait until the writer frees space. */
+    BLOCK,
+    /** Once the buffer is three quarters full, keep only one event in every sample rate. */
+    SAMPLE
+  }
+
+  /** When written events are forced to the storage device. */
+  public enum Fsync {
+    /** Leave it to the operating system. */
+    NONE,
+    /** After every batch the writer appends. */
+    BATCH
+  }
+
+  /** How events are encoded in the file. */
+  public enum Format {
+    /** One JSON object per line. */
+    JSON,
+    /** Segments in the {@link BinaryEventFormat}. */
+    BINARY
+  }
+
+  /** The default location of the client event log. */
+  public static final Path DEFAULT_FILE = Path.of("logs", "client-events.log");
+
+  private static final int MAX_BATCH = 1024;
+  private static final long BLOCK_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+  private static final byte[] LINE_SEPARATOR =
+      System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+  private final ObjectMapper objectMapper;
+  private final Path file;
+  private final RingBuffer<List<ClientEvent>> buffer;
+  private final long flushIntervalNanos;
+  private final Fsync fsync;
+  private final Overflow overflow;
+  private final int sampleRate;
+  private final int highWater;
+  private final Format format;
+  private final ClientLogArchiver archiver;
+  private final LongSupplier clock;
+
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final AtomicLong sampled = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong batches = new AtomicLong();
+  private final ReentrantLock progressLock = new ReentrantLock();
+  private final Condition progress = progressLock.newCondition();
+  private volatile long processed;
+  private volatile boolean closed;
+  private volatile Thread writer;
+  private volatile boolean writerDone;
+
+  // Only touched by the writer thread
+  private FileChannel channel;
+  private Object fileKey;
+  private long fileSize;
+  private long headerSize;
+  private final BinaryEventFormat.Encoder encoder = new BinaryEventFormat.Encoder();
+  private long fileStartedMillis;
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+
+  /**
+   * Constructs a {@code ClientEventLog} writing to {@link #DEFAULT_FILE} with the default
+   * settings: an 8192-slot buffer, a 20 ms flush interval, no fsync, dropping events
+   * when the buffer is full and {@link ClientLogArchiver.Policy#DEFAULT} rotation.
+   *
+   * @param objectMapper the object mapper used to serialize client events
+   */
+  public ClientEventLog(ObjectMapper objectMapper) {
+    this(objectMapper, DEFAULT_FILE);
+  }
+
+  /**
+   * Constructs a {@code ClientEventLog} writing to {@code file} with the default settings.
+   *
+   * @param objectMapper the object mapper used to serialize client events
+   * @param file the log file to append to
+   */
+  public ClientEventLog(ObjectMapper objectMapper, Path file) {
+    this(objectMapper, file, Format.JSON, 8192, Duration.ofMillis(20), Fsync.NONE,
+        Overflow.DROP, 10, ClientLogArchiver.Policy.DEFAULT, System::currentTimeMillis);
+  }
+
+  /**
+   * Constructs a {@code ClientEventLog} from the {@code client-log.*} properties.
+   *
+   * @param objectMapper the object mapper used to serialize client events
+   * @param file the log file to append to
+   * @param format {@code json} or {@code binary}
+   * @param bufferCapacity how many appends may wait for the writer
+   * @param flushIntervalMillis the longest an accepted event waits before it is written
+   * @param fsync {@code none} or {@code batch}
+   * @param overflow {@code drop}, {@code block} or {@code sample}
+   * @param sampleRate under the sample policy, one in this many events is kept
+   * @param maxFileSize roll the file over before it grows past this size, such as 10MB
+   * @param rotationInterval roll the file over when this interval ends, such as 1d
+   * @param compress whether rolled over segments are gzip-compressed
+   * @param maxHistory how many rolled over segments to keep, or 0 to keep them all
+   */
+  @Autowired
+  public ClientEventLog(ObjectMapper objectMapper,
+      @Value("${client-log.file:logs/client-events.log}") String file,
+      @Value("${client-log.format:json}") String format,
+      @Value("${client-log.buffer-capacity:8192}") int bufferCapacity,
+      @Value("${client-log.flush-interval-ms:20}") long flushIntervalMillis,
+      @Value("${client-log.fsync:none}") String fsync,
+      @Value("${client-log.overflow:drop}") String overflow,
+      @Value("${client-log.sample-rate:10}") int sampleRate,
+      @Value("${client-log.rotation.max-file-size:10MB}") String maxFileSize,
+      @Value("${client-log.rotation.interval:1d}") String rotationInterval,
+      @Value("${client-log.rotation.compress:true}") boolean compress,
+      @Value("${client-log.rotation.max-history:30}") int maxHistory) {
+    this(objectMapper, Path.of(file), Format.valueOf(format.trim().toUpperCase(Locale.ROOT)),
+        bufferCapacity, Duration.ofMillis(flushIntervalMillis),
+        Fsync.valueOf(fsync.trim().toUpperCase(Locale.ROOT)),
+        Overflow.valueOf(overflow.trim().toUpperCase(Locale.ROOT)), sampleRate,
+        new ClientLogArchiver.Policy(DataSize.parse(maxFileSize).toBytes(),
+            DurationStyle.detectAndParse(rotationInterval), compress, maxHistory),
+        System::currentTimeMillis);
+  }
+
+  /**
+   * Constructs a {@code ClientEventLog} with explicit settings.
+   *
+   * @param objectMapper the object mapper used to serialize client events
+   * @param file the log file to append to
+   * @param format how events are encoded in the file
+   * @param bufferCapacity how many appends may wait for the writer
+   * @param flushInterval the longest an accepted event waits before it is written
+   * @param fsync when written events are forced to the storage device
+   * @param overflow what to do with events that arrive while the buffer is full
+   * @param sampleRate under {@link Overflow#SAMPLE}, one in this many events is kept
+   * @param rotation when the file is rolled over and how many segments are kept
+   * @param clock source of the current time in epoch milliseconds, for time rotation
+   */
+  public ClientEventLog(ObjectMapper objectMapper, Path file, Format format,
+      int bufferCapacity, Duration flushInterval, Fsync fsync, Overflow overflow, int sampleRate,
+      ClientLogArchiver.Policy rotation, LongSupplier clock) {
+    if (flushInterval.isNegative() || flushInterval.isZero()) {
+      throw new IllegalArgumentException("Flush interval must be positive");
+    }
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("Sample rate must be positive");
+    }
+    this.objectMapper = objectMapper;
+    this.file = file;
+    this.format = Objects.requireNonNull(format);
+    this.buffer = new RingBuffer<>(bufferCapacity);
+    this.flushIntervalNanos = flushInterval.toNanos();
+    this.fsync = Objects.requireNonNull(fsync);
+    this.overflow = Objects.requireNonNull(overflow);
+    this.sampleRate = sampleRate;
+    this.highWater = buffer.capacity() - buffer.capacity() / 4;
+    this.archiver = new ClientLogArchiver(file, rotation);
+    this.clock = clock;
+  }
+
+  /**
+   * Queues an event to be appended to the log. Returns without waiting for the write,
+   * except under the {@link Overflow#BLOCK} policy while the buffer is full.
+   *
+   * @param event the event to log
+   * @return {@code true} if the event was queued, {@code false} if it was dropped
+   */
+  public boolean append(ClientEvent event) {
+    return enqueue(List.of(event));
+  }
+
+  /**
+   * Queues events to be appended to the log together, in order, with a single write.
+   * Either every event is queued or, if the buffer has no room, none is.
+   *
+   * @param events the events to log
+   * @return {@code true} if the events were queued, {@code false} if they were dropped
+   */
+  public boolean appendAll(List<ClientEvent> events) {
+    if (events.isEmpty()) {
+      return true;
+    }
+    return enqueue(List.copyOf(events));
+  }
+
+  private boolean enqueue(List<ClientEvent> entry) {
+    if (closed) {
+      dropped.addAndGet(entry.size());
+      return false;
+    }
+    startWriter();
+    boolean queued = switch (overflow) {
+      case DROP -> buffer.offer(entry);
+      case SAMPLE -> sampledIn() && buffer.offer(entry);
+      case BLOCK -> offerBlocking(entry);
+    };
+    if (!queued) {
+      dropped.addAndGet(entry.size());
+      return false;
+    }
+    if (buffer.size() >= highWater) {
+      // Write now rather than at the end of the interval, before producers run out of room
+      LockSupport.unpark(writer);
+    }
+    return true;
+  }
+
+  private boolean sampledIn() {
+    return buffer.size() < highWater || sampled.getAndIncrement() % sampleRate == 0;
+  }
+
+  private boolean offerBlocking(List<ClientEvent> entry) {
+    while (!buffer.offer(entry)) {
+      if (closed || Thread.currentThread().isInterrupted()) {
+        return false;
+      }
+      LockSupport.unpark(writer);
+      LockSupport.parkNanos(this, BLOCK_WAIT_NANOS);
+    }
+    return true;
+  }
+
+  /**
+   * Waits until every event queued before this call has been written, or has failed to
+   * be written.
+   *
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   */
+  public void flush() throws InterruptedException {
+    long target = buffer.offered();
+    if (!started.get()) {
+      return;
+    }
+    progressLock.lock();
+    try {
+      while (processed < target && !writerDone) {
+        LockSupport.unpark(writer);
+        progress.await(flushIntervalNanos, TimeUnit.NANOSECONDS);
+      }
+    } finally {
+      progressLock.unlock();
+    }
+  }
+
+  /**
+   * Writes out every queued event, stops the writer thread, closes the file and waits for
+   * rolled over segments to be compressed. Events appended afterwards are dropped.
+   */
+  @PreDestroy
+  public void close() {
+    closed = true;
+    Thread current = writer;
+    if (current != null) {
+      LockSupport.unpark(current);
+      try {
+        current.join(TimeUnit.SECONDS.toMillis(10));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    archiver.close();
+  }
+
+  /**
+   * Returns the file events are appended to.
+   */
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Returns how events are encoded in the file.
+   */
+  public Format getFormat() {
+    return format;
+  }
+
+  /**
+   * Returns the segments the file has been rolled over into, oldest first.
+   *
+   * @return the archived segment files, compressed or not
+   * @throws IOException if the log directory could not be listed
+   */
+  public List<Path> archivedSegments() throws IOException {
+    return archiver.archivedSegments();
+  }
+
+  /**
+   * Returns how many appends are waiting to be written.
+   */
+  public int queued() {
+    return buffer.size();
+  }
+
+  /**
+   * Returns how many appends can wait to be written before the buffer is full.
+   */
+  public int capacity() {
+    return buffer.capacity();
+  }
+
+  /**
+   * Returns how many events have been written to the file.
+   */
+  public long written() {
+    return written.get();
+  }
+
+  /**
+   * Returns how many events were rejected because the buffer was full or the log closed.
+   */
+  public long dropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Returns how many queued events were lost because the file could not be written.
+   */
+  public long failed() {
+    return failed.get();
+  }
+
+  /**
+   * Returns how many batches the writer has appended.
+   */
+  public long batches() {
+    return batches.get();
+  }
+
+  private void startWriter() {
+    if (started.get() || !started.compareAndSet(false, true)) {
+      return;
+    }
+    // Started on first use, so instances that never log do not hold a thread
+    Thread thread = Thread.ofPlatform().name("client-log-writer").daemon()
+        .unstarted(this::runWriter);
+    writer = thread;
+    thread.start();
+  }
+
+  private void runWriter() {
+    List<List<ClientEvent>> batch = new ArrayList<>(MAX_BATCH);
+    try {
+      while (true) {
+        boolean stopping = closed;
+        buffer.drainTo(batch, MAX_BATCH);
+        if (!batch.isEmpty()) {
+          commit(batch);
+          batch.clear();
+          continue;
+        }
+        if (stopping) {
+          break;
+        }
+        LockSupport.parkNanos(this, flushIntervalNanos);
+      }
+    } finally {
+      closeChannel();
+      progressLock.lock();
+      try {
+        writerDone = true;
+        progress.signalAll();
+      } finally {
+        progressLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Appends a batch with a single write, then lets waiting {@link #flush} calls return.
+   */
+  private void commit(List<List<ClientEvent>> batch) {
+    int encoded = -1;
+    try {
+      ensureOpen();
+      encoded = encode(batch);
+      long now = clock.getAsLong();
+      if (archiver.isDue(fileSize - headerSize, fileStartedMillis, pending.size(), now)) {
+        rollOver();
+        if (format == Format.BINARY) {
+          // The new segment has to define its own strings
+          encoded = encode(batch);
+        }
+      }
+      if (fileSize == headerSize) {
+        fileStartedMillis = now;
+      }
+      ByteBuffer bytes = ByteBuffer.wrap(pending.toByteArray());
+      while (bytes.hasRemaining()) {
+        fileSize += channel.write(bytes);
+      }
+      if (fsync == Fsync.BATCH) {
+        channel.force(false);
+      }
+      written.addAndGet(encoded);
+      batches.incrementAndGet();
+    } catch (IOException e) {
+      logger.error("Error writing client events: {}", e.getMessage(), e);
+      failed.addAndGet(encoded >= 0 ? encoded : batch.stream().mapToInt(List::size).sum());
+      closeChannel();
+    }
+    progressLock.lock();
+    try {
+      processed += batch.size();
+      progress.signalAll();
+    } finally {
+      progressLock.unlock();
+    }
+  }
+
+  /**
+   * Encodes a batch into {@code pending} in the configured format.
+   *
+   * @return the number of events encoded
+   */
+  private int encode(List<List<ClientEvent>> batch) {
+    pending.reset();
+    int encoded = 0;
+    for (List<ClientEvent> entry : batch) {
+      for (ClientEvent event : entry) {
+        if (format == Format.BINARY) {
+          encoder.encode(event, pending);
+          encoded++;
+          continue;
+        }
+        try {
+          pending.write(objectMapper.writeValueAsBytes(event));
+          pending.write(LINE_SEPARATOR);
+          encoded++;
+        } catch (JsonProcessingException e) {
+          logger.warn("Error serializing client event: {}", e.getMessage(), e);
+          failed.incrementAndGet();
+        } catch (IOException e) {
+          // ByteArrayOutputStream does not throw
+          throw new IllegalStateException(e);
+        }
+      }
+    }
+    return encoded;
+  }
+
+  /**
+   * Archives the current file and opens a new one. If the file cannot be archived the
+   * events keep going to the current file.
+   */
+  private void rollOver() throws IOException {
+    closeChannel();
+    try {
+      archiver.rollOver(fileStartedMillis);
+    } catch (IOException e) {
+      logger.error("Error rolling over client event log: {}", e.getMessage(), e);
+    }
+    ensureOpen();
+  }
+
+  private void ensureOpen() throws IOException {
+    if (channel != null && channel.isOpen() && sameFile()) {
+      return;
+    }
+    closeChannel();
+    openChannel();
+    headerSize = 0;
+    if (format != Format.BINARY) {
+      return;
+    }
+    if (fileSize > 0) {
+      // A segment this writer did not start, whose strings it does not know, or a JSON
+      // log; either way binary events cannot be added to it
+      closeChannel();
+      archiver.rollOver(fileStartedMillis);
+      openChannel();
+      if (fileSize > 0) {
+        closeChannel();
+        throw new IOException("Cannot start a new client event segment");
+      }
+    }
+    ByteBuffer header = ByteBuffer.wrap(BinaryEventFormat.header());
+    while (header.hasRemaining()) {
+      fileSize += channel.write(header);
+    }
+    headerSize = fileSize;
+    encoder.reset();
+  }
+
+  private void openChannel() throws IOException {
+    Path dir = file.toAbsolutePath().getParent();
+    if (dir != null) {
+      Files.createDirectories(dir);
+    }
+    channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    fileKey = attributes.fileKey();
+    fileSize = channel.size();
+    // An existing file is treated as started when it was last written, which is what
+    // decides whether it still belongs to the current rotation interval
+    fileStartedMillis = attributes.lastModifiedTime().toMillis();
+  }
+
+  /**
+   * Returns whether the path still names the file the channel was opened on.
+   */
+  private boolean sameFile() throws IOException {
+    try {
+      Object key = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+      return key == null || key.equals(fileKey);
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+  }
+
+  private void closeChannel() {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.warn("Error closing client event log: {}", e.getMessage(), e);
+    }
+    channel = null;
+    fileKey = null;
+  }
+}
@@ -0,0 +1,511 @@
+package dev.coms4156.project.calorieservice.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Answers queries over the events in a {@link ClientEventLog}'s archived segments and
+ * active file, in either format, without reading whole files onto the heap.
+ *
+ * <p>Each segment is memory-mapped; compressed segments are first expanded to a temporary
+ * file, which is deleted as soon as it is mapped. Archived segments keep their mapping
+ * until they leave the log, so a compressed one is expanded once, not on every query.
+ * The first query over a segment scans it once to build a sparse index: the events
+ * are split into blocks of {@link #BLOCK_EVENTS}, and the index keeps each block's offset
+ * and timestamp range along with, per user id and per recipe id, the set of blocks holding
+ * an event for it. Later queries only decode the blocks that can match, and skip a
+ * compressed segment without expanding it when none can. Archived segments never change,
+ * so their indexes are built once; the active file's index is extended with whatever was
+ * appended since the last query, and rebuilt if the file was rolled over.
+ *
+ * <p>Events still waiting in the log's buffer are not seen until they are written.
+ */
+@Component
+public class ClientEventReader {
+
+  private static final Logger logger = LoggerFactory.getLogger(ClientEventReader.class);
+
+  /** How many events each index block covers. */
+  public static final int BLOCK_EVENTS = 256;
+
+  // How much of the start of the active file is checked to tell whether it was replaced
+  private static final int PREFIX_CHECK_BYTES = 4096;
+
+  /**
+   * Which events a query matches. Every field is optional; a time range only matches events
+   * whose timestamp is an ISO-8601 instant.
+   */
+  public static final class Query {
+
+    private final String userId;
+    private final Integer recipeId;
+    private final String type;
+    private final long fromMillis;
+    private final long toMillis;
+
+    /**
+     * Creates a query.
+     *
+     * @param userId the user id to match, or {@code null} for any
+     * @param recipeId the recipe id to match, or {@code null} for any
+     * @param type the event type to match, or {@code null} for any
+     * @param from the earliest timestamp to match, inclusive, or {@code null} for no limit
+     * @param to the timestamp to match up to, exclusive, or {@code null} for no limit
+     */
+    public Query(String userId, Integer recipeId, String type, Instant from, Instant to) {
+      this.userId = userId;
+      this.recipeId = recipeId;
+      this.type = type;
+      this.fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+      this.toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+    }
+
+    private boolean hasTimeRange() {
+      return fromMillis != Long.MIN_VALUE || toMillis != Long.MAX_VALUE;
+    }
+
+    private boolean matches(ClientEvent event, long millis) {
+      if (userId != null && !userId.equals(event.getUserId())) {
+        return false;
+      }
+      if (recipeId != null && !recipeId.equals(event.getRecipeId())) {
+        return false;
+      }
+      if (type != null && !type.equals(event.getType())) {
+        return false;
+      }
+      return !hasTimeRange()
+          || millis != Long.MIN_VALUE && millis >= fromMillis && millis < toMillis;
+    }
+  }
+
+  private final ObjectReader eventReader;
+  private final ClientEventLog log;
+  private final Map<Path, SegmentIndex> indexes = new ConcurrentHashMap<>();
+  private final AtomicLong eventsRead = new AtomicLong();
+
+  /**
+   * Creates a reader over the segments of {@code log}.
+   *
+   * @param objectMapper the object mapper used to read JSON lines segments
+   * @param log the log whose segments are queried
+   */
+  public ClientEventReader(ObjectMapper objectMapper, ClientEventLog log) {
+    this.eventReader = objectMapper.readerFor(ClientEvent.class);
+    this.log = log;
+  }
+
+  /**
+   * Passes the events matching {@code query} to {@code sink}, oldest segment first and in
+   * the order they were written within a segment.
+   *
+   * @param query which events to return
+   * @param limit the most events to return
+   * @param sink receives each matching event
+   * @return the number of events passed to {@code sink}
+   * @throws IOException if a segment cannot be read
+   */
+  public int query(Query query, int limit, Consumer<ClientEvent> sink) throws IOException {
+    List<Path> segments = new ArrayList<>(log.archivedSegments());
+    Path active = log.getFile();
+    segments.add(active);
+    // Segments that were compressed or deleted since the last query are gone for good
+    indexes.keySet().retainAll(segments);
+
+    int matched = 0;
+    for (Path segment : segments) {
+      if (matched >= limit) {
+        break;
+      }
+      try {
+        matched += querySegment(segment, !segment.equals(active), query, limit - matched, sink);
+      } catch (NoSuchFileException e) {
+        // Compressed by the archiver since it was listed
+        Path compressed = segment.resolveSibling(segment.getFileName() + ".gz");
+        if (!segment.equals(active) && Files.exists(compressed)) {
+          matched += querySegment(compressed, true, query, limit - matched, sink);
+        }
+      }
+    }
+    return matched;
+  }
+
+  /**
+   * Returns how many events queries have decoded in total, including those that did not
+   * match; a measure of how much work the index saved.
+   */
+  public long eventsRead() {
+    return eventsRead.get();
+  }
+
+  private int querySegment(Path segment, boolean archived, Query query, int limit,
+      Consumer<ClientEvent> sink) throws IOException {
+    SegmentIndex index = indexes.computeIfAbsent(segment, path -> new SegmentIndex());
+    List<Block> blocks;
+    List<String> dictionary;
+    boolean binary;
+    ByteBuffer bytes;
+    if (index.sealed) {
+      blocks = index.select(query);
+      if (blocks.isEmpty()) {
+        return 0;
+      }
+      dictionary = index.dictionary;
+      binary = index.binary;
+      bytes = index.mapped;
+    } else {
+      // Mapped under the lock, so a mapping older than the index is never used to extend it
+      index.lock.lock();
+      try {
+        bytes = map(segment);
+        index.extend(bytes, eventReader);
+        if (archived) {
+          index.mapped = bytes;
+          index.sealed = true;
+        }
+        blocks = index.select(query);
+        dictionary = index.dictionary;
+        binary = index.binary;
+      } finally {
+        index.lock.unlock();
+      }
+    }
+    if (binary) {
+      return scanBinary(bytes, dictionary, blocks, query, limit, sink);
+    }
+    return scanJsonLines(bytes, blocks, query, limit, sink);
+  }
+
+  private int scanBinary(ByteBuffer bytes, List<String> dictionary, List<Block> blocks,
+      Query query, int limit, Consumer<ClientEvent> sink) throws IOException {
+    if (blocks.isEmpty()) {
+      return 0;
+    }
+    BinaryEventFormat.Reader reader = new BinaryEventFormat.Reader(bytes, dictionary);
+    int matched = 0;
+    for (Block block : blocks) {
+      reader.seek(block.offset, block.timestampBase, block.stringsRead);
+      for (int i = 0; i < block.events; i++) {
+        ClientEvent event = reader.next();
+        eventsRead.incrementAndGet();
+        if (query.matches(event, reader.timestampMillis())) {
+          sink.accept(event);
+          if (++matched == limit) {
+            return matched;
+          }
+        }
+      }
+    }
+    return matched;
+  }
+
+  private int scanJsonLines(ByteBuffer bytes, List<Block> blocks, Query query, int limit,
+      Consumer<ClientEvent> sink) {
+    LineReader lines = new LineReader(bytes, eventReader);
+    int matched = 0;
+    for (Block block : blocks) {
+      lines.position = (int) block.offset;
+      for (int i = 0; i < block.events; i++) {
+        ClientEvent event = lines.next();
+        eventsRead.incrementAndGet();
+        if (query.matches(event, parseMillis(event.getTimestamp()))) {
+          sink.accept(event);
+          if (++matched == limit) {
+            return matched;
+          }
+        }
+      }
+    }
+    return matched;
+  }
+
+  /**
+   * Returns the epoch milliseconds of an ISO-8601 instant, or {@link Long#MIN_VALUE} if
+   * {@code timestamp} is not one.
+   */
+  static long parseMillis(String timestamp) {
+    if (timestamp == null) {
+      return Long.MIN_VALUE;
+    }
+    try {
+      return Instant.parse(timestamp).toEpochMilli();
+    } catch (DateTimeException | ArithmeticException e) {
+      return Long.MIN_VALUE;
+    }
+  }
+
+  /**
+   * A run of up to {@link #BLOCK_EVENTS} consecutive events in a segment.
+   */
+  private static final class Block {
+    private final long offset;
+    private final long timestampBase;
+    private final int stringsRead;
+    private int events;
+    private long minMillis = Long.MAX_VALUE;
+    private long maxMillis = Long.MIN_VALUE;
+
+    private Block(long offset, long timestampBase, int stringsRead) {
+      this.offset = offset;
+      this.timestampBase = timestampBase;
+      this.stringsRead = stringsRead;
+    }
+
+    private Block copy() {
+      Block copy = new Block(offset, timestampBase, stringsRead);
+      copy.events = events;
+      copy.minMillis = minMillis;
+      copy.maxMillis = maxMillis;
+      return copy;
+    }
+  }
+
+  /**
+   * The sparse index of one segment. Guarded by {@link #lock}, except that {@link #sealed}
+   * is only set once the index and {@link #mapped} are complete.
+   */
+  private static final class SegmentIndex {
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean sealed;
+    // The mapping of a sealed segment, shared by every query over it
+    private ByteBuffer mapped;
+    private boolean binary;
+    private long indexedTo;
+    private final List<Block> blocks = new ArrayList<>();
+    private final Map<String, BitSet> userBlocks = new HashMap<>();
+    private final Map<Integer, BitSet> recipeBlocks = new HashMap<>();
+    private int prefixLength;
+    private int prefixCrc;
+    // Where a binary reader left off, to resume from on the next extend
+    private List<String> dictionary = List.of();
+    private long timestampBase;
+    private int stringsRead;
+
+    /**
+     * Indexes the events appended since the last call, starting over if the file no longer
+     * starts with the bytes it did then.
+     */
+    private void extend(ByteBuffer bytes, ObjectReader eventReader) throws IOException {
+      int size = bytes.limit();
+      if (indexedTo > size || prefixLength > 0 && crc(bytes, prefixLength) != prefixCrc) {
+        reset();
+      }
+      if (indexedTo == 0) {
+        if (size < BinaryEventFormat.HEADER_SIZE) {
+          return;
+        }
+        binary = BinaryEventFormat.Reader.isSegment(bytes);
+      }
+      if (binary) {
+        extendBinary(bytes);
+      } else {
+        extendJsonLines(bytes, eventReader);
+      }
+      prefixLength = (int) Math.min(indexedTo, PREFIX_CHECK_BYTES);
+      prefixCrc = crc(bytes, prefixLength);
+    }
+
+    private void extendBinary(ByteBuffer bytes) throws IOException {
+      BinaryEventFormat.Reader reader = new BinaryEventFormat.Reader(bytes, dictionary);
+      if (indexedTo > 0) {
+        reader.seek(indexedTo, timestampBase, stringsRead);
+      }
+      try {
+        while (true) {
+          long base = reader.timestampBase();
+          ClientEvent event = reader.next();
+          if (event == null) {
+            break;
+          }
+          add(event, reader.timestampMillis(), reader.eventOffset(), base, reader.stringsRead());
+        }
+      } catch (IOException e) {
+        // Records after a corrupt one cannot be told apart, so the index stops before it
+        logger.warn("Error indexing client log segment: {}", e.getMessage(), e);
+      }
+      indexedTo = reader.position();
+      dictionary = reader.dictionary();
+      timestampBase = reader.timestampBase();
+      stringsRead = reader.stringsRead();
+    }
+
+    private void extendJsonLines(ByteBuffer bytes, ObjectReader eventReader) {
+      LineReader lines = new LineReader(bytes, eventReader);
+      lines.position = (int) indexedTo;
+      ClientEvent event;
+      while ((event = lines.next()) != null) {
+        add(event, parseMillis(event.getTimestamp()), lines.lineStart, 0, 0);
+      }
+      indexedTo = lines.position;
+    }
+
+    private void add(ClientEvent event, long millis, long offset, long base, int strings) {
+      Block block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+      if (block == null || block.events == BLOCK_EVENTS) {
+        block = new Block(offset, base, strings);
+        blocks.add(block);
+      }
+      block.events++;
+      if (millis != Long.MIN_VALUE) {
+        block.minMillis = Math.min(block.minMillis, millis);
+        block.maxMillis = Math.max(block.maxMillis, millis);
+      }
+      int number = blocks.size() - 1;
+      if (event.getUserId() != null) {
+        userBlocks.computeIfAbsent(event.getUserId(), id -> new BitSet()).set(number);
+      }
+      if (event.getRecipeId() != null) {
+        recipeBlocks.computeIfAbsent(event.getRecipeId(), id -> new BitSet()).set(number);
+      }
+    }
+
+    /**
+     * Returns copies of the blocks that may hold events matching {@code query}, in order.
+     */
+    private List<Block> select(Query query) {
+      BitSet candidates = new BitSet();
+      candidates.set(0, blocks.size());
+      if (query.userId != null) {
+        candidates.and(userBlocks.getOrDefault(query.userId, new BitSet()));
+      }
+      if (query.recipeId != null) {
+        candidates.and(recipeBlocks.getOrDefault(query.recipeId, new BitSet()));
+      }
+      List<Block> selected = new ArrayList<>();
+      for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+        Block block = blocks.get(i);
+        if (!query.hasTimeRange()
+            || block.minMillis < query.toMillis && block.maxMillis >= query.fromMillis) {
+          selected.add(block.copy());
+        }
+      }
+      return selected;
+    }
+
+    private void reset() {
+      indexedTo = 0;
+      blocks.clear();
+      userBlocks.clear();
+      recipeBlocks.clear();
+      prefixLength = 0;
+      dictionary = List.of();
+      timestampBase = 0;
+      stringsRead = 0;
+    }
+
+    private static int crc(ByteBuffer bytes, int length) {
+      CRC32C crc = new CRC32C();
+      crc.update(bytes.slice(0, length));
+      return (int) crc.getValue();
+    }
+  }
+
+  /**
+   * Reads the complete, parseable lines of a JSON lines segment, skipping blank and
+   * malformed ones the same way whether indexing or querying.
+   */
+  private static final class LineReader {
+    private final ByteBuffer bytes;
+    private final ObjectReader eventReader;
+    private byte[] line = new byte[256];
+    private int position;
+    private int lineStart;
+
+    private LineReader(ByteBuffer bytes, ObjectReader eventReader) {
+      this.bytes = bytes;
+      this.eventReader = eventReader;
+    }
+
+    /**
+     * Returns the next event, or {@code null} if there is no complete line left; a final
+     * line without a newline may still be being written.
+     */
+    private ClientEvent next() {
+      int end = bytes.limit();
+      while (true) {
+        int newline = position;
+        while (newline < end && bytes.get(newline) != '\n') {
+          newline++;
+        }
+        if (newline == end) {
+          return null;
+        }
+        int start = position;
+        int length = newline - start;
+        position = newline + 1;
+        if (line.length < length) {
+          line = new byte[Math.max(length, line.length * 2)];
+        }
+        bytes.get(start, line, 0, length);
+        try {
+          ClientEvent event = eventReader.readValue(line, 0, length);
+          if (event != null) {
+            lineStart = start;
+            return event;
+          }
+        } catch (IOException expected) {
+          // Blank or malformed lines are not events; move on to the next line
+        }
+      }
+    }
+  }
+
+  /**
+   * Maps a segment read-only, through a temporary expanded copy if it is compressed. The
+   * copy is deleted once mapped; its pages stay readable until the mapping is collected.
+   */
+  private static ByteBuffer map(Path segment) throws IOException {
+    if (!segment.getFileName().toString().endsWith(".gz")) {
+      return mapFile(segment, segment);
+    }
+    Path temporary = Files.createTempFile("client-events", ".segment");
+    try {
+      try (InputStream in = new GZIPInputStream(Files.newInputStream(segment), 64 * 1024)) {
+        Files.copy(in, temporary, StandardCopyOption.REPLACE_EXISTING);
+      }
+      return mapFile(temporary, segment);
+    } finally {
+      try {
+        Files.deleteIfExists(temporary);
+      } catch (IOException expected) {
+        // Mapped files cannot be deleted on every platform; clean it up on exit instead
+        temporary.toFile().deleteOnExit();
+      }
+    }
+  }
+
+  private static ByteBuffer mapFile(Path file, Path segment) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("Client log segment too large to map: " + segment);
+      }
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+  }
+}
@@ -0,0 +1,357 @@
+package dev.coms4156.project.calorieservice.client;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts logged client events by {@code type}, {@code event} and {@code recipeId} in
+ * tumbling windows, so totals over recent minutes can be read without scanning the log.
+ *
+ * <p>Each distinct key is given a small integer id, and counts are kept in {@code long}
+ * arrays indexed by it. Recording threads add to one of several striped buffers picked by
+ * thread id, each with its own lock, so concurrent requests rarely wait on each other. A
+ * buffer holds one window at a time; when it is next touched after its window has closed,
+ * or when stats are read, its counts are merged into that window's totals and it starts
+ * over. Only the newest {@code retention} closed windows are kept.
+ *
+ * <p>Each dimension tracks at most {@link #MAX_KEYS} distinct keys; events with further
+ * keys are counted under {@link #OTHER}.
+ */
+@Component
+public class ClientEventStats {
+
+  /** The most distinct keys tracked per dimension. */
+  public static final int MAX_KEYS = 4096;
+
+  /** The key events are counted under once a dimension is full. */
+  public static final String OTHER = "(other)";
+
+  private final long windowMillis;
+  private final int retention;
+  private final LongSupplier clock;
+  private final Keys<String> types = new Keys<>();
+  private final Keys<String> events = new Keys<>();
+  private final Keys<Integer> recipes = new Keys<>();
+  private final Stripe[] stripes;
+  private final ReentrantLock closedLock = new ReentrantLock();
+  // Closed windows by window number (epoch millis / window length), guarded by closedLock
+  private final TreeMap<Long, Counts> closed = new TreeMap<>();
+
+  /**
+   * Constructs a {@code ClientEventStats} with one-minute windows, keeping an hour of them.
+   */
+  public ClientEventStats() {
+    this(Duration.ofMinutes(1), 60, System::currentTimeMillis);
+  }
+
+  /**
+   * Constructs a {@code ClientEventStats} from the {@code client-log.stats.*} properties.
+   *
+   * @param window the length of each tumbling window, such as 1m
+   * @param retention how many closed windows to keep
+   */
+  @Autowired
+  public ClientEventStats(@Value("${client-log.stats.window:1m}") String window,
+      @Value("${client-log.stats.retention:60}") int retention) {
+    this(DurationStyle.detectAndParse(window), retention, System::currentTimeMillis);
+  }
+
+  /**
+   * Constructs a {@code ClientEventStats} with explicit settings.
+   *
+   * @param window the length of each tumbling window
+   * @param retention how many closed windows to keep
+   * @param clock source of the current time in epoch milliseconds
+   */
+  public ClientEventStats(Duration window, int retention, LongSupplier clock) {
+    if (window.toMillis() < 1) {
+      throw new IllegalArgumentException("Stats window must be at least 1ms");
+    }
+    if (retention < 1) {
+      throw new IllegalArgumentException("Stats retention must be at least one window");
+    }
+    this.windowMillis = window.toMillis();
+    this.retention = retention;
+    this.clock = clock;
+    int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()));
+    this.stripes = new Stripe[count * 2];
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Returns the length of each tumbling window.
+   */
+  public Duration getWindow() {
+    return Duration.ofMillis(windowMillis);
+  }
+
+  /**
+   * Returns the longest span {@link #snapshot} can cover.
+   */
+  public Duration getMaxSpan() {
+    return Duration.ofMillis(windowMillis * retention);
+  }
+
+  /**
+   * Counts an event in the current window.
+   *
+   * @param event the logged event
+   */
+  public void record(ClientEvent event) {
+    long window = Math.floorDiv(clock.getAsLong(), windowMillis);
+    int type = event.getType() == null ? -1 : types.id(event.getType());
+    int name = event.getEvent() == null ? -1 : events.id(event.getEvent());
+    int recipe = event.getRecipeId() == null ? -1 : recipes.id(event.getRecipeId());
+    // Spreads consecutive thread ids, such as those of a pool's threads, over the stripes
+    int hash = (int) (Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L >>> 32);
+    Stripe stripe = stripes[hash & (stripes.length - 1)];
+    stripe.lock.lock();
+    try {
+      if (stripe.window != window) {
+        closeStripe(stripe);
+        stripe.window = window;
+      }
+      stripe.counts.add(type, name, recipe);
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the counts over the closed windows spanning the last {@code span}, ending when
+   * the current window began.
+   *
+   * @param span how far back to count; a multiple of {@link #getWindow} no longer than
+   *     {@link #getMaxSpan}
+   * @return the totals and per-key counts, largest first
+   * @throws IllegalArgumentException if {@code span} is not a supported length
+   */
+  public Snapshot snapshot(Duration span) {
+    long millis = span.toMillis();
+    if (millis < windowMillis || millis % windowMillis != 0
+        || millis > windowMillis * retention) {
+      throw new IllegalArgumentException("Window must be a multiple of " + getWindow()
+          + " up to " + getMaxSpan());
+    }
+    long current = Math.floorDiv(clock.getAsLong(), windowMillis);
+    for (Stripe stripe : stripes) {
+      stripe.lock.lock();
+      try {
+        if (stripe.window < current) {
+          closeStripe(stripe);
+        }
+      } finally {
+        stripe.lock.unlock();
+      }
+    }
+
+    long first = current - millis / windowMillis;
+    Counts sum = new Counts();
+    closedLock.lock();
+    try {
+      for (Counts counts : closed.subMap(first, current).values()) {
+        sum.addAll(counts);
+      }
+    } finally {
+      closedLock.unlock();
+    }
+    return new Snapshot(span, Instant.ofEpochMilli(first * windowMillis),
+        Instant.ofEpochMilli(current * windowMillis), sum.total, types.toMap(sum.types),
+        events.toMap(sum.events), recipes.toMap(sum.recipes));
+  }
+
+  /**
+   * Merges a stripe's counts into its window's totals and empties it. The caller holds the
+   * stripe's lock.
+   */
+  private void closeStripe(Stripe stripe) {
+    if (stripe.counts.total == 0) {
+      return;
+    }
+    closedLock.lock();
+    try {
+      closed.computeIfAbsent(stripe.window, window -> new Counts()).addAll(stripe.counts);
+      while (closed.size() > retention) {
+        closed.pollFirstEntry();
+      }
+    } finally {
+      closedLock.unlock();
+    }
+    stripe.counts.clear();
+  }
+
+  /**
+   * Counts in one window, per dimension indexed by key id.
+   */
+  private static final class Counts {
+    private long total;
+    private long[] types = new long[16];
+    private long[] events = new long[16];
+    private long[] recipes = new long[64];
+
+    private void add(int type, int event, int recipe) {
+      total++;
+      types = increment(types, type, 1);
+      events = increment(events, event, 1);
+      recipes = increment(recipes, recipe, 1);
+    }
+
+    private void addAll(Counts other) {
+      total += other.total;
+      types = addAll(types, other.types);
+      events = addAll(events, other.events);
+      recipes = addAll(recipes, other.recipes);
+    }
+
+    private static long[] addAll(long[] counts, long[] other) {
+      if (other.length > counts.length) {
+        counts = Arrays.copyOf(counts, other.length);
+      }
+      for (int i = 0; i < other.length; i++) {
+        counts[i] += other[i];
+      }
+      return counts;
+    }
+
+    private void clear() {
+      total = 0;
+      Arrays.fill(types, 0);
+      Arrays.fill(events, 0);
+      Arrays.fill(recipes, 0);
+    }
+
+    private static long[] increment(long[] counts, int id, long by) {
+      if (id < 0) {
+        return counts;
+      }
+      if (id >= counts.length) {
+        counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+      }
+      counts[id] += by;
+      return counts;
+    }
+  }
+
+  private static final class Stripe {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counts counts = new Counts();
+    private long window = Long.MIN_VALUE;
+  }
+
+  /**
+   * Gives each distinct key of one dimension a dense id, with id 0 reserved for
+   * {@link #OTHER}.
+   */
+  private static final class Keys<K> {
+    private final Map<K, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>(List.of(OTHER));
+
+    private int id(K key) {
+      Integer id = ids.get(key);
+      if (id != null) {
+        return id;
+      }
+      synchronized (this) {
+        id = ids.get(key);
+        if (id != null) {
+          return id;
+        }
+        if (names.size() > MAX_KEYS) {
+          return 0;
+        }
+        id = names.size();
+        names.add(String.valueOf(key));
+        ids.put(key, id);
+        return id;
+      }
+    }
+
+    /**
+     * Returns the non-zero counts by key name, largest first.
+     */
+    private synchronized Map<String, Long> toMap(long[] counts) {
+      List<Integer> present = new ArrayList<>();
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] > 0) {
+          present.add(i);
+        }
+      }
+      present.sort((a, b) -> Long.compare(counts[b], counts[a]));
+      Map<String, Long> map = new LinkedHashMap<>();
+      for (int id : present) {
+        map.put(names.get(id), counts[id]);
+      }
+      return map;
+    }
+  }
+
+  /**
+   * Event counts over a span of closed windows.
+   */
+  public static final class Snapshot {
+    private final Duration window;
+    private final Instant from;
+    private final Instant to;
+    private final long total;
+    private final Map<String, Long> byType;
+    private final Map<String, Long> byEvent;
+    private final Map<String, Long> byRecipeId;
+
+    private Snapshot(Duration window, Instant from, Instant to, long total,
+        Map<String, Long> byType, Map<String, Long> byEvent, Map<String, Long> byRecipeId) {
+      this.window = window;
+      this.from = from;
+      this.to = to;
+      this.total = total;
+      this.byType = byType;
+      this.byEvent = byEvent;
+      this.byRecipeId = byRecipeId;
+    }
+
+    /** Returns the span covered, as an ISO-8601 duration. */
+    public String getWindow() {
+      return window.toString();
+    }
+
+    /** Returns when the first window counted began, as an ISO-8601 instant. */
+    public String getFrom() {
+      return from.toString();
+    }
+
+    /** Returns when the last window counted ended, as an ISO-8601 instant. */
+    public String getTo() {
+      return to.toString();
+    }
+
+    public long getTotal() {
+      return total;
+    }
+
+    public Map<String, Long> getByType() {
+      return byType;
+    }
+
+    public Map<String, Long> getByEvent() {
+      return byEvent;
+    }
+
+    public Map<String, Long> getByRecipeId() {
+      return byRecipeId;
+    }
+  }
+}
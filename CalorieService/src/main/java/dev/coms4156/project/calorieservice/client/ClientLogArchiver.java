@@ -0,0 +1,289 @@
+package dev.coms4156.project.calorieservice.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rolls the client event log over into archived segments. The active file is renamed to
+ * {@code <name>.<period start>.<n><extension>}, for example
+ * {@code client-events.2025-01-01T00-00-00Z.0.log}, where the period start is when the
+ * rotation interval the segment was written in began (UTC) and {@code n} tells apart
+ * segments rolled over by size within one interval.
+ *
+ * <p>The rename is all that happens on the caller's thread. Compressing the segment to
+ * {@code .gz} and deleting segments beyond the retention limit run one at a time on a
+ * background thread.
+ */
+public class ClientLogArchiver {
+
+  private static final Logger logger = LoggerFactory.getLogger(ClientLogArchiver.class);
+
+  /**
+   * When the active file is rolled over and how many archived segments are kept.
+   */
+  public static final class Policy {
+
+    /** 10MB files, rolled over daily, compressed, with 30 kept. */
+    public static final Policy DEFAULT = new Policy(10L * 1024 * 1024, Duration.ofDays(1),
+        true, 30);
+
+    private final long maxFileSize;
+    private final long intervalMillis;
+    private final boolean compress;
+    private final int maxHistory;
+
+    /**
+     * Creates a policy.
+     *
+     * @param maxFileSize roll over before a write would make the file larger than this
+     * @param interval roll over when a write falls in a later interval than the file's first
+     * @param compress whether archived segments are gzip-compressed
+     * @param maxHistory how many archived segments to keep, or 0 to keep them all
+     */
+    public Policy(long maxFileSize, Duration interval, boolean compress, int maxHistory) {
+      if (maxFileSize < 1) {
+        throw new IllegalArgumentException("Maximum file size must be positive");
+      }
+      if (interval.toMillis() < 1) {
+        throw new IllegalArgumentException("Rotation interval must be at least 1ms");
+      }
+      if (maxHistory < 0) {
+        throw new IllegalArgumentException("Maximum history must not be negative");
+      }
+      this.maxFileSize = maxFileSize;
+      this.intervalMillis = interval.toMillis();
+      this.compress = compress;
+      this.maxHistory = maxHistory;
+    }
+
+    public long getMaxFileSize() {
+      return maxFileSize;
+    }
+
+    public boolean isCompress() {
+      return compress;
+    }
+
+    public int getMaxHistory() {
+      return maxHistory;
+    }
+
+    /**
+     * Returns the start, in epoch milliseconds, of the interval holding {@code millis}.
+     */
+    public long periodStart(long millis) {
+      return Math.floorDiv(millis, intervalMillis) * intervalMillis;
+    }
+  }
+
+  private static final DateTimeFormatter PERIOD_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH-mm-ss'Z'").withZone(ZoneOffset.UTC);
+  private static final String GZIP_EXTENSION = ".gz";
+
+  private final Path file;
+  private final Policy policy;
+  private final String baseName;
+  private final String extension;
+  private final Pattern segmentName;
+  private final ExecutorService background = Executors.newSingleThreadExecutor(
+      task -> Thread.ofPlatform().name("client-log-archiver").daemon().unstarted(task));
+
+  /**
+   * Creates an archiver for the log at {@code file}.
+   *
+   * @param file the active log file
+   * @param policy when to roll over and how many segments to keep
+   */
+  public ClientLogArchiver(Path file, Policy policy) {
+    this.file = file;
+    this.policy = policy;
+    String name = file.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    this.baseName = dot > 0 ? name.substring(0, dot) : name;
+    this.extension = dot > 0 ? name.substring(dot) : "";
+    this.segmentName = Pattern.compile(Pattern.quote(baseName)
+        + "\\.(\\d{4}-\\d{2}-\\d{2}T\\d{2}-\\d{2}-\\d{2}Z)\\.(\\d+)" + Pattern.quote(extension)
+        + "(" + Pattern.quote(GZIP_EXTENSION) + ")?");
+  }
+
+  /**
+   * Returns the rollover policy.
+   */
+  public Policy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Returns whether a file that is {@code size} bytes long and was started at
+   * {@code startedMillis} must be rolled over before {@code bytes} more are written at
+   * {@code nowMillis}.
+   */
+  public boolean isDue(long size, long startedMillis, long bytes, long nowMillis) {
+    if (size == 0) {
+      return false;
+    }
+    return size + bytes > policy.getMaxFileSize()
+        || policy.periodStart(nowMillis) != policy.periodStart(startedMillis);
+  }
+
+  /**
+   * Renames the active file to a new segment and queues its compression and the removal of
+   * segments beyond the retention limit. The file must not be open for writing.
+   *
+   * @param startedMillis when the first event in the file was written
+   * @return the archived segment
+   * @throws IOException if the file could not be renamed
+   */
+  public Path rollOver(long startedMillis) throws IOException {
+    String period = PERIOD_FORMAT.format(Instant.ofEpochMilli(policy.periodStart(startedMillis)));
+    // Always number past the newest segment of the interval, even if older ones were pruned
+    int n = 0;
+    for (Segment existing : listSegments()) {
+      if (existing.period().equals(period)) {
+        n = Math.max(n, existing.index() + 1);
+      }
+    }
+    Path segment = file.resolveSibling(baseName + "." + period + "." + n + extension);
+    Files.move(file, segment, StandardCopyOption.ATOMIC_MOVE);
+    Path archived = segment;
+    try {
+      background.execute(() -> {
+        if (policy.isCompress()) {
+          compress(archived);
+        }
+        enforceRetention();
+      });
+    } catch (RejectedExecutionException e) {
+      // Closed while shutting down; the segment is kept as it is
+      logger.warn("Client log archiver closed; not compressing {}", archived);
+    }
+    return segment;
+  }
+
+  /**
+   * Returns the archived segments, oldest first. A segment caught between being compressed
+   * and having its original deleted is listed once, as the original.
+   *
+   * @return the segment files, compressed or not
+   * @throws IOException if the log directory could not be listed
+   */
+  public List<Path> archivedSegments() throws IOException {
+    return listSegments().stream().map(Segment::path).toList();
+  }
+
+  private List<Segment> listSegments() throws IOException {
+    Path dir = file.toAbsolutePath().getParent();
+    List<Segment> segments = new ArrayList<>();
+    if (dir == null || !Files.isDirectory(dir)) {
+      return segments;
+    }
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, baseName + ".*")) {
+      for (Path entry : entries) {
+        Matcher matcher = segmentName.matcher(entry.getFileName().toString());
+        if (matcher.matches()) {
+          segments.add(new Segment(entry, matcher.group(1), Integer.parseInt(matcher.group(2))));
+        }
+      }
+    }
+    segments.removeIf(segment -> {
+      String name = segment.path().getFileName().toString();
+      return name.endsWith(GZIP_EXTENSION) && Files.exists(segment.path().resolveSibling(
+          name.substring(0, name.length() - GZIP_EXTENSION.length())));
+    });
+    segments.sort(Comparator.comparing(Segment::period).thenComparingInt(Segment::index));
+    return segments;
+  }
+
+  /**
+   * Waits for queued compression and retention work to finish and stops the background
+   * thread.
+   */
+  public void close() {
+    background.shutdown();
+    try {
+      background.awaitTermination(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void compress(Path segment) {
+    Path compressed = segment.resolveSibling(segment.getFileName() + GZIP_EXTENSION);
+    Path partial = segment.resolveSibling(compressed.getFileName() + ".tmp");
+    try {
+      try (InputStream in = Files.newInputStream(segment);
+          OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024)) {
+        in.transferTo(out);
+      }
+      Files.move(partial, compressed, StandardCopyOption.ATOMIC_MOVE);
+      Files.delete(segment);
+    } catch (IOException e) {
+      // The uncompressed segment is kept, so no events are lost
+      logger.error("Error compressing client log segment: {}", e.getMessage(), e);
+      try {
+        Files.deleteIfExists(partial);
+      } catch (IOException expected) {
+        // Nothing more to do; the partial file is ignored by archivedSegments
+      }
+    }
+  }
+
+  private void enforceRetention() {
+    if (policy.getMaxHistory() == 0) {
+      return;
+    }
+    try {
+      List<Path> segments = archivedSegments();
+      for (int i = 0; i < segments.size() - policy.getMaxHistory(); i++) {
+        Files.deleteIfExists(segments.get(i));
+      }
+    } catch (IOException e) {
+      logger.error("Error deleting old client log segments: {}", e.getMessage(), e);
+    }
+  }
+
+  private static final class Segment {
+    private final Path path;
+    private final String period;
+    private final int index;
+
+    private Segment(Path path, String period, int index) {
+      this.path = path;
+      this.period = period;
+      this.index = index;
+    }
+
+    private Path path() {
+      return path;
+    }
+
+    private String period() {
+      return period;
+    }
+
+    private int index() {
+      return index;
+    }
+  }
+}
@@ -0,0 +1,441 @@
+package dev.coms4156.project.calorieservice.client;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits how fast client events are accepted, per {@code instanceId} and overall, so one
+ * misbehaving client instance cannot fill the {@link ClientEventLog} for everyone.
+ *
+ * <p>Each instance has a token bucket holding up to {@code burst} events and refilled at
+ * {@code rate} events per second. Buckets are refilled lazily when they are used: a
+ * bucket is a single atomic "theoretical arrival time", the time at which it would be
+ * full again, which is advanced with compare-and-set, so taking a token never locks.
+ * Buckets live in a concurrent map; when it reaches {@code maxInstances}, buckets that have
+ * refilled completely are removed, at most once a second, and instances that still do not
+ * fit share one bucket, {@link #OTHER}. Events without an instance id share the bucket
+ * {@link #NO_INSTANCE}. How many events each instance has had rejected is kept apart from
+ * its bucket, so it survives the bucket being removed, for up to {@code maxInstances}
+ * instances.
+ *
+ * <p>A global bucket limits all instances together. Its rate adapts to the log's queue:
+ * it is the configured rate while the queue is at most half full, falls linearly to zero
+ * as the queue fills, and recovers as the writer drains it.
+ */
+@Component
+public class ClientLogRateLimiter {
+
+  /** The bucket shared by events without an instance id. */
+  public static final String NO_INSTANCE = "";
+
+  /** The bucket shared by instances beyond the tracked limit. */
+  public static final String OTHER = "(other)";
+
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final long SWEEP_INTERVAL = SECOND;
+
+  private final boolean enabled;
+  private final long instanceInterval;
+  private final long instanceTolerance;
+  private final long globalInterval;
+  private final long globalTolerance;
+  private final int maxInstances;
+  private final ClientEventLog log;
+  private final LongSupplier nanoClock;
+  private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+  private final Bucket global;
+  private final AtomicLong nextSweep;
+  private final LongAdder globalLimited = new LongAdder();
+  private final Map<String, LongAdder> instanceLimited = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a {@code ClientLogRateLimiter} over {@code log} with the default limits:
+   * 100 events per second per instance with bursts of 1000, 10000 events per second
+   * overall, and up to 10000 tracked instances.
+   *
+   * @param log the log whose queue depth the global limit follows
+   */
+  public ClientLogRateLimiter(ClientEventLog log) {
+    this(true, 100, 1000, 10_000, 10_000, 10_000, log, System::nanoTime);
+  }
+
+  /**
+   * Constructs a {@code ClientLogRateLimiter} from the {@code client-log.rate-limit.*}
+   * properties.
+   *
+   * @param enabled whether events are limited at all
+   * @param instanceRate events per second each instance may sustain
+   * @param instanceBurst events an idle instance may send at once
+   * @param globalRate events per second all instances together may sustain
+   * @param globalBurst events all instances together may send at once; at least a full
+   *     batch
+   * @param maxInstances the most instances given their own bucket
+   * @param log the log whose queue depth the global limit follows
+   */
+  @Autowired
+  public ClientLogRateLimiter(
+      @Value("${client-log.rate-limit.enabled:true}") boolean enabled,
+      @Value("${client-log.rate-limit.instance-rate:100}") double instanceRate,
+      @Value("${client-log.rate-limit.instance-burst:1000}") int instanceBurst,
+      @Value("${client-log.rate-limit.global-rate:10000}") double globalRate,
+      @Value("${client-log.rate-limit.global-burst:10000}") int globalBurst,
+      @Value("${client-log.rate-limit.max-instances:10000}") int maxInstances,
+      ClientEventLog log) {
+    this(enabled, instanceRate, instanceBurst, globalRate, globalBurst, maxInstances, log,
+        System::nanoTime);
+  }
+
+  /**
+   * Constructs a {@code ClientLogRateLimiter} with explicit settings.
+   *
+   * @param enabled whether events are limited at all
+   * @param instanceRate events per second each instance may sustain
+   * @param instanceBurst events an idle instance may send at once
+   * @param globalRate events per second all instances together may sustain
+   * @param globalBurst events all instances together may send at once
+   * @param maxInstances the most instances given their own bucket
+   * @param log the log whose queue depth the global limit follows
+   * @param nanoClock source of the current time in nanoseconds, such as
+   *     {@link System#nanoTime}
+   */
+  public ClientLogRateLimiter(boolean enabled, double instanceRate, int instanceBurst,
+      double globalRate, int globalBurst, int maxInstances, ClientEventLog log,
+      LongSupplier nanoClock) {
+    if (instanceRate <= 0 || globalRate <= 0) {
+      throw new IllegalArgumentException("Rates must be positive");
+    }
+    if (instanceBurst < 1 || globalBurst < 1 || maxInstances < 1) {
+      throw new IllegalArgumentException("Bursts and instance limit must be positive");
+    }
+    this.enabled = enabled;
+    this.instanceInterval = Math.max(1, (long) (SECOND / instanceRate));
+    this.instanceTolerance = instanceInterval * instanceBurst;
+    this.globalInterval = Math.max(1, (long) (SECOND / globalRate));
+    this.globalTolerance = globalInterval * globalBurst;
+    this.maxInstances = maxInstances;
+    this.log = log;
+    this.nanoClock = nanoClock;
+    this.global = new Bucket(null, nanoClock.getAsLong());
+    this.nextSweep = new AtomicLong(global.arrival.get());
+  }
+
+  /**
+   * Takes a token for one event from its instance's bucket and then from the global
+   * bucket, giving the instance's token back if the global bucket is empty.
+   *
+   * @param instanceId the event's instance id, or {@code null}
+   * @return 0 if the event may be logged, otherwise how many nanoseconds to wait
+   */
+  public long acquire(String instanceId) {
+    Permit permit = acquireInstance(instanceId);
+    if (!permit.isGranted()) {
+      return permit.getWait();
+    }
+    long wait = acquireGlobal(1);
+    if (wait > 0) {
+      refundInstance(permit);
+    }
+    return wait;
+  }
+
+  /**
+   * Takes a token for one event from its instance's bucket.
+   *
+   * @param instanceId the event's instance id, or {@code null}
+   * @return the permit, granted if a token was taken, which can give the token back with
+   *     {@link #refundInstance}
+   */
+  public Permit acquireInstance(String instanceId) {
+    if (!enabled) {
+      return new Permit(null, 0);
+    }
+    long now = nanoClock.getAsLong();
+    Bucket bucket = bucket(instanceId == null ? NO_INSTANCE : instanceId, now);
+    long wait = bucket.take(1, instanceInterval, instanceTolerance, now);
+    if (wait > 0) {
+      countLimited(bucket.instanceId);
+      return new Permit(null, wait);
+    }
+    return new Permit(bucket, 0);
+  }
+
+  /**
+   * Gives back the token taken for a permit whose event was not logged after all. Only
+   * the bucket the token was taken from is credited, even if the instance has since
+   * moved to another one.
+   *
+   * @param permit a permit returned by {@link #acquireInstance}
+   */
+  public void refundInstance(Permit permit) {
+    if (permit.bucket != null) {
+      permit.bucket.arrival.addAndGet(-instanceInterval);
+    }
+  }
+
+  /**
+   * Gives back global tokens taken with {@link #acquireGlobal} for events that were not
+   * logged after all. Tokens are credited at the configured rate, so no more than was
+   * taken is ever given back, even if the queue was filling when they were taken.
+   *
+   * @param events the number of events
+   */
+  public void refundGlobal(int events) {
+    if (enabled) {
+      global.arrival.addAndGet(-events * globalInterval);
+    }
+  }
+
+  /**
+   * Takes tokens for {@code events} events from the global bucket, all or none.
+   *
+   * @param events the number of events
+   * @return 0 if the tokens were taken, otherwise how many nanoseconds to wait
+   */
+  public long acquireGlobal(int events) {
+    if (!enabled) {
+      return 0;
+    }
+    long now = nanoClock.getAsLong();
+    double share = queueHeadroom();
+    long wait;
+    if (share <= 0) {
+      // The queue is full; give the writer time to drain it
+      wait = SECOND;
+    } else {
+      long interval = (long) Math.ceil(globalInterval / share);
+      wait = global.take(events, interval, interval * (globalTolerance / globalInterval), now);
+    }
+    if (wait > 0) {
+      globalLimited.add(events);
+    }
+    return wait;
+  }
+
+  /**
+   * Returns the current limits and how many events each instance has had rejected,
+   * most first.
+   *
+   * @param top the most instances to list
+   * @return the limiter's metrics
+   */
+  public Metrics metrics(int top) {
+    List<InstanceDrops> instances = new ArrayList<>();
+    instanceLimited.forEach((instanceId, limited) ->
+        instances.add(new InstanceDrops(instanceId, limited.sum())));
+    instances.sort(Comparator.comparingLong(InstanceDrops::getLimited).reversed());
+    double share = queueHeadroom();
+    return new Metrics(enabled, (double) SECOND / instanceInterval,
+        instanceTolerance / instanceInterval, (double) SECOND / globalInterval * share,
+        log.queued(), log.capacity(), globalLimited.sum(), buckets.size(),
+        instances.size() <= top ? instances : instances.subList(0, top));
+  }
+
+  /**
+   * Returns the share of the global rate currently allowed: 1 while the log's queue is at
+   * most half full, falling linearly to 0 when it is full.
+   */
+  private double queueHeadroom() {
+    double fill = (double) log.queued() / log.capacity();
+    return Math.min(1, Math.max(0, (1 - fill) * 2));
+  }
+
+  /**
+   * Counts a rejected event against its bucket's instance id, or against {@link #OTHER}
+   * once {@code maxInstances} instances have rejections counted.
+   */
+  private void countLimited(String instanceId) {
+    LongAdder limited = instanceLimited.get(instanceId);
+    if (limited == null) {
+      String key = instanceLimited.size() < maxInstances ? instanceId : OTHER;
+      limited = instanceLimited.computeIfAbsent(key, id -> new LongAdder());
+    }
+    limited.increment();
+  }
+
+  private Bucket bucket(String instanceId, long now) {
+    Bucket bucket = buckets.get(instanceId);
+    if (bucket != null) {
+      return bucket;
+    }
+    if (buckets.size() >= maxInstances) {
+      sweep(now);
+      if (buckets.size() >= maxInstances) {
+        return buckets.computeIfAbsent(OTHER, id -> new Bucket(id, now));
+      }
+    }
+    return buckets.computeIfAbsent(instanceId, id -> new Bucket(id, now));
+  }
+
+  /**
+   * Removes buckets that have refilled completely, which behave exactly like new ones, if
+   * no sweep has run in the last {@link #SWEEP_INTERVAL}. Sweeping scans every bucket, so
+   * while the map stays full new instances go to {@link #OTHER} between sweeps rather than
+   * each scanning it again. Only one thread sweeps; the others carry on without waiting.
+   */
+  private void sweep(long now) {
+    long next = nextSweep.get();
+    if (now - next < 0 || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL)) {
+      return;
+    }
+    buckets.entrySet().removeIf(entry -> !OTHER.equals(entry.getKey())
+        && entry.getValue().arrival.get() <= now);
+  }
+
+  /**
+   * A token bucket kept as the time, in nanoseconds, at which it will be full again.
+   */
+  private static final class Bucket {
+    private final String instanceId;
+    private final AtomicLong arrival;
+
+    private Bucket(String instanceId, long now) {
+      this.instanceId = instanceId;
+      this.arrival = new AtomicLong(now);
+    }
+
+    /**
+     * Takes {@code count} tokens, each worth {@code interval} nanoseconds of refill, if
+     * the bucket would then be at most {@code tolerance} nanoseconds from full.
+     *
+     * @return 0 if the tokens were taken, otherwise how long until they can be
+     */
+    private long take(int count, long interval, long tolerance, long now) {
+      while (true) {
+        long current = arrival.get();
+        long next = Math.max(current, now) + count * interval;
+        long wait = next - tolerance - now;
+        if (wait > 0) {
+          return wait;
+        }
+        if (arrival.compareAndSet(current, next)) {
+          return 0;
+        }
+      }
+    }
+  }
+
+  /**
+   * The outcome of taking an instance token: granted, or how long to wait for one.
+   */
+  public static final class Permit {
+    private final Bucket bucket;
+    private final long wait;
+
+    private Permit(Bucket bucket, long wait) {
+      this.bucket = bucket;
+      this.wait = wait;
+    }
+
+    /** Returns whether the event may go on to the global limit. */
+    public boolean isGranted() {
+      return wait == 0;
+    }
+
+    /** Returns 0 if granted, otherwise how many nanoseconds until a token is available. */
+    public long getWait() {
+      return wait;
+    }
+  }
+
+  /**
+   * How many events one instance has had rejected.
+   */
+  public static final class InstanceDrops {
+    private final String instanceId;
+    private final long limited;
+
+    private InstanceDrops(String instanceId, long limited) {
+      this.instanceId = instanceId;
+      this.limited = limited;
+    }
+
+    public String getInstanceId() {
+      return instanceId;
+    }
+
+    public long getLimited() {
+      return limited;
+    }
+  }
+
+  /**
+   * The limiter's settings, current state and rejections.
+   */
+  public static final class Metrics {
+    private final boolean enabled;
+    private final double instanceRate;
+    private final long instanceBurst;
+    private final double globalRate;
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final long globalLimited;
+    private final int trackedInstances;
+    private final List<InstanceDrops> instances;
+
+    private Metrics(boolean enabled, double instanceRate, long instanceBurst,
+        double globalRate, int queueDepth, int queueCapacity, long globalLimited,
+        int trackedInstances, List<InstanceDrops> instances) {
+      this.enabled = enabled;
+      this.instanceRate = instanceRate;
+      this.instanceBurst = instanceBurst;
+      this.globalRate = globalRate;
+      this.queueDepth = queueDepth;
+      this.queueCapacity = queueCapacity;
+      this.globalLimited = globalLimited;
+      this.trackedInstances = trackedInstances;
+      this.instances = instances;
+    }
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    /** Returns the events per second each instance may sustain. */
+    public double getInstanceRate() {
+      return instanceRate;
+    }
+
+    /** Returns the events an idle instance may send at once. */
+    public long getInstanceBurst() {
+      return instanceBurst;
+    }
+
+    /** Returns the events per second all instances may currently sustain together. */
+    public double getGlobalRate() {
+      return globalRate;
+    }
+
+    public int getQueueDepth() {
+      return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+      return queueCapacity;
+    }
+
+    /** Returns how many events the global limit has rejected. */
+    public long getGlobalLimited() {
+      return globalLimited;
+    }
+
+    /** Returns how many instances currently have a bucket of their own. */
+    public int getTrackedInstances() {
+      return trackedInstances;
+    }
+
+    /** Returns the instances with rejected events, most first. */
+    public List<InstanceDrops> getInstances() {
+      return instances;
+    }
+  }
+}
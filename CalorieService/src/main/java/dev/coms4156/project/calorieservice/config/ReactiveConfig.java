@@ -0,0 +1,113 @@
+package dev.coms4156.project.calorieservice.config;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+import static org.springframework.web.reactive.function.server.RequestPredicates.POST;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+import dev.coms4156.project.calorieservice.controller.ReactiveRouteHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ReactorResourceFactory;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Configuration for the reactive deployment, active when the service is started with
+ * {@code spring.main.web-application-type=reactive}. Serves {@code RouteController}
+ * paths through {@link ReactiveRouteHandler} on Netty with a small fixed event-loop pool.
+ *
+ * <p>The reactive deployment is a frozen subset of the default one: it serves only the
+ * paths routed below, and new endpoints and features, such as batch reads, the
+ * {@code fields} parameter, conditional GETs and read coalescing, are added to the default
+ * deployment only.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+  /**
+   * Routes the served {@code RouteController} paths to their reactive handlers.
+   *
+   * @param handler the handler functions
+   * @return the router function
+   */
+  @Bean
+  public RouterFunction<ServerResponse> reactiveRoutes(ReactiveRouteHandler handler) {
+    return route(GET("/"), handler::index)
+        .andRoute(GET("/index"), handler::index)
+        .andRoute(GET("/food/alternative"), handler::getFoodAlternatives)
+        .andRoute(POST("/food/addFood"), handler::addFood)
+        .andRoute(GET("/client/recommendHealthy"), handler::recommendHealthy)
+        .andRoute(GET("/client/recommend"), handler::recommend)
+        .andRoute(GET("/recipe/alternative"), handler::getRecipeAlternatives)
+        .andRoute(GET("/recipe/trending"), handler::getTrendingRecipes)
+        .andRoute(GET("/recipe/topViewed"), handler::getTopViewedRecipes)
+        .andRoute(GET("/recipe/totalCalorie"), handler::getTotalCalories)
+        .andRoute(GET("/recipe/calorieBreakdown"), handler::getCalorieBreakdown)
+        .andRoute(GET("/recipe/uniqueViews"), handler::getUniqueViews)
+        .andRoute(POST("/recipe/addRecipe"), handler::addRecipe)
+        .andRoute(POST("/recipe/viewRecipe"), handler::viewRecipe)
+        .andRoute(POST("/recipe/likeRecipe"), handler::likeRecipe)
+        .andRoute(POST("/client/likeRecipe"), handler::clientLikeRecipe);
+  }
+
+  /**
+   * Creates the Netty resources with a fixed number of event-loop threads. Handlers
+   * never block, so a few threads serve many concurrent connections.
+   *
+   * @param eventLoopThreads number of event-loop threads
+   * @return the resource factory used by the Netty server
+   */
+  @Bean
+  public ReactorResourceFactory reactorResourceFactory(
+      @Value("${reactive.event-loop-threads:4}") int eventLoopThreads) {
+    ReactorResourceFactory factory = new ReactorResourceFactory();
+    factory.setUseGlobalResources(false);
+    factory.setLoopResourcesSupplier(
+        () -> LoopResources.create("calorie-http", eventLoopThreads, true));
+    return factory;
+  }
+
+  /**
+   * Serves the reactive routes from Netty. Declared explicitly because Tomcat is also on
+   * the classpath for the default deployment and would otherwise be preferred.
+   *
+   * @param resourceFactory the Netty resources to run on
+   * @param port the port to listen on
+   * @return the Netty server factory
+   */
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(
+      ReactorResourceFactory resourceFactory, @Value("${server.port:8080}") int port) {
+    NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory(port);
+    factory.setResourceFactory(resourceFactory);
+    return factory;
+  }
+
+  /**
+   * Applies the same CORS rules as {@link CorsConfig} to the reactive routes.
+   *
+   * @return the CORS filter
+   */
+  @Bean
+  public CorsWebFilter corsWebFilter() {
+    CorsConfiguration cors = new CorsConfiguration();
+    cors.addAllowedOrigin("http://localhost:5173");
+    cors.addAllowedMethod("GET");
+    cors.addAllowedMethod("POST");
+    cors.addAllowedMethod("PUT");
+    cors.addAllowedMethod("DELETE");
+    cors.addAllowedMethod("OPTIONS");
+    cors.addAllowedHeader("*");
+    UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+    source.registerCorsConfiguration("/**", cors);
+    return new CorsWebFilter(source);
+  }
+}
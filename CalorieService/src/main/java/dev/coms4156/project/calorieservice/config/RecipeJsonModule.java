@@ -0,0 +1,208 @@
+package dev.coms4156.project.calorieservice.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Jackson module that keeps the serialized JSON of recently written recipes, so a recipe
+ * that has not changed since it was last written is copied into the response as
+ * pre-encoded UTF-8 bytes instead of being serialized again with all its ingredients.
+ *
+ * <p>Entries are keyed by recipe id and {@link Recipe#getVersion() version}, the update time
+ * of the Firestore document the recipe was read from or written to, so checking an entry
+ * is one comparison. Recipes without a version, such as those edited since they were read
+ * or read with a field mask, are always serialized. The version does not cover the
+ * ingredients, which callers can edit in place through {@link Recipe#getIngredients()}, so
+ * each entry also keeps a fingerprint of them, and cached JSON is only reused while the
+ * recipe's ingredients still match it. The JSON is written with the
+ * application {@code ObjectMapper}'s factory and settings, and the cache keeps the
+ * {@code json-cache.max-recipes} most recently written recipes. Spring Boot registers the
+ * module with that mapper, which covers every endpoint that returns recipes.
+ */
+@Component
+public class RecipeJsonModule extends SimpleModule {
+
+  private static final long serialVersionUID = 1L;
+
+  private final transient Map<Integer, CachedRecipe> cache;
+  private final int maxRecipes;
+
+  /**
+   * Constructs a {@code RecipeJsonModule} caching at most {@code maxRecipes} recipes.
+   *
+   * @param maxRecipes the largest number of recipes whose JSON is kept
+   */
+  public RecipeJsonModule(@Value("${json-cache.max-recipes:10000}") int maxRecipes) {
+    super("RecipeJsonModule");
+    if (maxRecipes < 0) {
+      throw new IllegalArgumentException("Cache size must not be negative");
+    }
+    this.maxRecipes = maxRecipes;
+    this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, CachedRecipe> eldest) {
+        return size() > maxRecipes;
+      }
+    };
+    setSerializerModifier(new BeanSerializerModifier() {
+      @Override
+      public JsonSerializer<?> modifySerializer(SerializationConfig config,
+          BeanDescription beanDesc, JsonSerializer<?> serializer) {
+        if (beanDesc.getBeanClass() == Recipe.class) {
+          return new CachingRecipeSerializer(asRecipeSerializer(serializer));
+        }
+        return serializer;
+      }
+    });
+  }
+
+  /**
+   * Returns how many recipes currently have cached JSON.
+   */
+  public int cachedRecipeCount() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static JsonSerializer<Recipe> asRecipeSerializer(JsonSerializer<?> serializer) {
+    return (JsonSerializer<Recipe>) serializer;
+  }
+
+  private CachedRecipe lookup(int recipeId) {
+    synchronized (cache) {
+      return cache.get(recipeId);
+    }
+  }
+
+  private void store(int recipeId, CachedRecipe entry) {
+    synchronized (cache) {
+      cache.put(recipeId, entry);
+    }
+  }
+
+  /**
+   * Returns a hash of every serialized field of a recipe's ingredients, in order.
+   */
+  private static long ingredientsFingerprint(Recipe recipe) {
+    List<Food> ingredients = recipe.getIngredients();
+    if (ingredients == null) {
+      return 0;
+    }
+    long hash = ingredients.size();
+    for (Food food : ingredients) {
+      if (food == null) {
+        hash = 31 * hash;
+        continue;
+      }
+      hash = 31 * hash + food.getFoodId();
+      hash = 31 * hash + food.getCalories();
+      hash = 31 * hash + Objects.hashCode(food.getFoodName());
+      hash = 31 * hash + Objects.hashCode(food.getCategory());
+    }
+    return hash;
+  }
+
+  /**
+   * Wraps Jackson's bean serializer for {@link Recipe}, which still produces the JSON the
+   * first time a recipe version is written.
+   */
+  private final class CachingRecipeSerializer extends StdSerializer<Recipe>
+      implements ResolvableSerializer, ContextualSerializer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient JsonSerializer<Recipe> delegate;
+
+    private CachingRecipeSerializer(JsonSerializer<Recipe> delegate) {
+      super(Recipe.class);
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+      if (delegate instanceof ResolvableSerializer resolvable) {
+        resolvable.resolve(provider);
+      }
+    }
+
+    @Override
+    public JsonSerializer<?> createContextual(SerializerProvider provider,
+        BeanProperty property) throws JsonMappingException {
+      if (delegate instanceof ContextualSerializer contextual) {
+        JsonSerializer<?> contextualized = contextual.createContextual(provider, property);
+        if (contextualized != delegate) {
+          return new CachingRecipeSerializer(asRecipeSerializer(contextualized));
+        }
+      }
+      return this;
+    }
+
+    @Override
+    public void serialize(Recipe recipe, JsonGenerator gen, SerializerProvider provider)
+        throws IOException {
+      long version = recipe.getVersion();
+      ObjectCodec codec = gen.getCodec();
+      // A view changes which fields are written, and indentation depends on the nesting
+      // level, so neither can reuse cached JSON
+      if (version == 0 || maxRecipes == 0 || codec == null
+          || provider.getActiveView() != null || gen.getPrettyPrinter() != null) {
+        delegate.serialize(recipe, gen, provider);
+        return;
+      }
+      long ingredients = ingredientsFingerprint(recipe);
+      CachedRecipe cached = lookup(recipe.getRecipeId());
+      if (cached == null || cached.version != version || cached.ingredients != ingredients) {
+        StringWriter json = new StringWriter();
+        try (JsonGenerator recipeGen = codec.getFactory().createGenerator(json)) {
+          provider.getConfig().initialize(recipeGen);
+          if (gen.getCharacterEscapes() != null) {
+            recipeGen.setCharacterEscapes(gen.getCharacterEscapes());
+          }
+          delegate.serialize(recipe, recipeGen, provider);
+        }
+        cached = new CachedRecipe(version, ingredients,
+            new SerializedString(json.toString()));
+        // Encode once up front so every later write copies the same bytes
+        cached.json.asUnquotedUTF8();
+        store(recipe.getRecipeId(), cached);
+      }
+      gen.writeRawValue(cached.json);
+    }
+  }
+
+  private static final class CachedRecipe {
+    private final long version;
+    private final long ingredients;
+    private final SerializedString json;
+
+    private CachedRecipe(long version, long ingredients, SerializedString json) {
+      this.version = version;
+      this.ingredients = ingredients;
+      this.json = json;
+    }
+  }
+}
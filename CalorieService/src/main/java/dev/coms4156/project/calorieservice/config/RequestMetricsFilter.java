@@ -0,0 +1,144 @@
+package dev.coms4156.project.calorieservice.config;
+
+import dev.coms4156.project.calorieservice.service.FirestoreCost;
+import dev.coms4156.project.calorieservice.service.MetricsService;
+import dev.coms4156.project.calorieservice.service.Span;
+import dev.coms4156.project.calorieservice.service.Tracing;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Times every request by method, endpoint pattern and status, and records how many
+ * Firestore documents each one read. Endpoints are tagged by their mapping, such as
+ * {@code /recipe/totalCalorie}, so ids in paths or parameters never become tag values.
+ * Streaming responses are timed until the handler returns, not until the body is written.
+ *
+ * <p>Requests that take longer, make more Firestore round trips or read more documents
+ * than the {@code request-log.slow.*} thresholds are logged to the {@code slow-requests}
+ * logger with a per-operation breakdown of their Firestore work, and their trace id if
+ * {@link TracingFilter} sampled them. A threshold of zero is never crossed.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+  static final String REQUEST_TIMER = "http_server_requests_seconds";
+  static final String DOCUMENTS_READ_SUMMARY = "http_server_requests_firestore_documents_read";
+  /** The logger slow requests are written to; logback-spring.xml gives it its own file. */
+  public static final String SLOW_REQUEST_LOGGER = "slow-requests";
+
+  private static final Logger slowRequests = LoggerFactory.getLogger(SLOW_REQUEST_LOGGER);
+
+  private final MetricsService metrics;
+  private final long slowNanos;
+  private final long slowRoundTrips;
+  private final long slowDocumentsRead;
+
+  /**
+   * Constructs a {@code RequestMetricsFilter} recording into the given registry, with the
+   * default slow-request thresholds of 1s, 25 round trips and 500 documents read.
+   *
+   * @param metrics the registry request metrics are recorded in
+   */
+  public RequestMetricsFilter(MetricsService metrics) {
+    this(metrics, Duration.ofSeconds(1), 25, 500);
+  }
+
+  /**
+   * Constructs a {@code RequestMetricsFilter} recording into the application's registry,
+   * from the {@code request-log.slow.*} properties. Web slice tests load filters without
+   * services, so a private registry stands in there.
+   *
+   * @param metrics a provider of the application's registry
+   * @param slowDuration requests taking longer are logged, such as 1s or 500ms
+   * @param slowRoundTrips requests making more Firestore round trips are logged
+   * @param slowDocumentsRead requests reading more documents are logged
+   */
+  @Autowired
+  public RequestMetricsFilter(ObjectProvider<MetricsService> metrics,
+      @Value("${request-log.slow.duration:1s}") String slowDuration,
+      @Value("${request-log.slow.round-trips:25}") long slowRoundTrips,
+      @Value("${request-log.slow.documents-read:500}") long slowDocumentsRead) {
+    this(metrics.getIfAvailable(MetricsService::new), DurationStyle.detectAndParse(slowDuration),
+        slowRoundTrips, slowDocumentsRead);
+  }
+
+  /**
+   * Constructs a {@code RequestMetricsFilter} with explicit slow-request thresholds.
+   *
+   * @param metrics the registry request metrics are recorded in
+   * @param slowDuration requests taking longer are logged, or never if zero
+   * @param slowRoundTrips requests making more Firestore round trips are logged, or never
+   *     if zero
+   * @param slowDocumentsRead requests reading more documents are logged, or never if zero
+   */
+  public RequestMetricsFilter(MetricsService metrics, Duration slowDuration,
+      long slowRoundTrips, long slowDocumentsRead) {
+    if (slowDuration.isNegative() || slowRoundTrips < 0 || slowDocumentsRead < 0) {
+      throw new IllegalArgumentException("Slow request thresholds must not be negative");
+    }
+    this.metrics = metrics;
+    this.slowNanos = slowDuration.toNanos();
+    this.slowRoundTrips = slowRoundTrips;
+    this.slowDocumentsRead = slowDocumentsRead;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws ServletException, IOException {
+    long start = System.nanoTime();
+    FirestoreCost cost = FirestoreCost.open();
+    boolean failed = true;
+    try {
+      chain.doFilter(request, response);
+      failed = false;
+    } finally {
+      FirestoreCost.close();
+      long elapsed = System.nanoTime() - start;
+      // An exception escaping the chain is answered with a 500 after this filter returns
+      int status = failed && response.getStatus() < 400 ? 500 : response.getStatus();
+      String uri = uri(request, status);
+      metrics.timer(REQUEST_TIMER, "Latency of HTTP requests", "method", request.getMethod(),
+          "uri", uri, "status", Integer.toString(status)).record(elapsed);
+      metrics.summary(DOCUMENTS_READ_SUMMARY, "Firestore documents read per HTTP request",
+          MetricsService.COUNT_BUCKETS, "method", request.getMethod(), "uri", uri)
+          .record(cost.getDocumentsRead());
+      if (isSlow(elapsed, cost)) {
+        String query = request.getQueryString();
+        Span span = Tracing.current();
+        slowRequests.warn("{} {}{} -> {} {}{}", request.getMethod(), request.getRequestURI(),
+            query == null ? "" : "?" + query, status, cost.breakdown(),
+            span != null && span.isSampled() ? " trace=" + span.getTraceId() : "");
+      }
+    }
+  }
+
+  private boolean isSlow(long elapsed, FirestoreCost cost) {
+    return slowNanos > 0 && elapsed > slowNanos
+        || slowRoundTrips > 0 && cost.getRoundTrips() > slowRoundTrips
+        || slowDocumentsRead > 0 && cost.getDocumentsRead() > slowDocumentsRead;
+  }
+
+  private static String uri(HttpServletRequest request, int status) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    // Unmapped paths fall through to the static resource handler's catch-all pattern
+    if (pattern != null && !(status == 404 && "/**".equals(pattern))) {
+      return pattern.toString();
+    }
+    return status == 404 ? "NOT_FOUND" : "UNKNOWN";
+  }
+}
@@ -0,0 +1,41 @@
+package dev.coms4156.project.calorieservice.config;
+
+import dev.coms4156.project.calorieservice.service.FirestoreCost;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds a {@code Server-Timing} header describing the request's Firestore work to every
+ * response body, just before it is written. Headers cannot be added once the body is
+ * under way, so responses without a body and streamed ones go without it.
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+  /** The response header the request's cost is reported in. */
+  public static final String SERVER_TIMING = "Server-Timing";
+
+  @Override
+  public boolean supports(MethodParameter returnType,
+      Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public Object beforeBodyWrite(Object body, MethodParameter returnType,
+      MediaType selectedContentType, Class<? extends HttpMessageConverter<?>> converterType,
+      ServerHttpRequest request, ServerHttpResponse response) {
+    FirestoreCost cost = FirestoreCost.current();
+    if (cost != null) {
+      response.getHeaders().set(SERVER_TIMING, cost.serverTiming());
+    }
+    return body;
+  }
+}
@@ -0,0 +1,66 @@
+package dev.coms4156.project.calorieservice.config;
+
+import dev.coms4156.project.calorieservice.service.Span;
+import dev.coms4156.project.calorieservice.service.Tracing;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Runs every request in a trace's root span, continuing the caller's trace if it sent a
+ * W3C {@code traceparent} header. The span is named by method and endpoint pattern, such as
+ * {@code GET /recipe/totalCalorie}, and records the controller method that handled it, so
+ * the service and Firestore spans beneath it read as one request's work.
+ *
+ * <p>It runs just outside {@link RequestMetricsFilter}, so slow requests are logged with
+ * the trace they belong to.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TracingFilter extends OncePerRequestFilter {
+
+  /** The W3C Trace Context request header. */
+  public static final String TRACEPARENT = "traceparent";
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain chain) throws ServletException, IOException {
+    Span span = Tracing.startServerSpan(request.getMethod(), request.getHeader(TRACEPARENT));
+    boolean failed = true;
+    try {
+      chain.doFilter(request, response);
+      failed = false;
+    } catch (ServletException | IOException | RuntimeException e) {
+      span.recordError(e);
+      throw e;
+    } finally {
+      if (span.isSampled()) {
+        // An exception escaping the chain is answered with a 500 after this filter returns
+        int status = failed && response.getStatus() < 400 ? 500 : response.getStatus();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+          span.updateName(request.getMethod() + " " + pattern);
+          span.setAttribute("http.route", pattern.toString());
+        }
+        span.setAttribute("http.method", request.getMethod());
+        span.setAttribute("http.status_code", status);
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+          span.setAttribute("code.function",
+              method.getBeanType().getSimpleName() + "." + method.getMethod().getName());
+        }
+      }
+      span.close();
+    }
+  }
+}
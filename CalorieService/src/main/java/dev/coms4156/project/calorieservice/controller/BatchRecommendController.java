@@ -0,0 +1,112 @@
+package dev.coms4156.project.calorieservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.MockApiService;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Controller for computing recommendations for many clients in a single request.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BatchRecommendController {
+
+  /** Largest number of client ids accepted in one batch request. */
+  public static final int MAX_BATCH_SIZE = 1000;
+
+  private static final Logger logger = LoggerFactory.getLogger(BatchRecommendController.class);
+  private static final byte[] NEWLINE = {'\n'};
+
+  private final MockApiService mockApiService;
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Constructs a {@code BatchRecommendController} with the specified service and mapper.
+   *
+   * @param mockApiService the {@code MockApiService} to use for data operations
+   * @param objectMapper the object mapper used to serialize each result line
+   */
+  public BatchRecommendController(MockApiService mockApiService, ObjectMapper objectMapper) {
+    this.mockApiService = mockApiService;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Returns recommendations for every client in the request body as NDJSON, one line per
+   * client, written as soon as that client's recommendations are ready. Lines are not in
+   * request order. A found client's line is {@code {"clientId":..,"recommendations":[..]}};
+   * an unknown client's line is {@code {"clientId":..,"message":..}}.
+   *
+   * @param clientIds JSON array of client ids
+   * @param calorieMax optional maximum calorie count for recommendations
+   * @return A {@code ResponseEntity} streaming NDJSON with HTTP 200, or an error message
+   *         with HTTP 400 if the id list is empty or larger than {@link #MAX_BATCH_SIZE}
+   */
+  @PostMapping("/client/recommend/batch")
+  public ResponseEntity<StreamingResponseBody> recommendBatch(@RequestBody List<Integer> clientIds,
+      @RequestParam(required = false) Integer calorieMax) {
+    logger.info("endpoint called: POST /client/recommend/batch with {} clientIds, calorieMax={}",
+        clientIds == null ? 0 : clientIds.size(), calorieMax);
+    if (clientIds == null || clientIds.isEmpty()) {
+      return badRequest("At least one client ID is required.");
+    }
+    if (clientIds.size() > MAX_BATCH_SIZE) {
+      return badRequest("At most " + MAX_BATCH_SIZE + " client IDs may be requested at once.");
+    }
+    if (clientIds.contains(null)) {
+      return badRequest("Client IDs cannot be null.");
+    }
+
+    StreamingResponseBody body = out -> mockApiService.recommendBatch(clientIds, calorieMax,
+        (clientId, recommendations) -> writeLine(out, clientId, recommendations));
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * Builds a plain-text error response; streaming handlers cannot return a {@code String} body.
+   */
+  private ResponseEntity<StreamingResponseBody> badRequest(String message) {
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+        .contentType(MediaType.TEXT_PLAIN)
+        .body(out -> out.write(bytes));
+  }
+
+  private void writeLine(OutputStream out, int clientId, List<Recipe> recommendations) {
+    Map<String, Object> line = new LinkedHashMap<>();
+    line.put("clientId", clientId);
+    if (recommendations == null) {
+      line.put("message", "Client not found or recommendations unavailable");
+    } else {
+      line.put("recommendations", recommendations);
+    }
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(line);
+      synchronized (out) {
+        out.write(json);
+        out.write(NEWLINE);
+        out.flush();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -1,67 +1,479 @@
 package dev.coms4156.project.calorieservice.controller;
 
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import dev.coms4156.project.calorieservice.client.ClientEvent;
+import dev.coms4156.project.calorieservice.client.ClientEventLog;
+import dev.coms4156.project.calorieservice.client.ClientEventReader;
+import dev.coms4156.project.calorieservice.client.ClientEventStats;
+import dev.coms4156.project.calorieservice.client.ClientLogRateLimiter;
+import dev.coms4156.project.calorieservice.service.HeavyHitterService;
+import dev.coms4156.project.calorieservice.service.InteractionProfileService;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
- * Controller for logging client events to a local log file.
+ * Controller for logging client events to a local log file. Events are handed to a
+ * {@link ClientEventLog}, which writes them in the background, so a request never waits
+ * on the disk, and read back through a {@link ClientEventReader}. Accepted events are also
+ * counted by a {@link ClientEventStats} and added to the client's interaction profile.
+ * A {@link ClientLogRateLimiter} turns away events from instances sending too fast, or
+ * from everyone while the log's queue is filling up, with 429 and a {@code Retry-After}.
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ClientLogController {
 
-  private static final Path LOG_FILE = Path.of("logs", "client-events.log");
-  private final ObjectMapper objectMapper;
+  private static final Logger logger = LoggerFactory.getLogger(ClientLogController.class);
+
+  /** Largest number of events accepted in one batch request. */
+  public static final int MAX_BATCH_EVENTS = 1000;
+
+  /** Largest batch request body accepted, in bytes. */
+  public static final long MAX_BATCH_BYTES = 1024 * 1024;
+
+  /** Largest number of events returned by one query. */
+  public static final int MAX_QUERY_LIMIT = 10_000;
+
+  private static final byte[] NEWLINE = {'\n'};
+
+  // The event type counted as a view of the event's recipe
+  private static final String VIEW_TYPE = "view";
+
+  private final ObjectReader eventReader;
+  private final ObjectWriter eventWriter;
+  private final ClientEventLog eventLog;
+  private final ClientEventReader logReader;
+  private final ClientEventStats stats;
+  private final ClientLogRateLimiter rateLimiter;
+  private final InteractionProfileService interactionProfileService;
+  private final HeavyHitterService heavyHitterService;
 
   /**
-   * Constructs a {@code ClientLogController} with the provided {@link ObjectMapper}.
+   * Constructs a {@code ClientLogController} with the provided {@link ObjectMapper},
+   * its own {@link ClientEventLog} and its own {@link HeavyHitterService}.
    *
    * @param objectMapper the object mapper used to serialize client events
    */
   public ClientLogController(ObjectMapper objectMapper) {
-    this.objectMapper = objectMapper;
+    this(objectMapper, new ClientEventLog(objectMapper), new HeavyHitterService());
   }
 
   /**
-   * Logs a client event to the local log file.
+   * Constructs a {@code ClientLogController} with the provided {@link ObjectMapper},
+   * {@link ClientEventLog} and {@link HeavyHitterService}, its own
+   * {@link ClientEventReader} and {@link ClientLogRateLimiter} over the log and its own
+   * {@link ClientEventStats} and {@link InteractionProfileService}.
+   *
+   * @param objectMapper the object mapper used to read and write client events
+   * @param eventLog the log client events are appended to
+   * @param heavyHitterService tracker that counts view events as recipe views
+   */
+  public ClientLogController(ObjectMapper objectMapper, ClientEventLog eventLog,
+      HeavyHitterService heavyHitterService) {
+    this(objectMapper, eventLog, new ClientEventReader(objectMapper, eventLog),
+        new ClientEventStats(), new ClientLogRateLimiter(eventLog),
+        new InteractionProfileService(), heavyHitterService);
+  }
+
+  /**
+   * Constructs a {@code ClientLogController} with the provided {@link ObjectMapper},
+   * {@link ClientEventLog}, {@link ClientEventReader}, {@link ClientEventStats},
+   * {@link ClientLogRateLimiter}, {@link InteractionProfileService} and
+   * {@link HeavyHitterService}.
+   *
+   * @param objectMapper the object mapper used to read and write client events
+   * @param eventLog the log client events are appended to
+   * @param logReader the reader queries over the log are answered with
+   * @param stats the windowed counts accepted events are added to
+   * @param rateLimiter the limiter events must pass before they are queued
+   * @param interactionProfileService the per-client profiles accepted events are added to
+   * @param heavyHitterService tracker that counts view events as recipe views
+   */
+  @Autowired
+  public ClientLogController(ObjectMapper objectMapper, ClientEventLog eventLog,
+      ClientEventReader logReader, ClientEventStats stats, ClientLogRateLimiter rateLimiter,
+      InteractionProfileService interactionProfileService,
+      HeavyHitterService heavyHitterService) {
+    this.eventReader = objectMapper.readerFor(ClientEvent.class);
+    this.eventWriter = objectMapper.writerFor(ClientEvent.class);
+    this.eventLog = eventLog;
+    this.logReader = logReader;
+    this.stats = stats;
+    this.rateLimiter = rateLimiter;
+    this.interactionProfileService = interactionProfileService;
+    this.heavyHitterService = heavyHitterService;
+  }
+
+  /**
+   * Queues a client event to be written to the local log file.
    *
    * @param event the client event to log
-   * @return a response indicating whether the event was logged successfully
+   * @return 202 once the event is queued, 429 with {@code Retry-After} if its instance or
+   *         all clients together are sending too fast, or 503 if the log is full and
+   *         dropped it
    */
   @PostMapping("/client/log")
   public ResponseEntity<String> logClientEvent(@RequestBody ClientEvent event) {
-    try {
-      ensureLogFile();
-      appendEvent(event);
-      return ResponseEntity.status(HttpStatus.CREATED).body("logged");
+    ClientLogRateLimiter.Permit permit = rateLimiter.acquireInstance(event.getInstanceId());
+    if (!permit.isGranted()) {
+      return tooManyRequests(permit.getWait(), "Too many client events, try again later");
+    }
+    long wait = rateLimiter.acquireGlobal(1);
+    if (wait > 0) {
+      rateLimiter.refundInstance(permit);
+      return tooManyRequests(wait, "Too many client events, try again later");
+    }
+    if (!eventLog.append(event)) {
+      // A dropped event was never logged, so it does not count against the limits
+      rateLimiter.refundInstance(permit);
+      rateLimiter.refundGlobal(1);
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .body("Client log is full, event dropped");
+    }
+    accepted(event);
+    return ResponseEntity.status(HttpStatus.ACCEPTED).body("accepted");
+  }
+
+  /**
+   * Queues many client events to be written to the local log file together. The body is
+   * either a JSON array of events or, with {@code Content-Type: application/x-ndjson}, one
+   * event per line, and is read one event at a time rather than all at once.
+   *
+   * <p>Each event is validated on its own; the valid ones are appended in order with a
+   * single write and the response lists, by position in the body, which were accepted and
+   * why the others were rejected. Events from instances over their rate limit are rejected
+   * the same way; if all clients together are over the global limit, or no event is
+   * within its instance's limit, the whole batch is turned away.
+   *
+   * @param request the request whose body holds the events
+   * @return 202 with {@code accepted}, {@code rejected} and per-event {@code results}; 400
+   *         if the body is not valid JSON or holds no events; 413 if it holds more than
+   *         {@link #MAX_BATCH_EVENTS} events or {@link #MAX_BATCH_BYTES} bytes; 429 with
+   *         {@code Retry-After} if the batch is over the rate limits; or 503 if the log is
+   *         full and dropped the batch
+   */
+  @PostMapping(path = "/client/log/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+  public ResponseEntity<?> logClientEvents(HttpServletRequest request) {
+    if (request.getContentLengthLong() > MAX_BATCH_BYTES) {
+      return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+        .body("Batch body must be at most " + MAX_BATCH_BYTES + " bytes.");
+    }
+    List<ClientEvent> valid = new ArrayList<>();
+    List<Map<String, Object>> results = new ArrayList<>();
+    List<Map<String, Object>> validResults = new ArrayList<>();
+    try (InputStream body = new LimitedInputStream(request.getInputStream(), MAX_BATCH_BYTES);
+        MappingIterator<ClientEvent> events = eventReader.readValues(body)) {
+      while (events.hasNextValue()) {
+        if (results.size() == MAX_BATCH_EVENTS) {
+          return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+            .body("At most " + MAX_BATCH_EVENTS + " events may be logged at once.");
+        }
+        String error;
+        try {
+          ClientEvent event = events.nextValue();
+          error = validate(event);
+          if (error == null) {
+            valid.add(event);
+          }
+        } catch (DatabindException e) {
+          // The iterator skips the rest of this event and carries on with the next one
+          error = "Invalid event: " + e.getOriginalMessage();
+        }
+        Map<String, Object> result = result(results.size(), error);
+        results.add(result);
+        if (error == null) {
+          validResults.add(result);
+        }
+      }
+    } catch (BatchTooLargeException e) {
+      return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+        .body("Batch body must be at most " + MAX_BATCH_BYTES + " bytes.");
+    } catch (StreamReadException e) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+        .body("Malformed JSON after " + results.size() + " events: " + e.getOriginalMessage());
     } catch (IOException e) {
-      e.printStackTrace();
+      logger.error("Failed to read client events: {}", e.getMessage(), e);
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-        .body("Failed to write client log");
+        .body("Failed to read client events");
+    }
+    if (results.isEmpty()) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+        .body("At least one event is required.");
+    }
+
+    // Limits are only charged once the whole body has been read, so a refused batch costs
+    // its instances nothing
+    List<ClientEvent> allowed = new ArrayList<>(valid.size());
+    List<ClientLogRateLimiter.Permit> permits = new ArrayList<>(valid.size());
+    long wait = 0;
+    for (int i = 0; i < valid.size(); i++) {
+      ClientEvent event = valid.get(i);
+      ClientLogRateLimiter.Permit permit = rateLimiter.acquireInstance(event.getInstanceId());
+      if (!permit.isGranted()) {
+        wait = Math.max(wait, permit.getWait());
+        validResults.get(i).put("accepted", false);
+        validResults.get(i).put("error", "Rate limited, instance is sending too fast");
+      } else {
+        allowed.add(event);
+        permits.add(permit);
+      }
+    }
+    if (allowed.isEmpty() && wait > 0) {
+      return tooManyRequests(wait, "Too many client events, try again later");
     }
+    wait = allowed.isEmpty() ? 0 : rateLimiter.acquireGlobal(allowed.size());
+    if (wait > 0) {
+      permits.forEach(rateLimiter::refundInstance);
+      return tooManyRequests(wait, "Too many client events, try again later");
+    }
+
+    if (!eventLog.appendAll(allowed)) {
+      permits.forEach(rateLimiter::refundInstance);
+      rateLimiter.refundGlobal(allowed.size());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .body("Client log is full, events dropped");
+    }
+    for (ClientEvent event : allowed) {
+      accepted(event);
+    }
+    Map<String, Object> response = new LinkedHashMap<>();
+    response.put("accepted", allowed.size());
+    response.put("rejected", results.size() - allowed.size());
+    response.put("results", results);
+    return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
   }
 
-  private void ensureLogFile() throws IOException {
-    Path dir = LOG_FILE.getParent();
-    if (dir != null && !Files.exists(dir)) {
-      Files.createDirectories(dir);
+  /**
+   * Returns the logged events matching every given filter as NDJSON, one event per line,
+   * oldest first. Events are streamed from the log files as they are found rather than
+   * collected first. Events still queued for writing are not included.
+   *
+   * @param userId optional user id the events must have
+   * @param recipeId optional recipe id the events must have
+   * @param type optional event type the events must have
+   * @param from optional ISO-8601 instant the events must be at or after
+   * @param to optional ISO-8601 instant the events must be before
+   * @param limit the most events to return, up to {@link #MAX_QUERY_LIMIT}; 1000 by default
+   * @return A {@code ResponseEntity} streaming NDJSON with HTTP 200, or an error message
+   *         with HTTP 400 if a timestamp cannot be parsed, the range is empty or the limit
+   *         is out of range
+   */
+  @GetMapping("/client/log/query")
+  public ResponseEntity<StreamingResponseBody> queryClientEvents(
+      @RequestParam(required = false) String userId,
+      @RequestParam(required = false) Integer recipeId,
+      @RequestParam(required = false) String type,
+      @RequestParam(required = false) String from,
+      @RequestParam(required = false) String to,
+      @RequestParam(defaultValue = "1000") int limit) {
+    if (limit < 1 || limit > MAX_QUERY_LIMIT) {
+      return badRequest("Limit must be between 1 and " + MAX_QUERY_LIMIT + ".");
+    }
+    Instant fromInstant;
+    Instant toInstant;
+    try {
+      fromInstant = from == null ? null : Instant.parse(from);
+      toInstant = to == null ? null : Instant.parse(to);
+    } catch (DateTimeException e) {
+      return badRequest("from and to must be ISO-8601 instants, such as 2025-01-01T00:00:00Z.");
     }
-    if (!Files.exists(LOG_FILE)) {
-      Files.createFile(LOG_FILE);
+    if (fromInstant != null && toInstant != null && !fromInstant.isBefore(toInstant)) {
+      return badRequest("from must be before to.");
+    }
+
+    ClientEventReader.Query query =
+        new ClientEventReader.Query(userId, recipeId, type, fromInstant, toInstant);
+    StreamingResponseBody body = out -> logReader.query(query, limit,
+        event -> writeLine(out, event));
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * Returns how many events were accepted over the last {@code window}, in total and by
+   * type, event name and recipe id, largest first. Counts are kept in tumbling windows of
+   * {@code client-log.stats.window} (1m by default) and cover the closed windows up to the
+   * start of the current one.
+   *
+   * @param window optional span to count over, such as 1m or 15m; a multiple of the
+   *     tumbling window, which is also the default
+   * @return A {@code ResponseEntity} with the counts and the span they cover with HTTP 200,
+   *         or an error message with HTTP 400 if the window is not a supported duration
+   */
+  @GetMapping("/client/log/stats")
+  public ResponseEntity<?> getClientEventStats(
+      @RequestParam(required = false) String window) {
+    try {
+      Duration span = window == null ? stats.getWindow() : DurationStyle.detectAndParse(window);
+      return ResponseEntity.ok(stats.snapshot(span));
+    } catch (IllegalArgumentException e) {
+      // Either not a duration at all or not one the stats are kept at
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
     }
   }
 
-  private synchronized void appendEvent(ClientEvent event) throws IOException {
-    String json = objectMapper.writeValueAsString(event);
-    String line = json + System.lineSeparator();
-    Files.writeString(LOG_FILE, line, StandardOpenOption.APPEND);
+  /**
+   * Returns the rate limits, the log's queue depth and how many events each instance has
+   * had rejected for sending too fast, most first.
+   *
+   * @param top the most instances to list; 20 by default
+   * @return A {@code ResponseEntity} with the limiter's metrics and HTTP 200
+   */
+  @GetMapping("/client/log/limits")
+  public ResponseEntity<?> getClientLogLimits(@RequestParam(defaultValue = "20") int top) {
+    return ResponseEntity.ok(rateLimiter.metrics(Math.max(0, top)));
+  }
+
+  /**
+   * Builds a 429 response telling the client to wait at least {@code waitNanos}, rounded
+   * up to whole seconds.
+   */
+  private static ResponseEntity<String> tooManyRequests(long waitNanos, String message) {
+    long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+        / TimeUnit.SECONDS.toNanos(1));
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+        .body(message);
+  }
+
+  /**
+   * Builds a plain-text error response; streaming handlers cannot return a {@code String} body.
+   */
+  private static ResponseEntity<StreamingResponseBody> badRequest(String message) {
+    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+        .contentType(MediaType.TEXT_PLAIN)
+        .body(out -> out.write(bytes));
+  }
+
+  private void writeLine(OutputStream out, ClientEvent event) {
+    try {
+      out.write(eventWriter.writeValueAsBytes(event));
+      out.write(NEWLINE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Feeds an event the log accepted to the in-memory views built from client events.
+   * Only events of type {@code view} count towards the most viewed recipes. Recipes opened
+   * through /recipe/viewRecipe are counted there, so clients log view events only for
+   * recipes they show without calling it, and the two together count each view once.
+   */
+  private void accepted(ClientEvent event) {
+    stats.record(event);
+    interactionProfileService.record(event);
+    if (event.getRecipeId() != null && VIEW_TYPE.equalsIgnoreCase(event.getType())) {
+      heavyHitterService.recordView(event.getRecipeId());
+    }
+  }
+
+  /**
+   * Returns why an event cannot be logged, or {@code null} if it can.
+   */
+  private static String validate(ClientEvent event) {
+    if (event == null) {
+      return "Event must be a JSON object";
+    }
+    if (event.getServiceClientId() != null && event.getServiceClientId() < 0) {
+      return "serviceClientId cannot be negative";
+    }
+    if (event.getRecipeId() != null && event.getRecipeId() < 0) {
+      return "recipeId cannot be negative";
+    }
+    return null;
+  }
+
+  private static Map<String, Object> result(int index, String error) {
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("index", index);
+    result.put("accepted", error == null);
+    if (error != null) {
+      result.put("error", error);
+    }
+    return result;
+  }
+
+  /**
+   * Signals that a batch body is longer than {@link #MAX_BATCH_BYTES}.
+   */
+  private static final class BatchTooLargeException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private BatchTooLargeException() {
+      super("Batch body too large");
+    }
+  }
+
+  /**
+   * Fails once more than a set number of bytes has been read, which also bounds bodies
+   * sent without a {@code Content-Length}.
+   */
+  private static final class LimitedInputStream extends FilterInputStream {
+    private long remaining;
+
+    private LimitedInputStream(InputStream in, long limit) {
+      super(in);
+      this.remaining = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        consume(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int n = super.read(buffer, offset, length);
+      if (n > 0) {
+        consume(n);
+      }
+      return n;
+    }
+
+    private void consume(long n) throws BatchTooLargeException {
+      remaining -= n;
+      if (remaining < 0) {
+        throw new BatchTooLargeException();
+      }
+    }
   }
 }
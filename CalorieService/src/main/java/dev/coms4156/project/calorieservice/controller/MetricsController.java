@@ -0,0 +1,44 @@
+package dev.coms4156.project.calorieservice.controller;
+
+import dev.coms4156.project.calorieservice.service.MetricsService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller exposing the service's metrics to a Prometheus scraper.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class MetricsController {
+
+  /** The content type of the Prometheus text exposition format. */
+  public static final MediaType PROMETHEUS_TEXT =
+      MediaType.parseMediaType("text/plain; version=0.0.4; charset=utf-8");
+
+  private final MetricsService metrics;
+
+  /**
+   * Constructs a {@code MetricsController} exposing the given registry.
+   *
+   * @param metrics the registry to expose
+   */
+  public MetricsController(MetricsService metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns every request, Firestore operation and documents-read metric in the Prometheus
+   * text format: request latency histograms by method, endpoint and status; Firestore
+   * operation latency histograms by operation, collection and outcome; documents read by
+   * operation; and the distribution of documents read per request.
+   *
+   * @return A {@code ResponseEntity} with the exposition and HTTP 200
+   */
+  @GetMapping("/metrics")
+  public ResponseEntity<String> scrape() {
+    return ResponseEntity.ok().contentType(PROMETHEUS_TEXT).body(metrics.scrape());
+  }
+}
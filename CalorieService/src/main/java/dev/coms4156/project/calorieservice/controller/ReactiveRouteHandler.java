@@ -0,0 +1,313 @@
+package dev.coms4156.project.calorieservice.controller;
+
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.HeavyHitterService;
+import dev.coms4156.project.calorieservice.service.ReactiveApiService;
+import dev.coms4156.project.calorieservice.service.TrendingService;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handler functions for the reactive deployment. Each handler serves the path of its
+ * counterpart in {@link RouteController} as that path was when the reactive deployment
+ * was frozen, without the {@code fields} parameter or conditional GETs, and never blocks
+ * the event loop.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRouteHandler {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReactiveRouteHandler.class);
+  private final ReactiveApiService reactiveApiService;
+
+  /**
+   * Constructs a new {@code ReactiveRouteHandler} with the specified service.
+   *
+   * @param reactiveApiService The {@code ReactiveApiService} to use for data operations
+   */
+  public ReactiveRouteHandler(ReactiveApiService reactiveApiService) {
+    this.reactiveApiService = reactiveApiService;
+  }
+
+  /**
+   * Returns a welcome message for the home page.
+   */
+  public Mono<ServerResponse> index(ServerRequest request) {
+    logger.info("endpoint called: GET /index");
+    return ServerResponse.ok().bodyValue(
+        "Welcome to the home page! In order to make an API call direct your browser"
+        + "or Postman to an endpoint.");
+  }
+
+  /**
+   * Returns up to 5 random foods of the same category with lower calorie count
+   * than the specified food.
+   */
+  public Mono<ServerResponse> getFoodAlternatives(ServerRequest request) {
+    int foodId = intParam(request, "foodId");
+    logger.info("endpoint called: GET /food/alternative with foodId={}", foodId);
+    return reactiveApiService.getFoodAlternatives(foodId)
+        .flatMap(alternatives -> alternatives.isEmpty()
+            ? ServerResponse.ok().bodyValue(
+                "No lower calorie alternatives found for food ID " + foodId + ".")
+            : ServerResponse.ok().bodyValue(alternatives))
+        .switchIfEmpty(Mono.defer(() -> ServerResponse.status(HttpStatus.NOT_FOUND)
+            .bodyValue("Food with ID " + foodId + " not found.")))
+        .onErrorResume(e -> serverError(e, "Error occurred when getting food alternatives."));
+  }
+
+  /**
+   * Adds a new food to the service.
+   */
+  public Mono<ServerResponse> addFood(ServerRequest request) {
+    logger.info("endpoint called: POST /food/addFood");
+    return request.bodyToMono(Food.class)
+        .flatMap(food -> reactiveApiService.addFood(food)
+            .flatMap(success -> success
+                ? ServerResponse.ok().bodyValue("Food added successfully.")
+                : ServerResponse.badRequest().bodyValue("Food with ID " + food.getFoodId()
+                    + " already exists or is invalid.")))
+        .switchIfEmpty(Mono.defer(() ->
+            ServerResponse.badRequest().bodyValue("Food object cannot be null.")))
+        .onErrorResume(ResponseStatusException.class, Mono::error)
+        .onErrorResume(e -> serverError(e, "Error occurred when adding food."));
+  }
+
+  /**
+   * Returns a list of recommended recipes based on client's liked recipes
+   * under calorieMax.
+   */
+  public Mono<ServerResponse> recommendHealthy(ServerRequest request) {
+    int clientId = intParam(request, "clientId");
+    int calorieMax = intParam(request, "calorieMax");
+    logger.info("endpoint called: GET /client/recommendHealthy with clientId={}, calorieMax={}",
+        clientId, calorieMax);
+    return reactiveApiService.recommendHealthy(clientId, calorieMax)
+        .flatMap(recommendations -> recommendations.isEmpty()
+            ? ServerResponse.ok().bodyValue("No healthy recipes found under " + calorieMax
+                + " calories for client " + clientId + ".")
+            : ServerResponse.ok().bodyValue(recommendations))
+        .switchIfEmpty(Mono.defer(() -> clientNotFound(clientId)))
+        .onErrorResume(e ->
+            serverError(e, "Error occurred when getting healthy recommendations."));
+  }
+
+  /**
+   * Returns a list of recommended recipes based on client's liked recipes.
+   */
+  public Mono<ServerResponse> recommend(ServerRequest request) {
+    int clientId = intParam(request, "clientId");
+    logger.info("endpoint called: GET /client/recommend with clientId={}", clientId);
+    return reactiveApiService.recommend(clientId)
+        .flatMap(recommendations -> recommendations.isEmpty()
+            ? ServerResponse.ok().bodyValue(
+                "No recommendations found for client " + clientId + ".")
+            : ServerResponse.ok().bodyValue(recommendations))
+        .switchIfEmpty(Mono.defer(() -> clientNotFound(clientId)))
+        .onErrorResume(e -> serverError(e, "Error occurred when getting recommendations."));
+  }
+
+  /**
+   * Retrieve alternative recipes with lower calorie counts in the same category.
+   */
+  public Mono<ServerResponse> getRecipeAlternatives(ServerRequest request) {
+    int recipeId = intParam(request, "recipeId");
+    logger.info("endpoint called: GET /recipe/alternative with recipeId={}", recipeId);
+    return reactiveApiService.getRecipeAlternatives(recipeId)
+        .flatMap(alternatives -> ServerResponse.ok().bodyValue(alternatives))
+        .switchIfEmpty(Mono.defer(this::recipeNotFound))
+        .onErrorResume(e -> serverError(e, "Error occurred when getting alternatives."));
+  }
+
+  /**
+   * Retrieve the recipes with the highest recent view and like activity.
+   */
+  public Mono<ServerResponse> getTrendingRecipes(ServerRequest request) {
+    String category = request.queryParam("category").orElse(null);
+    int limit = intParam(request, "limit", 10);
+    logger.info("endpoint called: GET /recipe/trending with category={}, limit={}",
+        category, limit);
+    if (limit < 1 || limit > TrendingService.MAX_LIMIT) {
+      return ServerResponse.badRequest().bodyValue(
+          Map.of("message", "Limit must be between 1 and " + TrendingService.MAX_LIMIT));
+    }
+    return ServerResponse.ok()
+        .bodyValue(reactiveApiService.getTrendingRecipes(category, limit))
+        .onErrorResume(e -> serverError(e, "Error occurred when getting trending recipes."));
+  }
+
+  /**
+   * Retrieve the most viewed recipes, estimated in fixed memory.
+   */
+  public Mono<ServerResponse> getTopViewedRecipes(ServerRequest request) {
+    int limit = intParam(request, "limit", 10);
+    logger.info("endpoint called: GET /recipe/topViewed with limit={}", limit);
+    if (limit < 1 || limit > HeavyHitterService.MAX_LIMIT) {
+      return ServerResponse.badRequest().bodyValue(
+          Map.of("message", "Limit must be between 1 and " + HeavyHitterService.MAX_LIMIT));
+    }
+    return ServerResponse.ok()
+        .bodyValue(reactiveApiService.getTopViewedRecipes(limit))
+        .onErrorResume(e -> serverError(e, "Error occurred when getting top viewed recipes."));
+  }
+
+  /**
+   * Calculate the total calories for a recipe.
+   */
+  public Mono<ServerResponse> getTotalCalories(ServerRequest request) {
+    int recipeId = intParam(request, "recipeId");
+    logger.info("endpoint called: GET /recipe/totalCalorie with recipeId={}", recipeId);
+    return reactiveApiService.getTotalCalories(recipeId)
+        .flatMap(totalCalories -> ServerResponse.ok()
+            .bodyValue(Map.of("recipeId", recipeId, "totalCalories", totalCalories)))
+        .switchIfEmpty(Mono.defer(this::recipeNotFound))
+        .onErrorResume(e -> serverError(e, "Error occurred when getting total calorie."));
+  }
+
+  /**
+   * Provide a calorie breakdown for each ingredient in a recipe.
+   */
+  public Mono<ServerResponse> getCalorieBreakdown(ServerRequest request) {
+    int recipeId = intParam(request, "recipeId");
+    logger.info("endpoint called: GET /recipe/calorieBreakdown with recipeId={}", recipeId);
+    return reactiveApiService.getCalorieBreakdown(recipeId)
+        .flatMap(breakdown -> ServerResponse.ok().bodyValue(breakdown))
+        .switchIfEmpty(Mono.defer(this::recipeNotFound))
+        .onErrorResume(e -> serverError(e, "Error occurred when getting calorie breakdown."));
+  }
+
+  /**
+   * Estimate how many distinct clients have viewed a recipe.
+   */
+  public Mono<ServerResponse> getUniqueViews(ServerRequest request) {
+    int recipeId = intParam(request, "recipeId");
+    logger.info("endpoint called: GET /recipe/uniqueViews with recipeId={}", recipeId);
+    return reactiveApiService.getUniqueViews(recipeId)
+        .flatMap(uniqueViews -> ServerResponse.ok()
+            .bodyValue(Map.of("recipeId", recipeId, "uniqueViews", uniqueViews)))
+        .switchIfEmpty(Mono.defer(this::recipeNotFound))
+        .onErrorResume(e -> serverError(e, "Error occurred when getting unique views."));
+  }
+
+  /**
+   * Persist a new recipe.
+   */
+  public Mono<ServerResponse> addRecipe(ServerRequest request) {
+    logger.info("endpoint called: POST /recipe/addRecipe");
+    return request.bodyToMono(Recipe.class)
+        .flatMap(recipe -> {
+          if (recipe.getRecipeId() == 0) {
+            return ServerResponse.badRequest()
+                .bodyValue(Map.of("message", "Recipe id must be provided"));
+          }
+          return reactiveApiService.addRecipe(recipe)
+              .flatMap(added -> added
+                  ? ServerResponse.status(HttpStatus.CREATED).bodyValue(
+                      Map.of("message", "Recipe added", "recipeId", recipe.getRecipeId()))
+                  : ServerResponse.status(HttpStatus.CONFLICT).bodyValue(Map.of(
+                      "message", "Recipe with id already exists",
+                      "recipeId", recipe.getRecipeId())));
+        })
+        .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest()
+            .bodyValue(Map.of("message", "Recipe payload is required"))))
+        .onErrorResume(ResponseStatusException.class, Mono::error)
+        .onErrorResume(e -> serverError(e, "Error occurred when adding a recipe."));
+  }
+
+  /**
+   * Record a view for a recipe.
+   */
+  public Mono<ServerResponse> viewRecipe(ServerRequest request) {
+    int recipeId = intParam(request, "recipeId");
+    Integer clientId = optionalIntParam(request, "clientId").orElse(null);
+    logger.info("endpoint called: POST /recipe/viewRecipe with recipeId={}, clientId={}",
+        recipeId, clientId);
+    return reactiveApiService.incrementViews(recipeId, clientId)
+        .flatMap(updated -> updated
+            ? ServerResponse.ok()
+                .bodyValue(Map.of("message", "Recipe view recorded", "recipeId", recipeId))
+            : recipeNotFound())
+        .onErrorResume(e -> serverError(e, "Error occurred when viewing a recipe."));
+  }
+
+  /**
+   * Record a like for a recipe.
+   */
+  public Mono<ServerResponse> likeRecipe(ServerRequest request) {
+    int recipeId = intParam(request, "recipeId");
+    logger.info("endpoint called: POST /recipe/likeRecipe with recipeId={}", recipeId);
+    return reactiveApiService.incrementLikes(recipeId)
+        .flatMap(updated -> updated
+            ? ServerResponse.ok()
+                .bodyValue(Map.of("message", "Recipe like recorded", "recipeId", recipeId))
+            : recipeNotFound())
+        .onErrorResume(e -> serverError(e, "Error occurred when liking a recipe."));
+  }
+
+  /**
+   * Adds a recipe to a client's liked recipes.
+   */
+  public Mono<ServerResponse> clientLikeRecipe(ServerRequest request) {
+    int clientId = intParam(request, "clientId");
+    int recipeId = intParam(request, "recipeId");
+    logger.info("endpoint called: POST /client/likeRecipe with clientId={}, recipeId={}",
+        clientId, recipeId);
+    return reactiveApiService.likeRecipe(clientId, recipeId)
+        .flatMap(success -> success
+            ? ServerResponse.ok().bodyValue("Recipe liked successfully.")
+            : ServerResponse.badRequest().bodyValue("Client with ID " + clientId
+                + " or recipe with ID " + recipeId + " not found, or recipe already liked."))
+        .onErrorResume(e -> serverError(e, "Error occurred when liking recipe."));
+  }
+
+  private Mono<ServerResponse> clientNotFound(int clientId) {
+    return ServerResponse.status(HttpStatus.NOT_FOUND)
+        .bodyValue("Client with ID " + clientId + " not found.");
+  }
+
+  private Mono<ServerResponse> recipeNotFound() {
+    return ServerResponse.status(HttpStatus.NOT_FOUND)
+        .bodyValue(Map.of("message", "Recipe not found"));
+  }
+
+  private static Mono<ServerResponse> serverError(Throwable e, String message) {
+    logger.error("{}: {}", message, e.getMessage(), e);
+    return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR).bodyValue(message);
+  }
+
+  /**
+   * Reads a required integer query parameter, answering 400 like {@code @RequestParam}
+   * when it is missing or malformed.
+   */
+  private static int intParam(ServerRequest request, String name) {
+    return optionalIntParam(request, name).orElseThrow(() ->
+        new ServerWebInputException("Required parameter '" + name + "' is not present."));
+  }
+
+  private static int intParam(ServerRequest request, String name, int defaultValue) {
+    return optionalIntParam(request, name).orElse(defaultValue);
+  }
+
+  private static Optional<Integer> optionalIntParam(ServerRequest request, String name) {
+    Optional<String> value = request.queryParam(name);
+    if (value.isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(Integer.parseInt(value.get().trim()));
+    } catch (NumberFormatException e) {
+      throw new ServerWebInputException("Parameter '" + name + "' must be an integer.");
+    }
+  }
+}
@@ -2,17 +2,28 @@ package dev.coms4156.project.calorieservice.controller;
 
 import dev.coms4156.project.calorieservice.models.Food;
 import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.models.RecipeFields;
+import dev.coms4156.project.calorieservice.service.HeavyHitterService;
 import dev.coms4156.project.calorieservice.service.MockApiService;
+import dev.coms4156.project.calorieservice.service.TrendingService;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -20,18 +31,50 @@ import org.springframework.web.bind.annotation.RestController;
  * This class contains all the API routes for the application.
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class RouteController {
 
   private static final Logger logger = LoggerFactory.getLogger(RouteController.class);
+  /** Largest number of ids accepted by one batch read. */
+  public static final int MAX_BATCH_GET_SIZE = 100;
+
+  private static final long DEFAULT_RECIPE_MAX_AGE_SECONDS = 3600;
+  private static final long DEFAULT_FOOD_ALTERNATIVE_MAX_AGE_SECONDS = 300;
+
   private final MockApiService mockApiService;
+  private final CacheControl totalCalorieCache;
+  private final CacheControl calorieBreakdownCache;
+  private final CacheControl foodAlternativeCache;
 
   /**
-   * Constructs a new {@code RouteController} with the specified service.
+   * Constructs a new {@code RouteController} with the specified service and the default
+   * Cache-Control max-age of each cacheable read.
    *
    * @param mockApiService The {@code MockApiService} to use for data operations
    */
   public RouteController(MockApiService mockApiService) {
+    this(mockApiService, DEFAULT_RECIPE_MAX_AGE_SECONDS, DEFAULT_RECIPE_MAX_AGE_SECONDS,
+        DEFAULT_FOOD_ALTERNATIVE_MAX_AGE_SECONDS);
+  }
+
+  /**
+   * Constructs a new {@code RouteController} with the specified service and Cache-Control
+   * max-age, in seconds, of each cacheable read.
+   *
+   * @param mockApiService The {@code MockApiService} to use for data operations
+   * @param totalCalorieMaxAge max-age of {@code GET /recipe/totalCalorie}
+   * @param calorieBreakdownMaxAge max-age of {@code GET /recipe/calorieBreakdown}
+   * @param foodAlternativeMaxAge max-age of {@code GET /food/alternative}
+   */
+  @Autowired
+  public RouteController(MockApiService mockApiService,
+      @Value("${http-cache.max-age.total-calorie:3600}") long totalCalorieMaxAge,
+      @Value("${http-cache.max-age.calorie-breakdown:3600}") long calorieBreakdownMaxAge,
+      @Value("${http-cache.max-age.food-alternative:300}") long foodAlternativeMaxAge) {
     this.mockApiService = mockApiService;
+    this.totalCalorieCache = CacheControl.maxAge(totalCalorieMaxAge, TimeUnit.SECONDS);
+    this.calorieBreakdownCache = CacheControl.maxAge(calorieBreakdownMaxAge, TimeUnit.SECONDS);
+    this.foodAlternativeCache = CacheControl.maxAge(foodAlternativeMaxAge, TimeUnit.SECONDS);
   }
 
   /**
@@ -51,15 +94,23 @@ public class RouteController {
    * than the specified food.
    *
    * @param foodId The ID of the food to find alternatives for
+   * @param ifNoneMatch ETags of representations the client already has, if any
    * @return A {@code ResponseEntity} containing either a list of up to 5 
-   *         alternative {@code Food} objects with HTTP 200 if successful, or 
+   *         alternative {@code Food} objects with HTTP 200 if successful, 
+   *         HTTP 304 if the client's copy is still current, or 
    *         an error message with HTTP 404 if food not found, or HTTP 500 
    *         for server errors
    */
   @GetMapping("/food/alternative")
-  public ResponseEntity<?> getFoodAlternatives(@RequestParam int foodId) {
+  public ResponseEntity<?> getFoodAlternatives(@RequestParam int foodId,
+      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
     logger.info("endpoint called: GET /food/alternative with foodId={}", foodId);
     try {
+      String version = mockApiService.getFoodAlternativesVersion(foodId);
+      if (etagMatches(ifNoneMatch, version)) {
+        return notModified(version, foodAlternativeCache);
+      }
+
       List<Food> alternatives = mockApiService.getFoodAlternatives(foodId);
       
       if (alternatives == null) {
@@ -67,15 +118,15 @@ public class RouteController {
             HttpStatus.NOT_FOUND);
       }
       
+      String etag = mockApiService.getFoodAlternativesVersion(foodId);
       if (alternatives.isEmpty()) {
-        return new ResponseEntity<>(
-            "No lower calorie alternatives found for food ID " + foodId + ".", 
-            HttpStatus.OK);
+        return cacheable(etag, foodAlternativeCache)
+            .body("No lower calorie alternatives found for food ID " + foodId + ".");
       }
       
-      return new ResponseEntity<>(alternatives, HttpStatus.OK);
+      return cacheable(etag, foodAlternativeCache).body(alternatives);
     } catch (Exception e) {
-      System.err.println(e);
+      logger.error("endpoint failed: GET /food/alternative", e);
       return new ResponseEntity<>("Error occurred when getting food alternatives.",
           HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -106,30 +157,70 @@ public class RouteController {
             + " already exists or is invalid.", HttpStatus.BAD_REQUEST);
       }
     } catch (Exception e) {
-      System.err.println(e);
+      logger.error("endpoint failed: POST /food/addFood", e);
       return new ResponseEntity<>("Error occurred when adding food.",
           HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
 
+  /**
+   * Returns several foods in one request, read with a single batched Firestore fetch.
+   *
+   * @param foodIds JSON array of up to {@link #MAX_BATCH_GET_SIZE} food IDs
+   * @return A {@code ResponseEntity} containing a map from each requested ID to its
+   *         {@code Food}, or to a not-found message, with HTTP 200 if successful, or an
+   *         error message with HTTP 400 if the ID list is empty, too long or contains
+   *         null, or HTTP 500 for server errors
+   */
+  @PostMapping("/food/batchGet")
+  public ResponseEntity<?> batchGetFoods(@RequestBody List<Integer> foodIds) {
+    logger.info("endpoint called: POST /food/batchGet with {} foodIds",
+        foodIds == null ? 0 : foodIds.size());
+    String invalid = validateBatchIds(foodIds, "food");
+    if (invalid != null) {
+      return new ResponseEntity<>(invalid, HttpStatus.BAD_REQUEST);
+    }
+    try {
+      Map<Integer, Food> foods = mockApiService.getFoodsByIds(foodIds);
+      if (foods == null) {
+        return new ResponseEntity<>("Error occurred when getting foods.",
+            HttpStatus.INTERNAL_SERVER_ERROR);
+      }
+      return ResponseEntity.ok(keyedById(foodIds, foods::get, "Food not found"));
+    } catch (Exception e) {
+      logger.error("endpoint failed: POST /food/batchGet", e);
+      return new ResponseEntity<>("Error occurred when getting foods.",
+          HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
   /**
    * Returns a list of recommended recipes based on client's liked recipes 
    * under calorieMax.
    *
    * @param clientId The ID of the client
    * @param calorieMax Maximum calorie count for recommendations
+   * @param fields optional comma-separated recipe fields to return
    * @return A {@code ResponseEntity} containing a list of up to 10 
    *         recommended {@code Recipe} objects with HTTP 200 if successful, 
-   *         or an error message with HTTP 404 if client not found, or HTTP 500 
-   *         for server errors
+   *         or an error message with HTTP 400 for an unknown field, HTTP 404 if 
+   *         client not found, or HTTP 500 for server errors
    */
   @GetMapping("/client/recommendHealthy")
   public ResponseEntity<?> recommendHealthy(@RequestParam int clientId, 
-      @RequestParam int calorieMax) {
+      @RequestParam int calorieMax, @RequestParam(required = false) String fields) {
     logger.info("endpoint called: GET /client/recommendHealthy with clientId={}, calorieMax={}",
         clientId, calorieMax);
+    RecipeFields selection;
+    try {
+      selection = RecipeFields.parse(fields);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
     try {
-      List<Recipe> recommendations = mockApiService.recommendHealthy(clientId, calorieMax);
+      List<Recipe> recommendations = selection == null
+          ? mockApiService.recommendHealthy(clientId, calorieMax)
+          : mockApiService.recommendHealthy(clientId, calorieMax, selection);
       
       if (recommendations == null) {
         return new ResponseEntity<>("Client with ID " + clientId + " not found.", 
@@ -141,9 +232,9 @@ public class RouteController {
             + " calories for client " + clientId + ".", HttpStatus.OK);
       }
       
-      return new ResponseEntity<>(recommendations, HttpStatus.OK);
+      return new ResponseEntity<>(project(recommendations, selection), HttpStatus.OK);
     } catch (Exception e) {
-      System.err.println(e);
+      logger.error("endpoint failed: GET /client/recommendHealthy", e);
       return new ResponseEntity<>("Error occurred when getting healthy recommendations.",
           HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -153,16 +244,26 @@ public class RouteController {
    * Returns a list of recommended recipes based on client's liked recipes.
    *
    * @param clientId The ID of the client
+   * @param fields optional comma-separated recipe fields to return
    * @return A {@code ResponseEntity} containing a list of up to 10 
    *         recommended {@code Recipe} objects with HTTP 200 if successful, 
-   *         or an error message with HTTP 404 if client not found, or HTTP 500 
-   *         for server errors
+   *         or an error message with HTTP 400 for an unknown field, HTTP 404 if 
+   *         client not found, or HTTP 500 for server errors
    */
   @GetMapping("/client/recommend")
-  public ResponseEntity<?> recommend(@RequestParam int clientId) {
+  public ResponseEntity<?> recommend(@RequestParam int clientId,
+      @RequestParam(required = false) String fields) {
     logger.info("endpoint called: GET /client/recommend with clientId={}", clientId);
+    RecipeFields selection;
+    try {
+      selection = RecipeFields.parse(fields);
+    } catch (IllegalArgumentException e) {
+      return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
     try {
-      List<Recipe> recommendations = mockApiService.recommend(clientId);
+      List<Recipe> recommendations = selection == null
+          ? mockApiService.recommend(clientId)
+          : mockApiService.recommend(clientId, selection);
       
       if (recommendations == null) {
         return new ResponseEntity<>("Client with ID " + clientId + " not found.", 
@@ -174,9 +275,9 @@ public class RouteController {
             HttpStatus.OK);
       }
       
-      return new ResponseEntity<>(recommendations, HttpStatus.OK);
+      return new ResponseEntity<>(project(recommendations, selection), HttpStatus.OK);
     } catch (Exception e) {
-      System.err.println(e);
+      logger.error("endpoint failed: GET /client/recommend", e);
       return new ResponseEntity<>("Error occurred when getting recommendations.",
           HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -186,50 +287,142 @@ public class RouteController {
    * Retrieve alternative recipes with lower calorie counts in the same category.
    *
    * @param recipeId identifier of the recipe to compare against.
+   * @param fields optional comma-separated recipe fields to return.
    * @return A {@code ResponseEntity} containing a map of up to 3 top-viewed 
    *         {@code Recipe} objects and up to 3 random {@code Recipe} objects 
-   *         with HTTP 200 if successful, or HTTP 404 if the recipe was not found,
-   *         or HTTP 500 for server errors.
+   *         with HTTP 200 if successful, or HTTP 400 for an unknown field,
+   *         or HTTP 404 if the recipe was not found, or HTTP 500 for server errors.
    */
   @GetMapping("/recipe/alternative")
-  public ResponseEntity<?> getRecipeAlternatives(@RequestParam("recipeId") int recipeId) {
+  public ResponseEntity<?> getRecipeAlternatives(@RequestParam("recipeId") int recipeId,
+      @RequestParam(required = false) String fields) {
     logger.info("endpoint called: GET /recipe/alternative with recipeId={}", recipeId);
+    RecipeFields selection;
+    try {
+      selection = RecipeFields.parse(fields);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+    }
     try {
-      Optional<Map<String, List<Recipe>>> alternatives =
-          mockApiService.getRecipeAlternatives(recipeId);
+      Optional<Map<String, List<Recipe>>> alternatives = selection == null
+          ? mockApiService.getRecipeAlternatives(recipeId)
+          : mockApiService.getRecipeAlternatives(recipeId, selection);
       if (alternatives.isEmpty()) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
             .body(Map.of("message", "Recipe not found"));
       }
-      return ResponseEntity.ok(alternatives.get());
+      if (selection == null) {
+        return ResponseEntity.ok(alternatives.get());
+      }
+      Map<String, Object> projected = new LinkedHashMap<>();
+      alternatives.get().forEach((key, recipes) -> projected.put(key, selection.project(recipes)));
+      return ResponseEntity.ok(projected);
     } catch (Exception e) {
-      System.err.println(e);
+      logger.error("endpoint failed: GET /recipe/alternative", e);
       return new ResponseEntity<>("Error occurred when getting alternatives.",
         HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
 
+  /**
+   * Retrieve the recipes with the highest recent view and like activity.
+   *
+   * @param category optional category to restrict the results to.
+   * @param limit maximum number of recipes to return, between 1 and 50 (default 10).
+   * @return A {@code ResponseEntity} containing a list of trending recipes with their
+   *         decayed scores, highest first, with HTTP 200 if successful, or HTTP 400 if
+   *         the limit is out of range, or HTTP 500 for server errors.
+   */
+  @GetMapping("/recipe/trending")
+  public ResponseEntity<?> getTrendingRecipes(
+      @RequestParam(value = "category", required = false) String category,
+      @RequestParam(value = "limit", defaultValue = "10") int limit) {
+    logger.info("endpoint called: GET /recipe/trending with category={}, limit={}",
+        category, limit);
+    try {
+      if (limit < 1 || limit > TrendingService.MAX_LIMIT) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+          .body(Map.of("message", "Limit must be between 1 and " + TrendingService.MAX_LIMIT));
+      }
+      return ResponseEntity.ok(mockApiService.getTrendingRecipes(category, limit));
+    } catch (Exception e) {
+      logger.error("endpoint failed: GET /recipe/trending", e);
+      return new ResponseEntity<>("Error occurred when getting trending recipes.",
+        HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Retrieve the most viewed recipes, estimated in fixed memory.
+   *
+   * @param limit maximum number of recipes to return, between 1 and 50 (default 10).
+   * @return A {@code ResponseEntity} containing the estimated top recipes with their
+   *         error bounds with HTTP 200 if successful, or HTTP 400 if the limit is out of
+   *         range, or HTTP 500 for server errors.
+   */
+  @GetMapping("/recipe/topViewed")
+  public ResponseEntity<?> getTopViewedRecipes(
+      @RequestParam(value = "limit", defaultValue = "10") int limit) {
+    logger.info("endpoint called: GET /recipe/topViewed with limit={}", limit);
+    try {
+      if (limit < 1 || limit > HeavyHitterService.MAX_LIMIT) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+          .body(Map.of("message", "Limit must be between 1 and " + HeavyHitterService.MAX_LIMIT));
+      }
+      return ResponseEntity.ok(mockApiService.getTopViewedRecipes(limit));
+    } catch (Exception e) {
+      logger.error("endpoint failed: GET /recipe/topViewed", e);
+      return new ResponseEntity<>("Error occurred when getting top viewed recipes.",
+        HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Report how many Firestore reads were coalesced with an identical read in flight.
+   *
+   * @return A {@code ResponseEntity} containing the call, coalesced and in-flight counts
+   *         of by-id document reads and of queries with HTTP 200 if successful,
+   *         or HTTP 500 for server errors.
+   */
+  @GetMapping("/stats/firestoreReads")
+  public ResponseEntity<?> getFirestoreReadStats() {
+    logger.info("endpoint called: GET /stats/firestoreReads");
+    try {
+      return ResponseEntity.ok(mockApiService.getReadCoalescingStats());
+    } catch (Exception e) {
+      logger.error("endpoint failed: GET /stats/firestoreReads", e);
+      return new ResponseEntity<>("Error occurred when getting Firestore read stats.",
+        HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
   /**
    * Calculate the total calories for a recipe.
    *
    * @param recipeId identifier of the recipe.
+   * @param ifNoneMatch ETags of representations the client already has, if any.
    * @return A {@code ResponseEntity} containing a map with the recipe ID and total calories 
-   *         with HTTP 200 if successful, or HTTP 404 if the recipe was not found,
-   *         or HTTP 500 for server errors.
+   *         with HTTP 200 if successful, HTTP 304 if the client's copy is still current,
+   *         or HTTP 404 if the recipe was not found, or HTTP 500 for server errors.
    */
   @GetMapping("/recipe/totalCalorie")
-  public ResponseEntity<?> getTotalCalories(@RequestParam("recipeId") int recipeId) {
+  public ResponseEntity<?> getTotalCalories(@RequestParam("recipeId") int recipeId,
+      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
     logger.info("endpoint called: GET /recipe/totalCalorie with recipeId={}", recipeId);
     try {
+      String version = mockApiService.getRecipeVersion(recipeId);
+      if (etagMatches(ifNoneMatch, version)) {
+        return notModified(version, totalCalorieCache);
+      }
       Optional<Integer> totalCalories = mockApiService.getTotalCalories(recipeId);
       if (totalCalories.isEmpty()) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
           .body(Map.of("message", "Recipe not found"));
       }
-      return ResponseEntity.ok(
-        Map.of("recipeId", recipeId, "totalCalories", totalCalories.get()));
+      return cacheable(mockApiService.getRecipeVersion(recipeId), totalCalorieCache)
+        .body(Map.of("recipeId", recipeId, "totalCalories", totalCalories.get()));
     } catch (Exception e) {
-      System.err.println(e);
+      logger.error("endpoint failed: GET /recipe/totalCalorie", e);
       return new ResponseEntity<>("Error occurred when getting total calorie.",
         HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -239,27 +432,103 @@ public class RouteController {
    * Provide a calorie breakdown for each ingredient in a recipe.
    *
    * @param recipeId identifier of the recipe.
+   * @param ifNoneMatch ETags of representations the client already has, if any.
    * @return A {@code ResponseEntity} containing a map of ingredient names to calorie values 
-   *         with HTTP 200 if successful, or HTTP 404 if the recipe was not found,
-   *         or HTTP 500 for server errors.
+   *         with HTTP 200 if successful, HTTP 304 if the client's copy is still current,
+   *         or HTTP 404 if the recipe was not found, or HTTP 500 for server errors.
    */
   @GetMapping("/recipe/calorieBreakdown")
-  public ResponseEntity<?> getCalorieBreakdown(@RequestParam("recipeId") int recipeId) {
+  public ResponseEntity<?> getCalorieBreakdown(@RequestParam("recipeId") int recipeId,
+      @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
     logger.info("endpoint called: GET /recipe/calorieBreakdown with recipeId={}", recipeId);
     try {
+      String version = mockApiService.getRecipeVersion(recipeId);
+      if (etagMatches(ifNoneMatch, version)) {
+        return notModified(version, calorieBreakdownCache);
+      }
       Optional<Map<String, Integer>> breakdown = mockApiService.getCalorieBreakdown(recipeId);
       if (breakdown.isEmpty()) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
           .body(Map.of("message", "Recipe not found"));
       }
-      return ResponseEntity.ok(breakdown.get());
+      return cacheable(mockApiService.getRecipeVersion(recipeId), calorieBreakdownCache)
+        .body(breakdown.get());
     } catch (Exception e) {
-      System.err.println(e);
+      logger.error("endpoint failed: GET /recipe/calorieBreakdown", e);
       return new ResponseEntity<>("Error occurred when getting calorie breakdown.",
         HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
 
+  /**
+   * Returns several recipes in one request, read with a single batched Firestore fetch,
+   * so a page listing many recipes does not need a request per recipe.
+   *
+   * @param recipeIds JSON array of up to {@link #MAX_BATCH_GET_SIZE} recipe IDs.
+   * @param fields optional comma-separated recipe fields to return.
+   * @return A {@code ResponseEntity} containing a map from each requested ID to its
+   *         {@code Recipe}, or to a not-found message, with HTTP 200 if successful, or
+   *         HTTP 400 if the ID list is invalid or a field is unknown, or HTTP 500 for
+   *         server errors.
+   */
+  @PostMapping("/recipe/batchGet")
+  public ResponseEntity<?> batchGetRecipes(@RequestBody List<Integer> recipeIds,
+      @RequestParam(required = false) String fields) {
+    logger.info("endpoint called: POST /recipe/batchGet with {} recipeIds",
+        recipeIds == null ? 0 : recipeIds.size());
+    String invalid = validateBatchIds(recipeIds, "recipe");
+    if (invalid != null) {
+      return ResponseEntity.badRequest().body(Map.of("message", invalid));
+    }
+    RecipeFields selection;
+    try {
+      selection = RecipeFields.parse(fields);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+    }
+    try {
+      Map<Integer, Recipe> recipes = mockApiService.getRecipesByIds(recipeIds, selection);
+      if (recipes == null) {
+        return new ResponseEntity<>("Error occurred when getting recipes.",
+          HttpStatus.INTERNAL_SERVER_ERROR);
+      }
+      return ResponseEntity.ok(keyedById(recipeIds, recipeId -> {
+        Recipe recipe = recipes.get(recipeId);
+        return recipe == null || selection == null ? recipe : selection.project(recipe);
+      }, "Recipe not found"));
+    } catch (Exception e) {
+      logger.error("endpoint failed: POST /recipe/batchGet", e);
+      return new ResponseEntity<>("Error occurred when getting recipes.",
+        HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  /**
+   * Estimate how many distinct clients have viewed a recipe.
+   *
+   * @param recipeId identifier of the recipe.
+   * @return A {@code ResponseEntity} containing a map with the recipe ID, total views and
+   *         estimated unique views with HTTP 200 if successful, or HTTP 404 if the recipe
+   *         was not found, or HTTP 500 for server errors.
+   */
+  @GetMapping("/recipe/uniqueViews")
+  public ResponseEntity<?> getUniqueViews(@RequestParam("recipeId") int recipeId) {
+    logger.info("endpoint called: GET /recipe/uniqueViews with recipeId={}", recipeId);
+    try {
+      Optional<Long> uniqueViews = mockApiService.getUniqueViews(recipeId);
+      if (uniqueViews.isEmpty()) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .body(Map.of("message", "Recipe not found"));
+      }
+      return ResponseEntity.ok(
+        Map.of("recipeId", recipeId, "uniqueViews", uniqueViews.get()));
+    } catch (Exception e) {
+      logger.error("endpoint failed: GET /recipe/uniqueViews", e);
+      return new ResponseEntity<>("Error occurred when getting unique views.",
+        HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
   /**
    * Persist a new recipe in the mock service.
    *
@@ -292,7 +561,7 @@ public class RouteController {
       return ResponseEntity.status(HttpStatus.CREATED)
         .body(Map.of("message", "Recipe added", "recipeId", recipe.getRecipeId()));
     } catch (Exception e) {
-      System.err.println(e);
+      logger.error("endpoint failed: POST /recipe/addRecipe", e);
       return new ResponseEntity<>("Error occurred when adding a recipe.",
         HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -302,15 +571,21 @@ public class RouteController {
    * Record a view for a recipe.
    *
    * @param recipeId identifier of the recipe.
+   * @param clientId optional identifier of the viewing client, counted once per recipe
+   *                 towards its unique views.
    * @return A {@code ResponseEntity} containing a confirmation message with 
    *         HTTP 200 if successful, or HTTP 404 if the recipe was not found,
    *         or HTTP 500 for server errors.
    */
   @PostMapping("/recipe/viewRecipe")
-  public ResponseEntity<?> viewRecipe(@RequestParam("recipeId") int recipeId) {
-    logger.info("endpoint called: POST /recipe/viewRecipe with recipeId={}", recipeId);
+  public ResponseEntity<?> viewRecipe(@RequestParam("recipeId") int recipeId,
+      @RequestParam(value = "clientId", required = false) Integer clientId) {
+    logger.info("endpoint called: POST /recipe/viewRecipe with recipeId={}, clientId={}",
+        recipeId, clientId);
     try {
-      boolean updated = mockApiService.incrementViews(recipeId);
+      boolean updated = clientId == null
+          ? mockApiService.incrementViews(recipeId)
+          : mockApiService.incrementViews(recipeId, clientId);
       if (!updated) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
           .body(Map.of("message", "Recipe not found"));
@@ -318,7 +593,7 @@ public class RouteController {
       return ResponseEntity.ok(
         Map.of("message", "Recipe view recorded", "recipeId", recipeId));
     } catch (Exception e) {
-      System.err.println(e);
+      logger.error("endpoint failed: POST /recipe/viewRecipe", e);
       return new ResponseEntity<>("Error occurred when viewing a recipe.",
         HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -344,7 +619,7 @@ public class RouteController {
       return ResponseEntity.ok(
         Map.of("message", "Recipe like recorded", "recipeId", recipeId));
     } catch (Exception e) {
-      System.err.println(e);
+      logger.error("endpoint failed: POST /recipe/likeRecipe", e);
       return new ResponseEntity<>("Error occurred when liking a recipe.",
         HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -374,13 +649,91 @@ public class RouteController {
             + recipeId + " not found, or recipe already liked.", HttpStatus.BAD_REQUEST);
       }
     } catch (Exception e) {
-      System.err.println(e);
+      logger.error("endpoint failed: POST /client/likeRecipe", e);
       return new ResponseEntity<>("Error occurred when liking recipe.",
           HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
-}
 
+  /**
+   * Checks the ID list of a batch read.
+   *
+   * @return an error message, or {@code null} if the list is valid
+   */
+  private static String validateBatchIds(List<Integer> ids, String entity) {
+    if (ids == null || ids.isEmpty()) {
+      return "At least one " + entity + " ID is required.";
+    }
+    if (ids.size() > MAX_BATCH_GET_SIZE) {
+      return "At most " + MAX_BATCH_GET_SIZE + " " + entity + " IDs may be requested at once.";
+    }
+    if (ids.contains(null)) {
+      return "The " + entity + " IDs cannot be null.";
+    }
+    return null;
+  }
 
+  /**
+   * Builds a batch read response: each requested ID, in request order, mapped to its
+   * result or to a not-found message.
+   */
+  private static Map<String, Object> keyedById(List<Integer> ids,
+      Function<Integer, Object> lookup, String notFound) {
+    Map<String, Object> results = new LinkedHashMap<>();
+    for (Integer id : ids) {
+      Object result = lookup.apply(id);
+      results.put(String.valueOf(id), result != null ? result : Map.of("message", notFound));
+    }
+    return results;
+  }
 
+  /**
+   * Returns the recipes unchanged when no fields were selected, or their projections.
+   */
+  private static Object project(List<Recipe> recipes, RecipeFields selection) {
+    return selection == null ? recipes : selection.project(recipes);
+  }
 
+  /**
+   * Checks an {@code If-None-Match} header against the current ETag using the weak
+   * comparison HTTP specifies for it.
+   *
+   * @param ifNoneMatch the header value, possibly a comma-separated list or {@code *}.
+   * @param etag the current ETag, or {@code null} if it is not known.
+   * @return true if the client's copy is current.
+   */
+  private static boolean etagMatches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null || etag == null) {
+      return false;
+    }
+    String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*")) {
+        return true;
+      }
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals(opaque)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static ResponseEntity<?> notModified(String etag, CacheControl cacheControl) {
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+        .eTag(etag)
+        .cacheControl(cacheControl)
+        .build();
+  }
+
+  private static ResponseEntity.BodyBuilder cacheable(String etag, CacheControl cacheControl) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(cacheControl);
+    if (etag != null) {
+      builder.eTag(etag);
+    }
+    return builder;
+  }
+}
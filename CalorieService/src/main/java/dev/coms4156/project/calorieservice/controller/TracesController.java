@@ -0,0 +1,41 @@
+package dev.coms4156.project.calorieservice.controller;
+
+import dev.coms4156.project.calorieservice.service.Span;
+import dev.coms4156.project.calorieservice.service.Tracing;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller exposing the sampled trace spans the service has kept in memory.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class TracesController {
+
+  /**
+   * Returns the newest finished spans, newest first, each with its trace, span and parent
+   * ids, name, start time, duration, thread, attributes and error.
+   *
+   * @param traceId only return spans of this trace, if given
+   * @param limit the most spans to return, 100 by default
+   * @return A {@code ResponseEntity} with the spans and HTTP 200, or HTTP 400 if
+   *         {@code limit} is not positive
+   */
+  @GetMapping("/traces")
+  public ResponseEntity<?> getTraces(@RequestParam(required = false) String traceId,
+      @RequestParam(defaultValue = "100") int limit) {
+    if (limit <= 0) {
+      return new ResponseEntity<>("Limit must be positive.", HttpStatus.BAD_REQUEST);
+    }
+    List<Map<String, Object>> spans = Tracing.recentSpans(traceId, limit).stream()
+        .map(Span::toMap)
+        .toList();
+    return ResponseEntity.ok(spans);
+  }
+}
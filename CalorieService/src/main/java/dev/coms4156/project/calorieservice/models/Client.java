@@ -1,6 +1,7 @@
 
 package dev.coms4156.project.calorieservice.models;
 
+import dev.coms4156.project.calorieservice.util.IntHashSet;
 import java.util.ArrayList;
 
 /**
@@ -10,6 +11,8 @@ public class Client implements Comparable<Client> {
   private String clientname;
   private int clientId;
   private ArrayList<Recipe> likedRecipes;
+  // Ids of likedRecipes, kept in step by likeRecipe, unlikeRecipe and setLikedRecipes
+  private final IntHashSet likedRecipeIds = new IntHashSet();
 
   /**
    * Complete Client constructor.
@@ -21,7 +24,7 @@ public class Client implements Comparable<Client> {
   public Client(String clientname, int clientId, ArrayList<Recipe> likedRecipes) {
     this.clientname = clientname;
     this.clientId = clientId;
-    this.likedRecipes = likedRecipes != null ? likedRecipes : new ArrayList<>();
+    setLikedRecipes(likedRecipes);
   }
 
   /**
@@ -52,7 +55,7 @@ public class Client implements Comparable<Client> {
    * @return {@code true} if the recipe was added; {@code false} if already liked.
    */
   public boolean likeRecipe(Recipe recipe) {
-    if (!likedRecipes.contains(recipe)) {
+    if (likedRecipeIds.add(recipe.getRecipeId())) {
       likedRecipes.add(recipe);
       recipe.incrementLikes();
       return true;
@@ -70,13 +73,28 @@ public class Client implements Comparable<Client> {
     if (recipe == null) {
       return false;
     }
-    if (likedRecipes.contains(recipe)) {
-      likedRecipes.remove(recipe);
+    if (likedRecipes.remove(recipe)) {
+      int recipeId = recipe.getRecipeId();
+      if (likedRecipes.stream().noneMatch(liked -> liked.getRecipeId() == recipeId)) {
+        likedRecipeIds.remove(recipeId);
+      }
       return true;
     }
     return false;
   }
 
+  /**
+   * Checks whether the client has liked the recipe with the given id in constant time.
+   * Recipes added to or removed from {@link #getLikedRecipes()} directly are only seen
+   * once the list is passed back to {@link #setLikedRecipes}.
+   *
+   * @param recipeId the id of the recipe to check.
+   * @return {@code true} if the recipe is in the client's liked recipes.
+   */
+  public boolean hasLiked(int recipeId) {
+    return likedRecipeIds.contains(recipeId);
+  }
+
   public String getClientname() {
     return clientname;
   }
@@ -97,8 +115,18 @@ public class Client implements Comparable<Client> {
     return likedRecipes;
   }
 
+  /**
+   * Sets the client's liked recipes to {@code likedRecipes} itself, not a copy, and
+   * reindexes their ids for {@link #hasLiked}.
+   *
+   * @param likedRecipes the recipes the client has liked, or {@code null} for none.
+   */
   public void setLikedRecipes(ArrayList<Recipe> likedRecipes) {
     this.likedRecipes = likedRecipes != null ? likedRecipes : new ArrayList<>();
+    likedRecipeIds.clear();
+    for (Recipe recipe : this.likedRecipes) {
+      likedRecipeIds.add(recipe.getRecipeId());
+    }
   }
 
   @Override
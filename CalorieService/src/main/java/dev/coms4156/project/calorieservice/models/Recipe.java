@@ -1,6 +1,7 @@
 
 package dev.coms4156.project.calorieservice.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.ArrayList;
 
 /**
@@ -14,6 +15,8 @@ public class Recipe implements Comparable<Recipe> {
   private int views;
   private int likes;
   private int totalCalories;
+  private byte[] viewerSketch;
+  private long version;
 
   /**
    * Complete Recipe constructor.
@@ -84,6 +87,7 @@ public class Recipe implements Comparable<Recipe> {
    */
   public void setTotalCalories(int totalCalories) {
     this.totalCalories = totalCalories;
+    this.version = 0;
   }
 
   /**
@@ -91,6 +95,7 @@ public class Recipe implements Comparable<Recipe> {
    */
   public void incrementViews() {
     this.views++;
+    this.version = 0;
   }
 
   /**
@@ -98,6 +103,7 @@ public class Recipe implements Comparable<Recipe> {
    */
   public void incrementLikes() {
     this.likes++;
+    this.version = 0;
   }
 
   public String getRecipeName() {
@@ -106,6 +112,7 @@ public class Recipe implements Comparable<Recipe> {
 
   public void setRecipeName(String recipeName) {
     this.recipeName = recipeName;
+    this.version = 0;
   }
 
   public int getRecipeId() {
@@ -123,6 +130,7 @@ public class Recipe implements Comparable<Recipe> {
       throw new IllegalArgumentException("Recipe ID cannot be negative");
     }
     this.recipeId = recipeId;
+    this.version = 0;
   }
 
   public String getCategory() {
@@ -131,6 +139,7 @@ public class Recipe implements Comparable<Recipe> {
 
   public void setCategory(String category) {
     this.category = category;
+    this.version = 0;
   }
 
   public ArrayList<Food> getIngredients() {
@@ -144,6 +153,7 @@ public class Recipe implements Comparable<Recipe> {
    */
   public void setIngredients(ArrayList<Food> ingredients) {
     this.ingredients = ingredients != null ? ingredients : new ArrayList<>();
+    this.version = 0;
     if (this.ingredients.isEmpty()) {
       this.totalCalories = 0;
       return;
@@ -170,6 +180,7 @@ public class Recipe implements Comparable<Recipe> {
       throw new IllegalArgumentException("Views cannot be negative");
     }
     this.views = views;
+    this.version = 0;
   }
 
   public int getLikes() {
@@ -187,6 +198,42 @@ public class Recipe implements Comparable<Recipe> {
       throw new IllegalArgumentException("Likes cannot be negative");
     }
     this.likes = likes;
+    this.version = 0;
+  }
+
+  /**
+   * Returns the serialized HyperLogLog sketch of distinct viewers, if any.
+   * Kept out of JSON responses; it is only persisted with the recipe document.
+   *
+   * @return the packed sketch, or {@code null} if no viewer has been recorded
+   */
+  @JsonIgnore
+  public byte[] getViewerSketch() {
+    return viewerSketch;
+  }
+
+  @JsonIgnore
+  public void setViewerSketch(byte[] viewerSketch) {
+    this.viewerSketch = viewerSketch;
+  }
+
+  /**
+   * Returns the version of the stored recipe whose JSON fields this object still has: the
+   * update time, in microseconds, of the Firestore document it was read whole from or last
+   * written to. Every setter resets it to 0, as does a recipe that never came from
+   * Firestore. Ingredients edited in place through {@link #getIngredients()} leave it
+   * unchanged, so anything keyed by it must check them separately.
+   *
+   * @return the stored version, or 0 if unknown
+   */
+  @JsonIgnore
+  public long getVersion() {
+    return version;
+  }
+
+  @JsonIgnore
+  public void setVersion(long version) {
+    this.version = version;
   }
 
   @Override
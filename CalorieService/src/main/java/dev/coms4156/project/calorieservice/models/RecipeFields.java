@@ -0,0 +1,123 @@
+package dev.coms4156.project.calorieservice.models;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The recipe fields a client asked for with a {@code fields=} query parameter, such as
+ * {@code fields=recipeId,recipeName,totalCalories}.
+ *
+ * <p>A selection narrows both the Firestore read, through a projection query, and the
+ * JSON written back. Fields the service needs to rank and filter recipes are always read
+ * but only returned when requested, so leaving out {@code ingredients} is what saves the
+ * most bandwidth and read size.
+ */
+public final class RecipeFields {
+
+  /** Every recipe field that can be selected, in the order they are written. */
+  public static final List<String> SELECTABLE = List.of(
+      "recipeName", "recipeId", "category", "ingredients", "views", "likes", "totalCalories");
+
+  /** Fields read from Firestore whatever the selection, because recommendations use them. */
+  private static final List<String> ALWAYS_READ = List.of(
+      "recipeId", "category", "views", "likes", "totalCalories");
+
+  private final Set<String> fields;
+
+  private RecipeFields(Set<String> fields) {
+    this.fields = fields;
+  }
+
+  /**
+   * Parses a comma-separated {@code fields} parameter.
+   *
+   * @param fields the parameter value, or {@code null} if it was not given
+   * @return the selection, or {@code null} if every field should be returned
+   * @throws IllegalArgumentException if a name is not a selectable recipe field
+   */
+  public static RecipeFields parse(String fields) {
+    if (fields == null || fields.isBlank()) {
+      return null;
+    }
+    Set<String> requested = new LinkedHashSet<>();
+    for (String field : fields.split(",")) {
+      String name = field.trim();
+      if (name.isEmpty()) {
+        continue;
+      }
+      if (!SELECTABLE.contains(name)) {
+        throw new IllegalArgumentException("Unknown recipe field: " + name);
+      }
+      requested.add(name);
+    }
+    if (requested.isEmpty()) {
+      return null;
+    }
+    Set<String> ordered = new LinkedHashSet<>();
+    for (String name : SELECTABLE) {
+      if (requested.contains(name)) {
+        ordered.add(name);
+      }
+    }
+    return new RecipeFields(ordered);
+  }
+
+  /**
+   * Returns whether a field was selected.
+   */
+  public boolean includes(String field) {
+    return fields.contains(field);
+  }
+
+  /**
+   * Returns the document fields to read from Firestore for this selection.
+   *
+   * @return the selected fields plus the fields recommendations are computed from
+   */
+  public String[] firestoreFields() {
+    Set<String> read = new LinkedHashSet<>(ALWAYS_READ);
+    read.addAll(fields);
+    return read.toArray(new String[0]);
+  }
+
+  /**
+   * Builds the JSON object written for a recipe, holding only the selected fields.
+   *
+   * @param recipe the recipe to project.
+   * @return a map of the selected field names to their values, in {@link #SELECTABLE} order.
+   */
+  public Map<String, Object> project(Recipe recipe) {
+    Map<String, Object> projected = new LinkedHashMap<>();
+    for (String field : fields) {
+      switch (field) {
+        case "recipeName" -> projected.put(field, recipe.getRecipeName());
+        case "recipeId" -> projected.put(field, recipe.getRecipeId());
+        case "category" -> projected.put(field, recipe.getCategory());
+        case "ingredients" -> projected.put(field, recipe.getIngredients());
+        case "views" -> projected.put(field, recipe.getViews());
+        case "likes" -> projected.put(field, recipe.getLikes());
+        case "totalCalories" -> projected.put(field, recipe.getTotalCalories());
+        default -> throw new IllegalStateException("Unhandled recipe field: " + field);
+      }
+    }
+    return projected;
+  }
+
+  /**
+   * Projects every recipe in a list.
+   *
+   * @param recipes the recipes to project.
+   * @return the projected recipes, in the same order.
+   */
+  public List<Map<String, Object>> project(List<Recipe> recipes) {
+    List<Map<String, Object>> projected = new ArrayList<>(recipes.size());
+    for (Recipe recipe : recipes) {
+      projected.add(project(recipe));
+    }
+    return projected;
+  }
+}
@@ -0,0 +1,48 @@
+package dev.coms4156.project.calorieservice.models;
+
+/**
+ * An approximate view count for a recipe, with bounds on the true count.
+ */
+public class RecipeViewEstimate {
+  private final int recipeId;
+  private final long estimate;
+  private final long lowerBound;
+  private final long upperBound;
+
+  /**
+   * Complete RecipeViewEstimate constructor.
+   *
+   * @param recipeId unique id of the recipe.
+   * @param estimate estimated number of views.
+   * @param lowerBound the true count is at least this value.
+   * @param upperBound the true count is at most this value.
+   */
+  public RecipeViewEstimate(int recipeId, long estimate, long lowerBound, long upperBound) {
+    this.recipeId = recipeId;
+    this.estimate = estimate;
+    this.lowerBound = lowerBound;
+    this.upperBound = upperBound;
+  }
+
+  public int getRecipeId() {
+    return recipeId;
+  }
+
+  public long getEstimate() {
+    return estimate;
+  }
+
+  public long getLowerBound() {
+    return lowerBound;
+  }
+
+  public long getUpperBound() {
+    return upperBound;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("(%d)\t~%d views [%d, %d]",
+        this.recipeId, this.estimate, this.lowerBound, this.upperBound);
+  }
+}
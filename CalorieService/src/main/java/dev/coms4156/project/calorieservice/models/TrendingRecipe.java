@@ -0,0 +1,55 @@
+package dev.coms4156.project.calorieservice.models;
+
+/**
+ * A recipe together with its current time-decayed trending score.
+ */
+public class TrendingRecipe {
+  private final int recipeId;
+  private final String recipeName;
+  private final String category;
+  private final int totalCalories;
+  private final double score;
+
+  /**
+   * Complete TrendingRecipe constructor.
+   *
+   * @param recipeId unique id of the recipe.
+   * @param recipeName name of the recipe.
+   * @param category category of the recipe.
+   * @param totalCalories total calories of the recipe.
+   * @param score decayed view and like score at the time of the query.
+   */
+  public TrendingRecipe(int recipeId, String recipeName, String category,
+                        int totalCalories, double score) {
+    this.recipeId = recipeId;
+    this.recipeName = recipeName;
+    this.category = category;
+    this.totalCalories = totalCalories;
+    this.score = score;
+  }
+
+  public int getRecipeId() {
+    return recipeId;
+  }
+
+  public String getRecipeName() {
+    return recipeName;
+  }
+
+  public String getCategory() {
+    return category;
+  }
+
+  public int getTotalCalories() {
+    return totalCalories;
+  }
+
+  public double getScore() {
+    return score;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("(%d)\t%s - %.3f score", this.recipeId, this.recipeName, this.score);
+  }
+}
@@ -0,0 +1,225 @@
+package dev.coms4156.project.calorieservice.service;
+
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Remembers the ETag of recently read recipe and food-alternative data, so a
+ * conditional GET whose {@code If-None-Match} matches can be answered with 304 before
+ * Firestore is read.
+ *
+ * <p>An ETag is a hash of exactly the content a response is built from: a recipe's
+ * ingredients and total calories (not its views or likes), or a food's lower-calorie
+ * candidates. Versions seen on this instance are refreshed on every read, and food
+ * alternatives are dropped when a food is added to their category. Every version expires
+ * after a fixed time, which bounds how long a change made through another instance can
+ * go unnoticed.
+ *
+ * <p>Each kind of version is kept for at most {@code http-cache.max-versions} ids. At the
+ * limit, expired versions are swept out, and if none have expired the new version is not
+ * remembered; its request is still answered, only its next conditional GET reads Firestore.
+ */
+@Service
+public class ContentVersionService {
+
+  /** Most versions of each kind remembered when no limit is configured. */
+  public static final int DEFAULT_MAX_VERSIONS = 100_000;
+
+  // Sweeping a full map is linear, so it is done at most this often
+  private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+  private final long ttlMillis;
+  private final int maxVersions;
+  private final LongSupplier clock;
+  private long nextSweep;
+  private final ConcurrentHashMap<Integer, Version> recipes = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Integer, Version> foodAlternatives =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a {@code ContentVersionService} whose versions expire after
+   * {@code ttlSeconds}.
+   *
+   * @param ttlSeconds how long a version is trusted without re-reading Firestore
+   * @param maxVersions most recipe versions, and most food-alternative versions, kept
+   */
+  @Autowired
+  public ContentVersionService(@Value("${http-cache.version-ttl-seconds:300}") long ttlSeconds,
+      @Value("${http-cache.max-versions:100000}") int maxVersions) {
+    this(Duration.ofSeconds(ttlSeconds), maxVersions, System::currentTimeMillis);
+  }
+
+  /**
+   * Constructs a {@code ContentVersionService} with an explicit expiry and clock, keeping
+   * at most {@link #DEFAULT_MAX_VERSIONS} versions of each kind.
+   *
+   * @param ttl how long a version is trusted without re-reading Firestore
+   * @param clock source of the current time in epoch milliseconds
+   */
+  public ContentVersionService(Duration ttl, LongSupplier clock) {
+    this(ttl, DEFAULT_MAX_VERSIONS, clock);
+  }
+
+  /**
+   * Constructs a {@code ContentVersionService} with an explicit expiry, limit and clock.
+   *
+   * @param ttl how long a version is trusted without re-reading Firestore
+   * @param maxVersions most recipe versions, and most food-alternative versions, kept
+   * @param clock source of the current time in epoch milliseconds
+   */
+  public ContentVersionService(Duration ttl, int maxVersions, LongSupplier clock) {
+    if (ttl.isNegative()) {
+      throw new IllegalArgumentException("Version TTL must not be negative");
+    }
+    if (maxVersions < 0) {
+      throw new IllegalArgumentException("Max versions must not be negative");
+    }
+    this.ttlMillis = ttl.toMillis();
+    this.maxVersions = maxVersions;
+    this.clock = clock;
+  }
+
+  /**
+   * Records the version of a recipe that has just been read.
+   *
+   * @param recipe the recipe read from Firestore.
+   * @return the recipe's ETag.
+   */
+  public String recordRecipe(Recipe recipe) {
+    StringBuilder content = new StringBuilder("recipe|")
+        .append(recipe.getRecipeId()).append('|')
+        .append(recipe.getTotalCalories()).append('|');
+    if (recipe.getIngredients() != null) {
+      for (Food ingredient : recipe.getIngredients()) {
+        content.append(ingredient.getFoodName()).append(':')
+            .append(ingredient.getCalories()).append(';');
+      }
+    }
+    String etag = etag(content);
+    remember(recipes, recipe.getRecipeId(), new Version(etag, null, expiry()));
+    return etag;
+  }
+
+  /**
+   * Returns the last recorded ETag of a recipe, or {@code null} if none is known
+   * or it has expired.
+   */
+  public String getRecipeVersion(int recipeId) {
+    return current(recipes, recipeId);
+  }
+
+  /**
+   * Records the version of the lower-calorie alternatives that have just been read for
+   * a food. The candidates are hashed in id order, so the version does not depend on the
+   * random selection returned to the client; the ETag is weak for the same reason.
+   *
+   * @param food the food the alternatives are for.
+   * @param candidates every candidate alternative read from Firestore.
+   * @return the weak ETag of the candidate set.
+   */
+  public String recordFoodAlternatives(Food food, List<Food> candidates) {
+    StringBuilder content = new StringBuilder("food|")
+        .append(food.getFoodId()).append('|')
+        .append(food.getCategory()).append('|')
+        .append(food.getCalories()).append('|');
+    candidates.stream()
+        .sorted(Comparator.comparingInt(Food::getFoodId))
+        .forEach(candidate -> content.append(candidate.getFoodId()).append(':')
+            .append(candidate.getFoodName()).append(':')
+            .append(candidate.getCalories()).append(';'));
+    String etag = "W/" + etag(content);
+    remember(foodAlternatives, food.getFoodId(),
+        new Version(etag, food.getCategory(), expiry()));
+    return etag;
+  }
+
+  /**
+   * Returns the last recorded ETag of a food's alternatives, or {@code null} if none is
+   * known or it has expired.
+   */
+  public String getFoodAlternativesVersion(int foodId) {
+    return current(foodAlternatives, foodId);
+  }
+
+  /**
+   * Forgets the alternatives of every food in a category, after a food was added to it.
+   *
+   * @param category the category that changed.
+   */
+  public void invalidateFoodCategory(String category) {
+    foodAlternatives.values().removeIf(version -> Objects.equals(version.category, category));
+  }
+
+  private String current(ConcurrentHashMap<Integer, Version> versions, int id) {
+    Version version = versions.get(id);
+    if (version == null) {
+      return null;
+    }
+    if (clock.getAsLong() >= version.expiresAt) {
+      versions.remove(id, version);
+      return null;
+    }
+    return version.etag;
+  }
+
+  private void remember(ConcurrentHashMap<Integer, Version> versions, int id,
+      Version version) {
+    if (versions.size() >= maxVersions && !versions.containsKey(id)) {
+      sweepExpired();
+      if (versions.size() >= maxVersions) {
+        return;
+      }
+    }
+    versions.put(id, version);
+  }
+
+  private synchronized void sweepExpired() {
+    long now = clock.getAsLong();
+    if (now < nextSweep) {
+      return;
+    }
+    nextSweep = now + SWEEP_INTERVAL_MILLIS;
+    recipes.values().removeIf(version -> now >= version.expiresAt);
+    foodAlternatives.values().removeIf(version -> now >= version.expiresAt);
+  }
+
+  private long expiry() {
+    return clock.getAsLong() + ttlMillis;
+  }
+
+  private static String etag(CharSequence content) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256")
+          .digest(content.toString().getBytes(StandardCharsets.UTF_8));
+      // 128 bits of the digest are plenty to tell versions apart
+      return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static final class Version {
+    private final String etag;
+    private final String category;
+    private final long expiresAt;
+
+    private Version(String etag, String category, long expiresAt) {
+      this.etag = etag;
+      this.category = category;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
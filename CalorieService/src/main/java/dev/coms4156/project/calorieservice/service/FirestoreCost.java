@@ -0,0 +1,275 @@
+package dev.coms4156.project.calorieservice.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the Firestore work done on behalf of one request: round trips, documents read and
+ * written, bytes decoded and time spent waiting on Firestore, in total and per
+ * {@link FirestoreService} operation. The request filter opens a cost on the request's
+ * thread and {@link FirestoreService} adds to whichever cost is open on the thread that
+ * actually performs a round trip; {@link Tracing#wrap} carries the cost to the threads
+ * work is handed to. Reads shared through read coalescing are charged once, to the request
+ * whose thread ran them.
+ */
+public final class FirestoreCost {
+
+  private static final ThreadLocal<FirestoreCost> CURRENT = new ThreadLocal<>();
+
+  /** Firestore's fixed per-document storage overhead, in bytes. */
+  private static final int DOCUMENT_OVERHEAD = 32;
+
+  private final long startNanos = System.nanoTime();
+  private final LongAdder roundTrips = new LongAdder();
+  private final LongAdder documentsRead = new LongAdder();
+  private final LongAdder documentsWritten = new LongAdder();
+  private final LongAdder bytesDecoded = new LongAdder();
+  private final LongAdder firestoreNanos = new LongAdder();
+  private final Map<String, Operation> operations = new ConcurrentSkipListMap<>();
+
+  /**
+   * Opens a new cost on the current thread, replacing any open one.
+   *
+   * @return the new cost
+   */
+  public static FirestoreCost open() {
+    FirestoreCost cost = new FirestoreCost();
+    CURRENT.set(cost);
+    return cost;
+  }
+
+  /**
+   * Returns the cost open on the current thread, or {@code null} if there is none.
+   */
+  public static FirestoreCost current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Closes the cost open on the current thread, if any.
+   */
+  public static void close() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Makes the given cost, or none if {@code null}, the one open on the current thread, so
+   * work handed to another thread is charged to the request it serves.
+   */
+  static void attach(FirestoreCost cost) {
+    if (cost == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(cost);
+    }
+  }
+
+  void addRead(String operation, int documents, long nanos) {
+    roundTrips.increment();
+    documentsRead.add(documents);
+    firestoreNanos.add(nanos);
+    operation(operation).add(documents, 0, nanos);
+  }
+
+  void addWrite(String operation, int documents, long nanos) {
+    roundTrips.increment();
+    documentsWritten.add(documents);
+    firestoreNanos.add(nanos);
+    operation(operation).add(0, documents, nanos);
+  }
+
+  void addBytesDecoded(long bytes) {
+    bytesDecoded.add(bytes);
+  }
+
+  private Operation operation(String name) {
+    Operation operation = operations.get(name);
+    return operation != null ? operation
+        : operations.computeIfAbsent(name, Operation::new);
+  }
+
+  /**
+   * Returns how many round trips to Firestore were made for this request.
+   */
+  public long getRoundTrips() {
+    return roundTrips.sum();
+  }
+
+  /**
+   * Returns how many documents Firestore returned to this request.
+   */
+  public long getDocumentsRead() {
+    return documentsRead.sum();
+  }
+
+  /**
+   * Returns how many documents this request set or deleted.
+   */
+  public long getDocumentsWritten() {
+    return documentsWritten.sum();
+  }
+
+  /**
+   * Returns the estimated size of the documents this request decoded into models, by
+   * Firestore's storage size rules.
+   */
+  public long getBytesDecoded() {
+    return bytesDecoded.sum();
+  }
+
+  /**
+   * Returns how long this request waited on Firestore round trips, in nanoseconds.
+   */
+  public long getFirestoreNanos() {
+    return firestoreNanos.sum();
+  }
+
+  /**
+   * Returns how long ago this cost was opened, in nanoseconds.
+   */
+  public long getElapsedNanos() {
+    return System.nanoTime() - startNanos;
+  }
+
+  /**
+   * Returns the work done by each {@link FirestoreService} operation, by operation name.
+   */
+  public Collection<Operation> getOperations() {
+    return new ArrayList<>(operations.values());
+  }
+
+  /**
+   * Renders this cost as a {@code Server-Timing} header value: the time spent so far and
+   * the time spent waiting on Firestore as durations, and the counts as descriptions.
+   *
+   * @return the header value
+   */
+  public String serverTiming() {
+    return "total;dur=" + millis(getElapsedNanos())
+        + ", firestore;dur=" + millis(getFirestoreNanos())
+        + ", fs-round-trips;desc=" + getRoundTrips()
+        + ", fs-docs-read;desc=" + getDocumentsRead()
+        + ", fs-docs-written;desc=" + getDocumentsWritten()
+        + ", fs-bytes-decoded;desc=" + getBytesDecoded();
+  }
+
+  /**
+   * Renders this cost for the slow-request log: the totals followed by each operation's
+   * round trips, documents and time.
+   *
+   * @return one line describing the cost
+   */
+  public String breakdown() {
+    List<String> parts = new ArrayList<>();
+    for (Operation operation : getOperations()) {
+      parts.add(operation.toString());
+    }
+    return "elapsed=" + millis(getElapsedNanos()) + "ms firestore="
+        + millis(getFirestoreNanos()) + "ms roundTrips=" + getRoundTrips()
+        + " docsRead=" + getDocumentsRead() + " docsWritten=" + getDocumentsWritten()
+        + " bytesDecoded=" + getBytesDecoded() + " operations=" + parts;
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.1f", nanos / 1e6);
+  }
+
+  /**
+   * Estimates the size of a decoded document by Firestore's storage size rules: each
+   * field name plus one byte, strings as UTF-8 plus one byte, numbers and timestamps as
+   * eight bytes, booleans and nulls as one, and 32 bytes per document.
+   *
+   * @param data the document's fields
+   * @return the estimated size in bytes
+   */
+  static long documentSize(Map<String, Object> data) {
+    return DOCUMENT_OVERHEAD + fieldsSize(data);
+  }
+
+  private static long fieldsSize(Map<?, ?> fields) {
+    long size = 0;
+    for (Map.Entry<?, ?> field : fields.entrySet()) {
+      size += stringSize(String.valueOf(field.getKey())) + valueSize(field.getValue());
+    }
+    return size;
+  }
+
+  private static long valueSize(Object value) {
+    if (value == null || value instanceof Boolean) {
+      return 1;
+    }
+    if (value instanceof String string) {
+      return stringSize(string);
+    }
+    if (value instanceof Map<?, ?> map) {
+      return fieldsSize(map);
+    }
+    if (value instanceof List<?> list) {
+      long size = 0;
+      for (Object element : list) {
+        size += valueSize(element);
+      }
+      return size;
+    }
+    return 8;
+  }
+
+  private static long stringSize(String string) {
+    return string.getBytes(StandardCharsets.UTF_8).length + 1;
+  }
+
+  /**
+   * The Firestore work one {@link FirestoreService} operation did for a request.
+   */
+  public static final class Operation {
+
+    private final String name;
+    private final LongAdder roundTrips = new LongAdder();
+    private final LongAdder documentsRead = new LongAdder();
+    private final LongAdder documentsWritten = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    Operation(String name) {
+      this.name = name;
+    }
+
+    void add(int read, int written, long elapsed) {
+      roundTrips.increment();
+      documentsRead.add(read);
+      documentsWritten.add(written);
+      nanos.add(elapsed);
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getRoundTrips() {
+      return roundTrips.sum();
+    }
+
+    public long getDocumentsRead() {
+      return documentsRead.sum();
+    }
+
+    public long getDocumentsWritten() {
+      return documentsWritten.sum();
+    }
+
+    public long getNanos() {
+      return nanos.sum();
+    }
+
+    @Override
+    public String toString() {
+      return name + " x" + getRoundTrips() + " (read=" + getDocumentsRead() + " written="
+          + getDocumentsWritten() + " " + millis(getNanos()) + "ms)";
+    }
+  }
+}
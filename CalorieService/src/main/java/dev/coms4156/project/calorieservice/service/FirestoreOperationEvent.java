@@ -0,0 +1,45 @@
+package dev.coms4156.project.calorieservice.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Registered;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event spanning one {@link FirestoreService} operation, including the
+ * operations it calls itself, such as the recipe reads of {@code getClientById}. Until
+ * {@link JfrEvents} registers it, creating, beginning and committing one does nothing.
+ */
+@Name(JfrEvents.FIRESTORE_OPERATION)
+@Label("Firestore Operation")
+@Category({"CalorieService", "Firestore"})
+@Description("A FirestoreService operation with the document or category it was called for")
+@StackTrace(false)
+@Registered(false)
+final class FirestoreOperationEvent extends Event {
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Collection")
+  String collection;
+
+  @Label("Document ID")
+  @Description("The document the operation read or wrote, or -1")
+  int documentId = -1;
+
+  @Label("Category")
+  @Description("The category the operation queried")
+  String category;
+
+  @Label("Result Size")
+  @Description("How many items the operation returned: 1 for a single item or true, "
+      + "0 for none or false")
+  int resultSize;
+
+  @Label("Success")
+  boolean success;
+}
@@ -1,8 +1,11 @@
 package dev.coms4156.project.calorieservice.service;
 
 import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.Blob;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.FirestoreOptions;
 import com.google.cloud.firestore.Query;
@@ -12,13 +15,22 @@ import com.google.cloud.firestore.WriteResult;
 import dev.coms4156.project.calorieservice.models.Client;
 import dev.coms4156.project.calorieservice.models.Food;
 import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.util.SingleFlight;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
@@ -27,11 +39,41 @@ import org.springframework.stereotype.Service;
 @Service
 public class FirestoreService {
 
-  private static final String FOODS_COLLECTION = "food";
-  private static final String RECIPES_COLLECTION = "recipes";
-  private static final String USERS_COLLECTION = "clients";
+  private static final Logger logger = LoggerFactory.getLogger(FirestoreService.class);
 
+  static final String FOODS_COLLECTION = "food";
+  static final String RECIPES_COLLECTION = "recipes";
+  static final String USERS_COLLECTION = "clients";
+  static final String OPERATION_TIMER = "firestore_operation_seconds";
+  static final String DOCUMENTS_READ_COUNTER = "firestore_documents_read_total";
+  static final String DOCUMENTS_WRITTEN_COUNTER = "firestore_documents_written_total";
+
+  private final MetricsService metrics;
   private Firestore db;
+  private final SingleFlight<String, DocumentSnapshot> documentReads = new SingleFlight<>();
+  private final SingleFlight<String, List<QueryDocumentSnapshot>> queryReads =
+      new SingleFlight<>();
+  private final ConcurrentHashMap<String, AtomicLong> writeGenerations =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a {@code FirestoreService} recording its metrics in its own
+   * {@link MetricsService}.
+   */
+  public FirestoreService() {
+    this(new MetricsService());
+  }
+
+  /**
+   * Constructs a {@code FirestoreService} recording a timer per operation and collection,
+   * and the documents each operation reads, in the given {@link MetricsService}.
+   *
+   * @param metrics the registry operation metrics are recorded in
+   */
+  @Autowired
+  public FirestoreService(MetricsService metrics) {
+    this.metrics = metrics;
+  }
 
   /**
    * Initializes the Firestore connection.
@@ -43,15 +85,13 @@ public class FirestoreService {
       Firestore db = FirestoreOptions.getDefaultInstance().getService();
       this.db = db;
 
-      System.out.println("Firestore initialized");
+      logger.info("Firestore initialized");
 
     } catch (Exception e) {
       //throw new RuntimeException("Failed to initialize Firestore: " + e.getMessage(), e);
 
       // Added a Timeout instead of Failure to Firestore init to make sure tests run locally.
-      System.out.println(
-          "WARNING: Firestore init failed; running locally with Firestore disabled.");
-      e.printStackTrace();
+      logger.warn("Firestore init failed; running locally with Firestore disabled.", e);
     }
   }
   
@@ -65,19 +105,26 @@ public class FirestoreService {
     if (db != null) {
       try {
         db.close();
-        System.out.println("Firestore connection closed");
+        logger.info("Firestore connection closed");
       } catch (Exception e) {
-        System.err.println("Error closing Firestore connection: " + e.getMessage());
+        logger.warn("Error closing Firestore connection: {}", e.getMessage());
       }
     }
   }
 
+  /**
+   * Returns the Firestore connection, or {@code null} if initialization failed.
+   */
+  Firestore getDatabase() {
+    return db;
+  }
+
   // ==================== FOOD OPERATIONS ====================
 
   /**
    * Converts a Food object to a Firestore document map.
    */
-  private Map<String, Object> foodToMap(Food food) {
+  Map<String, Object> foodToMap(Food food) {
     Map<String, Object> map = new HashMap<>();
     map.put("foodId", food.getFoodId());
     map.put("foodName", food.getFoodName());
@@ -89,7 +136,7 @@ public class FirestoreService {
   /**
    * Converts a Firestore document map to a Food object.
    */
-  private Food mapToFood(Map<String, Object> map) {
+  Food mapToFood(Map<String, Object> map) {
     if (map == null) {
       return null;
     }
@@ -105,48 +152,77 @@ public class FirestoreService {
    * Gets all foods from Firestore.
    */
   public ArrayList<Food> getAllFoods() throws ExecutionException, InterruptedException {
-    ApiFuture<QuerySnapshot> future = db.collection(FOODS_COLLECTION).get();
-    List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-    ArrayList<Food> foods = new ArrayList<>();
-    for (QueryDocumentSnapshot document : documents) {
-      Food food = mapToFood(document.getData());
-      if (food != null) {
-        foods.add(food);
+    return timed("getAllFoods", FOODS_COLLECTION, () -> {
+      long start = System.nanoTime();
+      ApiFuture<QuerySnapshot> future = db.collection(FOODS_COLLECTION).get();
+      List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+      countRead("getAllFoods", FOODS_COLLECTION, documents.size(), start);
+      ArrayList<Food> foods = new ArrayList<>();
+      for (QueryDocumentSnapshot document : documents) {
+        Food food = mapToFood(decode(document));
+        if (food != null) {
+          foods.add(food);
+        }
       }
-    }
-    return foods;
+      return foods;
+    });
   }
 
   /**
    * Gets a food by ID from Firestore.
    */
   public Food getFoodById(int foodId) throws ExecutionException, InterruptedException {
-    DocumentReference docRef = db.collection(FOODS_COLLECTION).document(String.valueOf(foodId));
-    ApiFuture<DocumentSnapshot> future = docRef.get();
-    DocumentSnapshot document = future.get();
-    if (document.exists()) {
-      return mapToFood(document.getData());
-    }
-    return null;
+    return timed("getFoodById", FOODS_COLLECTION, foodId, null, () -> {
+      DocumentSnapshot document = readDocument("getFoodById", FOODS_COLLECTION, foodId);
+      if (document.exists()) {
+        return mapToFood(decode(document));
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Gets several foods by ID with one batched document fetch.
+   *
+   * @param foodIds the IDs to read
+   * @return the foods that exist, keyed by ID in request order
+   */
+  public Map<Integer, Food> getFoodsByIds(Collection<Integer> foodIds)
+      throws ExecutionException, InterruptedException {
+    return timed("getFoodsByIds", FOODS_COLLECTION, () -> {
+      Map<Integer, Food> foods = new LinkedHashMap<>();
+      for (DocumentSnapshot document : getAll("getFoodsByIds", FOODS_COLLECTION, foodIds, null)) {
+        if (document.exists()) {
+          Food food = mapToFood(decode(document));
+          foods.put(food.getFoodId(), food);
+        }
+      }
+      return foods;
+    });
   }
 
   /**
    * Adds a food to Firestore.
    */
   public boolean addFood(Food food) throws ExecutionException, InterruptedException {
-    if (food == null) {
-      return false;
-    }
-    // Check if food already exists
-    Food existing = getFoodById(food.getFoodId());
-    if (existing != null) {
-      return false;
-    }
-    DocumentReference docRef = db.collection(FOODS_COLLECTION)
-        .document(String.valueOf(food.getFoodId()));
-    ApiFuture<WriteResult> future = docRef.set(foodToMap(food));
-    future.get();
-    return true;
+    int documentId = food == null ? -1 : food.getFoodId();
+    return timed("addFood", FOODS_COLLECTION, documentId, null, () -> {
+      if (food == null) {
+        return false;
+      }
+      // Check if food already exists
+      Food existing = getFoodById(food.getFoodId());
+      if (existing != null) {
+        return false;
+      }
+      DocumentReference docRef = db.collection(FOODS_COLLECTION)
+          .document(String.valueOf(food.getFoodId()));
+      long start = System.nanoTime();
+      ApiFuture<WriteResult> future = docRef.set(foodToMap(food));
+      future.get();
+      countWrite("addFood", FOODS_COLLECTION, start);
+      return true;
+    });
   }
 
   /**
@@ -154,19 +230,21 @@ public class FirestoreService {
    */
   public List<Food> getFoodsByCategoryAndCalories(String category, int maxCalories)
       throws ExecutionException, InterruptedException {
-    Query query = db.collection(FOODS_COLLECTION)
-        .whereEqualTo("category", category)
-        .whereLessThan("calories", maxCalories);
-    ApiFuture<QuerySnapshot> future = query.get();
-    List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-    List<Food> foods = new ArrayList<>();
-    for (QueryDocumentSnapshot document : documents) {
-      Food food = mapToFood(document.getData());
-      if (food != null) {
-        foods.add(food);
+    return timed("getFoodsByCategoryAndCalories", FOODS_COLLECTION, -1, category, () -> {
+      List<QueryDocumentSnapshot> documents = runQuery("getFoodsByCategoryAndCalories",
+          FOODS_COLLECTION, FOODS_COLLECTION + "|category=" + category + "|calories<" + maxCalories,
+          () -> db.collection(FOODS_COLLECTION)
+              .whereEqualTo("category", category)
+              .whereLessThan("calories", maxCalories));
+      List<Food> foods = new ArrayList<>();
+      for (QueryDocumentSnapshot document : documents) {
+        Food food = mapToFood(decode(document));
+        if (food != null) {
+          foods.add(food);
+        }
       }
-    }
-    return foods;
+      return foods;
+    });
   }
 
   // ==================== RECIPE OPERATIONS ====================
@@ -174,7 +252,7 @@ public class FirestoreService {
   /**
    * Converts a Recipe object to a Firestore document map.
    */
-  private Map<String, Object> recipeToMap(Recipe recipe) {
+  Map<String, Object> recipeToMap(Recipe recipe) {
     Map<String, Object> map = new HashMap<>();
     map.put("recipeId", recipe.getRecipeId());
     map.put("recipeName", recipe.getRecipeName());
@@ -192,6 +270,9 @@ public class FirestoreService {
       }
     }
     map.put("ingredients", ingredientsList);
+    if (recipe.getViewerSketch() != null) {
+      map.put("viewerSketch", Blob.fromBytes(recipe.getViewerSketch()));
+    }
 
     return map;
   }
@@ -199,7 +280,7 @@ public class FirestoreService {
   /**
    * Converts a Firestore document map to a Recipe object.
    */
-  private Recipe mapToRecipe(Map<String, Object> map) {
+  Recipe mapToRecipe(Map<String, Object> map) {
     if (map == null) {
       return null;
     }
@@ -217,11 +298,14 @@ public class FirestoreService {
       }
     }
 
-    // Calculate totalCalories from ingredients
+    // Calculate totalCalories from ingredients, unless a projection left them out
     int totalCalories = 0;
     for (Food ingredient : ingredients) {
       totalCalories += ingredient.getCalories();
     }
+    if (ingredientsList == null && map.get("totalCalories") instanceof Number stored) {
+      totalCalories = stored.intValue();
+    }
 
     // Use constructor that includes totalCalories
     Recipe recipe = new Recipe(
@@ -233,71 +317,157 @@ public class FirestoreService {
         ((Number) map.get("likes")).intValue(),
         totalCalories
     );
+    Object viewerSketch = map.get("viewerSketch");
+    if (viewerSketch instanceof Blob) {
+      recipe.setViewerSketch(((Blob) viewerSketch).toBytes());
+    }
+
+    return recipe;
+  }
 
+  /**
+   * Maps a recipe document, stamping the recipe with the document's update time when the
+   * whole document was read, so its cached JSON is reused until the document changes.
+   */
+  private Recipe readRecipe(DocumentSnapshot document, boolean wholeDocument) {
+    Recipe recipe = mapToRecipe(decode(document));
+    if (recipe != null && wholeDocument) {
+      recipe.setVersion(version(document.getUpdateTime()));
+    }
     return recipe;
   }
 
+  /**
+   * Stamps a recipe that was just written whole with the version Firestore gave it.
+   */
+  private static void stampVersion(Recipe recipe, WriteResult result) {
+    if (result != null) {
+      recipe.setVersion(version(result.getUpdateTime()));
+    }
+  }
+
+  private static long version(Timestamp updateTime) {
+    if (updateTime == null) {
+      return 0;
+    }
+    return updateTime.getSeconds() * 1_000_000L + updateTime.getNanos() / 1000;
+  }
+
   /**
    * Gets all recipes from Firestore.
    */
   public ArrayList<Recipe> getAllRecipes() throws ExecutionException, InterruptedException {
-    ApiFuture<QuerySnapshot> future = db.collection(RECIPES_COLLECTION).get();
-    List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-    ArrayList<Recipe> recipes = new ArrayList<>();
-    for (QueryDocumentSnapshot document : documents) {
-      Recipe recipe = mapToRecipe(document.getData());
-      if (recipe != null) {
-        recipes.add(recipe);
+    return timed("getAllRecipes", RECIPES_COLLECTION, () -> {
+      long start = System.nanoTime();
+      ApiFuture<QuerySnapshot> future = db.collection(RECIPES_COLLECTION).get();
+      List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+      countRead("getAllRecipes", RECIPES_COLLECTION, documents.size(), start);
+      ArrayList<Recipe> recipes = new ArrayList<>();
+      for (QueryDocumentSnapshot document : documents) {
+        Recipe recipe = readRecipe(document, true);
+        if (recipe != null) {
+          recipes.add(recipe);
+        }
       }
-    }
-    return recipes;
+      return recipes;
+    });
   }
 
   /**
    * Gets a recipe by ID from Firestore.
    */
   public Recipe getRecipeById(int recipeId) throws ExecutionException, InterruptedException {
-    DocumentReference docRef = db.collection(RECIPES_COLLECTION)
-        .document(String.valueOf(recipeId));
-    ApiFuture<DocumentSnapshot> future = docRef.get();
-    DocumentSnapshot document = future.get();
-    if (document.exists()) {
-      return mapToRecipe(document.getData());
+    return timed("getRecipeById", RECIPES_COLLECTION, recipeId, null, () -> {
+      DocumentSnapshot document = readDocument("getRecipeById", RECIPES_COLLECTION, recipeId);
+      if (document.exists()) {
+        return readRecipe(document, true);
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Gets several recipes by ID with one batched document fetch, reading only the given
+   * document fields. Fields that are not read keep their default value.
+   *
+   * @param recipeIds the IDs to read
+   * @param fields the document fields to read, or none to read whole documents
+   * @return the recipes that exist, keyed by ID in request order
+   */
+  public Map<Integer, Recipe> getRecipesByIds(Collection<Integer> recipeIds, String... fields)
+      throws ExecutionException, InterruptedException {
+    return timed("getRecipesByIds", RECIPES_COLLECTION, () -> {
+      FieldMask mask = fields.length > 0 ? FieldMask.of(fields) : null;
+      Map<Integer, Recipe> recipes = new LinkedHashMap<>();
+      List<DocumentSnapshot> documents =
+          getAll("getRecipesByIds", RECIPES_COLLECTION, recipeIds, mask);
+      for (DocumentSnapshot document : documents) {
+        if (document.exists()) {
+          Recipe recipe = readRecipe(document, mask == null);
+          recipes.put(recipe.getRecipeId(), recipe);
+        }
+      }
+      return recipes;
+    });
+  }
+
+  private List<DocumentSnapshot> getAll(String operation, String collection,
+      Collection<Integer> ids, FieldMask mask) throws ExecutionException, InterruptedException {
+    if (ids.isEmpty()) {
+      return List.of();
     }
-    return null;
+    DocumentReference[] refs = ids.stream()
+        .map(id -> db.collection(collection).document(String.valueOf(id)))
+        .toArray(DocumentReference[]::new);
+    long start = System.nanoTime();
+    ApiFuture<List<DocumentSnapshot>> future = mask == null ? db.getAll(refs)
+        : db.getAll(refs, mask);
+    List<DocumentSnapshot> documents = future.get();
+    countRead(operation, collection, documents.size(), start);
+    return documents;
   }
 
   /**
    * Adds a recipe to Firestore.
    */
   public boolean addRecipe(Recipe recipe) throws ExecutionException, InterruptedException {
-    if (recipe == null) {
-      return false;
-    }
-    // Check if recipe already exists
-    Recipe existing = getRecipeById(recipe.getRecipeId());
-    if (existing != null) {
-      return false;
-    }
-    DocumentReference docRef = db.collection(RECIPES_COLLECTION)
-        .document(String.valueOf(recipe.getRecipeId()));
-    ApiFuture<WriteResult> future = docRef.set(recipeToMap(recipe));
-    future.get();
-    return true;
+    int documentId = recipe == null ? -1 : recipe.getRecipeId();
+    return timed("addRecipe", RECIPES_COLLECTION, documentId, null, () -> {
+      if (recipe == null) {
+        return false;
+      }
+      // Check if recipe already exists
+      Recipe existing = getRecipeById(recipe.getRecipeId());
+      if (existing != null) {
+        return false;
+      }
+      DocumentReference docRef = db.collection(RECIPES_COLLECTION)
+          .document(String.valueOf(recipe.getRecipeId()));
+      long start = System.nanoTime();
+      ApiFuture<WriteResult> future = docRef.set(recipeToMap(recipe));
+      stampVersion(recipe, future.get());
+      countWrite("addRecipe", RECIPES_COLLECTION, start);
+      return true;
+    });
   }
 
   /**
    * Updates a recipe in Firestore.
    */
   public boolean updateRecipe(Recipe recipe) throws ExecutionException, InterruptedException {
-    if (recipe == null) {
-      return false;
-    }
-    DocumentReference docRef = db.collection(RECIPES_COLLECTION)
-        .document(String.valueOf(recipe.getRecipeId()));
-    ApiFuture<WriteResult> future = docRef.set(recipeToMap(recipe));
-    future.get();
-    return true;
+    int documentId = recipe == null ? -1 : recipe.getRecipeId();
+    return timed("updateRecipe", RECIPES_COLLECTION, documentId, null, () -> {
+      if (recipe == null) {
+        return false;
+      }
+      DocumentReference docRef = db.collection(RECIPES_COLLECTION)
+          .document(String.valueOf(recipe.getRecipeId()));
+      long start = System.nanoTime();
+      ApiFuture<WriteResult> future = docRef.set(recipeToMap(recipe));
+      stampVersion(recipe, future.get());
+      countWrite("updateRecipe", RECIPES_COLLECTION, start);
+      return true;
+    });
   }
 
   /**
@@ -305,19 +475,26 @@ public class FirestoreService {
    */
   public List<Recipe> getRecipesByCategoryAndCalories(String category, int maxCalories)
       throws ExecutionException, InterruptedException {
-    Query query = db.collection(RECIPES_COLLECTION)
-        .whereEqualTo("category", category)
-        .whereLessThanOrEqualTo("totalCalories", maxCalories);
-    ApiFuture<QuerySnapshot> future = query.get();
-    List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-    List<Recipe> recipes = new ArrayList<>();
-    for (QueryDocumentSnapshot document : documents) {
-      Recipe recipe = mapToRecipe(document.getData());
-      if (recipe != null) {
-        recipes.add(recipe);
-      }
-    }
-    return recipes;
+    return getRecipesByCategoryAndCalories(category, maxCalories, new String[0]);
+  }
+
+  /**
+   * Gets recipes by category and calorie filter, reading only the given document fields.
+   * Fields that are not read keep their default value in the returned recipes.
+   *
+   * @param category the category to match
+   * @param maxCalories the largest total calorie count to include
+   * @param fields the document fields to read, or none to read whole documents
+   */
+  public List<Recipe> getRecipesByCategoryAndCalories(String category, int maxCalories,
+      String... fields) throws ExecutionException, InterruptedException {
+    return timed("getRecipesByCategoryAndCalories", RECIPES_COLLECTION, -1, category, () -> {
+      return queryRecipes("getRecipesByCategoryAndCalories",
+          RECIPES_COLLECTION + "|category=" + category + "|totalCalories<=" + maxCalories,
+          () -> db.collection(RECIPES_COLLECTION)
+              .whereEqualTo("category", category)
+              .whereLessThanOrEqualTo("totalCalories", maxCalories), fields);
+    });
   }
 
   /**
@@ -325,13 +502,38 @@ public class FirestoreService {
    */
   public List<Recipe> getRecipesByCalories(int maxCalories)
       throws ExecutionException, InterruptedException {
-    Query query = db.collection(RECIPES_COLLECTION)
-        .whereLessThanOrEqualTo("totalCalories", maxCalories);
-    ApiFuture<QuerySnapshot> future = query.get();
-    List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+    return getRecipesByCalories(maxCalories, new String[0]);
+  }
+
+  /**
+   * Gets all recipes with calorie filter, reading only the given document fields.
+   * Fields that are not read keep their default value in the returned recipes.
+   *
+   * @param maxCalories the largest total calorie count to include
+   * @param fields the document fields to read, or none to read whole documents
+   */
+  public List<Recipe> getRecipesByCalories(int maxCalories, String... fields)
+      throws ExecutionException, InterruptedException {
+    return timed("getRecipesByCalories", RECIPES_COLLECTION, () -> {
+      return queryRecipes("getRecipesByCalories",
+          RECIPES_COLLECTION + "|totalCalories<=" + maxCalories,
+          () -> db.collection(RECIPES_COLLECTION)
+              .whereLessThanOrEqualTo("totalCalories", maxCalories), fields);
+    });
+  }
+
+  private List<Recipe> queryRecipes(String operation, String key, Supplier<Query> query,
+      String... fields) throws ExecutionException, InterruptedException {
+    List<QueryDocumentSnapshot> documents;
+    if (fields.length > 0) {
+      documents = runQuery(operation, RECIPES_COLLECTION,
+          key + "|select=" + String.join(",", fields), () -> query.get().select(fields));
+    } else {
+      documents = runQuery(operation, RECIPES_COLLECTION, key, query);
+    }
     List<Recipe> recipes = new ArrayList<>();
     for (QueryDocumentSnapshot document : documents) {
-      Recipe recipe = mapToRecipe(document.getData());
+      Recipe recipe = readRecipe(document, fields.length == 0);
       if (recipe != null) {
         recipes.add(recipe);
       }
@@ -344,7 +546,7 @@ public class FirestoreService {
   /**
    * Converts a Client object to a Firestore document map.
    */
-  private Map<String, Object> clientToMap(Client client) {
+  Map<String, Object> clientToMap(Client client) {
     Map<String, Object> map = new HashMap<>();
     map.put("clientId", client.getClientId());
     map.put("clientname", client.getClientname());
@@ -370,90 +572,127 @@ public class FirestoreService {
     if (map == null) {
       return null;
     }
+    Client client = mapToClientWithoutRecipes(map);
+
+    // Load liked recipes by their IDs, one getRecipeById span each
+    ArrayList<Recipe> likedRecipes = new ArrayList<>();
+    List<Integer> recipeIds = likedRecipeIds(map);
+    try (Span span = Tracing.startSpan("FirestoreService.hydrateLikedRecipes")) {
+      span.setAttribute("client.id", client.getClientId());
+      span.setAttribute("recipe.count", recipeIds.size());
+      for (int recipeId : recipeIds) {
+        Recipe recipe = getRecipeById(recipeId);
+        if (recipe != null) {
+          likedRecipes.add(recipe);
+        }
+      }
+    }
+    client.setLikedRecipes(likedRecipes);
+
+    return client;
+  }
+
+  /**
+   * Converts a Firestore document map to a Client object with no liked recipes loaded.
+   */
+  Client mapToClientWithoutRecipes(Map<String, Object> map) {
     Client client = new Client();
     client.setClientId(((Number) map.get("clientId")).intValue());
     client.setClientname((String) map.get("clientname"));
+    return client;
+  }
 
-    // Load liked recipes by their IDs
+  /**
+   * Reads the liked recipe IDs stored in a client document map.
+   */
+  static List<Integer> likedRecipeIds(Map<String, Object> map) {
     // Firestore returns Long for numeric values, so we need to convert
     @SuppressWarnings("unchecked")
     List<Object> likedRecipeIds = (List<Object>) map.get("likedRecipeIds");
-    ArrayList<Recipe> likedRecipes = new ArrayList<>();
+    List<Integer> recipeIds = new ArrayList<>();
     if (likedRecipeIds != null) {
       for (Object recipeIdObj : likedRecipeIds) {
         // Convert to int, handling both Integer and Long from Firestore
-        int recipeId = ((Number) recipeIdObj).intValue();
-        Recipe recipe = getRecipeById(recipeId);
-        if (recipe != null) {
-          likedRecipes.add(recipe);
-        }
+        recipeIds.add(((Number) recipeIdObj).intValue());
       }
     }
-    client.setLikedRecipes(likedRecipes);
-
-    return client;
+    return recipeIds;
   }
 
   /**
    * Gets all clients from Firestore.
    */
   public ArrayList<Client> getAllClients() throws ExecutionException, InterruptedException {
-    ApiFuture<QuerySnapshot> future = db.collection(USERS_COLLECTION).get();
-    List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-    ArrayList<Client> clients = new ArrayList<>();
-    for (QueryDocumentSnapshot document : documents) {
-      Client client = mapToClient(document.getData());
-      if (client != null) {
-        clients.add(client);
+    return timed("getAllClients", USERS_COLLECTION, () -> {
+      long start = System.nanoTime();
+      ApiFuture<QuerySnapshot> future = db.collection(USERS_COLLECTION).get();
+      List<QueryDocumentSnapshot> documents = future.get().getDocuments();
+      countRead("getAllClients", USERS_COLLECTION, documents.size(), start);
+      ArrayList<Client> clients = new ArrayList<>();
+      for (QueryDocumentSnapshot document : documents) {
+        Client client = mapToClient(decode(document));
+        if (client != null) {
+          clients.add(client);
+        }
       }
-    }
-    return clients;
+      return clients;
+    });
   }
 
   /**
    * Gets a client by ID from Firestore.
    */
   public Client getClientById(int clientId) throws ExecutionException, InterruptedException {
-    DocumentReference docRef = db.collection(USERS_COLLECTION).document(String.valueOf(clientId));
-    ApiFuture<DocumentSnapshot> future = docRef.get();
-    DocumentSnapshot document = future.get();
-    if (document.exists()) {
-      return mapToClient(document.getData());
-    }
-    return null;
+    return timed("getClientById", USERS_COLLECTION, clientId, null, () -> {
+      DocumentSnapshot document = readDocument("getClientById", USERS_COLLECTION, clientId);
+      if (document.exists()) {
+        return mapToClient(decode(document));
+      }
+      return null;
+    });
   }
 
   /**
    * Adds a client to Firestore.
    */
   public boolean addClient(Client client) throws ExecutionException, InterruptedException {
-    if (client == null) {
-      return false;
-    }
-    // Check if client already exists
-    Client existing = getClientById(client.getClientId());
-    if (existing != null) {
-      return false;
-    }
-    DocumentReference docRef = db.collection(USERS_COLLECTION)
-        .document(String.valueOf(client.getClientId()));
-    ApiFuture<WriteResult> future = docRef.set(clientToMap(client));
-    future.get();
-    return true;
+    int documentId = client == null ? -1 : client.getClientId();
+    return timed("addClient", USERS_COLLECTION, documentId, null, () -> {
+      if (client == null) {
+        return false;
+      }
+      // Check if client already exists
+      Client existing = getClientById(client.getClientId());
+      if (existing != null) {
+        return false;
+      }
+      DocumentReference docRef = db.collection(USERS_COLLECTION)
+          .document(String.valueOf(client.getClientId()));
+      long start = System.nanoTime();
+      ApiFuture<WriteResult> future = docRef.set(clientToMap(client));
+      future.get();
+      countWrite("addClient", USERS_COLLECTION, start);
+      return true;
+    });
   }
 
   /**
    * Updates a client in Firestore.
    */
   public boolean updateClient(Client client) throws ExecutionException, InterruptedException {
-    if (client == null) {
-      return false;
-    }
-    DocumentReference docRef = db.collection(USERS_COLLECTION)
-        .document(String.valueOf(client.getClientId()));
-    ApiFuture<WriteResult> future = docRef.set(clientToMap(client));
-    future.get();
-    return true;
+    int documentId = client == null ? -1 : client.getClientId();
+    return timed("updateClient", USERS_COLLECTION, documentId, null, () -> {
+      if (client == null) {
+        return false;
+      }
+      DocumentReference docRef = db.collection(USERS_COLLECTION)
+          .document(String.valueOf(client.getClientId()));
+      long start = System.nanoTime();
+      ApiFuture<WriteResult> future = docRef.set(clientToMap(client));
+      future.get();
+      countWrite("updateClient", USERS_COLLECTION, start);
+      return true;
+    });
   }
 
   // ==================== DELETE OPERATIONS ====================
@@ -465,11 +704,15 @@ public class FirestoreService {
    * @return true if the food was deleted, false if it didn't exist
    */
   public boolean deleteFood(int foodId) throws ExecutionException, InterruptedException {
-    DocumentReference docRef = db.collection(FOODS_COLLECTION)
-        .document(String.valueOf(foodId));
-    ApiFuture<WriteResult> future = docRef.delete();
-    future.get();
-    return true;
+    return timed("deleteFood", FOODS_COLLECTION, foodId, null, () -> {
+      DocumentReference docRef = db.collection(FOODS_COLLECTION)
+          .document(String.valueOf(foodId));
+      long start = System.nanoTime();
+      ApiFuture<WriteResult> future = docRef.delete();
+      future.get();
+      countWrite("deleteFood", FOODS_COLLECTION, start);
+      return true;
+    });
   }
 
   /**
@@ -479,11 +722,15 @@ public class FirestoreService {
    * @return true if the recipe was deleted, false if it didn't exist
    */
   public boolean deleteRecipe(int recipeId) throws ExecutionException, InterruptedException {
-    DocumentReference docRef = db.collection(RECIPES_COLLECTION)
-        .document(String.valueOf(recipeId));
-    ApiFuture<WriteResult> future = docRef.delete();
-    future.get();
-    return true;
+    return timed("deleteRecipe", RECIPES_COLLECTION, recipeId, null, () -> {
+      DocumentReference docRef = db.collection(RECIPES_COLLECTION)
+          .document(String.valueOf(recipeId));
+      long start = System.nanoTime();
+      ApiFuture<WriteResult> future = docRef.delete();
+      future.get();
+      countWrite("deleteRecipe", RECIPES_COLLECTION, start);
+      return true;
+    });
   }
 
   /**
@@ -493,11 +740,206 @@ public class FirestoreService {
    * @return true if the client was deleted, false if it didn't exist
    */
   public boolean deleteClient(int clientId) throws ExecutionException, InterruptedException {
-    DocumentReference docRef = db.collection(USERS_COLLECTION)
-        .document(String.valueOf(clientId));
-    ApiFuture<WriteResult> future = docRef.delete();
-    future.get();
-    return true;
+    return timed("deleteClient", USERS_COLLECTION, clientId, null, () -> {
+      DocumentReference docRef = db.collection(USERS_COLLECTION)
+          .document(String.valueOf(clientId));
+      long start = System.nanoTime();
+      ApiFuture<WriteResult> future = docRef.delete();
+      future.get();
+      countWrite("deleteClient", USERS_COLLECTION, start);
+      return true;
+    });
+  }
+
+  // ==================== METRICS ====================
+
+  /**
+   * A Firestore operation that may fail the way a blocking Firestore call does.
+   */
+  @FunctionalInterface
+  private interface FirestoreCall<T> {
+    T call() throws ExecutionException, InterruptedException;
   }
-}
 
+  /**
+   * Runs one public operation, recording its latency and outcome.
+   */
+  private <T> T timed(String operation, String collection, FirestoreCall<T> call)
+      throws ExecutionException, InterruptedException {
+    return timed(operation, collection, -1, null, call);
+  }
+
+  /**
+   * Runs one public operation, recording its latency and outcome, a Flight Recorder event
+   * with the document or category it was called for if one is being recorded, and a span
+   * if the current trace is sampled. The event and span are only created, and the
+   * result's size only worked out, when something records them.
+   */
+  private <T> T timed(String operation, String collection, int documentId, String category,
+      FirestoreCall<T> call) throws ExecutionException, InterruptedException {
+    FirestoreOperationEvent event = null;
+    if (JfrEvents.recordingFirestoreOperations()) {
+      event = new FirestoreOperationEvent();
+      event.begin();
+    }
+    Span span = Tracing.isRecording() ? Tracing.startSpan("FirestoreService." + operation)
+        : null;
+    boolean sampled = span != null && span.isSampled();
+    long start = System.nanoTime();
+    String outcome = "error";
+    int resultSize = 0;
+    try {
+      T result = call.call();
+      outcome = "success";
+      if (event != null || sampled) {
+        resultSize = ServiceOperation.sizeOf(result);
+      }
+      return result;
+    } catch (ExecutionException | InterruptedException | RuntimeException e) {
+      if (span != null) {
+        span.recordError(e);
+      }
+      throw e;
+    } finally {
+      metrics.timer(OPERATION_TIMER, "Latency of FirestoreService operations",
+          "operation", operation, "collection", collection, "outcome", outcome)
+          .record(System.nanoTime() - start);
+      if (event != null) {
+        event.operation = operation;
+        event.collection = collection;
+        event.documentId = documentId;
+        event.category = category;
+        event.resultSize = resultSize;
+        event.success = "success".equals(outcome);
+        event.commit();
+      }
+      if (sampled) {
+        span.setAttribute("db.system", "firestore");
+        span.setAttribute("db.operation", operation);
+        span.setAttribute("db.collection", collection);
+        if (documentId >= 0) {
+          span.setAttribute("db.document.id", documentId);
+        }
+        if (category != null) {
+          span.setAttribute("category", category);
+        }
+        span.setAttribute("result.size", resultSize);
+        span.setAttribute("outcome", outcome);
+      }
+      if (span != null) {
+        span.close();
+      }
+    }
+  }
+
+  /**
+   * Counts documents returned by one Firestore round trip started at {@code start}, for the
+   * operation and for the request whose thread made it.
+   */
+  private void countRead(String operation, String collection, int documents, long start) {
+    long elapsed = System.nanoTime() - start;
+    metrics.counter(DOCUMENTS_READ_COUNTER, "Documents read from Firestore",
+        "operation", operation, "collection", collection).increment(documents);
+    FirestoreCost cost = FirestoreCost.current();
+    if (cost != null) {
+      cost.addRead(operation, documents, elapsed);
+    }
+  }
+
+  /**
+   * Counts one document set or deleted by a round trip started at {@code start}, for the
+   * operation and for the request whose thread made it.
+   */
+  private void countWrite(String operation, String collection, long start) {
+    long elapsed = System.nanoTime() - start;
+    writeGeneration(collection).incrementAndGet();
+    metrics.counter(DOCUMENTS_WRITTEN_COUNTER, "Documents set or deleted in Firestore",
+        "operation", operation, "collection", collection).increment(1);
+    FirestoreCost cost = FirestoreCost.current();
+    if (cost != null) {
+      cost.addWrite(operation, 1, elapsed);
+    }
+  }
+
+  /**
+   * Decodes a document's fields, charging their estimated size to the request whose thread
+   * decodes them.
+   */
+  private static Map<String, Object> decode(DocumentSnapshot document) {
+    Map<String, Object> data = document.getData();
+    FirestoreCost cost = FirestoreCost.current();
+    if (cost != null && data != null) {
+      cost.addBytesDecoded(FirestoreCost.documentSize(data));
+    }
+    return data;
+  }
+
+  // ==================== READ COALESCING ====================
+
+  /**
+   * Returns the number of writes to {@code collection} acknowledged so far. Coalesced
+   * reads are keyed on it, so a caller that has just written never joins a read of the
+   * collection that started before its write was acknowledged.
+   */
+  private AtomicLong writeGeneration(String collection) {
+    return writeGenerations.computeIfAbsent(collection, name -> new AtomicLong());
+  }
+
+  /**
+   * Reads a document, sharing the read with any identical one already in flight that
+   * started after the last acknowledged write to the collection.
+   * Each caller maps the shared snapshot itself, so callers never share model objects.
+   */
+  private DocumentSnapshot readDocument(String operation, String collection, int id)
+      throws ExecutionException, InterruptedException {
+    String documentId = String.valueOf(id);
+    String key = collection + "/" + documentId + "@" + writeGeneration(collection).get();
+    return documentReads.execute(key, () -> {
+      long start = System.nanoTime();
+      DocumentSnapshot document = db.collection(collection).document(documentId).get().get();
+      countRead(operation, collection, 1, start);
+      return document;
+    });
+  }
+
+  /**
+   * Runs a query, sharing the run with any identical one already in flight that started
+   * after the last acknowledged write to the collection.
+   *
+   * @param operation the public operation the query is run for
+   * @param collection the collection queried
+   * @param key describes the collection, filters and projection of the query
+   * @param query builds the query if it has to be run
+   */
+  private List<QueryDocumentSnapshot> runQuery(String operation, String collection, String key,
+      Supplier<Query> query) throws ExecutionException, InterruptedException {
+    String generationKey = key + "@" + writeGeneration(collection).get();
+    return queryReads.execute(generationKey, () -> {
+      long start = System.nanoTime();
+      List<QueryDocumentSnapshot> documents = query.get().get().get().getDocuments();
+      countRead(operation, collection, documents.size(), start);
+      return documents;
+    });
+  }
+
+  /**
+   * Returns how many by-id document reads and queries were requested, how many of them
+   * shared an identical read already in flight, and how many reads are in flight now.
+   *
+   * @return a map with a "documentReads" and a "queries" entry, each holding the counts
+   */
+  public Map<String, Map<String, Long>> getReadCoalescingStats() {
+    Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+    stats.put("documentReads", coalescingStats(documentReads));
+    stats.put("queries", coalescingStats(queryReads));
+    return stats;
+  }
+
+  private static Map<String, Long> coalescingStats(SingleFlight<?, ?> reads) {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("calls", reads.calls());
+    stats.put("coalesced", reads.coalesced());
+    stats.put("inFlight", (long) reads.inFlight());
+    return stats;
+  }
+}
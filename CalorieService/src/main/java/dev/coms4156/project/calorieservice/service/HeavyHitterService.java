@@ -0,0 +1,94 @@
+package dev.coms4156.project.calorieservice.service;
+
+import dev.coms4156.project.calorieservice.models.RecipeViewEstimate;
+import dev.coms4156.project.calorieservice.util.CountMinSketch;
+import dev.coms4156.project.calorieservice.util.SpaceSaving;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tracks the most viewed recipes in fixed memory. A Count-Min Sketch estimates the
+ * count of any recipe and a Space-Saving tracker keeps the candidates for the top list,
+ * so neither an exact per-recipe counter nor a Firestore query is needed.
+ * Counts start empty when the service starts.
+ */
+@Service
+public class HeavyHitterService {
+
+  /** Largest number of recipes returned by {@link #getTopRecipes(int)}. */
+  public static final int MAX_LIMIT = 50;
+
+  private final CountMinSketch sketch;
+  private final SpaceSaving candidates;
+
+  /**
+   * Constructs a {@code HeavyHitterService} with the configured error parameters.
+   *
+   * @param epsilon sketch error bound, as a fraction of all recorded views
+   * @param delta probability that a sketch estimate exceeds the error bound
+   * @param capacity number of candidate recipes monitored for the top list
+   */
+  @Autowired
+  public HeavyHitterService(@Value("${heavy-hitters.epsilon:0.0005}") double epsilon,
+      @Value("${heavy-hitters.delta:0.01}") double delta,
+      @Value("${heavy-hitters.capacity:200}") int capacity) {
+    if (capacity < MAX_LIMIT) {
+      throw new IllegalArgumentException("Capacity must be at least " + MAX_LIMIT);
+    }
+    this.sketch = new CountMinSketch(epsilon, delta);
+    this.candidates = new SpaceSaving(capacity);
+  }
+
+  /**
+   * Constructs a {@code HeavyHitterService} with the default error parameters.
+   */
+  public HeavyHitterService() {
+    this(0.0005, 0.01, 200);
+  }
+
+  /**
+   * Records one view of a recipe.
+   *
+   * @param recipeId identifier of the viewed recipe.
+   */
+  public void recordView(int recipeId) {
+    sketch.add(recipeId);
+    candidates.add(recipeId);
+  }
+
+  /**
+   * Returns the recipes with the highest estimated view counts. Each estimate is the
+   * smaller of the Space-Saving and Count-Min counts, both of which never undercount.
+   * The lower bound is guaranteed; the sketch estimate is within {@link #getErrorBound()}
+   * of the true count with probability {@link #getConfidence()}.
+   *
+   * @param limit maximum number of recipes to return.
+   * @return A {@code List} of up to {@code limit} estimates, highest first
+   */
+  public List<RecipeViewEstimate> getTopRecipes(int limit) {
+    List<RecipeViewEstimate> top = new ArrayList<>();
+    for (SpaceSaving.Entry entry : candidates.top(candidates.getCapacity())) {
+      long upper = Math.min(entry.getCount(), sketch.estimate(entry.getKey()));
+      long lower = Math.max(0, entry.getCount() - entry.getError());
+      top.add(new RecipeViewEstimate(entry.getKey(), upper, lower, upper));
+    }
+    top.sort(Comparator.comparingLong(RecipeViewEstimate::getEstimate).reversed());
+    return top.size() <= limit ? top : top.subList(0, limit);
+  }
+
+  public long getTotalViews() {
+    return sketch.totalCount();
+  }
+
+  public long getErrorBound() {
+    return sketch.errorBound();
+  }
+
+  public double getConfidence() {
+    return 1 - sketch.getDelta();
+  }
+}
@@ -0,0 +1,281 @@
+package dev.coms4156.project.calorieservice.service;
+
+import dev.coms4156.project.calorieservice.client.ClientEvent;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.util.IntDoubleHashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Service;
+
+/**
+ * Builds an in-memory interaction profile per client from logged client events, and ranks
+ * recommendation candidates by it.
+ *
+ * <p>Every event that names a {@code serviceClientId} and a {@code recipeId} adds to that
+ * client's recipe histogram and, once the recipe's category is known, its category
+ * histogram. Likes count {@link #LIKE_WEIGHT} times as much as other interactions, and all
+ * weights decay with a configurable half-life, so recent interest outweighs old interest.
+ * Histograms are primitive maps bounded to a fixed number of entries; the weakest entry
+ * makes room for a new one. Categories are learned from the recipes the service already
+ * reads, so profiles never cost a Firestore read. Profiles start empty when the service
+ * starts, and clients beyond the configured limit are not profiled.
+ */
+@Service
+public class InteractionProfileService {
+
+  /** Weight of an event of type {@code like}, relative to any other interaction. */
+  static final double LIKE_WEIGHT = 5.0;
+  static final double OTHER_WEIGHT = 1.0;
+
+  // Weights are stored relative to a per-profile landmark time; past this factor they are
+  // rescaled to the current time so they never overflow
+  private static final double RESCALE_AT = 1e100;
+
+  private final double decayPerMilli;
+  private final int maxRecipes;
+  private final int maxCategories;
+  private final int maxClients;
+  private final LongSupplier clock;
+  private final Map<Integer, Profile> profiles = new ConcurrentHashMap<>();
+  private final Map<String, Integer> categoryIds = new ConcurrentHashMap<>();
+  private final AtomicInteger nextCategoryId = new AtomicInteger();
+  private final Map<Integer, Integer> recipeCategories = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs an {@code InteractionProfileService} with a one-week half-life, 64 recipes
+   * and 16 categories per client, and up to 100000 clients.
+   */
+  public InteractionProfileService() {
+    this(Duration.ofDays(7), 64, 16, 100_000, System::currentTimeMillis);
+  }
+
+  /**
+   * Constructs an {@code InteractionProfileService} from the {@code recommend.profile.*}
+   * properties.
+   *
+   * @param halfLife time for an interaction's weight to halve, such as 7d
+   * @param maxRecipes most recipes kept per client
+   * @param maxCategories most categories kept per client
+   * @param maxClients most clients profiled
+   */
+  @Autowired
+  public InteractionProfileService(
+      @Value("${recommend.profile.half-life:7d}") String halfLife,
+      @Value("${recommend.profile.max-recipes:64}") int maxRecipes,
+      @Value("${recommend.profile.max-categories:16}") int maxCategories,
+      @Value("${recommend.profile.max-clients:100000}") int maxClients) {
+    this(DurationStyle.detectAndParse(halfLife), maxRecipes, maxCategories, maxClients,
+        System::currentTimeMillis);
+  }
+
+  /**
+   * Constructs an {@code InteractionProfileService} with explicit settings.
+   *
+   * @param halfLife time for an interaction's weight to halve
+   * @param maxRecipes most recipes kept per client
+   * @param maxCategories most categories kept per client
+   * @param maxClients most clients profiled
+   * @param clock source of the current time in epoch milliseconds
+   */
+  public InteractionProfileService(Duration halfLife, int maxRecipes, int maxCategories,
+      int maxClients, LongSupplier clock) {
+    if (halfLife.isZero() || halfLife.isNegative()) {
+      throw new IllegalArgumentException("Half-life must be positive");
+    }
+    if (maxRecipes < 1 || maxCategories < 1 || maxClients < 0) {
+      throw new IllegalArgumentException("Profile limits must be positive");
+    }
+    this.decayPerMilli = Math.log(2) / halfLife.toMillis();
+    this.maxRecipes = maxRecipes;
+    this.maxCategories = maxCategories;
+    this.maxClients = maxClients;
+    this.clock = clock;
+  }
+
+  /**
+   * Adds an event to its client's profile. Events without a {@code serviceClientId} or
+   * {@code recipeId} are ignored.
+   *
+   * @param event the logged event
+   */
+  public void record(ClientEvent event) {
+    Integer clientId = event.getServiceClientId();
+    Integer recipeId = event.getRecipeId();
+    if (clientId == null || recipeId == null) {
+      return;
+    }
+    Profile profile = profiles.get(clientId);
+    if (profile == null) {
+      if (profiles.size() >= maxClients) {
+        return;
+      }
+      profile = profiles.computeIfAbsent(clientId, id -> new Profile(clock.getAsLong()));
+    }
+    double weight = "like".equals(event.getType()) ? LIKE_WEIGHT : OTHER_WEIGHT;
+    Integer categoryId = recipeCategories.get(recipeId);
+    synchronized (profile) {
+      profile.add(recipeId, categoryId == null ? -1 : categoryId, weight,
+          clock.getAsLong());
+    }
+  }
+
+  /**
+   * Remembers the categories of recipes, so later events about them also count toward
+   * their category.
+   *
+   * @param recipes recipes read from Firestore
+   */
+  public void learnCategories(Collection<Recipe> recipes) {
+    for (Recipe recipe : recipes) {
+      if (recipe != null && recipe.getCategory() != null) {
+        recipeCategories.put(recipe.getRecipeId(), categoryId(recipe.getCategory()));
+      }
+    }
+  }
+
+  /**
+   * Returns up to {@code limit} candidates, those the client has shown the most recent
+   * interest in, directly or through their category, first. Candidates of equal interest,
+   * including all of them when the client has no profile, are in random order.
+   *
+   * @param clientId the client the candidates are for
+   * @param candidates the recipes to rank; shuffled and sorted in place
+   * @param limit the most recipes to return
+   * @return the first {@code limit} ranked candidates
+   */
+  public List<Recipe> rank(int clientId, List<Recipe> candidates, int limit) {
+    Collections.shuffle(candidates);
+    Profile profile = profiles.get(clientId);
+    if (profile != null) {
+      double[] scores = new double[candidates.size()];
+      synchronized (profile) {
+        for (int i = 0; i < scores.length; i++) {
+          Recipe recipe = candidates.get(i);
+          Integer categoryId = recipe.getCategory() == null ? null
+              : categoryIds.get(recipe.getCategory());
+          scores[i] = profile.score(recipe.getRecipeId(), categoryId == null ? -1 : categoryId);
+        }
+      }
+      List<Integer> order = new ArrayList<>(scores.length);
+      for (int i = 0; i < scores.length; i++) {
+        order.add(i);
+      }
+      // Stable, so candidates with equal scores keep their shuffled order
+      order.sort(Comparator.comparingDouble(i -> -scores[i]));
+      List<Recipe> ranked = new ArrayList<>(scores.length);
+      for (int i : order) {
+        ranked.add(candidates.get(i));
+      }
+      candidates.clear();
+      candidates.addAll(ranked);
+    }
+    return candidates.size() <= limit ? candidates : candidates.subList(0, limit);
+  }
+
+  /**
+   * Returns a client's current, decayed interest in a recipe, or {@code 0} if it has none.
+   */
+  public double recipeWeight(int clientId, int recipeId) {
+    Profile profile = profiles.get(clientId);
+    if (profile == null) {
+      return 0;
+    }
+    synchronized (profile) {
+      return profile.recipes.get(recipeId) * profile.decayFactor(clock.getAsLong());
+    }
+  }
+
+  /**
+   * Returns a client's current, decayed interest in a category, or {@code 0} if it has
+   * none.
+   */
+  public double categoryWeight(int clientId, String category) {
+    Profile profile = profiles.get(clientId);
+    Integer categoryId = categoryIds.get(category);
+    if (profile == null || categoryId == null) {
+      return 0;
+    }
+    synchronized (profile) {
+      return profile.categories.get(categoryId) * profile.decayFactor(clock.getAsLong());
+    }
+  }
+
+  private int categoryId(String category) {
+    Integer id = categoryIds.get(category);
+    return id != null ? id
+        : categoryIds.computeIfAbsent(category, key -> nextCategoryId.getAndIncrement());
+  }
+
+  /**
+   * One client's histograms. Weights use forward decay: an interaction at time {@code t} is
+   * stored as {@code weight * e^(lambda * (t - landmark))}, so older entries never need to
+   * be updated and the ranking only changes when something new is added. Guarded by its
+   * own monitor.
+   */
+  private final class Profile {
+    private final IntDoubleHashMap recipes = new IntDoubleHashMap(maxRecipes);
+    private final IntDoubleHashMap categories = new IntDoubleHashMap(maxCategories);
+    private double recipeTotal;
+    private double categoryTotal;
+    private long landmark;
+
+    private Profile(long now) {
+      this.landmark = now;
+    }
+
+    private void add(int recipeId, int categoryId, double weight, long now) {
+      double growth = Math.exp(decayPerMilli * (now - landmark));
+      if (growth > RESCALE_AT) {
+        recipes.scale(1 / growth);
+        categories.scale(1 / growth);
+        recipeTotal /= growth;
+        categoryTotal /= growth;
+        landmark = now;
+        growth = 1;
+      }
+      double increment = weight * growth;
+      recipeTotal += increment;
+      if (!recipes.containsKey(recipeId) && recipes.size() == maxRecipes) {
+        recipeTotal -= recipes.removeSmallest();
+      }
+      recipes.add(recipeId, increment);
+      if (categoryId >= 0) {
+        categoryTotal += increment;
+        if (!categories.containsKey(categoryId) && categories.size() == maxCategories) {
+          categoryTotal -= categories.removeSmallest();
+        }
+        categories.add(categoryId, increment);
+      }
+    }
+
+    /**
+     * Returns the share of the client's recipe interest in {@code recipeId} plus the share
+     * of its category interest in {@code categoryId}, between 0 and 2.
+     */
+    private double score(int recipeId, int categoryId) {
+      double score = recipeTotal > 0 ? recipes.get(recipeId) / recipeTotal : 0;
+      if (categoryId >= 0 && categoryTotal > 0) {
+        score += categories.get(categoryId) / categoryTotal;
+      }
+      return score;
+    }
+
+    /**
+     * Returns the factor that turns stored weights into weights as of {@code now}.
+     */
+    private double decayFactor(long now) {
+      return Math.exp(-decayPerMilli * (now - landmark));
+    }
+  }
+}
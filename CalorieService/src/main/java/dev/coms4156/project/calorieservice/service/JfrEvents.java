@@ -0,0 +1,75 @@
+package dev.coms4156.project.calorieservice.service;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers the service's Flight Recorder events when {@code jfr.events.enabled} is set.
+ * Once registered, any running recording, such as one started with
+ * {@code -XX:StartFlightRecording}, captures them. Service and Firestore operations check
+ * {@link #recordingServiceOperations()} and {@link #recordingFirestoreOperations()} first,
+ * so while no recording has an event enabled they neither create it nor work out its
+ * fields.
+ */
+@Component
+public class JfrEvents {
+
+  /** The name of the event spanning a {@link MockApiService} operation. */
+  public static final String SERVICE_OPERATION = "dev.coms4156.calorieservice.ServiceOperation";
+  /** The name of the event spanning a {@link FirestoreService} operation. */
+  public static final String FIRESTORE_OPERATION =
+      "dev.coms4156.calorieservice.FirestoreOperation";
+
+  // The registered event types, or null while unregistered
+  private static volatile EventType serviceOperation;
+  private static volatile EventType firestoreOperation;
+
+  /**
+   * Constructs a {@code JfrEvents}, registering the events if {@code enabled}.
+   *
+   * @param enabled whether service and Firestore operations should be recordable
+   */
+  public JfrEvents(@Value("${jfr.events.enabled:false}") boolean enabled) {
+    if (enabled) {
+      register();
+    }
+  }
+
+  /**
+   * Makes service and Firestore operations recordable from now on.
+   */
+  public static void register() {
+    FlightRecorder.register(ServiceOperationEvent.class);
+    FlightRecorder.register(FirestoreOperationEvent.class);
+    serviceOperation = EventType.getEventType(ServiceOperationEvent.class);
+    firestoreOperation = EventType.getEventType(FirestoreOperationEvent.class);
+  }
+
+  /**
+   * Stops recording service and Firestore operations.
+   */
+  public static void unregister() {
+    serviceOperation = null;
+    firestoreOperation = null;
+    FlightRecorder.unregister(ServiceOperationEvent.class);
+    FlightRecorder.unregister(FirestoreOperationEvent.class);
+  }
+
+  /**
+   * Returns whether a running recording would capture a {@link ServiceOperationEvent}.
+   */
+  static boolean recordingServiceOperations() {
+    EventType type = serviceOperation;
+    return type != null && type.isEnabled();
+  }
+
+  /**
+   * Returns whether a running recording would capture a {@link FirestoreOperationEvent}.
+   */
+  static boolean recordingFirestoreOperations() {
+    EventType type = firestoreOperation;
+    return type != null && type.isEnabled();
+  }
+}
@@ -0,0 +1,271 @@
+package dev.coms4156.project.calorieservice.service;
+
+import dev.coms4156.project.calorieservice.util.Histogram;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the service's timers, counters and distribution summaries in memory and renders
+ * them in the Prometheus text exposition format for {@code GET /metrics}.
+ *
+ * <p>Meters are identified by a name and tags given as alternating keys and values, and
+ * are created the first time they are asked for; asking again returns the same meter.
+ * Timers and summaries are histograms with fixed buckets, so percentiles can be computed
+ * by the scraper across instances. Recording never locks. Tag values must come from small,
+ * fixed sets, such as endpoint patterns or operation names, never from ids.
+ */
+@Service
+public class MetricsService {
+
+  /** Bucket upper bounds for request and Firestore latencies, in seconds. */
+  public static final double[] LATENCY_BUCKETS = {
+      0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+  /** Bucket upper bounds for numbers of documents. */
+  public static final double[] COUNT_BUCKETS = {0, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+  /**
+   * Returns the timer with the given name and tags, creating it if needed.
+   *
+   * @param name the metric name, ending in {@code _seconds}
+   * @param help what the timer measures
+   * @param tags alternating tag keys and values
+   * @return the timer
+   */
+  public Timer timer(String name, String help, String... tags) {
+    return (Timer) family(name, help, "histogram", LATENCY_BUCKETS)
+        .meter(tags, family -> new Timer(new Histogram(family.buckets)));
+  }
+
+  /**
+   * Returns the counter with the given name and tags, creating it if needed.
+   *
+   * @param name the metric name, ending in {@code _total}
+   * @param help what the counter counts
+   * @param tags alternating tag keys and values
+   * @return the counter
+   */
+  public Counter counter(String name, String help, String... tags) {
+    return (Counter) family(name, help, "counter", null)
+        .meter(tags, family -> new Counter());
+  }
+
+  /**
+   * Returns the distribution summary with the given name and tags, creating it if needed.
+   *
+   * @param name the metric name
+   * @param help what the summary measures
+   * @param buckets the bucket upper bounds, used when the first summary of this name is
+   *     created
+   * @param tags alternating tag keys and values
+   * @return the summary
+   */
+  public Summary summary(String name, String help, double[] buckets, String... tags) {
+    return (Summary) family(name, help, "histogram", buckets)
+        .meter(tags, family -> new Summary(new Histogram(family.buckets)));
+  }
+
+  private Family family(String name, String help, String type, double[] buckets) {
+    Family family = families.computeIfAbsent(name, key -> new Family(name, help, type, buckets));
+    if (!family.type.equals(type)) {
+      throw new IllegalArgumentException(name + " is already registered as a " + family.type);
+    }
+    return family;
+  }
+
+  /**
+   * Renders every meter in the Prometheus text exposition format, version 0.0.4.
+   *
+   * @return the exposition, one line per sample
+   */
+  public String scrape() {
+    StringBuilder out = new StringBuilder(4096);
+    for (Family family : families.values()) {
+      out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+      out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+      List<Map.Entry<String, Object>> series = new ArrayList<>(family.rendered.entrySet());
+      series.sort(Map.Entry.comparingByKey());
+      for (Map.Entry<String, Object> entry : series) {
+        String labels = entry.getKey();
+        Object meter = entry.getValue();
+        if (meter instanceof Counter counter) {
+          sample(out, family.name, labels, null, Long.toString(counter.count()));
+        } else {
+          Histogram histogram = meter instanceof Timer timer ? timer.histogram
+              : ((Summary) meter).histogram;
+          double[] bounds = histogram.bounds();
+          long[] cumulative = histogram.cumulativeCounts();
+          for (int i = 0; i < cumulative.length; i++) {
+            String le = i < bounds.length ? Double.toString(bounds[i]) : "+Inf";
+            sample(out, family.name + "_bucket", labels, le, Long.toString(cumulative[i]));
+          }
+          sample(out, family.name + "_sum", labels, null, Double.toString(histogram.sum()));
+          sample(out, family.name + "_count", labels, null,
+              Long.toString(cumulative[cumulative.length - 1]));
+        }
+      }
+    }
+    return out.toString();
+  }
+
+  private static void sample(StringBuilder out, String name, String labels, String le,
+      String value) {
+    out.append(name);
+    if (!labels.isEmpty() || le != null) {
+      out.append('{').append(labels);
+      if (le != null) {
+        out.append(labels.isEmpty() ? "" : ",").append("le=\"").append(le).append('"');
+      }
+      out.append('}');
+    }
+    out.append(' ').append(value).append('\n');
+  }
+
+  private static String labels(String[] tags) {
+    if (tags.length % 2 != 0) {
+      throw new IllegalArgumentException("Tags must be key and value pairs");
+    }
+    StringBuilder labels = new StringBuilder();
+    for (int i = 0; i < tags.length; i += 2) {
+      if (i > 0) {
+        labels.append(',');
+      }
+      labels.append(tags[i]).append("=\"");
+      String value = tags[i + 1] == null ? "" : tags[i + 1];
+      for (int j = 0; j < value.length(); j++) {
+        char c = value.charAt(j);
+        switch (c) {
+          case '\\' -> labels.append("\\\\");
+          case '"' -> labels.append("\\\"");
+          case '\n' -> labels.append("\\n");
+          default -> labels.append(c);
+        }
+      }
+      labels.append('"');
+    }
+    return labels.toString();
+  }
+
+  /**
+   * All meters of one name. Meters are looked up by their raw tags so the hot path does
+   * not render labels; each is rendered once, when it is created.
+   */
+  private static final class Family {
+    private final String name;
+    private final String help;
+    private final String type;
+    private final double[] buckets;
+    private final Map<List<String>, Object> meters = new ConcurrentHashMap<>();
+    private final Map<String, Object> rendered = new ConcurrentHashMap<>();
+
+    private Family(String name, String help, String type, double[] buckets) {
+      this.name = name;
+      this.help = help;
+      this.type = type;
+      this.buckets = buckets;
+    }
+
+    private Object meter(String[] tags, Function<Family, Object> create) {
+      List<String> key = Arrays.asList(tags);
+      Object meter = meters.get(key);
+      if (meter != null) {
+        return meter;
+      }
+      return meters.computeIfAbsent(List.of(tags.clone()), id -> {
+        Object created = create.apply(this);
+        rendered.put(labels(tags), created);
+        return created;
+      });
+    }
+  }
+
+  /**
+   * Records how long something took.
+   */
+  public static final class Timer {
+    private final Histogram histogram;
+
+    private Timer(Histogram histogram) {
+      this.histogram = histogram;
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+      histogram.record(nanos / NANOS_PER_SECOND);
+    }
+
+    public long count() {
+      return histogram.count();
+    }
+
+    /** Returns the sum of all recorded durations, in seconds. */
+    public double totalSeconds() {
+      return histogram.sum();
+    }
+  }
+
+  /**
+   * Counts occurrences.
+   */
+  public static final class Counter {
+    private final LongAdder count = new LongAdder();
+
+    private Counter() {
+    }
+
+    public void increment() {
+      count.increment();
+    }
+
+    /**
+     * Adds {@code amount} to the count.
+     *
+     * @param amount how much to add; not negative
+     */
+    public void increment(long amount) {
+      count.add(amount);
+    }
+
+    public long count() {
+      return count.sum();
+    }
+  }
+
+  /**
+   * Records the distribution of amounts, such as documents read per request.
+   */
+  public static final class Summary {
+    private final Histogram histogram;
+
+    private Summary(Histogram histogram) {
+      this.histogram = histogram;
+    }
+
+    public void record(double amount) {
+      histogram.record(amount);
+    }
+
+    public long count() {
+      return histogram.count();
+    }
+
+    public double sum() {
+      return histogram.sum();
+    }
+  }
+}
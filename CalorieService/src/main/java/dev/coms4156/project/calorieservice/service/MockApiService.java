@@ -3,15 +3,36 @@ package dev.coms4156.project.calorieservice.service;
 import dev.coms4156.project.calorieservice.models.Client;
 import dev.coms4156.project.calorieservice.models.Food;
 import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.models.RecipeFields;
+import dev.coms4156.project.calorieservice.models.TrendingRecipe;
+import dev.coms4156.project.calorieservice.util.HyperLogLog;
+import dev.coms4156.project.calorieservice.util.IntHashSet;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
@@ -21,16 +42,73 @@ import org.springframework.stereotype.Service;
 @Service
 public class MockApiService {
 
+  private static final Logger logger = LoggerFactory.getLogger(MockApiService.class);
+
+  private static final int BATCH_PARALLELISM =
+      Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+  // About 2KB each, so the most recently viewed recipes' sketches take up to about 20MB
+  private static final int MAX_VIEWER_SKETCHES = 10_000;
+
   private final FirestoreService firestoreService;
+  private final TrendingService trendingService;
+  private final HeavyHitterService heavyHitterService;
+  private final ContentVersionService contentVersionService;
+  private final InteractionProfileService interactionProfileService;
+  private final Map<Integer, HyperLogLog> viewerSketches =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, HyperLogLog> eldest) {
+          return size() > MAX_VIEWER_SKETCHES;
+        }
+      };
+  // Shared by every batch so concurrent batches cannot add threads without bound
+  private final ForkJoinPool batchPool = new ForkJoinPool(BATCH_PARALLELISM);
   private boolean testMode = false;
 
   /**
-   * Constructs a new {@code MockApiService} with FirestoreService dependency injection.
+   * Constructs a new {@code MockApiService} with FirestoreService dependency injection
+   * and its own in-memory {@code TrendingService}.
    *
    * @param firestoreService The FirestoreService to use for database operations
    */
   public MockApiService(FirestoreService firestoreService) {
+    this(firestoreService,
+        new TrendingService(TrendingService.DEFAULT_HALF_LIFE, System::currentTimeMillis),
+        new HeavyHitterService(),
+        new ContentVersionService(Duration.ofMinutes(5), System::currentTimeMillis),
+        new InteractionProfileService());
+  }
+
+  /**
+   * Constructs a new {@code MockApiService} with FirestoreService, TrendingService,
+   * HeavyHitterService, ContentVersionService and InteractionProfileService dependency
+   * injection.
+   *
+   * @param firestoreService The FirestoreService to use for database operations
+   * @param trendingService The TrendingService that receives recipe view and like events
+   * @param heavyHitterService The HeavyHitterService that receives recipe view events
+   * @param contentVersionService The ContentVersionService that records the ETags of
+   *                              recipes and food alternatives as they are read
+   * @param interactionProfileService The InteractionProfileService that ranks
+   *                                  recommendations by each client's logged interactions
+   */
+  @Autowired
+  public MockApiService(FirestoreService firestoreService, TrendingService trendingService,
+      HeavyHitterService heavyHitterService, ContentVersionService contentVersionService,
+      InteractionProfileService interactionProfileService) {
     this.firestoreService = firestoreService;
+    this.trendingService = trendingService;
+    this.heavyHitterService = heavyHitterService;
+    this.contentVersionService = contentVersionService;
+    this.interactionProfileService = interactionProfileService;
+  }
+
+  /**
+   * Stops the batch recommendation pool's threads when the service is destroyed.
+   */
+  @PreDestroy
+  public void shutdown() {
+    batchPool.shutdown();
   }
 
   /**
@@ -46,9 +124,9 @@ public class MockApiService {
     try {
       // Note: Firestore deletion would need to be implemented in FirestoreService
       // For now, this is a placeholder that maintains the interface
-      System.out.println("Test data cleanup requested for IDs >= " + testId);
+      logger.info("Test data cleanup requested for IDs >= {}", testId);
     } catch (Exception e) {
-      System.err.println("Failed to cleanup test data: " + e.getMessage());
+      logger.warn("Failed to cleanup test data: {}", e.getMessage());
     }
   }
 
@@ -63,14 +141,44 @@ public class MockApiService {
    * @return The {@code Recipe} with the specified ID, or {@code null} if not found
    */
   public Recipe findRecipeById(int recipeId) {
+    ServiceOperation operation = ServiceOperation.begin("findRecipeById");
+    operation.recipeId = recipeId;
     try {
-      return firestoreService.getRecipeById(recipeId);
+      Recipe recipe = firestoreService.getRecipeById(recipeId);
+      if (recipe != null) {
+        contentVersionService.recordRecipe(recipe);
+        interactionProfileService.learnCategories(List.of(recipe));
+      }
+      return operation.result(recipe);
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error finding recipe: " + e.getMessage());
+      logger.warn("Error finding recipe: {}", e.getMessage());
       return null;
+    } finally {
+      operation.finish();
     }
   }
 
+  /**
+   * Returns the ETag of a recipe's calorie content as of its last read on this instance.
+   *
+   * @param recipeId The ID of the recipe
+   * @return the recipe's ETag, or {@code null} if it has not been read recently
+   */
+  public String getRecipeVersion(int recipeId) {
+    return contentVersionService.getRecipeVersion(recipeId);
+  }
+
+  /**
+   * Returns the ETag of a food's lower-calorie alternatives as of their last read on this
+   * instance.
+   *
+   * @param foodId The ID of the food
+   * @return the ETag of the alternatives, or {@code null} if not read recently
+   */
+  public String getFoodAlternativesVersion(int foodId) {
+    return contentVersionService.getFoodAlternativesVersion(foodId);
+  }
+
   /**
    * Retrieve a recipe by its identifier.
    *
@@ -89,11 +197,15 @@ public class MockApiService {
    * @return The {@code Client} with the specified ID, or {@code null} if not found
    */
   public Client findClientById(int clientId) {
+    ServiceOperation operation = ServiceOperation.begin("findClientById");
+    operation.clientId = clientId;
     try {
-      return firestoreService.getClientById(clientId);
+      return operation.result(firestoreService.getClientById(clientId));
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error finding client: " + e.getMessage());
+      logger.warn("Error finding client: {}", e.getMessage());
       return null;
+    } finally {
+      operation.finish();
     }
   }
 
@@ -104,11 +216,15 @@ public class MockApiService {
    * @return The {@code Food} with the specified ID, or {@code null} if not found
    */
   public Food findFoodById(int foodId) {
+    ServiceOperation operation = ServiceOperation.begin("findFoodById");
+    operation.foodId = foodId;
     try {
-      return firestoreService.getFoodById(foodId);
+      return operation.result(firestoreService.getFoodById(foodId));
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error finding food: " + e.getMessage());
+      logger.warn("Error finding food: {}", e.getMessage());
       return null;
+    } finally {
+      operation.finish();
     }
   }
 
@@ -122,11 +238,15 @@ public class MockApiService {
     if (client == null) {
       return false;
     }
+    ServiceOperation operation = ServiceOperation.begin("addClient");
+    operation.clientId = client.getClientId();
     try {
-      return firestoreService.addClient(client);
+      return operation.result(firestoreService.addClient(client));
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error adding client: " + e.getMessage());
+      logger.warn("Error adding client: {}", e.getMessage());
       return false;
+    } finally {
+      operation.finish();
     }
   }
 
@@ -136,11 +256,14 @@ public class MockApiService {
    * @return {@code ArrayList} of all {@code Food} objects
    */
   public ArrayList<Food> getFoods() {
+    ServiceOperation operation = ServiceOperation.begin("getFoods");
     try {
-      return firestoreService.getAllFoods();
+      return operation.result(firestoreService.getAllFoods());
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error getting foods: " + e.getMessage());
+      logger.warn("Error getting foods: {}", e.getMessage());
       return new ArrayList<>();
+    } finally {
+      operation.finish();
     }
   }
 
@@ -150,11 +273,14 @@ public class MockApiService {
    * @return {@code ArrayList} of all {@code Recipe} objects
    */
   public ArrayList<Recipe> getRecipes() {
+    ServiceOperation operation = ServiceOperation.begin("getRecipes");
     try {
-      return firestoreService.getAllRecipes();
+      return operation.result(firestoreService.getAllRecipes());
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error getting recipes: " + e.getMessage());
+      logger.warn("Error getting recipes: {}", e.getMessage());
       return new ArrayList<>();
+    } finally {
+      operation.finish();
     }
   }
 
@@ -164,11 +290,14 @@ public class MockApiService {
    * @return {@code ArrayList} of all {@code Client} objects
    */
   public ArrayList<Client> getClients() {
+    ServiceOperation operation = ServiceOperation.begin("getClients");
     try {
-      return firestoreService.getAllClients();
+      return operation.result(firestoreService.getAllClients());
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error getting clients: " + e.getMessage());
+      logger.warn("Error getting clients: {}", e.getMessage());
       return new ArrayList<>();
+    } finally {
+      operation.finish();
     }
   }
 
@@ -181,6 +310,8 @@ public class MockApiService {
    *         same category with lower calories, or null if food not found
    */
   public List<Food> getFoodAlternatives(int foodId) {
+    ServiceOperation operation = ServiceOperation.begin("getFoodAlternatives");
+    operation.foodId = foodId;
     try {
       Food targetFood = findFoodById(foodId);
 
@@ -194,20 +325,64 @@ public class MockApiService {
           targetFood.getCalories()
       );
 
-      if (alternatives.isEmpty()) {
-        return new ArrayList<>();
-      }
+      operation.category = targetFood.getCategory();
+      operation.candidateCount = alternatives.size();
+      contentVersionService.recordFoodAlternatives(targetFood, alternatives);
+      return operation.result(randomSample(alternatives, 5));
+    } catch (ExecutionException | InterruptedException e) {
+      logger.warn("Error getting food alternatives: {}", e.getMessage());
+      return null;
+    } finally {
+      operation.finish();
+    }
+  }
 
-      if (alternatives.size() <= 5) {
-        Collections.shuffle(alternatives);
-        return alternatives;
-      }
+  /**
+   * Reads several foods with one batched Firestore fetch.
+   *
+   * @param foodIds The IDs of the foods to read; duplicates are read once
+   * @return A {@code Map} of the foods that exist, keyed by ID in request order,
+   *         or null if they could not be read
+   */
+  public Map<Integer, Food> getFoodsByIds(List<Integer> foodIds) {
+    ServiceOperation operation = ServiceOperation.begin("getFoodsByIds");
+    operation.candidateCount = foodIds.size();
+    try {
+      return operation.result(firestoreService.getFoodsByIds(new LinkedHashSet<>(foodIds)));
+    } catch (ExecutionException | InterruptedException e) {
+      logger.warn("Error getting foods: {}", e.getMessage());
+      return null;
+    } finally {
+      operation.finish();
+    }
+  }
 
-      Collections.shuffle(alternatives);
-      return alternatives.subList(0, 5);
+  /**
+   * Reads several recipes with one batched Firestore fetch.
+   *
+   * @param recipeIds The IDs of the recipes to read; duplicates are read once
+   * @param fields the recipe fields the caller will return, or {@code null} for all
+   * @return A {@code Map} of the recipes that exist, keyed by ID in request order,
+   *         or null if they could not be read
+   */
+  public Map<Integer, Recipe> getRecipesByIds(List<Integer> recipeIds, RecipeFields fields) {
+    ServiceOperation operation = ServiceOperation.begin("getRecipesByIds");
+    operation.candidateCount = recipeIds.size();
+    try {
+      Set<Integer> distinctIds = new LinkedHashSet<>(recipeIds);
+      if (fields != null) {
+        return operation.result(
+            firestoreService.getRecipesByIds(distinctIds, fields.firestoreFields()));
+      }
+      Map<Integer, Recipe> recipes = firestoreService.getRecipesByIds(distinctIds);
+      // Only whole recipes carry the content their conditional-GET versions are built from
+      recipes.values().forEach(contentVersionService::recordRecipe);
+      return operation.result(recipes);
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error getting food alternatives: " + e.getMessage());
+      logger.warn("Error getting recipes: {}", e.getMessage());
       return null;
+    } finally {
+      operation.finish();
     }
   }
 
@@ -221,11 +396,19 @@ public class MockApiService {
     if (food == null) {
       return false;
     }
+    ServiceOperation operation = ServiceOperation.begin("addFood");
+    operation.foodId = food.getFoodId();
     try {
-      return firestoreService.addFood(food);
+      boolean added = firestoreService.addFood(food);
+      if (added) {
+        contentVersionService.invalidateFoodCategory(food.getCategory());
+      }
+      return operation.result(added);
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error adding food: " + e.getMessage());
+      logger.warn("Error adding food: {}", e.getMessage());
       return false;
+    } finally {
+      operation.finish();
     }
   }
 
@@ -237,6 +420,9 @@ public class MockApiService {
    * @return true if the recipe was added successfully, false if client or recipe not found
    */
   public boolean likeRecipe(int clientId, int recipeId) {
+    ServiceOperation operation = ServiceOperation.begin("likeRecipe");
+    operation.clientId = clientId;
+    operation.recipeId = recipeId;
     try {
       Client client = findClientById(clientId);
 
@@ -256,17 +442,20 @@ public class MockApiService {
         firestoreService.updateRecipe(recipe);
         // Update client with new liked recipe
         firestoreService.updateClient(client);
+        likeRecorded(recipe);
       }
-      return result;
+      return operation.result(result);
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error liking recipe: " + e.getMessage());
+      logger.warn("Error liking recipe: {}", e.getMessage());
       return false;
+    } finally {
+      operation.finish();
     }
   }
 
   /**
    * Returns a list of recommended recipes based on client's liked recipes
-   * under calorieMax.
+   * under calorieMax, ranked by the client's recent logged interactions.
    *
    * @param clientId The ID of the client
    * @param calorieMax Maximum calorie count for recommendations
@@ -274,6 +463,23 @@ public class MockApiService {
    *         or null if client not found
    */
   public List<Recipe> recommendHealthy(int clientId, int calorieMax) {
+    return recommendHealthy(clientId, calorieMax, null);
+  }
+
+  /**
+   * Returns a list of recommended recipes based on client's liked recipes
+   * under calorieMax, reading only the recipe fields needed for {@code fields}. Recipes
+   * the client has recently shown interest in through logged events come first.
+   *
+   * @param clientId The ID of the client
+   * @param calorieMax Maximum calorie count for recommendations
+   * @param fields the recipe fields the caller will return, or {@code null} for all
+   * @return A {@code List} of up to 10 recommended {@code Recipe} objects,
+   *         or null if client not found
+   */
+  public List<Recipe> recommendHealthy(int clientId, int calorieMax, RecipeFields fields) {
+    ServiceOperation operation = ServiceOperation.begin("recommendHealthy");
+    operation.clientId = clientId;
     try {
       Client client = findClientById(clientId);
 
@@ -283,58 +489,70 @@ public class MockApiService {
 
       final Client finalClient = client;
 
-      List<String> likedCategories = finalClient.getLikedRecipes().stream()
-          .map(Recipe::getCategory)
-          .distinct()
-          .collect(Collectors.toList());
+      List<String> likedCategories = likedCategories(finalClient);
+      operation.categories(likedCategories);
 
       if (likedCategories.isEmpty()) {
         // If no liked categories, return any recipes under calorieMax
-        List<Recipe> allRecipes = firestoreService.getRecipesByCalories(calorieMax);
-        Collections.shuffle(allRecipes);
-        return allRecipes.size() <= 10 ? allRecipes : allRecipes.subList(0, 10);
+        List<Recipe> candidates = recipesByCalories(calorieMax, fields);
+        operation.candidateCount = candidates.size();
+        return operation.result(randomSample(candidates, 10));
       }
 
       // Get recipes by category and calories
       List<Recipe> categoryRecipes = new ArrayList<>();
       for (String category : likedCategories) {
-        List<Recipe> recipes = firestoreService.getRecipesByCategoryAndCalories(
-            category, calorieMax);
+        List<Recipe> recipes = recipesByCategory(category, calorieMax, fields);
         categoryRecipes.addAll(recipes);
       }
 
       // Filter out already liked recipes
-      List<Recipe> recommendations = categoryRecipes.stream()
-          .filter(recipe -> !finalClient.getLikedRecipes().contains(recipe))
-          .collect(Collectors.toList());
+      List<Recipe> recommendations = new ArrayList<>();
+      IntHashSet recommendedIds = new IntHashSet(categoryRecipes.size());
+      operation.candidateCount = categoryRecipes.size();
+      addUnliked(finalClient, categoryRecipes, recommendations, recommendedIds);
 
       if (recommendations.size() < 10) {
         // Fill with other recipes under calorieMax
-        List<Recipe> additionalRecipes = firestoreService.getRecipesByCalories(calorieMax);
-        List<Recipe> filteredAdditional = additionalRecipes.stream()
-            .filter(recipe -> !finalClient.getLikedRecipes().contains(recipe))
-            .filter(recipe -> !recommendations.contains(recipe))
-            .collect(Collectors.toList());
-
-        recommendations.addAll(filteredAdditional);
+        List<Recipe> additionalRecipes = recipesByCalories(calorieMax, fields);
+        operation.candidateCount += additionalRecipes.size();
+        addUnliked(finalClient, additionalRecipes, recommendations, recommendedIds);
       }
 
-      Collections.shuffle(recommendations);
-      return recommendations.size() <= 10 ? recommendations : recommendations.subList(0, 10);
+      return operation.result(rank(finalClient, recommendations));
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error getting healthy recommendations: " + e.getMessage());
+      logger.warn("Error getting healthy recommendations: {}", e.getMessage());
       return null;
+    } finally {
+      operation.finish();
     }
   }
 
   /**
-   * Returns a list of recommended recipes based on client's liked recipes.
+   * Returns a list of recommended recipes based on client's liked recipes, ranked by the
+   * client's recent logged interactions.
    *
    * @param clientId The ID of the client
    * @return A {@code List} of up to 10 recommended {@code Recipe} objects,
    *         or null if client not found or no liked recipes
    */
   public List<Recipe> recommend(int clientId) {
+    return recommend(clientId, null);
+  }
+
+  /**
+   * Returns a list of recommended recipes based on client's liked recipes, reading only
+   * the recipe fields needed for {@code fields}. Recipes the client has recently shown
+   * interest in through logged events, directly or through their category, come first.
+   *
+   * @param clientId The ID of the client
+   * @param fields the recipe fields the caller will return, or {@code null} for all
+   * @return A {@code List} of up to 10 recommended {@code Recipe} objects,
+   *         or null if client not found or no liked recipes
+   */
+  public List<Recipe> recommend(int clientId, RecipeFields fields) {
+    ServiceOperation operation = ServiceOperation.begin("recommend");
+    operation.clientId = clientId;
     try {
       Client client = findClientById(clientId);
 
@@ -344,10 +562,8 @@ public class MockApiService {
 
       final Client finalClient = client;
 
-      List<String> likedCategories = finalClient.getLikedRecipes().stream()
-          .map(Recipe::getCategory)
-          .distinct()
-          .collect(Collectors.toList());
+      List<String> likedCategories = likedCategories(finalClient);
+      operation.categories(likedCategories);
 
       if (likedCategories.isEmpty()) {
         return null;
@@ -357,35 +573,234 @@ public class MockApiService {
       // Use a very high calorie limit to effectively get all recipes in each category
       List<Recipe> categoryRecipes = new ArrayList<>();
       for (String category : likedCategories) {
-        List<Recipe> recipes = firestoreService.getRecipesByCategoryAndCalories(
-            category, Integer.MAX_VALUE);
+        List<Recipe> recipes = recipesByCategory(category, Integer.MAX_VALUE, fields);
         categoryRecipes.addAll(recipes);
       }
 
       // Filter out already liked recipes
-      List<Recipe> recommendations = categoryRecipes.stream()
-          .filter(recipe -> !finalClient.getLikedRecipes().contains(recipe))
-          .collect(Collectors.toList());
+      List<Recipe> recommendations = new ArrayList<>();
+      IntHashSet recommendedIds = new IntHashSet(categoryRecipes.size());
+      operation.candidateCount = categoryRecipes.size();
+      addUnliked(finalClient, categoryRecipes, recommendations, recommendedIds);
 
       if (recommendations.size() < 10) {
         // Get additional recipes from all categories, excluding already liked ones
-        List<Recipe> additionalRecipes = firestoreService.getRecipesByCalories(Integer.MAX_VALUE);
-        List<Recipe> filteredAdditional = additionalRecipes.stream()
-            .filter(recipe -> !finalClient.getLikedRecipes().contains(recipe))
-            .filter(recipe -> !recommendations.contains(recipe))
-            .collect(Collectors.toList());
-
-        recommendations.addAll(filteredAdditional);
+        List<Recipe> additionalRecipes = recipesByCalories(Integer.MAX_VALUE, fields);
+        operation.candidateCount += additionalRecipes.size();
+        addUnliked(finalClient, additionalRecipes, recommendations, recommendedIds);
       }
 
-      Collections.shuffle(recommendations);
-      return recommendations.size() <= 10 ? recommendations : recommendations.subList(0, 10);
+      return operation.result(rank(finalClient, recommendations));
     } catch (Exception e) {
-      System.err.println("Error getting recommendations: " + e.getMessage());
+      logger.warn("Error getting recommendations: {}", e.getMessage());
+      return null;
+    } finally {
+      operation.finish();
+    }
+  }
+
+  private List<Recipe> recipesByCategory(String category, int calorieMax, RecipeFields fields)
+      throws ExecutionException, InterruptedException {
+    if (fields == null) {
+      return firestoreService.getRecipesByCategoryAndCalories(category, calorieMax);
+    }
+    return firestoreService.getRecipesByCategoryAndCalories(category, calorieMax,
+        fields.firestoreFields());
+  }
+
+  private List<Recipe> recipesByCalories(int calorieMax, RecipeFields fields)
+      throws ExecutionException, InterruptedException {
+    if (fields == null) {
+      return firestoreService.getRecipesByCalories(calorieMax);
+    }
+    return firestoreService.getRecipesByCalories(calorieMax, fields.firestoreFields());
+  }
+
+  /**
+   * Computes recommendations for many clients in one pass. Clients are grouped by the set
+   * of categories they have liked, each distinct category is queried once for the whole
+   * batch, and the per-client work runs in parallel on the service's fork-join pool, which
+   * all batches share. Its threads make their Firestore calls through
+   * {@link ForkJoinPool#managedBlock}, so the pool can add threads while they wait.
+   * Liked recipes without a category add no category to query.
+   *
+   * <p>When {@code calorieMax} is given, each client gets the same result shape as
+   * {@link #recommendHealthy(int, int)}; otherwise the shape of {@link #recommend(int)},
+   * except that a client with no liked recipes gets an empty list.
+   *
+   * @param clientIds ids of the clients to recommend for; duplicates are ignored
+   * @param calorieMax maximum calorie count for recommendations, or {@code null} for no cap
+   * @param sink called from pool threads with each client id and its up to 10 recommended
+   *             {@code Recipe} objects, or {@code null} if the client was not found or its
+   *             recommendations could not be computed; called exactly once for each
+   *             distinct id, even if the batch fails part way; must be thread-safe
+   */
+  public void recommendBatch(List<Integer> clientIds, Integer calorieMax,
+      BiConsumer<Integer, List<Recipe>> sink) {
+    ServiceOperation operation = ServiceOperation.begin("recommendBatch");
+    List<Integer> distinctIds = clientIds.stream().distinct().collect(Collectors.toList());
+    operation.candidateCount = distinctIds.size();
+    Set<Integer> reported = ConcurrentHashMap.newKeySet();
+    AtomicInteger answered = new AtomicInteger();
+    BiConsumer<Integer, List<Recipe>> once = (clientId, recipes) -> {
+      if (reported.add(clientId)) {
+        if (recipes != null) {
+          answered.incrementAndGet();
+        }
+        sink.accept(clientId, recipes);
+      }
+    };
+    try {
+      recommendBatch(distinctIds, calorieMax, once, operation);
+    } catch (ExecutionException | InterruptedException e) {
+      logger.warn("Error getting batch recommendations: {}", e.getMessage());
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+    } finally {
+      // Clients the batch did not get to before failing are reported as not computed
+      distinctIds.forEach(clientId -> once.accept(clientId, null));
+      operation.resultSize = answered.get();
+      operation.finish();
+    }
+  }
+
+  private void recommendBatch(List<Integer> distinctIds, Integer calorieMax,
+      BiConsumer<Integer, List<Recipe>> sink, ServiceOperation operation)
+      throws ExecutionException, InterruptedException {
+    if (distinctIds.isEmpty()) {
+      return;
+    }
+    // Load every client once, reporting unknown ids straight away
+    // Pool threads run the per-client work under this request's trace and Firestore cost
+    Map<Integer, Client> clients = new ConcurrentHashMap<>();
+    Consumer<Integer> loadClient = Tracing.wrap(clientId -> {
+      Client client = blocking(() -> findClientById(clientId));
+      if (client == null) {
+        sink.accept(clientId, null);
+      } else {
+        clients.put(clientId, client);
+      }
+    });
+    batchPool.submit(() -> distinctIds.parallelStream().forEach(loadClient)).get();
+
+    Map<Set<String>, List<Client>> groups = clients.values().stream()
+        .collect(Collectors.groupingBy(client -> client.getLikedRecipes().stream()
+            .map(Recipe::getCategory)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(TreeSet::new))));
+
+    // Query each distinct liked category once for the whole batch
+    Set<String> categories = new HashSet<>();
+    groups.keySet().forEach(categories::addAll);
+    operation.categories(categories);
+    BatchQueries queries = new BatchQueries(firestoreService,
+        calorieMax != null ? calorieMax : Integer.MAX_VALUE);
+    Consumer<String> queryCategory = Tracing.wrap(category -> {
+      try {
+        queries.byCategory(category);
+      } catch (CompletionException expected) {
+        // Not cached, so the groups that need this category report the failure below
+      }
+    });
+    batchPool.submit(() -> categories.parallelStream().forEach(queryCategory)).get();
+
+    Consumer<Map.Entry<Set<String>, List<Client>>> recommendGroup = Tracing.wrap(group -> {
+      List<Recipe> categoryRecipes = new ArrayList<>();
+      try {
+        for (String category : group.getKey()) {
+          categoryRecipes.addAll(queries.byCategory(category));
+        }
+      } catch (CompletionException e) {
+        logger.warn("Error getting batch recommendations: {}", e.getMessage());
+        group.getValue().forEach(client -> sink.accept(client.getClientId(), null));
+        return;
+      }
+      group.getValue().parallelStream().forEach(Tracing.wrap(client ->
+          sink.accept(client.getClientId(),
+              recommendFromBatch(client, categoryRecipes, queries, calorieMax != null))));
+    });
+    batchPool.submit(() -> groups.entrySet().parallelStream().forEach(recommendGroup)).get();
+  }
+
+  private List<Recipe> recommendFromBatch(Client client, List<Recipe> categoryRecipes,
+      BatchQueries queries, boolean fillWhenNoLikes) {
+    try (Span span = Tracing.startSpan("MockApiService.recommendFromBatch")) {
+      span.setAttribute("client.id", client.getClientId());
+      if (client.getLikedRecipes().isEmpty()) {
+        if (!fillWhenNoLikes) {
+          return new ArrayList<>();
+        }
+        return randomSample(new ArrayList<>(queries.anyCategory()), 10);
+      }
+
+      List<Recipe> recommendations = new ArrayList<>();
+      IntHashSet recommendedIds = new IntHashSet(categoryRecipes.size());
+      addUnliked(client, categoryRecipes, recommendations, recommendedIds);
+
+      if (recommendations.size() < 10) {
+        addUnliked(client, queries.anyCategory(), recommendations, recommendedIds);
+      }
+
+      return rank(client, recommendations);
+    } catch (RuntimeException e) {
+      logger.warn("Error getting recommendations clientId={}: {}", client.getClientId(),
+          e.getMessage());
       return null;
     }
   }
 
+  /**
+   * Returns up to 10 of a client's recommendations, those it has recently interacted with,
+   * directly or through their category, first and the rest in random order.
+   *
+   * @param client the client receiving recommendations
+   * @param recommendations the candidates to rank; shuffled and sorted in place
+   * @return the first 10 ranked recommendations
+   */
+  List<Recipe> rank(Client client, List<Recipe> recommendations) {
+    interactionProfileService.learnCategories(client.getLikedRecipes());
+    interactionProfileService.learnCategories(recommendations);
+    return interactionProfileService.rank(client.getClientId(), recommendations, 10);
+  }
+
+  /**
+   * Appends candidates the client has not liked and that are not already recommended.
+   * Membership checks use recipe-id sets, so filtering stays linear in the candidate count.
+   *
+   * @param client the client receiving recommendations
+   * @param candidates recipes to consider, in order
+   * @param recommendations the list to append to
+   * @param recommendedIds ids of the recipes already in {@code recommendations}
+   */
+  static void addUnliked(Client client, List<Recipe> candidates,
+      List<Recipe> recommendations, IntHashSet recommendedIds) {
+    for (Recipe recipe : candidates) {
+      int recipeId = recipe.getRecipeId();
+      if (!client.hasLiked(recipeId) && recommendedIds.add(recipeId)) {
+        recommendations.add(recipe);
+      }
+    }
+  }
+
+  /**
+   * Returns the distinct categories of a client's liked recipes, in the order first liked.
+   */
+  static List<String> likedCategories(Client client) {
+    return client.getLikedRecipes().stream()
+        .map(Recipe::getCategory)
+        .distinct()
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Shuffles a list in place and returns at most {@code limit} of its elements.
+   */
+  static <T> List<T> randomSample(List<T> items, int limit) {
+    Collections.shuffle(items);
+    return items.size() <= limit ? items : items.subList(0, limit);
+  }
+
   /**
    * Find alternate recipes in the same category with lower total calories.
    *
@@ -395,6 +810,23 @@ public class MockApiService {
    *         or empty if recipe not found
    */
   public Optional<Map<String, List<Recipe>>> getRecipeAlternatives(int recipeId) {
+    return getRecipeAlternatives(recipeId, null);
+  }
+
+  /**
+   * Find alternate recipes in the same category with lower total calories, reading only
+   * the fields of the alternatives needed for {@code fields}.
+   *
+   * @param recipeId identifier of the recipe to compare against.
+   * @param fields the recipe fields the caller will return, or {@code null} for all.
+   * @return {@code Optional} containing a {@code Map} with two lists: topAlternatives
+   *         (up to 3 top-viewed recipes) and randomAlternatives (up to 3 random recipes),
+   *         or empty if recipe not found
+   */
+  public Optional<Map<String, List<Recipe>>> getRecipeAlternatives(int recipeId,
+      RecipeFields fields) {
+    ServiceOperation operation = ServiceOperation.begin("getRecipeAlternatives");
+    operation.recipeId = recipeId;
     try {
       Recipe baseRecipe = findRecipeById(recipeId);
       if (baseRecipe == null) {
@@ -406,37 +838,98 @@ public class MockApiService {
 
       // Use Firestore query to get recipes in same category with lower calories
       // Use baseCalories - 1 to get only recipes with calories strictly less than base
-      List<Recipe> candidates = firestoreService.getRecipesByCategoryAndCalories(
-          baseCategory, baseCalories - 1);
-
-      // Filter out the base recipe itself
-      candidates = candidates.stream()
-          .filter(recipe -> recipe.getRecipeId() != recipeId)
-          .collect(Collectors.toList());
-
-      List<Recipe> topAlternatives = candidates.stream()
-          .sorted((first, second) -> Integer.compare(second.getViews(), first.getViews()))
-          .limit(3)
-          .collect(Collectors.toList());
-
-      List<Recipe> randomPool = new ArrayList<>(candidates);
-      randomPool.removeAll(topAlternatives);
-      Collections.shuffle(randomPool);
-
-      List<Recipe> randomAlternatives = randomPool.stream()
-          .limit(3)
-          .collect(Collectors.toList());
-
-      Map<String, List<Recipe>> response = new HashMap<>();
-      response.put("topAlternatives", topAlternatives);
-      response.put("randomAlternatives", randomAlternatives);
-      return Optional.of(response);
+      List<Recipe> candidates = recipesByCategory(baseCategory, baseCalories - 1, fields);
+      operation.category = baseCategory;
+      operation.candidateCount = candidates.size();
+      return operation.result(Optional.of(pickRecipeAlternatives(candidates, recipeId)));
     } catch (Exception e) {
-      System.err.println("Error getting recipe alternatives: " + e.getMessage());
+      logger.warn("Error getting recipe alternatives: {}", e.getMessage());
       return Optional.empty();
+    } finally {
+      operation.finish();
+    }
+  }
+
+  /**
+   * Splits lower-calorie candidates into up to 3 top-viewed and up to 3 random alternatives.
+   *
+   * @param candidates recipes in the base recipe's category with fewer calories
+   * @param recipeId identifier of the base recipe, excluded from the results
+   * @return A {@code Map} with topAlternatives and randomAlternatives lists
+   */
+  static Map<String, List<Recipe>> pickRecipeAlternatives(List<Recipe> candidates,
+      int recipeId) {
+    // Filter out the base recipe itself
+    candidates = candidates.stream()
+        .filter(recipe -> recipe.getRecipeId() != recipeId)
+        .collect(Collectors.toList());
+
+    List<Recipe> topAlternatives = candidates.stream()
+        .sorted((first, second) -> Integer.compare(second.getViews(), first.getViews()))
+        .limit(3)
+        .collect(Collectors.toList());
+
+    List<Recipe> randomPool = new ArrayList<>(candidates);
+    randomPool.removeAll(topAlternatives);
+    Collections.shuffle(randomPool);
+
+    List<Recipe> randomAlternatives = randomPool.stream()
+        .limit(3)
+        .collect(Collectors.toList());
+
+    Map<String, List<Recipe>> response = new HashMap<>();
+    response.put("topAlternatives", topAlternatives);
+    response.put("randomAlternatives", randomAlternatives);
+    return response;
+  }
+
+  /**
+   * Reports how many Firestore reads shared an identical read already in flight.
+   *
+   * @return A {@code Map} with "documentReads" and "queries" counts of calls,
+   *         coalesced calls and reads currently in flight
+   */
+  public Map<String, Map<String, Long>> getReadCoalescingStats() {
+    return firestoreService.getReadCoalescingStats();
+  }
+
+  /**
+   * Returns the recipes with the highest time-decayed view and like scores.
+   * Answered from memory without reading Firestore.
+   *
+   * @param category category to restrict to, or {@code null} for all categories
+   * @param limit maximum number of recipes to return
+   * @return A {@code List} of up to {@code limit} {@code TrendingRecipe} objects,
+   *         highest score first
+   */
+  public List<TrendingRecipe> getTrendingRecipes(String category, int limit) {
+    ServiceOperation operation = ServiceOperation.begin("getTrendingRecipes");
+    operation.category = category;
+    try {
+      return operation.result(trendingService.getTrending(category, limit));
+    } finally {
+      operation.finish();
     }
   }
 
+  /**
+   * Returns the most viewed recipes as estimated in fixed memory, with error bounds.
+   * Answered from memory without reading Firestore.
+   *
+   * @param limit maximum number of recipes to return
+   * @return A {@code Map} with totalViews, errorBound (the most any sketch estimate may
+   *         exceed the true count), confidence (probability that errorBound holds) and
+   *         recipes (a list of {@code RecipeViewEstimate} objects, highest first)
+   */
+  public Map<String, Object> getTopViewedRecipes(int limit) {
+    Map<String, Object> report = new LinkedHashMap<>();
+    report.put("totalViews", heavyHitterService.getTotalViews());
+    report.put("errorBound", heavyHitterService.getErrorBound());
+    report.put("confidence", heavyHitterService.getConfidence());
+    report.put("recipes", heavyHitterService.getTopRecipes(limit));
+    return report;
+  }
+
   /**
    * Calculate the total calorie count for a recipe.
    *
@@ -445,11 +938,17 @@ public class MockApiService {
    *         or empty if recipe not found
    */
   public Optional<Integer> getTotalCalories(int recipeId) {
-    Recipe recipe = findRecipeById(recipeId);
-    if (recipe == null) {
-      return Optional.empty();
+    ServiceOperation operation = ServiceOperation.begin("getTotalCalories");
+    operation.recipeId = recipeId;
+    try {
+      Recipe recipe = findRecipeById(recipeId);
+      if (recipe == null) {
+        return Optional.empty();
+      }
+      return operation.result(Optional.of(recipe.getTotalCalories()));
+    } finally {
+      operation.finish();
     }
-    return Optional.of(recipe.getTotalCalories());
   }
 
   /**
@@ -460,15 +959,28 @@ public class MockApiService {
    *         names to calorie counts, or empty if recipe not found
    */
   public Optional<Map<String, Integer>> getCalorieBreakdown(int recipeId) {
-    Recipe recipe = findRecipeById(recipeId);
-    if (recipe == null) {
-      return Optional.empty();
+    ServiceOperation operation = ServiceOperation.begin("getCalorieBreakdown");
+    operation.recipeId = recipeId;
+    try {
+      Recipe recipe = findRecipeById(recipeId);
+      if (recipe == null) {
+        return Optional.empty();
+      }
+      return operation.result(Optional.of(calorieBreakdown(recipe)));
+    } finally {
+      operation.finish();
     }
+  }
+
+  /**
+   * Maps each ingredient name in a recipe to its calorie count, in ingredient order.
+   */
+  static Map<String, Integer> calorieBreakdown(Recipe recipe) {
     Map<String, Integer> breakdown = new LinkedHashMap<>();
     for (Food ingredient : recipe.getIngredients()) {
       breakdown.put(ingredient.getFoodName(), ingredient.getCalories());
     }
-    return Optional.of(breakdown);
+    return breakdown;
   }
 
   /**
@@ -486,11 +998,15 @@ public class MockApiService {
       recipe.setIngredients(new ArrayList<>());
     }
 
+    ServiceOperation operation = ServiceOperation.begin("addRecipe");
+    operation.recipeId = recipe.getRecipeId();
     try {
-      return firestoreService.addRecipe(recipe);
+      return operation.result(firestoreService.addRecipe(recipe));
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error adding recipe: " + e.getMessage());
+      logger.warn("Error adding recipe: {}", e.getMessage());
       return false;
+    } finally {
+      operation.finish();
     }
   }
 
@@ -501,16 +1017,116 @@ public class MockApiService {
    * @return true when the recipe exists and the view is recorded.
    */
   public boolean incrementViews(int recipeId) {
+    return incrementViews(recipeId, null);
+  }
+
+  /**
+   * Increment the recorded view count for a recipe and, when the viewing client is
+   * known, add the client to the recipe's distinct-viewer sketch.
+   *
+   * @param recipeId identifier of the recipe.
+   * @param clientId identifier of the viewing client, or {@code null} if unknown.
+   * @return true when the recipe exists and the view is recorded.
+   */
+  public boolean incrementViews(int recipeId, Integer clientId) {
+    ServiceOperation operation = ServiceOperation.begin("incrementViews");
+    operation.recipeId = recipeId;
+    operation.clientId = clientId == null ? -1 : clientId;
     try {
       Recipe recipe = findRecipeById(recipeId);
       if (recipe == null) {
         return false;
       }
       recipe.incrementViews();
-      return firestoreService.updateRecipe(recipe);
+      if (clientId != null) {
+        recordViewer(recipe, clientId);
+      }
+      boolean updated = firestoreService.updateRecipe(recipe);
+      if (updated) {
+        viewRecorded(recipe);
+      }
+      return operation.result(updated);
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error incrementing views: " + e.getMessage());
+      logger.warn("Error incrementing views: {}", e.getMessage());
       return false;
+    } finally {
+      operation.finish();
+    }
+  }
+
+  /**
+   * Estimate how many distinct clients have viewed a recipe.
+   *
+   * @param recipeId identifier of the recipe.
+   * @return {@code Optional} containing the estimated distinct viewer count,
+   *         or empty if recipe not found
+   */
+  public Optional<Long> getUniqueViews(int recipeId) {
+    ServiceOperation operation = ServiceOperation.begin("getUniqueViews");
+    operation.recipeId = recipeId;
+    try {
+      Recipe recipe = findRecipeById(recipeId);
+      if (recipe == null) {
+        return Optional.empty();
+      }
+      return operation.result(Optional.of(estimateUniqueViews(recipe)));
+    } finally {
+      operation.finish();
+    }
+  }
+
+  /**
+   * Estimates the distinct viewers recorded in a recipe's viewer sketch.
+   */
+  static long estimateUniqueViews(Recipe recipe) {
+    if (recipe.getViewerSketch() == null) {
+      return 0;
+    }
+    try {
+      return HyperLogLog.fromBytes(recipe.getViewerSketch()).estimate();
+    } catch (IllegalArgumentException e) {
+      logger.warn("Error reading viewer sketch: {}", e.getMessage());
+      return 0;
+    }
+  }
+
+  /**
+   * Feeds a view that has been written to Firestore to the in-memory view trackers.
+   */
+  void viewRecorded(Recipe recipe) {
+    trendingService.recordView(recipe);
+    heavyHitterService.recordView(recipe.getRecipeId());
+  }
+
+  /**
+   * Feeds a like that has been written to Firestore to the in-memory trending scores.
+   */
+  void likeRecorded(Recipe recipe) {
+    trendingService.recordLike(recipe);
+  }
+
+  /**
+   * Adds a viewer to this instance's sketch for the recipe, merges in the sketch stored
+   * with the recipe, and stores the union back on the recipe. Because this instance keeps
+   * its own sketch, a viewer dropped by a concurrent write from another instance is
+   * written back on the next view. Sketches are kept for the {@code MAX_VIEWER_SKETCHES}
+   * most recently viewed recipes; an evicted recipe starts again from its stored sketch.
+   */
+  void recordViewer(Recipe recipe, int clientId) {
+    HyperLogLog sketch;
+    synchronized (viewerSketches) {
+      sketch = viewerSketches.computeIfAbsent(recipe.getRecipeId(), id -> new HyperLogLog());
+    }
+    synchronized (sketch) {
+      sketch.add(clientId);
+      if (recipe.getViewerSketch() != null) {
+        try {
+          sketch.merge(HyperLogLog.fromBytes(recipe.getViewerSketch()));
+        } catch (IllegalArgumentException e) {
+          logger.warn("Replacing unreadable viewer sketch: {}", e.getMessage());
+        }
+      }
+      recipe.setViewerSketch(sketch.toBytes());
     }
   }
 
@@ -521,16 +1137,107 @@ public class MockApiService {
    * @return true when the recipe exists and the like is recorded.
    */
   public boolean incrementLikes(int recipeId) {
+    ServiceOperation operation = ServiceOperation.begin("incrementLikes");
+    operation.recipeId = recipeId;
     try {
       Recipe recipe = findRecipeById(recipeId);
       if (recipe == null) {
         return false;
       }
       recipe.incrementLikes();
-      return firestoreService.updateRecipe(recipe);
+      boolean updated = firestoreService.updateRecipe(recipe);
+      if (updated) {
+        likeRecorded(recipe);
+      }
+      return operation.result(updated);
     } catch (ExecutionException | InterruptedException e) {
-      System.err.println("Error incrementing likes: " + e.getMessage());
+      logger.warn("Error incrementing likes: {}", e.getMessage());
       return false;
+    } finally {
+      operation.finish();
+    }
+  }
+
+  /**
+   * Recipe queries shared by every client in one {@link #recommendBatch} call, so each
+   * category (and the any-category fallback) is read from Firestore at most once.
+   */
+  private static final class BatchQueries {
+    private final FirestoreService firestoreService;
+    private final int calorieMax;
+    private final Map<String, List<Recipe>> byCategory = new ConcurrentHashMap<>();
+    private List<Recipe> anyCategory;
+
+    private BatchQueries(FirestoreService firestoreService, int calorieMax) {
+      this.firestoreService = firestoreService;
+      this.calorieMax = calorieMax;
+    }
+
+    private List<Recipe> byCategory(String category) {
+      return byCategory.computeIfAbsent(category, key ->
+          blocking(() -> firestoreService.getRecipesByCategoryAndCalories(key, calorieMax)));
+    }
+
+    private synchronized List<Recipe> anyCategory() {
+      if (anyCategory == null) {
+        anyCategory = blocking(() -> firestoreService.getRecipesByCalories(calorieMax));
+      }
+      return anyCategory;
+    }
+  }
+
+  /**
+   * Makes a blocking Firestore call from a batch pool thread through
+   * {@link ForkJoinPool#managedBlock}, so the pool can start a spare thread to keep its
+   * parallelism while this one waits.
+   *
+   * @return the call's result
+   * @throws CompletionException if the call failed or the thread was interrupted
+   */
+  private static <T> T blocking(Callable<T> call) {
+    BlockingCall<T> blocker = new BlockingCall<>(call);
+    try {
+      ForkJoinPool.managedBlock(blocker);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CompletionException(e);
+    }
+    if (blocker.failure instanceof RuntimeException e) {
+      throw e;
+    }
+    if (blocker.failure != null) {
+      if (blocker.failure instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      throw new CompletionException(blocker.failure);
+    }
+    return blocker.result;
+  }
+
+  private static final class BlockingCall<T> implements ForkJoinPool.ManagedBlocker {
+    private final Callable<T> call;
+    private T result;
+    private Exception failure;
+    private boolean done;
+
+    private BlockingCall(Callable<T> call) {
+      this.call = call;
+    }
+
+    @Override
+    public boolean block() {
+      try {
+        result = call.call();
+      } catch (Exception e) {
+        failure = e;
+      }
+      done = true;
+      return true;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return done;
     }
   }
 }
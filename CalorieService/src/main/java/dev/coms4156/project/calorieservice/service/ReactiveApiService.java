@@ -0,0 +1,289 @@
+package dev.coms4156.project.calorieservice.service;
+
+import dev.coms4156.project.calorieservice.models.Client;
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.models.TrendingRecipe;
+import dev.coms4156.project.calorieservice.util.IntHashSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link MockApiService} used by the reactive deployment.
+ * Reads and writes go through {@link ReactiveFirestoreService}, while recommendation and
+ * alternative selection, and the in-memory view and like trackers, are shared with
+ * {@link MockApiService}. It covers only the operations the reactive routes serve (see
+ * {@code ReactiveConfig}); features added since, such as field selection and read
+ * coalescing, exist only in {@link MockApiService}.
+ *
+ * <p>Where {@link MockApiService} returns {@code null} or an empty {@code Optional}, the
+ * methods here complete empty; where it returns false, they emit false.
+ */
+@Service
+public class ReactiveApiService {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReactiveApiService.class);
+
+  private final ReactiveFirestoreService firestoreService;
+  private final MockApiService mockApiService;
+
+  /**
+   * Constructs a new {@code ReactiveApiService}.
+   *
+   * @param firestoreService The ReactiveFirestoreService to use for database operations
+   * @param mockApiService The MockApiService whose in-memory trackers are shared
+   */
+  public ReactiveApiService(ReactiveFirestoreService firestoreService,
+      MockApiService mockApiService) {
+    this.firestoreService = firestoreService;
+    this.mockApiService = mockApiService;
+  }
+
+  /**
+   * Returns up to 5 random foods of the same category with lower calorie
+   * count than the specified food.
+   *
+   * @param foodId The ID of the food to find alternatives for
+   * @return A {@code Mono} of up to 5 random {@code Food} objects,
+   *         or empty if food not found
+   */
+  public Mono<List<Food>> getFoodAlternatives(int foodId) {
+    return firestoreService.getFoodById(foodId)
+        .flatMap(food -> firestoreService
+            .getFoodsByCategoryAndCalories(food.getCategory(), food.getCalories())
+            .collectList())
+        .map(alternatives -> MockApiService.randomSample(alternatives, 5))
+        .onErrorResume(e -> logError("Error getting food alternatives", e));
+  }
+
+  /**
+   * Adds a new food.
+   *
+   * @param food The {@code Food} object to add
+   * @return A {@code Mono} of true if the food was added, false if food is null or
+   *         already exists
+   */
+  public Mono<Boolean> addFood(Food food) {
+    return firestoreService.addFood(food)
+        .onErrorResume(e -> logError("Error adding food", e).thenReturn(false));
+  }
+
+  /**
+   * Returns recommended recipes based on client's liked recipes under calorieMax.
+   *
+   * @param clientId The ID of the client
+   * @param calorieMax Maximum calorie count for recommendations
+   * @return A {@code Mono} of up to 10 recommended {@code Recipe} objects,
+   *         or empty if client not found
+   */
+  public Mono<List<Recipe>> recommendHealthy(int clientId, int calorieMax) {
+    return firestoreService.getClientById(clientId)
+        .flatMap(client -> {
+          if (client.getLikedRecipes().isEmpty()) {
+            // If no liked categories, return any recipes under calorieMax
+            return firestoreService.getRecipesByCalories(calorieMax).collectList()
+                .map(recipes -> MockApiService.randomSample(recipes, 10));
+          }
+          return recommendFor(client, calorieMax);
+        })
+        .onErrorResume(e -> logError("Error getting healthy recommendations", e));
+  }
+
+  /**
+   * Returns recommended recipes based on client's liked recipes.
+   *
+   * @param clientId The ID of the client
+   * @return A {@code Mono} of up to 10 recommended {@code Recipe} objects,
+   *         or empty if client not found or no liked recipes
+   */
+  public Mono<List<Recipe>> recommend(int clientId) {
+    return firestoreService.getClientById(clientId)
+        .filter(client -> !client.getLikedRecipes().isEmpty())
+        .flatMap(client -> recommendFor(client, Integer.MAX_VALUE))
+        .onErrorResume(e -> logError("Error getting recommendations", e));
+  }
+
+  private Mono<List<Recipe>> recommendFor(Client client, int calorieMax) {
+    return Flux.fromIterable(MockApiService.likedCategories(client))
+        .flatMapSequential(category ->
+            firestoreService.getRecipesByCategoryAndCalories(category, calorieMax))
+        .collectList()
+        .flatMap(categoryRecipes -> {
+          // Filter out already liked recipes
+          List<Recipe> recommendations = new ArrayList<>();
+          IntHashSet recommendedIds = new IntHashSet(categoryRecipes.size());
+          MockApiService.addUnliked(client, categoryRecipes, recommendations, recommendedIds);
+          if (recommendations.size() >= 10) {
+            return Mono.just(recommendations);
+          }
+          // Fill with other recipes under calorieMax
+          return firestoreService.getRecipesByCalories(calorieMax).collectList()
+              .map(additionalRecipes -> {
+                MockApiService.addUnliked(client, additionalRecipes, recommendations,
+                    recommendedIds);
+                return recommendations;
+              });
+        })
+        .map(recommendations -> mockApiService.rank(client, recommendations));
+  }
+
+  /**
+   * Adds a recipe to a client's liked recipes.
+   *
+   * @param clientId The ID of the client
+   * @param recipeId The ID of the recipe to like
+   * @return A {@code Mono} of true if the recipe was liked, false if client or recipe
+   *         not found or the recipe was already liked
+   */
+  public Mono<Boolean> likeRecipe(int clientId, int recipeId) {
+    return Mono.zip(firestoreService.getClientById(clientId),
+            firestoreService.getRecipeById(recipeId))
+        .flatMap(found -> {
+          Client client = found.getT1();
+          Recipe recipe = found.getT2();
+          if (!client.likeRecipe(recipe)) {
+            return Mono.just(false);
+          }
+          return firestoreService.updateRecipe(recipe)
+              .then(firestoreService.updateClient(client))
+              .doOnSuccess(updated -> mockApiService.likeRecorded(recipe));
+        })
+        .defaultIfEmpty(false)
+        .onErrorResume(e -> logError("Error liking recipe", e).thenReturn(false));
+  }
+
+  /**
+   * Find alternate recipes in the same category with lower total calories.
+   *
+   * @param recipeId identifier of the recipe to compare against.
+   * @return A {@code Mono} of a {@code Map} with topAlternatives and randomAlternatives,
+   *         or empty if recipe not found
+   */
+  public Mono<Map<String, List<Recipe>>> getRecipeAlternatives(int recipeId) {
+    return firestoreService.getRecipeById(recipeId)
+        .flatMap(base -> firestoreService
+            .getRecipesByCategoryAndCalories(base.getCategory(), base.getTotalCalories() - 1)
+            .collectList())
+        .map(candidates -> MockApiService.pickRecipeAlternatives(candidates, recipeId))
+        .onErrorResume(e -> logError("Error getting recipe alternatives", e));
+  }
+
+  /**
+   * Returns the recipes with the highest time-decayed view and like scores.
+   * Answered from memory without reading Firestore.
+   */
+  public List<TrendingRecipe> getTrendingRecipes(String category, int limit) {
+    return mockApiService.getTrendingRecipes(category, limit);
+  }
+
+  /**
+   * Returns the most viewed recipes as estimated in fixed memory, with error bounds.
+   * Answered from memory without reading Firestore.
+   */
+  public Map<String, Object> getTopViewedRecipes(int limit) {
+    return mockApiService.getTopViewedRecipes(limit);
+  }
+
+  /**
+   * Calculate the total calorie count for a recipe.
+   *
+   * @param recipeId identifier of the recipe.
+   * @return A {@code Mono} of the total calorie count, or empty if recipe not found
+   */
+  public Mono<Integer> getTotalCalories(int recipeId) {
+    return firestoreService.getRecipeById(recipeId)
+        .map(Recipe::getTotalCalories)
+        .onErrorResume(e -> logError("Error finding recipe", e));
+  }
+
+  /**
+   * Produce a calorie breakdown for each ingredient within a recipe.
+   *
+   * @param recipeId identifier of the recipe.
+   * @return A {@code Mono} of an ordered {@code Map} of ingredient names to calorie counts,
+   *         or empty if recipe not found
+   */
+  public Mono<Map<String, Integer>> getCalorieBreakdown(int recipeId) {
+    return firestoreService.getRecipeById(recipeId)
+        .map(MockApiService::calorieBreakdown)
+        .onErrorResume(e -> logError("Error finding recipe", e));
+  }
+
+  /**
+   * Estimate how many distinct clients have viewed a recipe.
+   *
+   * @param recipeId identifier of the recipe.
+   * @return A {@code Mono} of the estimated distinct viewer count, or empty if recipe
+   *         not found
+   */
+  public Mono<Long> getUniqueViews(int recipeId) {
+    return firestoreService.getRecipeById(recipeId)
+        .map(MockApiService::estimateUniqueViews)
+        .onErrorResume(e -> logError("Error finding recipe", e));
+  }
+
+  /**
+   * Store a new recipe if the identifier has not been used.
+   *
+   * @param recipe {@code Recipe} object to persist.
+   * @return A {@code Mono} of true when the recipe is added; false if recipe is null or
+   *         the ID already exists
+   */
+  public Mono<Boolean> addRecipe(Recipe recipe) {
+    if (recipe != null && recipe.getIngredients() == null) {
+      recipe.setIngredients(new ArrayList<>());
+    }
+    return firestoreService.addRecipe(recipe)
+        .onErrorResume(e -> logError("Error adding recipe", e).thenReturn(false));
+  }
+
+  /**
+   * Increment the recorded view count for a recipe and, when the viewing client is
+   * known, add the client to the recipe's distinct-viewer sketch.
+   *
+   * @param recipeId identifier of the recipe.
+   * @param clientId identifier of the viewing client, or {@code null} if unknown.
+   * @return A {@code Mono} of true when the recipe exists and the view is recorded.
+   */
+  public Mono<Boolean> incrementViews(int recipeId, Integer clientId) {
+    return firestoreService.getRecipeById(recipeId)
+        .flatMap(recipe -> {
+          recipe.incrementViews();
+          if (clientId != null) {
+            mockApiService.recordViewer(recipe, clientId);
+          }
+          return firestoreService.updateRecipe(recipe)
+              .doOnSuccess(updated -> mockApiService.viewRecorded(recipe));
+        })
+        .defaultIfEmpty(false)
+        .onErrorResume(e -> logError("Error incrementing views", e).thenReturn(false));
+  }
+
+  /**
+   * Increment the recorded like count for a recipe.
+   *
+   * @param recipeId identifier of the recipe.
+   * @return A {@code Mono} of true when the recipe exists and the like is recorded.
+   */
+  public Mono<Boolean> incrementLikes(int recipeId) {
+    return firestoreService.getRecipeById(recipeId)
+        .flatMap(recipe -> {
+          recipe.incrementLikes();
+          return firestoreService.updateRecipe(recipe)
+              .doOnSuccess(updated -> mockApiService.likeRecorded(recipe));
+        })
+        .defaultIfEmpty(false)
+        .onErrorResume(e -> logError("Error incrementing likes", e).thenReturn(false));
+  }
+
+  private static <T> Mono<T> logError(String message, Throwable e) {
+    logger.error("{}: {}", message, e.getMessage(), e);
+    return Mono.empty();
+  }
+}
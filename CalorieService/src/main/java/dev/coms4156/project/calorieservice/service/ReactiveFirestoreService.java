@@ -0,0 +1,216 @@
+package dev.coms4156.project.calorieservice.service;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiStreamObserver;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Query;
+import com.google.common.util.concurrent.MoreExecutors;
+import dev.coms4156.project.calorieservice.models.Client;
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link FirestoreService}. Document reads and writes complete
+ * when Firestore's {@link ApiFuture} does, and queries emit each document as soon as it
+ * has been decoded, so no thread waits on Firestore. Documents are mapped with the same
+ * converters as {@link FirestoreService}.
+ */
+@Service
+public class ReactiveFirestoreService {
+
+  private final FirestoreService firestoreService;
+
+  /**
+   * Constructs a new {@code ReactiveFirestoreService} sharing the Firestore connection
+   * of the given {@link FirestoreService}.
+   *
+   * @param firestoreService The FirestoreService whose connection and converters are used
+   */
+  public ReactiveFirestoreService(FirestoreService firestoreService) {
+    this.firestoreService = firestoreService;
+  }
+
+  // ==================== FOOD OPERATIONS ====================
+
+  /**
+   * Gets a food by ID, or completes empty if it does not exist.
+   */
+  public Mono<Food> getFoodById(int foodId) {
+    return getDocument(FirestoreService.FOODS_COLLECTION, foodId, firestoreService::mapToFood);
+  }
+
+  /**
+   * Adds a food, emitting false if it is null or its ID is already used.
+   */
+  public Mono<Boolean> addFood(Food food) {
+    if (food == null) {
+      return Mono.just(false);
+    }
+    return getFoodById(food.getFoodId())
+        .map(existing -> false)
+        .switchIfEmpty(setDocument(FirestoreService.FOODS_COLLECTION, food.getFoodId(),
+            () -> firestoreService.foodToMap(food)));
+  }
+
+  /**
+   * Streams foods in a category with fewer than {@code maxCalories} calories.
+   */
+  public Flux<Food> getFoodsByCategoryAndCalories(String category, int maxCalories) {
+    return query(() -> collection(FirestoreService.FOODS_COLLECTION)
+        .whereEqualTo("category", category)
+        .whereLessThan("calories", maxCalories), firestoreService::mapToFood);
+  }
+
+  // ==================== RECIPE OPERATIONS ====================
+
+  /**
+   * Gets a recipe by ID, or completes empty if it does not exist.
+   */
+  public Mono<Recipe> getRecipeById(int recipeId) {
+    return getDocument(FirestoreService.RECIPES_COLLECTION, recipeId,
+        firestoreService::mapToRecipe);
+  }
+
+  /**
+   * Adds a recipe, emitting false if it is null or its ID is already used.
+   */
+  public Mono<Boolean> addRecipe(Recipe recipe) {
+    if (recipe == null) {
+      return Mono.just(false);
+    }
+    return getRecipeById(recipe.getRecipeId())
+        .map(existing -> false)
+        .switchIfEmpty(updateRecipe(recipe));
+  }
+
+  /**
+   * Writes a recipe, replacing any stored version.
+   */
+  public Mono<Boolean> updateRecipe(Recipe recipe) {
+    return setDocument(FirestoreService.RECIPES_COLLECTION, recipe.getRecipeId(),
+        () -> firestoreService.recipeToMap(recipe));
+  }
+
+  /**
+   * Streams recipes in a category with at most {@code maxCalories} calories.
+   */
+  public Flux<Recipe> getRecipesByCategoryAndCalories(String category, int maxCalories) {
+    return query(() -> collection(FirestoreService.RECIPES_COLLECTION)
+        .whereEqualTo("category", category)
+        .whereLessThanOrEqualTo("totalCalories", maxCalories), firestoreService::mapToRecipe);
+  }
+
+  /**
+   * Streams recipes with at most {@code maxCalories} calories.
+   */
+  public Flux<Recipe> getRecipesByCalories(int maxCalories) {
+    return query(() -> collection(FirestoreService.RECIPES_COLLECTION)
+        .whereLessThanOrEqualTo("totalCalories", maxCalories), firestoreService::mapToRecipe);
+  }
+
+  // ==================== USER OPERATIONS ====================
+
+  /**
+   * Gets a client by ID with its liked recipes, or completes empty if it does not exist.
+   * The liked recipes are read concurrently and kept in the order they were liked.
+   */
+  public Mono<Client> getClientById(int clientId) {
+    return getDocument(FirestoreService.USERS_COLLECTION, clientId, Function.identity())
+        .flatMap(map -> {
+          Client client = firestoreService.mapToClientWithoutRecipes(map);
+          return Flux.fromIterable(FirestoreService.likedRecipeIds(map))
+              .flatMapSequential(this::getRecipeById)
+              .collect(ArrayList<Recipe>::new, ArrayList::add)
+              .map(likedRecipes -> {
+                client.setLikedRecipes(likedRecipes);
+                return client;
+              });
+        });
+  }
+
+  /**
+   * Writes a client, replacing any stored version.
+   */
+  public Mono<Boolean> updateClient(Client client) {
+    return setDocument(FirestoreService.USERS_COLLECTION, client.getClientId(),
+        () -> firestoreService.clientToMap(client));
+  }
+
+  // ==================== ADAPTERS ====================
+
+  private CollectionReference collection(String name) {
+    return firestoreService.getDatabase().collection(name);
+  }
+
+  private <T> Mono<T> getDocument(String collection, int id,
+      Function<Map<String, Object>, T> mapper) {
+    return toMono(() -> collection(collection).document(String.valueOf(id)).get())
+        .filter(DocumentSnapshot::exists)
+        .mapNotNull(document -> mapper.apply(document.getData()));
+  }
+
+  private Mono<Boolean> setDocument(String collection, int id,
+      Supplier<Map<String, Object>> data) {
+    return toMono(() -> {
+      DocumentReference docRef = collection(collection).document(String.valueOf(id));
+      return docRef.set(data.get());
+    }).thenReturn(true);
+  }
+
+  /**
+   * Runs a query when subscribed, emitting each document as Firestore streams it in.
+   */
+  private <T> Flux<T> query(Supplier<Query> query, Function<Map<String, Object>, T> mapper) {
+    return Flux.<DocumentSnapshot>create(sink -> query.get().stream(
+        new ApiStreamObserver<>() {
+          @Override
+          public void onNext(DocumentSnapshot document) {
+            sink.next(document);
+          }
+
+          @Override
+          public void onError(Throwable t) {
+            sink.error(t);
+          }
+
+          @Override
+          public void onCompleted() {
+            sink.complete();
+          }
+        }))
+        .mapNotNull(document -> mapper.apply(document.getData()));
+  }
+
+  /**
+   * Starts a Firestore call when subscribed and completes with its result, cancelling the
+   * call if the subscriber cancels first.
+   */
+  private static <T> Mono<T> toMono(Supplier<ApiFuture<T>> call) {
+    return Mono.create(sink -> {
+      ApiFuture<T> future = call.get();
+      sink.onCancel(() -> future.cancel(false));
+      ApiFutures.addCallback(future, new ApiFutureCallback<>() {
+        @Override
+        public void onSuccess(T result) {
+          sink.success(result);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+          sink.error(t);
+        }
+      }, MoreExecutors.directExecutor());
+    });
+  }
+}
@@ -0,0 +1,144 @@
+package dev.coms4156.project.calorieservice.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * One {@link MockApiService} operation, such as {@code recommend} or
+ * {@code getRecipeAlternatives}, with the ids it was called for and what it found. When it
+ * finishes these are committed as a {@link ServiceOperationEvent} if a Flight Recorder
+ * recording captures those, and set as attributes of the operation's trace {@link Span},
+ * named {@code MockApiService.<operation>}, if its trace is sampled.
+ *
+ * <p>When neither would record the operation, {@link #begin} creates nothing and the
+ * result's size is never worked out.
+ */
+final class ServiceOperation {
+
+  // Stands in for every operation nothing records; its fields are written but never read
+  private static final ServiceOperation UNRECORDED = new ServiceOperation(null, null, null);
+
+  int clientId = -1;
+  int recipeId = -1;
+  int foodId = -1;
+  String category;
+  int candidateCount;
+  int resultSize;
+
+  private final String operation;
+  private final ServiceOperationEvent event;
+  private final Span span;
+
+  private ServiceOperation(String operation, ServiceOperationEvent event, Span span) {
+    this.operation = operation;
+    this.event = event;
+    this.span = span;
+  }
+
+  /**
+   * Begins the named operation: a Flight Recorder event if one is being recorded, and a
+   * span if the current trace could record it. Returns a shared inert operation if
+   * neither would.
+   */
+  static ServiceOperation begin(String operation) {
+    ServiceOperationEvent event = null;
+    if (JfrEvents.recordingServiceOperations()) {
+      event = new ServiceOperationEvent();
+      event.begin();
+    }
+    Span span = Tracing.isRecording() ? Tracing.startSpan("MockApiService." + operation)
+        : null;
+    if (event == null && span == null) {
+      return UNRECORDED;
+    }
+    return new ServiceOperation(operation, event, span);
+  }
+
+  /**
+   * Records the size of the operation's result, if the operation is being recorded.
+   *
+   * @return the result, for the operation's body to return
+   */
+  <T> T result(T value) {
+    if (isRecorded()) {
+      resultSize = sizeOf(value);
+    }
+    return value;
+  }
+
+  /**
+   * Commits the operation's event and ends its span, copying the fields onto each.
+   */
+  void finish() {
+    if (this == UNRECORDED) {
+      return;
+    }
+    if (event != null) {
+      event.operation = operation;
+      event.clientId = clientId;
+      event.recipeId = recipeId;
+      event.foodId = foodId;
+      event.category = category;
+      event.candidateCount = candidateCount;
+      event.resultSize = resultSize;
+      event.commit();
+    }
+    if (span == null) {
+      return;
+    }
+    if (span.isSampled()) {
+      setIfPresent("client.id", clientId);
+      setIfPresent("recipe.id", recipeId);
+      setIfPresent("food.id", foodId);
+      if (category != null) {
+        span.setAttribute("category", category);
+      }
+      span.setAttribute("candidate.count", candidateCount);
+      span.setAttribute("result.size", resultSize);
+    }
+    span.close();
+  }
+
+  private void setIfPresent(String key, int id) {
+    if (id >= 0) {
+      span.setAttribute(key, id);
+    }
+  }
+
+  /**
+   * Records the categories searched, joined, if the operation is being recorded.
+   */
+  void categories(Collection<String> categories) {
+    if (isRecorded()) {
+      category = String.join(",", categories);
+    }
+  }
+
+  private boolean isRecorded() {
+    return event != null || span != null && span.isSampled();
+  }
+
+  /**
+   * Returns how many items a result holds: 1 for a single item or true, 0 for none or
+   * false, and the items in all its lists for a map of lists.
+   */
+  static int sizeOf(Object result) {
+    if (result instanceof Optional<?> optional) {
+      return optional.map(ServiceOperation::sizeOf).orElse(0);
+    }
+    if (result instanceof Collection<?> collection) {
+      return collection.size();
+    }
+    if (result instanceof Map<?, ?> map) {
+      if (!map.isEmpty() && map.values().stream().allMatch(Collection.class::isInstance)) {
+        return map.values().stream().mapToInt(value -> ((Collection<?>) value).size()).sum();
+      }
+      return map.size();
+    }
+    if (result instanceof Boolean found) {
+      return found ? 1 : 0;
+    }
+    return result == null ? 0 : 1;
+  }
+}
@@ -0,0 +1,52 @@
+package dev.coms4156.project.calorieservice.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Registered;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event spanning one {@link MockApiService} operation, such as
+ * {@code recommend} or {@code getRecipeAlternatives}. Until {@link JfrEvents} registers it,
+ * creating, beginning and committing one does nothing. {@link ServiceOperation} creates
+ * and commits these.
+ */
+@Name(JfrEvents.SERVICE_OPERATION)
+@Label("Service Operation")
+@Category({"CalorieService", "Service"})
+@Description("A MockApiService operation with the ids it was called for and what it found")
+@StackTrace(false)
+@Registered(false)
+final class ServiceOperationEvent extends Event {
+
+  @Label("Operation")
+  String operation;
+
+  @Label("Client ID")
+  @Description("The client the operation was called for, or -1")
+  int clientId = -1;
+
+  @Label("Recipe ID")
+  @Description("The recipe the operation was called for, or -1")
+  int recipeId = -1;
+
+  @Label("Food ID")
+  @Description("The food the operation was called for, or -1")
+  int foodId = -1;
+
+  @Label("Category")
+  @Description("The category or categories the operation searched")
+  String category;
+
+  @Label("Candidate Count")
+  @Description("How many recipes, foods, ids or clients the operation considered")
+  int candidateCount;
+
+  @Label("Result Size")
+  @Description("How many items the operation returned: 1 for a single item or true, "
+      + "0 for none or false, and the items in all its lists for a map of lists")
+  int resultSize;
+}
@@ -0,0 +1,189 @@
+package dev.coms4156.project.calorieservice.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One timed step of a trace, such as a request, a {@link MockApiService} operation or a
+ * {@link FirestoreService} operation, in the shape OpenTelemetry and the W3C Trace Context
+ * use: a 32-hex-digit trace id shared by every span of the trace, a 16-hex-digit span id,
+ * and the id of the span it ran inside. Spans are started through {@link Tracing}, which
+ * makes each one current on its thread until it is closed.
+ *
+ * <p>A span that was not sampled records nothing; its setters do nothing and closing it only
+ * restores the span that was current before it. While tracing is disabled every span is the
+ * same inert instance, which is never made current.
+ */
+public final class Span implements AutoCloseable {
+
+  private final String traceId;
+  private final String spanId;
+  private final String parentSpanId;
+  private final boolean sampled;
+  private final Span previous;
+  private final long startEpochMicros;
+  private final long startNanos;
+  private final String threadName;
+  private final Map<String, Object> attributes;
+  private String name;
+  private String error;
+  private volatile long durationNanos = -1;
+
+  Span(String traceId, String spanId, String parentSpanId, boolean sampled, String name,
+      Span previous) {
+    this.traceId = traceId;
+    this.spanId = spanId;
+    this.parentSpanId = parentSpanId;
+    this.sampled = sampled;
+    this.name = name;
+    this.previous = previous;
+    if (sampled) {
+      this.startEpochMicros = System.currentTimeMillis() * 1000;
+      this.startNanos = System.nanoTime();
+      this.threadName = Thread.currentThread().getName();
+      this.attributes = new LinkedHashMap<>();
+    } else {
+      this.startEpochMicros = 0;
+      this.startNanos = 0;
+      this.threadName = null;
+      this.attributes = Collections.emptyMap();
+    }
+  }
+
+  /**
+   * Sets an attribute describing what the span did, such as the recipe id it read.
+   *
+   * @param key the attribute name
+   * @param value the attribute value
+   * @return this span
+   */
+  public Span setAttribute(String key, Object value) {
+    if (sampled) {
+      synchronized (attributes) {
+        attributes.put(key, value);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Renames the span, for spans whose name is only known once they finish, such as a
+   * request's endpoint pattern.
+   *
+   * @param name the new name
+   */
+  public void updateName(String name) {
+    if (sampled) {
+      this.name = name;
+    }
+  }
+
+  /**
+   * Marks the span as failed.
+   *
+   * @param error what went wrong
+   */
+  public void recordError(Throwable error) {
+    if (sampled) {
+      this.error = error.getClass().getName() + ": " + error.getMessage();
+    }
+  }
+
+  /**
+   * Ends the span, exports it if sampled, and makes the span that was current before it
+   * current again.
+   */
+  @Override
+  public void close() {
+    if (sampled && durationNanos < 0) {
+      durationNanos = System.nanoTime() - startNanos;
+      Tracing.export(this);
+    }
+    if (traceId != null) {
+      Tracing.restore(previous);
+    }
+  }
+
+  /**
+   * Returns this span's context as a W3C {@code traceparent} header value.
+   */
+  public String traceparent() {
+    return "00-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+  }
+
+  public String getTraceId() {
+    return traceId;
+  }
+
+  public String getSpanId() {
+    return spanId;
+  }
+
+  /**
+   * Returns the id of the span this one ran inside, or {@code null} for a trace's root.
+   */
+  public String getParentSpanId() {
+    return parentSpanId;
+  }
+
+  public boolean isSampled() {
+    return sampled;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getStartEpochMicros() {
+    return startEpochMicros;
+  }
+
+  /**
+   * Returns how long the span ran, or -1 while it is still running.
+   */
+  public long getDurationNanos() {
+    return durationNanos;
+  }
+
+  public String getThreadName() {
+    return threadName;
+  }
+
+  /**
+   * Returns a copy of the span's attributes.
+   */
+  public Map<String, Object> getAttributes() {
+    synchronized (attributes) {
+      return new LinkedHashMap<>(attributes);
+    }
+  }
+
+  /**
+   * Returns what went wrong, or {@code null} if the span did not fail.
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * Renders the span as a map, in the order spans are written to the trace log.
+   *
+   * @return the span's ids, name, timing, thread, attributes and error
+   */
+  public Map<String, Object> toMap() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("traceId", traceId);
+    map.put("spanId", spanId);
+    map.put("parentSpanId", parentSpanId);
+    map.put("name", name);
+    map.put("startEpochMicros", startEpochMicros);
+    map.put("durationMicros", durationNanos / 1000);
+    map.put("thread", threadName);
+    map.put("attributes", getAttributes());
+    if (error != null) {
+      map.put("error", error);
+    }
+    return map;
+  }
+}
@@ -0,0 +1,352 @@
+package dev.coms4156.project.calorieservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts and exports trace {@link Span}s. Each thread has a current span; a span started
+ * while another is current becomes its child, and one started with none becomes the root
+ * of a new trace. Roots are sampled with probability {@code tracing.sample-rate}, or as
+ * the caller's {@code traceparent} header says, and every span of a trace shares its
+ * root's decision, so unsampled requests cost a thread-local update per span.
+ *
+ * <p>Work handed to other threads keeps its trace, and the request's {@link FirestoreCost},
+ * when wrapped with {@link #wrap(Consumer)} or {@link #wrap(Runnable)}.
+ *
+ * <p>Sampled spans are kept in memory, the newest {@code tracing.recent-spans} of them, and
+ * written as JSON lines to the {@code traces} logger, which logback-spring.xml sends to
+ * logs/traces.log.
+ *
+ * <p>The settings are shared by the whole process, since spans are started from static
+ * methods. Each {@code Tracing} bean applies its context's settings when created and puts
+ * back the ones it replaced when its context closes; tests that change them should save
+ * {@link #config()} first and restore it afterwards.
+ */
+@Component
+public class Tracing {
+
+  /** The logger finished spans are written to as JSON lines. */
+  public static final String TRACE_LOGGER = "traces";
+
+  private static final Logger logger = LoggerFactory.getLogger(Tracing.class);
+  private static final Logger traces = LoggerFactory.getLogger(TRACE_LOGGER);
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final Pattern TRACEPARENT =
+      Pattern.compile("00-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})");
+  private static final String INVALID_TRACE_ID = "0".repeat(32);
+
+  private static final Span DISABLED = new Span(null, null, null, false, null, null);
+  private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+  private static volatile Config config = new Config(false, 0, 0, false);
+  private static Deque<Span> recent = new ArrayDeque<>();
+  private static int recentCapacity;
+
+  private final Config previous;
+  private final Config applied;
+
+  /**
+   * Constructs a {@code Tracing} from the {@code tracing.*} properties.
+   *
+   * @param enabled whether spans are started at all
+   * @param sampleRate the fraction of new traces to record, from 0 to 1
+   * @param recentSpans how many finished spans to keep in memory
+   * @param logSpans whether finished spans are written to the trace log
+   */
+  public Tracing(@Value("${tracing.enabled:true}") boolean enabled,
+      @Value("${tracing.sample-rate:0.01}") double sampleRate,
+      @Value("${tracing.recent-spans:1000}") int recentSpans,
+      @Value("${tracing.log:true}") boolean logSpans) {
+    previous = config;
+    applied = new Config(enabled, sampleRate, recentSpans, logSpans);
+    configure(applied);
+  }
+
+  /**
+   * Puts back the settings this bean replaced, unless another bean has changed them since.
+   */
+  @PreDestroy
+  public void close() {
+    if (config == applied) {
+      configure(previous);
+    }
+  }
+
+  /**
+   * Returns the settings spans are currently started, sampled and exported with.
+   */
+  public static Config config() {
+    return config;
+  }
+
+  /**
+   * Sets how spans are started, sampled and exported, dropping the spans kept in memory.
+   *
+   * @param enabled whether spans are started at all
+   * @param sampleRate the fraction of new traces to record, from 0 to 1
+   * @param recentSpans how many finished spans to keep in memory
+   * @param logSpans whether finished spans are written to the trace log
+   */
+  public static void configure(boolean enabled, double sampleRate, int recentSpans,
+      boolean logSpans) {
+    configure(new Config(enabled, sampleRate, recentSpans, logSpans));
+  }
+
+  /**
+   * Sets how spans are started, sampled and exported, dropping the spans kept in memory.
+   *
+   * @param settings the settings, such as ones saved earlier from {@link #config()}
+   */
+  public static void configure(Config settings) {
+    synchronized (Tracing.class) {
+      recent = new ArrayDeque<>();
+      recentCapacity = settings.recentSpans;
+    }
+    config = settings;
+  }
+
+  /**
+   * Starts a span as a child of the current span, or as the root of a new trace if there
+   * is none, and makes it current. Close it, with try-with-resources, on the same thread.
+   *
+   * @param name what the span does, such as {@code FirestoreService.getRecipeById}
+   * @return the new span
+   */
+  public static Span startSpan(String name) {
+    if (!config.enabled) {
+      return DISABLED;
+    }
+    Span parent = CURRENT.get();
+    if (parent == null) {
+      return startRoot(name, null, null, sample());
+    }
+    return start(name, parent);
+  }
+
+  /**
+   * Starts a span for an incoming request, continuing the caller's trace if it sent a valid
+   * W3C {@code traceparent} header and starting a new one otherwise, and makes it current.
+   *
+   * @param name what the span does, such as {@code GET}
+   * @param traceparent the request's {@code traceparent} header, or {@code null}
+   * @return the new span
+   */
+  public static Span startServerSpan(String name, String traceparent) {
+    if (!config.enabled) {
+      return DISABLED;
+    }
+    if (traceparent != null) {
+      Matcher match = TRACEPARENT.matcher(traceparent.trim());
+      if (match.matches() && !INVALID_TRACE_ID.equals(match.group(1))) {
+        boolean sampled = (Integer.parseInt(match.group(3), 16) & 1) == 1;
+        return startRoot(name, match.group(1), match.group(2), sampled);
+      }
+    }
+    return startRoot(name, null, null, sample());
+  }
+
+  /**
+   * Returns whether a span started now could be recorded: tracing is enabled, and the
+   * current trace, if there is one, is sampled. With no current span a new root would be
+   * started, whose sampling is only decided then, so this returns {@code true}.
+   *
+   * <p>A span that would not be recorded only restores the current span when closed, so
+   * callers may skip starting it; spans started in its place join the same unsampled trace.
+   */
+  public static boolean isRecording() {
+    if (!config.enabled) {
+      return false;
+    }
+    Span current = CURRENT.get();
+    return current == null || current.isSampled();
+  }
+
+  /**
+   * Returns the span current on this thread, or {@code null} if there is none.
+   */
+  public static Span current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Wraps an action so it runs with this thread's current span and {@link FirestoreCost},
+   * on whichever thread runs it, such as the workers of a parallel stream.
+   *
+   * @param action the action to wrap
+   * @return the wrapped action
+   */
+  public static <T> Consumer<T> wrap(Consumer<T> action) {
+    Span span = CURRENT.get();
+    FirestoreCost cost = FirestoreCost.current();
+    if (span == null && cost == null) {
+      return action;
+    }
+    return value -> {
+      Span previousSpan = CURRENT.get();
+      FirestoreCost previousCost = FirestoreCost.current();
+      CURRENT.set(span);
+      FirestoreCost.attach(cost);
+      try {
+        action.accept(value);
+      } finally {
+        restore(previousSpan);
+        FirestoreCost.attach(previousCost);
+      }
+    };
+  }
+
+  /**
+   * Wraps a task so it runs with this thread's current span and {@link FirestoreCost}, on
+   * whichever thread runs it.
+   *
+   * @param task the task to wrap
+   * @return the wrapped task
+   */
+  public static Runnable wrap(Runnable task) {
+    Consumer<Void> wrapped = wrap(ignored -> task.run());
+    return () -> wrapped.accept(null);
+  }
+
+  /**
+   * Returns the newest finished spans kept in memory, newest first.
+   *
+   * @param traceId only return spans of this trace, or {@code null} for all
+   * @param limit the most spans to return
+   * @return the spans
+   */
+  public static List<Span> recentSpans(String traceId, int limit) {
+    List<Span> spans = new ArrayList<>();
+    synchronized (Tracing.class) {
+      Iterator<Span> newestFirst = recent.descendingIterator();
+      while (newestFirst.hasNext() && spans.size() < limit) {
+        Span span = newestFirst.next();
+        if (traceId == null || traceId.equals(span.getTraceId())) {
+          spans.add(span);
+        }
+      }
+    }
+    return spans;
+  }
+
+  static void export(Span span) {
+    synchronized (Tracing.class) {
+      if (recentCapacity > 0) {
+        if (recent.size() >= recentCapacity) {
+          recent.pollFirst();
+        }
+        recent.addLast(span);
+      }
+    }
+    if (config.logSpans && traces.isInfoEnabled()) {
+      try {
+        traces.info(MAPPER.writeValueAsString(span.toMap()));
+      } catch (JsonProcessingException e) {
+        logger.warn("Could not write span {}: {}", span.getName(), e.getMessage());
+      }
+    }
+  }
+
+  static void restore(Span span) {
+    if (span == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(span);
+    }
+  }
+
+  private static boolean sample() {
+    double rate = config.sampleRate;
+    return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  private static Span startRoot(String name, String traceId, String parentSpanId,
+      boolean sampled) {
+    Span span;
+    if (sampled) {
+      span = new Span(traceId != null ? traceId : newId(2), newId(1), parentSpanId, true, name,
+          CURRENT.get());
+    } else {
+      // Unsampled traces never leave this process, so they need no ids of their own
+      span = new Span(traceId != null ? traceId : "", parentSpanId, parentSpanId, false, name,
+          CURRENT.get());
+    }
+    CURRENT.set(span);
+    return span;
+  }
+
+  private static Span start(String name, Span parent) {
+    Span span = parent.isSampled()
+        ? new Span(parent.getTraceId(), newId(1), parent.getSpanId(), true, name, parent)
+        : new Span(parent.getTraceId(), parent.getSpanId(), parent.getSpanId(), false, name,
+            parent);
+    CURRENT.set(span);
+    return span;
+  }
+
+  private static String newId(int longs) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    StringBuilder id = new StringBuilder(longs * 16);
+    for (int i = 0; i < longs; i++) {
+      long value = random.nextLong();
+      while (value == 0) {
+        value = random.nextLong();
+      }
+      String hex = Long.toHexString(value);
+      id.append("0".repeat(16 - hex.length())).append(hex);
+    }
+    return id.toString();
+  }
+
+  /**
+   * How spans are started, sampled and exported.
+   */
+  public static final class Config {
+    private final boolean enabled;
+    private final double sampleRate;
+    private final int recentSpans;
+    private final boolean logSpans;
+
+    private Config(boolean enabled, double sampleRate, int recentSpans, boolean logSpans) {
+      if (sampleRate < 0 || sampleRate > 1) {
+        throw new IllegalArgumentException("Sample rate must be between 0 and 1");
+      }
+      if (recentSpans < 0) {
+        throw new IllegalArgumentException("Recent spans must not be negative");
+      }
+      this.enabled = enabled;
+      this.sampleRate = sampleRate;
+      this.recentSpans = recentSpans;
+      this.logSpans = logSpans;
+    }
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public double getSampleRate() {
+      return sampleRate;
+    }
+
+    public int getRecentSpans() {
+      return recentSpans;
+    }
+
+    public boolean isLogSpans() {
+      return logSpans;
+    }
+  }
+}
@@ -0,0 +1,316 @@
+package dev.coms4156.project.calorieservice.service;
+
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.models.TrendingRecipe;
+import dev.coms4156.project.calorieservice.util.IntHashSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps exponentially time-decayed view and like scores for recipes in memory and
+ * maintains the highest-scoring recipes overall and per category, so trending queries
+ * never touch Firestore.
+ *
+ * <p>Scores use forward decay: every event is weighted by {@code e^(lambda * (t - start))}
+ * and stored in log space. Because all scores decay at the same rate, the ranking only
+ * changes when a recipe receives a new event, which is what lets the top lists be
+ * maintained incrementally. Scores and top lists are updated with compare-and-set only.
+ * Scores start empty when the service starts.
+ *
+ * <p>At most {@code trending.max-recipes} recipes are scored. When a new recipe would
+ * exceed that, the lowest-scoring tenth of the recipes not on any trending list is dropped;
+ * their scores have decayed the furthest, so they are the least likely to trend again.
+ */
+@Service
+public class TrendingService {
+
+  /** Largest number of recipes kept, and returned, per trending list. */
+  public static final int MAX_LIMIT = 50;
+  /** Score half-life used when none is configured. */
+  public static final Duration DEFAULT_HALF_LIFE = Duration.ofHours(6);
+  /** Most recipes scored when no limit is configured. */
+  public static final int DEFAULT_MAX_RECIPES = 100_000;
+
+  static final double VIEW_WEIGHT = 1.0;
+  static final double LIKE_WEIGHT = 5.0;
+
+  private final double decayPerMilli;
+  private final LongSupplier clock;
+  private final long start;
+  private final int maxRecipes;
+  private final Object evictionLock = new Object();
+  private final ConcurrentHashMap<Integer, RecipeScore> scores = new ConcurrentHashMap<>();
+  private final AtomicReference<TopK> overall = new AtomicReference<>(TopK.EMPTY);
+  private final ConcurrentHashMap<String, AtomicReference<TopK>> byCategory =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a {@code TrendingService} whose scores halve every {@code halfLifeMinutes}.
+   *
+   * @param halfLifeMinutes score half-life in minutes
+   * @param maxRecipes most recipes scored at once
+   */
+  @Autowired
+  public TrendingService(@Value("${trending.half-life-minutes:360}") long halfLifeMinutes,
+      @Value("${trending.max-recipes:100000}") int maxRecipes) {
+    this(Duration.ofMinutes(halfLifeMinutes), maxRecipes, System::currentTimeMillis);
+  }
+
+  /**
+   * Constructs a {@code TrendingService} with an explicit half-life and clock, scoring at
+   * most {@link #DEFAULT_MAX_RECIPES} recipes.
+   *
+   * @param halfLife time for a score to decay to half its value
+   * @param clock source of the current time in epoch milliseconds
+   */
+  public TrendingService(Duration halfLife, LongSupplier clock) {
+    this(halfLife, DEFAULT_MAX_RECIPES, clock);
+  }
+
+  /**
+   * Constructs a {@code TrendingService} with an explicit half-life, recipe limit and clock.
+   *
+   * @param halfLife time for a score to decay to half its value
+   * @param maxRecipes most recipes scored at once
+   * @param clock source of the current time in epoch milliseconds
+   */
+  public TrendingService(Duration halfLife, int maxRecipes, LongSupplier clock) {
+    if (halfLife.isZero() || halfLife.isNegative()) {
+      throw new IllegalArgumentException("Half-life must be positive");
+    }
+    if (maxRecipes < MAX_LIMIT) {
+      throw new IllegalArgumentException("Max recipes must be at least " + MAX_LIMIT);
+    }
+    this.decayPerMilli = Math.log(2) / halfLife.toMillis();
+    this.maxRecipes = maxRecipes;
+    this.clock = clock;
+    this.start = clock.getAsLong();
+  }
+
+  /**
+   * Records a view of a recipe.
+   *
+   * @param recipe the viewed recipe.
+   */
+  public void recordView(Recipe recipe) {
+    record(recipe, VIEW_WEIGHT);
+  }
+
+  /**
+   * Records a like of a recipe.
+   *
+   * @param recipe the liked recipe.
+   */
+  public void recordLike(Recipe recipe) {
+    record(recipe, LIKE_WEIGHT);
+  }
+
+  /**
+   * Returns the currently trending recipes, highest score first.
+   *
+   * @param category category to restrict to, or {@code null} for all categories
+   * @param limit maximum number of recipes to return, at most {@link #MAX_LIMIT}
+   * @return a {@code List} of up to {@code limit} {@code TrendingRecipe} objects
+   */
+  public List<TrendingRecipe> getTrending(String category, int limit) {
+    TopK top = overall.get();
+    if (category != null) {
+      AtomicReference<TopK> categoryTop = byCategory.get(category);
+      top = categoryTop == null ? TopK.EMPTY : categoryTop.get();
+    }
+    double logNow = decayPerMilli * (clock.getAsLong() - start);
+    List<TrendingRecipe> trending = new ArrayList<>();
+    for (int i = 0; i < top.ids.length && trending.size() < limit; i++) {
+      RecipeScore entry = scores.get(top.ids[i]);
+      if (entry == null) {
+        // Evicted after this snapshot was taken
+        continue;
+      }
+      if (category != null && !category.equals(entry.category)) {
+        // The recipe has since moved to another category
+        continue;
+      }
+      trending.add(new TrendingRecipe(top.ids[i], entry.recipeName, entry.category,
+          entry.totalCalories, Math.exp(top.logScores[i] - logNow)));
+    }
+    return trending;
+  }
+
+  /**
+   * Returns how many recipes currently have a score, at most about
+   * {@code trending.max-recipes}.
+   */
+  public int scoredRecipes() {
+    return scores.size();
+  }
+
+  private void record(Recipe recipe, double weight) {
+    double logIncrement = Math.log(weight) + decayPerMilli * (clock.getAsLong() - start);
+    RecipeScore entry = scores.get(recipe.getRecipeId());
+    if (entry == null) {
+      if (scores.size() >= maxRecipes) {
+        evictLowest();
+      }
+      entry = scores.computeIfAbsent(recipe.getRecipeId(), id -> new RecipeScore());
+    }
+    entry.describe(recipe);
+    double logScore = entry.add(logIncrement);
+
+    offer(overall, recipe.getRecipeId(), logScore);
+    if (recipe.getCategory() != null) {
+      offer(byCategory.computeIfAbsent(recipe.getCategory(),
+          key -> new AtomicReference<>(TopK.EMPTY)), recipe.getRecipeId(), logScore);
+    }
+  }
+
+  /**
+   * Drops the lowest-scoring tenth of the recipes that are on no trending list. A recipe
+   * scored while this runs may lose that event, which only makes its score approximate.
+   */
+  private void evictLowest() {
+    synchronized (evictionLock) {
+      if (scores.size() < maxRecipes) {
+        return;
+      }
+      IntHashSet listed = new IntHashSet();
+      addAll(listed, overall.get());
+      byCategory.values().forEach(top -> addAll(listed, top.get()));
+      List<Map.Entry<Integer, RecipeScore>> candidates = new ArrayList<>();
+      for (Map.Entry<Integer, RecipeScore> entry : scores.entrySet()) {
+        if (!listed.contains(entry.getKey())) {
+          candidates.add(entry);
+        }
+      }
+      candidates.sort(Comparator.comparingDouble(entry -> entry.getValue().logScore()));
+      int evict = Math.min(candidates.size(), Math.max(1, maxRecipes / 10));
+      for (int i = 0; i < evict; i++) {
+        scores.remove(candidates.get(i).getKey(), candidates.get(i).getValue());
+      }
+    }
+  }
+
+  private static void addAll(IntHashSet ids, TopK top) {
+    for (int id : top.ids) {
+      ids.add(id);
+    }
+  }
+
+  private static void offer(AtomicReference<TopK> ref, int recipeId, double logScore) {
+    while (true) {
+      TopK current = ref.get();
+      TopK updated = current.offer(recipeId, logScore);
+      if (updated == current || ref.compareAndSet(current, updated)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * The decayed score of one recipe, plus the fields needed to answer queries without
+   * reading the recipe back from Firestore.
+   */
+  private static final class RecipeScore {
+    private final AtomicLong logScoreBits =
+        new AtomicLong(Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY));
+    private volatile String recipeName;
+    private volatile String category;
+    private volatile int totalCalories;
+
+    private void describe(Recipe recipe) {
+      recipeName = recipe.getRecipeName();
+      category = recipe.getCategory();
+      totalCalories = recipe.getTotalCalories();
+    }
+
+    private double logScore() {
+      return Double.longBitsToDouble(logScoreBits.get());
+    }
+
+    private double add(double logIncrement) {
+      while (true) {
+        long bits = logScoreBits.get();
+        double updated = logAddExp(Double.longBitsToDouble(bits), logIncrement);
+        if (logScoreBits.compareAndSet(bits, Double.doubleToRawLongBits(updated))) {
+          return updated;
+        }
+      }
+    }
+
+    private static double logAddExp(double a, double b) {
+      double max = Math.max(a, b);
+      double min = Math.min(a, b);
+      return max + Math.log1p(Math.exp(min - max));
+    }
+  }
+
+  /**
+   * An immutable list of the highest scores, sorted descending. Updates copy the arrays,
+   * which is cheap at {@link #MAX_LIMIT} entries and lets readers use a snapshot without locks.
+   */
+  private static final class TopK {
+    private static final TopK EMPTY = new TopK(new int[0], new double[0]);
+
+    private final int[] ids;
+    private final double[] logScores;
+
+    private TopK(int[] ids, double[] logScores) {
+      this.ids = ids;
+      this.logScores = logScores;
+    }
+
+    /**
+     * Returns a copy with the recipe placed at its new score, or {@code this} if unchanged.
+     * Scores only grow, so an older, lower score for a listed recipe is ignored.
+     */
+    private TopK offer(int recipeId, double logScore) {
+      int existing = -1;
+      for (int i = 0; i < ids.length; i++) {
+        if (ids[i] == recipeId) {
+          existing = i;
+          break;
+        }
+      }
+      if (existing >= 0 && logScores[existing] >= logScore) {
+        return this;
+      }
+      if (existing < 0 && ids.length == MAX_LIMIT && logScore <= logScores[MAX_LIMIT - 1]) {
+        return this;
+      }
+
+      // Drop the recipe's old entry, or the lowest entry when full, then insert in order
+      int drop = existing >= 0 ? existing : (ids.length == MAX_LIMIT ? MAX_LIMIT - 1 : -1);
+      int size = drop >= 0 ? ids.length : ids.length + 1;
+      int[] newIds = new int[size];
+      double[] newScores = new double[size];
+      int target = 0;
+      boolean inserted = false;
+      for (int i = 0; i < ids.length; i++) {
+        if (i == drop) {
+          continue;
+        }
+        if (!inserted && logScore > logScores[i]) {
+          newIds[target] = recipeId;
+          newScores[target++] = logScore;
+          inserted = true;
+        }
+        newIds[target] = ids[i];
+        newScores[target++] = logScores[i];
+      }
+      if (!inserted) {
+        newIds[target] = recipeId;
+        newScores[target] = logScore;
+      }
+      return new TopK(newIds, newScores);
+    }
+  }
+}
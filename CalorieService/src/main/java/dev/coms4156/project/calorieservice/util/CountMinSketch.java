@@ -0,0 +1,96 @@
+package dev.coms4156.project.calorieservice.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Count-Min Sketch of {@code int} keys. Estimates never undercount, and with probability
+ * {@code 1 - delta} overcount by at most {@code epsilon * totalCount()}. Memory is fixed by
+ * the error parameters, whatever the number of distinct keys. Safe for concurrent use.
+ */
+public class CountMinSketch {
+
+  private final int width;
+  private final int depth;
+  private final double epsilon;
+  private final double delta;
+  private final AtomicLongArray counters;
+  private final AtomicLong total = new AtomicLong();
+
+  /**
+   * Creates a sketch sized for the given error bound and failure probability.
+   *
+   * @param epsilon relative error bound, as a fraction of the total count
+   * @param delta probability that an estimate exceeds the error bound
+   */
+  public CountMinSketch(double epsilon, double delta) {
+    if (epsilon <= 0 || epsilon >= 1) {
+      throw new IllegalArgumentException("Epsilon must be between 0 and 1");
+    }
+    if (delta <= 0 || delta >= 1) {
+      throw new IllegalArgumentException("Delta must be between 0 and 1");
+    }
+    this.width = (int) Math.ceil(Math.E / epsilon);
+    this.depth = (int) Math.ceil(Math.log(1 / delta));
+    this.epsilon = epsilon;
+    this.delta = delta;
+    this.counters = new AtomicLongArray(width * depth);
+  }
+
+  /**
+   * Adds one occurrence of a key.
+   *
+   * @param key the key to count.
+   */
+  public void add(int key) {
+    for (int row = 0; row < depth; row++) {
+      counters.incrementAndGet(row * width + bucket(key, row));
+    }
+    total.incrementAndGet();
+  }
+
+  /**
+   * Estimates how many times a key was added.
+   *
+   * @param key the key to look up.
+   * @return an estimate that is never below the true count.
+   */
+  public long estimate(int key) {
+    long min = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      min = Math.min(min, counters.get(row * width + bucket(key, row)));
+    }
+    return min;
+  }
+
+  /**
+   * Returns the largest amount by which an estimate may exceed the true count,
+   * with probability {@code 1 - delta}.
+   *
+   * @return {@code epsilon} times the total count.
+   */
+  public long errorBound() {
+    return (long) Math.ceil(epsilon * total.get());
+  }
+
+  public long totalCount() {
+    return total.get();
+  }
+
+  public double getEpsilon() {
+    return epsilon;
+  }
+
+  public double getDelta() {
+    return delta;
+  }
+
+  private int bucket(int key, int row) {
+    // SplitMix64 finalizer, seeded differently for each row
+    long h = key + 0x9E3779B97F4A7C15L * (row + 1);
+    h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+    h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+    h ^= h >>> 31;
+    return (int) ((h & Long.MAX_VALUE) % width);
+  }
+}
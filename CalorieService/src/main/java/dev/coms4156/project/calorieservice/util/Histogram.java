@@ -0,0 +1,89 @@
+package dev.coms4156.project.calorieservice.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram with fixed bucket upper bounds, as exported to Prometheus. Recording finds
+ * the value's bucket by binary search and adds to striped counters, so it never locks and
+ * concurrent recorders rarely contend. Counts are per bucket; {@link #cumulativeCounts}
+ * turns them into the "at most this bound" counts Prometheus expects.
+ */
+public class Histogram {
+
+  private final double[] bounds;
+  private final LongAdder[] counts;
+  private final DoubleAdder sum = new DoubleAdder();
+
+  /**
+   * Creates an empty histogram.
+   *
+   * @param bounds the bucket upper bounds, in increasing order; values above the last one
+   *     fall in an implicit +Inf bucket
+   */
+  public Histogram(double... bounds) {
+    for (int i = 1; i < bounds.length; i++) {
+      if (!(bounds[i] > bounds[i - 1])) {
+        throw new IllegalArgumentException("Bucket bounds must be increasing");
+      }
+    }
+    this.bounds = bounds.clone();
+    this.counts = new LongAdder[bounds.length + 1];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Adds one observation.
+   *
+   * @param value the observed value
+   */
+  public void record(double value) {
+    int bucket = Arrays.binarySearch(bounds, value);
+    // An exact match belongs to that bound's bucket; otherwise to the next bound up
+    counts[bucket >= 0 ? bucket : -bucket - 1].increment();
+    sum.add(value);
+  }
+
+  /**
+   * Returns the bucket upper bounds, without the implicit +Inf bucket.
+   */
+  public double[] bounds() {
+    return bounds.clone();
+  }
+
+  /**
+   * Returns how many observations were at most each bound, ending with the total for the
+   * +Inf bucket. Concurrent recording may make the counts slightly inconsistent with
+   * {@link #sum}, but they never decrease from one call to the next.
+   */
+  public long[] cumulativeCounts() {
+    long[] cumulative = new long[counts.length];
+    long total = 0;
+    for (int i = 0; i < counts.length; i++) {
+      total += counts[i].sum();
+      cumulative[i] = total;
+    }
+    return cumulative;
+  }
+
+  /**
+   * Returns how many observations were recorded.
+   */
+  public long count() {
+    long total = 0;
+    for (LongAdder count : counts) {
+      total += count.sum();
+    }
+    return total;
+  }
+
+  /**
+   * Returns the sum of all observed values.
+   */
+  public double sum() {
+    return sum.sum();
+  }
+}
@@ -0,0 +1,125 @@
+package dev.coms4156.project.calorieservice.util;
+
+/**
+ * A HyperLogLog sketch estimating the number of distinct {@code long} values added to it.
+ * Uses 2^11 registers of 6 bits each, so a serialized sketch is 1537 bytes and the
+ * standard error of an estimate is about 2.3%. Sketches merge by taking the larger
+ * register, so merging is idempotent and order does not matter. This class is
+ * not thread-safe.
+ */
+public class HyperLogLog {
+
+  private static final int PRECISION = 11;
+  private static final int REGISTERS = 1 << PRECISION;
+  private static final int REGISTER_BITS = 6;
+  /** One precision header byte followed by the packed registers. */
+  public static final int SERIALIZED_SIZE = 1 + REGISTERS * REGISTER_BITS / 8;
+
+  private final byte[] registers = new byte[REGISTERS];
+
+  /**
+   * Adds a value to the sketch.
+   *
+   * @param value the value to add; hashed before use, so ids may be added directly.
+   * @return {@code true} if the sketch changed.
+   */
+  public boolean add(long value) {
+    long hash = mix(value);
+    int index = (int) (hash >>> (64 - PRECISION));
+    // Rank of the first set bit in the remaining bits, capped when they are all zero
+    int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION), 64 - PRECISION) + 1;
+    if (rank > registers[index]) {
+      registers[index] = (byte) rank;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Merges another sketch into this one, so this sketch counts the union of both.
+   *
+   * @param other the sketch to merge in.
+   */
+  public void merge(HyperLogLog other) {
+    for (int i = 0; i < REGISTERS; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  /**
+   * Estimates the number of distinct values added.
+   *
+   * @return the estimated distinct count.
+   */
+  public long estimate() {
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+    double estimate = alpha * REGISTERS * REGISTERS / sum;
+    if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+      // Linear counting is more accurate while many registers are still empty
+      estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  /**
+   * Serializes the sketch into {@link #SERIALIZED_SIZE} bytes.
+   *
+   * @return the packed sketch.
+   */
+  public byte[] toBytes() {
+    byte[] bytes = new byte[SERIALIZED_SIZE];
+    bytes[0] = PRECISION;
+    for (int i = 0; i < REGISTERS; i += 4) {
+      // Four 6-bit registers fill three bytes
+      int packed = registers[i] << 18 | registers[i + 1] << 12
+          | registers[i + 2] << 6 | registers[i + 3];
+      int offset = 1 + i / 4 * 3;
+      bytes[offset] = (byte) (packed >>> 16);
+      bytes[offset + 1] = (byte) (packed >>> 8);
+      bytes[offset + 2] = (byte) packed;
+    }
+    return bytes;
+  }
+
+  /**
+   * Restores a sketch produced by {@link #toBytes()}.
+   *
+   * @param bytes the packed sketch.
+   * @return the restored sketch.
+   * @throws IllegalArgumentException if the bytes are not a serialized sketch
+   */
+  public static HyperLogLog fromBytes(byte[] bytes) {
+    if (bytes == null || bytes.length != SERIALIZED_SIZE || bytes[0] != PRECISION) {
+      throw new IllegalArgumentException("Not a serialized HyperLogLog sketch");
+    }
+    HyperLogLog sketch = new HyperLogLog();
+    for (int i = 0; i < REGISTERS; i += 4) {
+      int offset = 1 + i / 4 * 3;
+      int packed = (bytes[offset] & 0xFF) << 16 | (bytes[offset + 1] & 0xFF) << 8
+          | (bytes[offset + 2] & 0xFF);
+      sketch.registers[i] = (byte) (packed >>> 18 & 0x3F);
+      sketch.registers[i + 1] = (byte) (packed >>> 12 & 0x3F);
+      sketch.registers[i + 2] = (byte) (packed >>> 6 & 0x3F);
+      sketch.registers[i + 3] = (byte) (packed & 0x3F);
+    }
+    return sketch;
+  }
+
+  private static long mix(long value) {
+    // SplitMix64 finalizer
+    long h = value + 0x9E3779B97F4A7C15L;
+    h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+    h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+    return h ^ (h >>> 31);
+  }
+}
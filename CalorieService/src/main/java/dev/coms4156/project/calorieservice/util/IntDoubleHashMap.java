@@ -0,0 +1,210 @@
+package dev.coms4156.project.calorieservice.util;
+
+import java.util.Arrays;
+
+/**
+ * A small open-addressing hash map from primitive {@code int} keys to {@code double}
+ * values, for weights and histograms kept per key without boxing. Missing keys read as
+ * {@code 0}. This class is not thread-safe.
+ */
+public class IntDoubleHashMap {
+
+  /**
+   * Receives the entries of a map.
+   */
+  @FunctionalInterface
+  public interface EntryConsumer {
+    /**
+     * Accepts one entry.
+     *
+     * @param key the entry's key.
+     * @param value the entry's value.
+     */
+    void accept(int key, double value);
+  }
+
+  private static final int FREE = IntProbing.FREE;
+
+  private int[] keys;
+  private double[] values;
+  private int size;
+  private boolean containsFree;
+  private double freeValue;
+
+  /**
+   * Creates an empty map with a default initial capacity.
+   */
+  public IntDoubleHashMap() {
+    this(0);
+  }
+
+  /**
+   * Creates an empty map sized to hold the expected number of entries without resizing.
+   *
+   * @param expectedSize expected number of entries in the map.
+   */
+  public IntDoubleHashMap(int expectedSize) {
+    this.keys = IntProbing.newKeys(expectedSize);
+    this.values = new double[keys.length];
+  }
+
+  /**
+   * Returns the value of a key.
+   *
+   * @param key the key to look up.
+   * @return the key's value, or {@code 0} if it is not in the map.
+   */
+  public double get(int key) {
+    if (key == FREE) {
+      return containsFree ? freeValue : 0;
+    }
+    int slot = IntProbing.find(keys, key);
+    return slot < 0 ? 0 : values[slot];
+  }
+
+  /**
+   * Checks whether a key is in the map.
+   *
+   * @param key the key to look up.
+   * @return {@code true} if the key is present.
+   */
+  public boolean containsKey(int key) {
+    return key == FREE ? containsFree : IntProbing.find(keys, key) >= 0;
+  }
+
+  /**
+   * Adds {@code delta} to the value of a key, adding the key with value {@code delta} if
+   * it is not in the map.
+   *
+   * @param key the key to update.
+   * @param delta the amount to add.
+   * @return the key's new value.
+   */
+  public double add(int key, double delta) {
+    if (key == FREE) {
+      if (!containsFree) {
+        containsFree = true;
+        freeValue = 0;
+        size++;
+      }
+      freeValue += delta;
+      return freeValue;
+    }
+    int slot = IntProbing.slot(keys, key);
+    if (keys[slot] == key) {
+      values[slot] += delta;
+      return values[slot];
+    }
+    keys[slot] = key;
+    values[slot] = delta;
+    size++;
+    if (IntProbing.full(keys, size)) {
+      rehash();
+    }
+    return delta;
+  }
+
+  /**
+   * Removes a key from the map.
+   *
+   * @param key the key to remove.
+   * @return the removed value, or {@code 0} if the key was not present.
+   */
+  public double remove(int key) {
+    if (key == FREE) {
+      if (!containsFree) {
+        return 0;
+      }
+      containsFree = false;
+      size--;
+      return freeValue;
+    }
+    int slot = IntProbing.find(keys, key);
+    if (slot < 0) {
+      return 0;
+    }
+    double value = values[slot];
+    IntProbing.remove(keys, values, slot);
+    size--;
+    return value;
+  }
+
+  /**
+   * Removes the entry with the smallest value, making room in a bounded histogram.
+   *
+   * @return the removed value, or {@code 0} if the map is empty.
+   */
+  public double removeSmallest() {
+    int smallest = -1;
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != FREE && (smallest < 0 || values[slot] < values[smallest])) {
+        smallest = slot;
+      }
+    }
+    if (containsFree && (smallest < 0 || freeValue < values[smallest])) {
+      return remove(FREE);
+    }
+    return smallest < 0 ? 0 : remove(keys[smallest]);
+  }
+
+  /**
+   * Multiplies every value by {@code factor}.
+   *
+   * @param factor the factor to scale by.
+   */
+  public void scale(double factor) {
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != FREE) {
+        values[slot] *= factor;
+      }
+    }
+    freeValue *= factor;
+  }
+
+  /**
+   * Passes every entry to {@code consumer}, in no particular order.
+   *
+   * @param consumer receives each key and value.
+   */
+  public void forEach(EntryConsumer consumer) {
+    if (containsFree) {
+      consumer.accept(FREE, freeValue);
+    }
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != FREE) {
+        consumer.accept(keys[slot], values[slot]);
+      }
+    }
+  }
+
+  /**
+   * Removes every entry from the map while keeping its capacity.
+   */
+  public void clear() {
+    Arrays.fill(keys, FREE);
+    containsFree = false;
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private void rehash() {
+    int[] oldKeys = keys;
+    double[] oldValues = values;
+    keys = IntProbing.newKeys(oldKeys.length);
+    values = new double[keys.length];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != FREE) {
+        int slot = IntProbing.slot(keys, oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package dev.coms4156.project.calorieservice.util;
+
+import java.util.Arrays;
+
+/**
+ * A small open-addressing hash set of primitive {@code int} values.
+ * Used to test recipe ids for membership without boxing or linear list scans.
+ * This class is not thread-safe.
+ */
+public class IntHashSet {
+
+  private static final int FREE = IntProbing.FREE;
+
+  private int[] keys;
+  private int size;
+  private boolean containsFree;
+
+  /**
+   * Creates an empty set with a default initial capacity.
+   */
+  public IntHashSet() {
+    this(0);
+  }
+
+  /**
+   * Creates an empty set sized to hold the expected number of values without resizing.
+   *
+   * @param expectedSize expected number of values in the set.
+   */
+  public IntHashSet(int expectedSize) {
+    this.keys = IntProbing.newKeys(expectedSize);
+  }
+
+  /**
+   * Adds a value to the set.
+   *
+   * @param value the value to add.
+   * @return {@code true} if the value was added; {@code false} if already present.
+   */
+  public boolean add(int value) {
+    if (value == FREE) {
+      if (containsFree) {
+        return false;
+      }
+      containsFree = true;
+      size++;
+      return true;
+    }
+    int slot = IntProbing.slot(keys, value);
+    if (keys[slot] == value) {
+      return false;
+    }
+    keys[slot] = value;
+    size++;
+    if (IntProbing.full(keys, size)) {
+      rehash();
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether a value is in the set.
+   *
+   * @param value the value to look up.
+   * @return {@code true} if the value is present.
+   */
+  public boolean contains(int value) {
+    if (value == FREE) {
+      return containsFree;
+    }
+    return IntProbing.find(keys, value) >= 0;
+  }
+
+  /**
+   * Removes a value from the set.
+   *
+   * @param value the value to remove.
+   * @return {@code true} if the value was removed; {@code false} if not present.
+   */
+  public boolean remove(int value) {
+    if (value == FREE) {
+      if (!containsFree) {
+        return false;
+      }
+      containsFree = false;
+      size--;
+      return true;
+    }
+    int slot = IntProbing.find(keys, value);
+    if (slot < 0) {
+      return false;
+    }
+    IntProbing.remove(keys, null, slot);
+    size--;
+    return true;
+  }
+
+  /**
+   * Removes every value from the set while keeping its capacity.
+   */
+  public void clear() {
+    Arrays.fill(keys, FREE);
+    containsFree = false;
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private void rehash() {
+    int[] oldKeys = keys;
+    keys = IntProbing.newKeys(oldKeys.length);
+    for (int key : oldKeys) {
+      if (key != FREE) {
+        keys[IntProbing.slot(keys, key)] = key;
+      }
+    }
+  }
+}
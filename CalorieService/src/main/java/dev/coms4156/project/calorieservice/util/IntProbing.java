@@ -0,0 +1,89 @@
+package dev.coms4156.project.calorieservice.util;
+
+import java.util.Arrays;
+
+/**
+ * The linear probing shared by {@link IntHashSet} and {@link IntDoubleHashMap}. Keys are
+ * kept in a power-of-two sized {@code int} array in which {@link #FREE} marks an empty
+ * slot, so callers store {@code FREE} itself outside the array.
+ */
+final class IntProbing {
+
+  static final int FREE = Integer.MIN_VALUE;
+  static final int DEFAULT_CAPACITY = 16;
+
+  private IntProbing() {
+  }
+
+  /**
+   * Returns an empty key array large enough to hold {@code expectedSize} keys without
+   * resizing.
+   */
+  static int[] newKeys(int expectedSize) {
+    int capacity = DEFAULT_CAPACITY;
+    while (capacity < expectedSize * 2) {
+      capacity <<= 1;
+    }
+    int[] keys = new int[capacity];
+    Arrays.fill(keys, FREE);
+    return keys;
+  }
+
+  /**
+   * Returns the slot holding {@code key}, or else the free slot where it would be added.
+   */
+  static int slot(int[] keys, int key) {
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != FREE && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Returns the slot holding {@code key}, or -1 if it is not in {@code keys}.
+   */
+  static int find(int[] keys, int key) {
+    int slot = slot(keys, key);
+    return keys[slot] == key ? slot : -1;
+  }
+
+  /**
+   * Returns whether a table holding {@code size} keys should double its capacity.
+   */
+  static boolean full(int[] keys, int size) {
+    return size * 2 > keys.length;
+  }
+
+  /**
+   * Frees the slot of a removed key and shifts later keys of its probe chain back so the
+   * chain stays unbroken, moving their values in {@code values} with them if it is not
+   * {@code null}.
+   */
+  static void remove(int[] keys, double[] values, int gap) {
+    keys[gap] = FREE;
+    int mask = keys.length - 1;
+    int slot = (gap + 1) & mask;
+    while (keys[slot] != FREE) {
+      int home = mix(keys[slot]) & mask;
+      boolean movable = gap <= slot
+          ? home <= gap || home > slot
+          : home <= gap && home > slot;
+      if (movable) {
+        keys[gap] = keys[slot];
+        if (values != null) {
+          values[gap] = values[slot];
+        }
+        keys[slot] = FREE;
+        gap = slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private static int mix(int value) {
+    int h = value * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
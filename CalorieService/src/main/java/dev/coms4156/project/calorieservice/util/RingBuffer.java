@@ -0,0 +1,150 @@
+package dev.coms4156.project.calorieservice.util;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue for many producer threads and a single consumer thread. Each
+ * slot carries a sequence number telling producers whether it is free and the consumer
+ * whether it holds an element, so neither side ever takes a lock. The capacity is rounded
+ * up to a power of two.
+ *
+ * <p>{@link #offer} may be called from any thread; {@link #poll} and {@link #drainTo} must
+ * only be called from one thread at a time.
+ *
+ * @param <E> the element type
+ */
+public final class RingBuffer<E> {
+
+  private final AtomicReferenceArray<E> elements;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();
+  private final AtomicLong head = new AtomicLong();
+
+  /**
+   * Creates a buffer holding at least {@code capacity} elements.
+   *
+   * @param capacity the smallest number of elements the buffer must hold.
+   */
+  public RingBuffer(int capacity) {
+    if (capacity < 1 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    this.elements = new AtomicReferenceArray<>(size);
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+    this.mask = size - 1;
+  }
+
+  /**
+   * Adds an element if there is room.
+   *
+   * @param element the element to add.
+   * @return {@code true} if the element was added, {@code false} if the buffer was full.
+   */
+  public boolean offer(E element) {
+    if (element == null) {
+      throw new NullPointerException("element");
+    }
+    while (true) {
+      long position = tail.get();
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          elements.set(index, element);
+          // Publishes the element to the consumer
+          sequences.set(index, position + 1);
+          return true;
+        }
+      } else if (difference < 0) {
+        return false;
+      }
+      // Another producer claimed this slot first; retry at the new tail
+    }
+  }
+
+  /**
+   * Removes the oldest element.
+   *
+   * @return the element, or {@code null} if none is ready.
+   */
+  public E poll() {
+    long position = head.get();
+    int index = (int) position & mask;
+    if (sequences.get(index) != position + 1) {
+      return null;
+    }
+    E element = elements.getAndSet(index, null);
+    // Hands the slot back to producers for the next lap around the ring
+    sequences.set(index, position + mask + 1);
+    head.set(position + 1);
+    return element;
+  }
+
+  /**
+   * Moves up to {@code max} of the oldest elements into {@code target}.
+   *
+   * @param target the collection to add the elements to.
+   * @param max the most elements to move.
+   * @return the number of elements moved.
+   */
+  public int drainTo(Collection<? super E> target, int max) {
+    int drained = 0;
+    while (drained < max) {
+      E element = poll();
+      if (element == null) {
+        break;
+      }
+      target.add(element);
+      drained++;
+    }
+    return drained;
+  }
+
+  /**
+   * Returns roughly how many elements are waiting; exact when no thread is adding or
+   * removing elements.
+   */
+  public int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max(0, Math.min(size, capacity()));
+  }
+
+  /**
+   * Returns whether no elements are waiting.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Returns how many elements the buffer holds when full.
+   */
+  public int capacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Returns how many elements have ever been added.
+   */
+  public long offered() {
+    return tail.get();
+  }
+
+  /**
+   * Returns how many elements have ever been removed.
+   */
+  public long polled() {
+    return head.get();
+  }
+}
@@ -0,0 +1,105 @@
+package dev.coms4156.project.calorieservice.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent calls for the same key into one execution. The first caller for a
+ * key runs the load on its own thread; callers that arrive while it is still running wait
+ * for and share its result, or its failure, instead of starting their own. Once the load
+ * finishes the key is forgotten, so the next call loads again.
+ *
+ * <p>Only calls that overlap in time are merged, which makes this safe in front of reads
+ * whose results must not be cached: a caller never receives a result from a load that
+ * finished before it arrived. It may receive one from a load that started before it
+ * arrived, though, so a caller that must see its own earlier writes has to put something
+ * that changes on every write, such as a write count, into the key.
+ *
+ * @param <K> the key type identifying identical calls
+ * @param <V> the result type
+ */
+public final class SingleFlight<K, V> {
+
+  /**
+   * A load that may fail the same way a blocking Firestore read does.
+   *
+   * @param <V> the result type
+   */
+  @FunctionalInterface
+  public interface Loader<V> {
+    V load() throws ExecutionException, InterruptedException;
+  }
+
+  private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  /**
+   * Returns the result of {@code loader}, sharing the run of any in-flight call for the
+   * same key.
+   *
+   * @param key identifies calls that would produce the same result
+   * @param loader the load to run if no call for {@code key} is in flight
+   * @return the result of the load
+   * @throws ExecutionException if the load failed, for this caller or the one it joined
+   * @throws InterruptedException if this caller's thread was interrupted
+   */
+  public V execute(K key, Loader<V> loader) throws ExecutionException, InterruptedException {
+    calls.increment();
+    CompletableFuture<V> own = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+    if (existing != null) {
+      coalesced.increment();
+      return join(existing);
+    }
+    try {
+      V value = loader.load();
+      own.complete(value);
+      return value;
+    } catch (ExecutionException | InterruptedException | RuntimeException | Error e) {
+      own.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, own);
+    }
+  }
+
+  private V join(CompletableFuture<V> future) throws ExecutionException, InterruptedException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof ExecutionException executionException) {
+        throw executionException;
+      }
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      // The leader was interrupted or failed with an Error; this caller was not
+      throw e;
+    }
+  }
+
+  /**
+   * Returns how many calls have been made.
+   */
+  public long calls() {
+    return calls.sum();
+  }
+
+  /**
+   * Returns how many calls shared an in-flight load instead of running their own.
+   */
+  public long coalesced() {
+    return coalesced.sum();
+  }
+
+  /**
+   * Returns how many loads are running right now.
+   */
+  public int inFlight() {
+    return inFlight.size();
+  }
+}
@@ -0,0 +1,205 @@
+package dev.coms4156.project.calorieservice.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The Space-Saving algorithm for finding the most frequent {@code int} keys in a stream
+ * while monitoring only a fixed number of them. A monitored key's count never undercounts
+ * and overcounts by at most its recorded error. Any key occurring more than
+ * {@code total / capacity} times is guaranteed to be monitored. Safe for concurrent use.
+ *
+ * <p>Counters are kept in the stream-summary structure of Metwally et al.: a list of
+ * buckets in increasing count order, each holding the counters with that count, so
+ * counting a key and finding the smallest count to replace both take constant time.
+ */
+public class SpaceSaving {
+
+  private final int capacity;
+  private final Map<Integer, Counter> counters;
+  private Bucket smallest;
+
+  /**
+   * Creates a tracker that monitors at most {@code capacity} keys.
+   *
+   * @param capacity the number of keys to monitor.
+   */
+  public SpaceSaving(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.capacity = capacity;
+    this.counters = new HashMap<>(capacity * 2);
+  }
+
+  /**
+   * Adds one occurrence of a key. When the key is not monitored and the tracker is full,
+   * the key with the smallest count is replaced and its count becomes the new key's error.
+   *
+   * @param key the key to count.
+   */
+  public synchronized void add(int key) {
+    Counter counter = counters.get(key);
+    if (counter != null) {
+      increment(counter);
+      return;
+    }
+    if (counters.size() < capacity) {
+      counter = new Counter(key, 0);
+      counters.put(key, counter);
+      // Every other count is at least 1, so a first occurrence goes at the head
+      if (smallest == null || smallest.count != 1) {
+        Bucket one = new Bucket(1);
+        one.next = smallest;
+        if (smallest != null) {
+          smallest.previous = one;
+        }
+        smallest = one;
+      }
+      smallest.attach(counter);
+      return;
+    }
+    Counter min = smallest.first;
+    counters.remove(min.key);
+    Counter replacement = new Counter(key, min.bucket.count);
+    counters.put(key, replacement);
+    Bucket bucket = min.bucket;
+    bucket.detach(min);
+    bucket.attach(replacement);
+    increment(replacement);
+  }
+
+  /**
+   * Moves a counter to the bucket one count higher, creating that bucket if needed and
+   * dropping the one it leaves if that is now empty.
+   */
+  private void increment(Counter counter) {
+    Bucket from = counter.bucket;
+    long count = from.count + 1;
+    Bucket to = from.next;
+    if (to == null || to.count != count) {
+      to = new Bucket(count);
+      to.previous = from;
+      to.next = from.next;
+      if (from.next != null) {
+        from.next.previous = to;
+      }
+      from.next = to;
+    }
+    from.detach(counter);
+    to.attach(counter);
+    if (from.first == null) {
+      unlink(from);
+    }
+  }
+
+  private void unlink(Bucket bucket) {
+    if (bucket.previous != null) {
+      bucket.previous.next = bucket.next;
+    } else {
+      smallest = bucket.next;
+    }
+    if (bucket.next != null) {
+      bucket.next.previous = bucket.previous;
+    }
+  }
+
+  /**
+   * Returns the monitored keys with the highest counts.
+   *
+   * @param limit maximum number of entries to return.
+   * @return up to {@code limit} entries, highest count first.
+   */
+  public synchronized List<Entry> top(int limit) {
+    List<Entry> entries = new ArrayList<>(counters.size());
+    for (Counter counter : counters.values()) {
+      entries.add(new Entry(counter.key, counter.bucket.count, counter.error));
+    }
+    entries.sort(Comparator.comparingLong(Entry::getCount).reversed());
+    return entries.size() <= limit ? entries : entries.subList(0, limit);
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * The counters sharing one count, in a list linked to the buckets with the next smaller
+   * and larger counts.
+   */
+  private static final class Bucket {
+    private final long count;
+    private Bucket previous;
+    private Bucket next;
+    private Counter first;
+
+    private Bucket(long count) {
+      this.count = count;
+    }
+
+    private void attach(Counter counter) {
+      counter.bucket = this;
+      counter.previous = null;
+      counter.next = first;
+      if (first != null) {
+        first.previous = counter;
+      }
+      first = counter;
+    }
+
+    private void detach(Counter counter) {
+      if (counter.previous != null) {
+        counter.previous.next = counter.next;
+      } else {
+        first = counter.next;
+      }
+      if (counter.next != null) {
+        counter.next.previous = counter.previous;
+      }
+    }
+  }
+
+  private static final class Counter {
+    private final int key;
+    private final long error;
+    private Bucket bucket;
+    private Counter previous;
+    private Counter next;
+
+    private Counter(int key, long error) {
+      this.key = key;
+      this.error = error;
+    }
+  }
+
+  /**
+   * A snapshot of one monitored key. The true count lies in
+   * {@code [count - error, count]}.
+   */
+  public static final class Entry {
+    private final int key;
+    private final long count;
+    private final long error;
+
+    private Entry(int key, long count, long error) {
+      this.key = key;
+      this.count = count;
+      this.error = error;
+    }
+
+    public int getKey() {
+      return key;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getError() {
+      return error;
+    }
+  }
+}
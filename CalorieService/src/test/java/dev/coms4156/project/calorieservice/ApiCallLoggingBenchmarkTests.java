@@ -0,0 +1,77 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import dev.coms4156.project.calorieservice.controller.RouteController;
+import dev.coms4156.project.calorieservice.service.FirestoreService;
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Compares request latency with the RouteController endpoint log on and off, through the
+ * async appenders in logback-spring.xml. Only runs when asked for:
+ * {@code mvn test -Dtest=ApiCallLoggingBenchmarkTests -Dbenchmark=true}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ApiCallLoggingBenchmarkTests {
+
+  private static final int WARMUP = 20_000;
+  private static final int ROUNDS = 3;
+  private static final int REQUESTS = 20_000;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockBean
+  private FirestoreService firestoreService;
+
+  private final Logger routeLogger = (Logger) LoggerFactory.getLogger(RouteController.class);
+
+  @AfterEach
+  public void restoreLevel() {
+    routeLogger.setLevel(Level.INFO);
+  }
+
+  private long[] measure(Level level) throws Exception {
+    routeLogger.setLevel(level);
+    long[] nanos = new long[REQUESTS];
+    for (int i = 0; i < REQUESTS; i++) {
+      long start = System.nanoTime();
+      mockMvc.perform(get("/index")).andExpect(status().isOk());
+      nanos[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(nanos);
+    return nanos;
+  }
+
+  private static void report(String label, long[] nanos) {
+    System.out.printf("%-14s p50=%6.1fus p99=%7.1fus mean=%6.1fus%n", label,
+        nanos[nanos.length / 2] / 1e3, nanos[nanos.length * 99 / 100] / 1e3,
+        Arrays.stream(nanos).average().orElse(0) / 1e3);
+  }
+
+  @Test
+  public void endpointLatencyWithLoggingOnAndOffTest() throws Exception {
+    for (int i = 0; i < WARMUP; i++) {
+      mockMvc.perform(get("/index")).andExpect(status().isOk());
+    }
+    // Alternate so JIT and GC effects land on both sides
+    for (int round = 1; round <= ROUNDS; round++) {
+      report("off, round " + round, measure(Level.OFF));
+      report("on, round " + round, measure(Level.INFO));
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import dev.coms4156.project.calorieservice.controller.BatchRecommendController;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.MockApiService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Mocking Framework tests for the batch recommendation route exposed by
+ * {@link dev.coms4156.project.calorieservice.controller.BatchRecommendController}.
+ */
+@WebMvcTest(BatchRecommendController.class)
+public class BatchRecommendControllerTests {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockBean
+  private MockApiService mockApiService;
+
+  /**
+   * Ensures {@code POST /client/recommend/batch} streams one NDJSON line per client.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void recommendBatchStreamsOneLinePerClient() throws Exception {
+    Recipe recipe = new Recipe("Soup", 7, "Lunch", new ArrayList<>(), 0, 0, 120);
+    doAnswer(invocation -> {
+      BiConsumer<Integer, List<Recipe>> sink = invocation.getArgument(2);
+      sink.accept(1, List.of(recipe));
+      sink.accept(2, null);
+      return null;
+    }).when(mockApiService).recommendBatch(anyList(), eq(500), any(BiConsumer.class));
+
+    MvcResult result = mockMvc.perform(post("/client/recommend/batch")
+            .param("calorieMax", "500")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[1, 2]"))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+        .andExpect(content().string(containsString(
+            "{\"clientId\":1,\"recommendations\":[{\"recipeName\":\"Soup\"")))
+        .andExpect(content().string(containsString(
+            "{\"clientId\":2,\"message\":\"Client not found or recommendations unavailable\"}\n")));
+  }
+
+  /**
+   * Ensures {@code POST /client/recommend/batch} rejects an empty id list.
+   */
+  @Test
+  public void recommendBatchRejectsEmptyList() throws Exception {
+    MvcResult result = mockMvc.perform(post("/client/recommend/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[]"))
+        .andReturn();
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("At least one client ID is required."));
+    verifyNoInteractions(mockApiService);
+  }
+
+  /**
+   * Ensures {@code POST /client/recommend/batch} rejects lists over the batch limit.
+   */
+  @Test
+  public void recommendBatchRejectsOversizedList() throws Exception {
+    StringBuilder ids = new StringBuilder("[0");
+    for (int i = 1; i <= BatchRecommendController.MAX_BATCH_SIZE; i++) {
+      ids.append(',').append(i);
+    }
+    ids.append(']');
+    MvcResult result = mockMvc.perform(post("/client/recommend/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(ids.toString()))
+        .andReturn();
+    mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isBadRequest());
+    verifyNoInteractions(mockApiService);
+  }
+}
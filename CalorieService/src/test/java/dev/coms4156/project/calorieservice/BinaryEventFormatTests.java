@@ -0,0 +1,156 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.coms4156.project.calorieservice.client.BinaryEventFormat;
+import dev.coms4156.project.calorieservice.client.ClientEvent;
+import dev.coms4156.project.calorieservice.client.ClientEventConverter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * This class contains the unit tests for the BinaryEventFormat and ClientEventConverter
+ * classes.
+ */
+public class BinaryEventFormatTests {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @TempDir
+  private Path dir;
+
+  private static ClientEvent event(int i, String timestamp) {
+    ClientEvent event = new ClientEvent();
+    event.setInstanceId("instance-" + (i % 3));
+    event.setServiceClientId(500 + i % 2);
+    event.setUserId("user" + (i % 5));
+    event.setType(i % 2 == 0 ? "view" : "like");
+    event.setEvent(i % 2 == 0 ? "recipe_viewed" : "user_liked_recipe");
+    event.setRecipeId(100 + i % 7);
+    event.setRecipeTitle("Recipe " + (i % 7));
+    event.setTimestamp(timestamp);
+    return event;
+  }
+
+  private static byte[] encode(List<ClientEvent> events) {
+    BinaryEventFormat.Encoder encoder = new BinaryEventFormat.Encoder();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.writeBytes(BinaryEventFormat.header());
+    for (ClientEvent event : events) {
+      encoder.encode(event, out);
+    }
+    return out.toByteArray();
+  }
+
+  private static List<ClientEvent> decode(byte[] bytes) throws IOException {
+    BinaryEventFormat.Reader reader = new BinaryEventFormat.Reader(ByteBuffer.wrap(bytes));
+    List<ClientEvent> events = new ArrayList<>();
+    ClientEvent event;
+    while ((event = reader.next()) != null) {
+      events.add(event);
+    }
+    return events;
+  }
+
+  @Test
+  public void eventsRoundTripTest() throws Exception {
+    List<ClientEvent> events = new ArrayList<>();
+    events.add(event(0, "2025-01-01T10:00:00Z"));
+    events.add(event(1, "2025-01-01T10:00:05.120Z"));
+    events.add(event(2, "2025-01-01T10:00:06.000Z"));
+    events.add(event(3, "yesterday"));
+    events.add(event(4, "2025-01-01T10:00:00.123456Z"));
+    events.add(event(5, null));
+    events.add(new ClientEvent());
+    ClientEvent negative = new ClientEvent();
+    negative.setServiceClientId(-7);
+    negative.setRecipeId(Integer.MIN_VALUE);
+    negative.setUserId("élève");
+    events.add(negative);
+
+    List<ClientEvent> decoded = decode(encode(events));
+    assertEquals(events.size(), decoded.size());
+    for (int i = 0; i < events.size(); i++) {
+      assertEquals(objectMapper.writeValueAsString(events.get(i)),
+          objectMapper.writeValueAsString(decoded.get(i)));
+    }
+  }
+
+  @Test
+  public void timestampsAreReadAsMillisTest() throws Exception {
+    byte[] bytes = encode(List.of(event(0, "2025-01-01T00:00:00.250Z"), event(1, "soon")));
+    BinaryEventFormat.Reader reader = new BinaryEventFormat.Reader(ByteBuffer.wrap(bytes));
+    reader.next();
+    assertEquals(1735689600250L, reader.timestampMillis());
+    reader.next();
+    assertEquals(Long.MIN_VALUE, reader.timestampMillis());
+  }
+
+  @Test
+  public void repeatedStringsAreStoredOnceTest() throws Exception {
+    List<ClientEvent> events = new ArrayList<>();
+    StringBuilder json = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      ClientEvent event = event(i, "2025-01-01T10:00:00.000Z");
+      events.add(event);
+      json.append(objectMapper.writeValueAsString(event)).append('\n');
+    }
+    byte[] binary = encode(events);
+    assertTrue(binary.length * 10 < json.toString().getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  @Test
+  public void corruptRecordIsRejectedTest() {
+    byte[] bytes = encode(List.of(event(0, null), event(1, null)));
+    bytes[bytes.length - 6] ^= 0x01;
+    IOException e = assertThrows(IOException.class, () -> decode(bytes));
+    assertTrue(e.getMessage().startsWith("Corrupt client event record"));
+    assertThrows(IOException.class,
+        () -> new BinaryEventFormat.Reader(ByteBuffer.wrap("{\"a\":1}".getBytes())));
+  }
+
+  @Test
+  public void truncatedRecordEndsSegmentTest() throws Exception {
+    byte[] whole = encode(List.of(event(0, null), event(1, null)));
+    byte[] cut = Arrays.copyOf(whole, whole.length - 3);
+    BinaryEventFormat.Reader reader = new BinaryEventFormat.Reader(ByteBuffer.wrap(cut));
+    assertEquals(500, reader.next().getServiceClientId());
+    assertFalse(reader.isTruncated());
+    assertNull(reader.next());
+    assertTrue(reader.isTruncated());
+  }
+
+  @Test
+  public void converterRoundTripsJsonLinesTest() throws Exception {
+    Path json = dir.resolve("events.log");
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      lines.add(objectMapper.writeValueAsString(event(i, "2025-01-01T10:00:0" + (i % 10)
+          + "Z")));
+    }
+    lines.add("");
+    Files.write(json, lines);
+
+    Path segment = dir.resolve("events.seg");
+    assertEquals(50, ClientEventConverter.toBinary(objectMapper, json, segment));
+    assertTrue(Files.size(segment) < Files.size(json));
+
+    Path back = dir.resolve("events-back.log");
+    assertEquals(50, ClientEventConverter.toJsonLines(objectMapper, segment, back));
+    assertEquals(lines.subList(0, 50), Files.readAllLines(back));
+  }
+}
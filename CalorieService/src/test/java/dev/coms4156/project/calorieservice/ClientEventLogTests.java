@@ -0,0 +1,311 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.coms4156.project.calorieservice.client.BinaryEventFormat;
+import dev.coms4156.project.calorieservice.client.ClientEvent;
+import dev.coms4156.project.calorieservice.client.ClientEventLog;
+import dev.coms4156.project.calorieservice.client.ClientLogArchiver;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * This class contains the unit tests for the ClientEventLog class.
+ */
+public class ClientEventLogTests {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @TempDir
+  private Path dir;
+
+  private ClientEventLog log;
+
+  /**
+   * Closes the log opened by the test, if any.
+   */
+  @AfterEach
+  public void closeLog() {
+    if (log != null) {
+      log.close();
+    }
+  }
+
+  private static ClientEvent event(int clientId) {
+    ClientEvent event = new ClientEvent();
+    event.setServiceClientId(clientId);
+    event.setEvent("recipe_viewed");
+    return event;
+  }
+
+  private ClientEventLog open(int capacity, Duration flushInterval,
+      ClientEventLog.Fsync fsync, ClientEventLog.Overflow overflow) {
+    return open(capacity, flushInterval, fsync, overflow, ClientLogArchiver.Policy.DEFAULT,
+        System::currentTimeMillis);
+  }
+
+  private ClientEventLog open(int capacity, Duration flushInterval,
+      ClientEventLog.Fsync fsync, ClientEventLog.Overflow overflow,
+      ClientLogArchiver.Policy rotation, LongSupplier clock) {
+    log = new ClientEventLog(objectMapper, dir.resolve("logs").resolve("events.log"),
+        ClientEventLog.Format.JSON, capacity, flushInterval, fsync, overflow, 4, rotation,
+        clock);
+    return log;
+  }
+
+  private List<String> readLines(Path path) throws Exception {
+    if (!path.getFileName().toString().endsWith(".gz")) {
+      return Files.readAllLines(path);
+    }
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+        new GZIPInputStream(Files.newInputStream(path)), StandardCharsets.UTF_8))) {
+      return reader.lines().toList();
+    }
+  }
+
+  private List<ClientEvent> readEvents() throws Exception {
+    List<String> lines = Files.readAllLines(log.getFile());
+    return lines.stream().map(line -> {
+      try {
+        return objectMapper.readValue(line, ClientEvent.class);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }).toList();
+  }
+
+  @Test
+  public void eventsAreWrittenInBatchesTest() throws Exception {
+    open(1024, Duration.ofSeconds(30), ClientEventLog.Fsync.BATCH,
+        ClientEventLog.Overflow.DROP);
+    for (int i = 0; i < 100; i++) {
+      assertTrue(log.append(event(i)));
+    }
+    log.flush();
+
+    List<ClientEvent> events = readEvents();
+    assertEquals(100, events.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, events.get(i).getServiceClientId());
+    }
+    assertEquals(100, log.written());
+    assertEquals(0, log.queued());
+    assertTrue(log.batches() < 100);
+  }
+
+  @Test
+  public void appendAllWritesEventsTogetherTest() throws Exception {
+    open(2, Duration.ofMinutes(1), ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.DROP);
+    assertTrue(log.appendAll(List.of(event(1), event(2), event(3))));
+    assertTrue(log.appendAll(List.of()));
+    log.flush();
+
+    assertEquals(3, readEvents().size());
+    assertEquals(1, log.batches());
+  }
+
+  @Test
+  public void deletedFileIsRecreatedTest() throws Exception {
+    open(16, Duration.ofMillis(5), ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.DROP);
+    log.append(event(1));
+    log.flush();
+    Files.delete(log.getFile());
+
+    log.append(event(2));
+    log.flush();
+    List<ClientEvent> events = readEvents();
+    assertEquals(1, events.size());
+    assertEquals(2, events.get(0).getServiceClientId());
+  }
+
+  @Test
+  public void dropPolicyRejectsWhenFullTest() throws Exception {
+    // The writer only wakes every minute, so the buffer fills up first
+    open(4, Duration.ofMinutes(1), ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.DROP);
+    int accepted = 0;
+    for (int i = 0; i < 10; i++) {
+      if (log.append(event(i))) {
+        accepted++;
+      }
+    }
+    assertTrue(accepted >= 4);
+    assertEquals(10 - accepted, log.dropped());
+    log.flush();
+    assertEquals(accepted, readEvents().size());
+  }
+
+  @Test
+  public void samplePolicyKeepsSomeEventsWhenFullTest() throws Exception {
+    open(8, Duration.ofMinutes(1), ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.SAMPLE);
+    for (int i = 0; i < 10_000; i++) {
+      log.append(event(i));
+    }
+    assertTrue(log.dropped() > 0);
+    log.flush();
+    assertEquals(10_000 - log.dropped(), readEvents().size());
+  }
+
+  @Test
+  public void blockPolicyLosesNothingTest() throws Exception {
+    open(2, Duration.ofMillis(1), ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.BLOCK);
+    for (int i = 0; i < 200; i++) {
+      assertTrue(log.append(event(i)));
+    }
+    log.flush();
+    assertEquals(200, readEvents().size());
+    assertEquals(0, log.dropped());
+  }
+
+  @Test
+  public void closeWritesQueuedEventsTest() throws Exception {
+    open(64, Duration.ofMinutes(1), ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.DROP);
+    log.append(event(1));
+    log.append(event(2));
+    log.close();
+
+    assertEquals(2, readEvents().size());
+    assertFalse(log.append(event(3)));
+  }
+
+  @Test
+  public void invalidSettingsRejectedTest() {
+    Path file = dir.resolve("events.log");
+    ClientLogArchiver.Policy rotation = ClientLogArchiver.Policy.DEFAULT;
+    assertThrows(IllegalArgumentException.class, () -> new ClientEventLog(objectMapper, file,
+        ClientEventLog.Format.JSON, 8, Duration.ZERO, ClientEventLog.Fsync.NONE,
+        ClientEventLog.Overflow.DROP, 1, rotation, System::currentTimeMillis));
+    assertThrows(IllegalArgumentException.class, () -> new ClientEventLog(objectMapper, file,
+        ClientEventLog.Format.JSON, 8, Duration.ofMillis(1), ClientEventLog.Fsync.NONE,
+        ClientEventLog.Overflow.DROP, 0, rotation, System::currentTimeMillis));
+    assertThrows(IllegalArgumentException.class, () -> new ClientEventLog(objectMapper,
+        "events.log", "json", 8, 10, "sometimes", "drop", 1, "10MB", "1d", true, 30));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ClientLogArchiver.Policy(0, Duration.ofDays(1), true, 30));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ClientLogArchiver.Policy(1024, Duration.ZERO, true, 30));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ClientLogArchiver.Policy(1024, Duration.ofDays(1), true, -1));
+  }
+
+  @Test
+  public void fileRollsOverBySizeAndIsCompressedTest() throws Exception {
+    open(64, Duration.ofMinutes(1), ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.DROP,
+        new ClientLogArchiver.Policy(150, Duration.ofDays(1), true, 0),
+        System::currentTimeMillis);
+    for (int i = 0; i < 10; i++) {
+      log.append(event(i));
+      log.flush();
+    }
+    log.close();
+
+    List<Path> segments = log.archivedSegments();
+    assertTrue(segments.size() >= 3);
+    List<Integer> clientIds = new ArrayList<>();
+    for (Path segment : segments) {
+      assertTrue(segment.getFileName().toString().endsWith(".log.gz"));
+      assertTrue(Files.size(segment) > 0);
+      for (String line : readLines(segment)) {
+        clientIds.add(objectMapper.readValue(line, ClientEvent.class).getServiceClientId());
+      }
+    }
+    for (ClientEvent event : readEvents()) {
+      clientIds.add(event.getServiceClientId());
+    }
+    assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), clientIds);
+    assertTrue(Files.size(log.getFile()) <= 150);
+  }
+
+  @Test
+  public void fileRollsOverWhenIntervalEndsTest() throws Exception {
+    AtomicLong clock = new AtomicLong(Duration.ofMinutes(30).toMillis());
+    open(64, Duration.ofMinutes(1), ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.DROP,
+        new ClientLogArchiver.Policy(1024 * 1024, Duration.ofHours(1), false, 0), clock::get);
+    log.append(event(1));
+    log.flush();
+    log.append(event(2));
+    log.flush();
+    clock.set(Duration.ofMinutes(61).toMillis());
+    log.append(event(3));
+    log.close();
+
+    List<Path> segments = log.archivedSegments();
+    assertEquals(1, segments.size());
+    assertEquals("events.1970-01-01T00-00-00Z.0.log",
+        segments.get(0).getFileName().toString());
+    assertEquals(2, readLines(segments.get(0)).size());
+    assertEquals(3, readEvents().get(0).getServiceClientId());
+  }
+
+  @Test
+  public void oldSegmentsAreDeletedTest() throws Exception {
+    open(64, Duration.ofMinutes(1), ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.DROP,
+        new ClientLogArchiver.Policy(1, Duration.ofDays(1), true, 2),
+        System::currentTimeMillis);
+    for (int i = 0; i < 6; i++) {
+      log.append(event(i));
+      log.flush();
+    }
+    log.close();
+
+    List<Path> segments = log.archivedSegments();
+    assertEquals(2, segments.size());
+    assertEquals(3, objectMapper.readValue(readLines(segments.get(0)).get(0),
+        ClientEvent.class).getServiceClientId());
+    assertEquals(4, objectMapper.readValue(readLines(segments.get(1)).get(0),
+        ClientEvent.class).getServiceClientId());
+    assertEquals(5, readEvents().get(0).getServiceClientId());
+  }
+
+  @Test
+  public void binaryFormatStartsNewSegmentPerWriterTest() throws Exception {
+    Path file = dir.resolve("events.seg");
+    log = new ClientEventLog(objectMapper, file, ClientEventLog.Format.BINARY, 64,
+        Duration.ofMinutes(1), ClientEventLog.Fsync.BATCH, ClientEventLog.Overflow.DROP, 4,
+        new ClientLogArchiver.Policy(1024 * 1024, Duration.ofDays(1), false, 0),
+        System::currentTimeMillis);
+    log.append(event(1));
+    log.append(event(2));
+    log.close();
+
+    // A second writer cannot know the first one's strings, so it rolls the segment over
+    log = new ClientEventLog(objectMapper, file, ClientEventLog.Format.BINARY, 64,
+        Duration.ofMinutes(1), ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.DROP, 4,
+        new ClientLogArchiver.Policy(1024 * 1024, Duration.ofDays(1), false, 0),
+        System::currentTimeMillis);
+    log.append(event(3));
+    log.close();
+
+    List<Path> segments = log.archivedSegments();
+    assertEquals(1, segments.size());
+    assertEquals(List.of(1, 2), readBinary(segments.get(0)));
+    assertEquals(List.of(3), readBinary(file));
+  }
+
+  private static List<Integer> readBinary(Path segment) throws Exception {
+    BinaryEventFormat.Reader reader =
+        new BinaryEventFormat.Reader(ByteBuffer.wrap(Files.readAllBytes(segment)));
+    List<Integer> clientIds = new ArrayList<>();
+    ClientEvent event;
+    while ((event = reader.next()) != null) {
+      clientIds.add(event.getServiceClientId());
+    }
+    return clientIds;
+  }
+}
@@ -0,0 +1,210 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.coms4156.project.calorieservice.client.ClientEvent;
+import dev.coms4156.project.calorieservice.client.ClientEventLog;
+import dev.coms4156.project.calorieservice.client.ClientEventReader;
+import dev.coms4156.project.calorieservice.client.ClientLogArchiver;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * This class contains the unit tests for the ClientEventReader class.
+ */
+public class ClientEventReaderTests {
+
+  private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @TempDir
+  private Path dir;
+
+  private ClientEventLog log;
+
+  /**
+   * Closes the log opened by the test, if any.
+   */
+  @AfterEach
+  public void closeLog() {
+    if (log != null) {
+      log.close();
+    }
+  }
+
+  private ClientEventLog open(ClientEventLog.Format format, ClientLogArchiver.Policy rotation) {
+    log = new ClientEventLog(objectMapper, dir.resolve("events.log"), format, 4096,
+        Duration.ofMinutes(1), ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.BLOCK, 4,
+        rotation, System::currentTimeMillis);
+    return log;
+  }
+
+  private static ClientLogArchiver.Policy noRotation() {
+    return new ClientLogArchiver.Policy(1024L * 1024 * 1024, Duration.ofDays(365), false, 0);
+  }
+
+  /**
+   * Appends events {@code from} to {@code to}, one second apart, with user {@code u<n/300>},
+   * recipe {@code n % 50} and type {@code view}, or {@code click} for every tenth event.
+   */
+  private void appendEvents(int from, int to) throws InterruptedException {
+    for (int n = from; n < to; n++) {
+      ClientEvent event = new ClientEvent();
+      event.setServiceClientId(n);
+      event.setUserId("u" + n / 300);
+      event.setRecipeId(n % 50);
+      event.setType(n % 10 == 0 ? "click" : "view");
+      event.setTimestamp(START.plusSeconds(n).toString());
+      assertTrue(log.append(event));
+    }
+    log.flush();
+  }
+
+  private static List<Integer> query(ClientEventReader reader, ClientEventReader.Query query,
+      int limit) throws Exception {
+    List<Integer> ids = new ArrayList<>();
+    reader.query(query, limit, event -> ids.add(event.getServiceClientId()));
+    return ids;
+  }
+
+  private static List<Integer> range(int from, int to, int step) {
+    List<Integer> ids = new ArrayList<>();
+    for (int n = from; n < to; n += step) {
+      ids.add(n);
+    }
+    return ids;
+  }
+
+  @Test
+  public void userQueryOnlyReadsMatchingBlocksTest() throws Exception {
+    open(ClientEventLog.Format.JSON, noRotation());
+    appendEvents(0, 3000);
+    ClientEventReader reader = new ClientEventReader(objectMapper, log);
+
+    assertEquals(range(300, 600, 1),
+        query(reader, new ClientEventReader.Query("u1", null, null, null, null), 10_000));
+    // Events 300 to 599 fall in blocks 1 and 2
+    assertTrue(reader.eventsRead() <= 2 * ClientEventReader.BLOCK_EVENTS);
+
+    assertEquals(List.of(), query(reader,
+        new ClientEventReader.Query("nobody", null, null, null, null), 10_000));
+  }
+
+  @Test
+  public void timeRangeAndFiltersTest() throws Exception {
+    open(ClientEventLog.Format.JSON, noRotation());
+    appendEvents(0, 3000);
+    ClientEventReader reader = new ClientEventReader(objectMapper, log);
+
+    ClientEventReader.Query window = new ClientEventReader.Query(null, null, null,
+        START.plusSeconds(1000), START.plusSeconds(1100));
+    assertEquals(range(1000, 1100, 1), query(reader, window, 10_000));
+    assertTrue(reader.eventsRead() <= 2 * ClientEventReader.BLOCK_EVENTS);
+
+    ClientEventReader.Query clicks = new ClientEventReader.Query("u2", 10, "click",
+        START.plusSeconds(600), null);
+    assertEquals(range(610, 900, 50), query(reader, clicks, 10_000));
+    assertEquals(range(610, 760, 50), query(reader, clicks, 3));
+  }
+
+  @Test
+  public void activeFileIndexIsExtendedAndRebuiltTest() throws Exception {
+    open(ClientEventLog.Format.BINARY, noRotation());
+    appendEvents(0, 500);
+    ClientEventReader reader = new ClientEventReader(objectMapper, log);
+    ClientEventReader.Query u1 = new ClientEventReader.Query("u1", null, null, null, null);
+    assertEquals(range(300, 500, 1), query(reader, u1, 10_000));
+
+    appendEvents(500, 700);
+    assertEquals(range(300, 600, 1), query(reader, u1, 10_000));
+
+    // A new file in place of the old one is indexed from scratch
+    log.close();
+    Files.delete(log.getFile());
+    open(ClientEventLog.Format.BINARY, noRotation());
+    appendEvents(900, 1000);
+    assertEquals(List.of(), query(reader, u1, 10_000));
+    assertEquals(range(900, 1000, 1),
+        query(reader, new ClientEventReader.Query("u3", null, null, null, null), 10_000));
+  }
+
+  @Test
+  public void queriesSpanCompressedSegmentsTest() throws Exception {
+    open(ClientEventLog.Format.BINARY,
+        new ClientLogArchiver.Policy(4096, Duration.ofDays(1), true, 0));
+    for (int n = 0; n < 3000; n += 100) {
+      appendEvents(n, n + 100);
+    }
+    log.close();
+    List<Path> segments = log.archivedSegments();
+    assertTrue(segments.size() > 3);
+    assertTrue(segments.get(0).getFileName().toString().endsWith(".gz"));
+
+    ClientEventReader reader = new ClientEventReader(objectMapper, log);
+    ClientEventReader.Query recipe = new ClientEventReader.Query(null, 7, null, null, null);
+    assertEquals(range(7, 3000, 50), query(reader, recipe, 10_000));
+    // Indexes of archived segments are reused by later queries
+    long read = reader.eventsRead();
+    assertEquals(range(7, 3000, 50), query(reader, recipe, 10_000));
+    assertEquals(2 * read, reader.eventsRead());
+
+    ClientEventReader.Query window = new ClientEventReader.Query(null, null, "click",
+        START.plusSeconds(2000), START.plusSeconds(2100));
+    assertEquals(range(2000, 2100, 10), query(reader, window, 10_000));
+  }
+
+  @Test
+  public void compressedSegmentsAreExpandedOnceTest() throws Exception {
+    open(ClientEventLog.Format.JSON,
+        new ClientLogArchiver.Policy(4096, Duration.ofDays(1), true, 0));
+    for (int n = 0; n < 1000; n += 100) {
+      appendEvents(n, n + 100);
+    }
+    log.close();
+    ClientEventReader reader = new ClientEventReader(objectMapper, log);
+    ClientEventReader.Query recipe = new ClientEventReader.Query(null, 7, null, null, null);
+    assertEquals(range(7, 1000, 50), query(reader, recipe, 10_000));
+
+    // Later queries use the mapping of the first, so they never read the files again
+    for (Path segment : log.archivedSegments()) {
+      Files.write(segment, new byte[] {1, 2, 3});
+    }
+    assertEquals(range(7, 1000, 50), query(reader, recipe, 10_000));
+  }
+
+  @Test
+  public void segmentBeingCompressedIsReadOnceTest() throws Exception {
+    open(ClientEventLog.Format.BINARY,
+        new ClientLogArchiver.Policy(4096, Duration.ofDays(1), true, 0));
+    for (int n = 0; n < 1000; n += 100) {
+      appendEvents(n, n + 100);
+    }
+    log.close();
+    List<Path> segments = log.archivedSegments();
+    Path compressed = segments.get(0);
+    String name = compressed.getFileName().toString();
+    Path original = compressed.resolveSibling(name.substring(0, name.length() - 3));
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed))) {
+      Files.copy(in, original);
+    }
+
+    // Both files exist between the archiver writing the .gz and deleting the original
+    assertEquals(segments.size(), log.archivedSegments().size());
+    assertEquals(original, log.archivedSegments().get(0));
+    ClientEventReader reader = new ClientEventReader(objectMapper, log);
+    assertEquals(range(0, 1000, 1), query(reader,
+        new ClientEventReader.Query(null, null, null, null, null), 10_000));
+  }
+}
@@ -0,0 +1,106 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import dev.coms4156.project.calorieservice.client.ClientEvent;
+import dev.coms4156.project.calorieservice.client.ClientEventStats;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ClientEventStats class.
+ */
+public class ClientEventStatsTests {
+
+  private static final long MINUTE = 60_000;
+
+  private final AtomicLong now = new AtomicLong(1_700_000_000_000L / MINUTE * MINUTE);
+  private final ClientEventStats stats =
+      new ClientEventStats(Duration.ofMinutes(1), 5, now::get);
+
+  private static ClientEvent event(String type, String name, Integer recipeId) {
+    ClientEvent event = new ClientEvent();
+    event.setType(type);
+    event.setEvent(name);
+    event.setRecipeId(recipeId);
+    return event;
+  }
+
+  @Test
+  public void countsClosedWindowsLargestFirstTest() {
+    stats.record(event("view", "recipe_viewed", 7));
+    stats.record(event("view", "recipe_viewed", 8));
+    stats.record(event("click", "add_to_plan", 7));
+    stats.record(event(null, null, null));
+    // The current window is still open
+    assertEquals(0, stats.snapshot(Duration.ofMinutes(1)).getTotal());
+
+    now.addAndGet(MINUTE);
+    stats.record(event("view", "recipe_viewed", 9));
+    ClientEventStats.Snapshot snapshot = stats.snapshot(Duration.ofMinutes(1));
+    assertEquals(4, snapshot.getTotal());
+    assertEquals(List.of("view", "click"), new ArrayList<>(snapshot.getByType().keySet()));
+    assertEquals(Map.of("view", 2L, "click", 1L), snapshot.getByType());
+    assertEquals(Map.of("recipe_viewed", 2L, "add_to_plan", 1L), snapshot.getByEvent());
+    assertEquals("7", snapshot.getByRecipeId().keySet().iterator().next());
+    assertEquals(Map.of("7", 2L, "8", 1L), snapshot.getByRecipeId());
+    assertEquals("PT1M", snapshot.getWindow());
+  }
+
+  @Test
+  public void spansSumWindowsWithinRetentionTest() {
+    for (int minute = 0; minute < 8; minute++) {
+      for (int i = 0; i <= minute; i++) {
+        stats.record(event("view", null, null));
+      }
+      now.addAndGet(MINUTE);
+    }
+    // Minutes 5, 6 and 7 hold 6, 7 and 8 events
+    assertEquals(8, stats.snapshot(Duration.ofMinutes(1)).getTotal());
+    assertEquals(21, stats.snapshot(Duration.ofMinutes(3)).getTotal());
+    // Only five windows are kept
+    assertEquals(4 + 5 + 6 + 7 + 8, stats.snapshot(Duration.ofMinutes(5)).getTotal());
+
+    assertThrows(IllegalArgumentException.class, () -> stats.snapshot(Duration.ofSeconds(30)));
+    assertThrows(IllegalArgumentException.class, () -> stats.snapshot(Duration.ofSeconds(90)));
+    assertThrows(IllegalArgumentException.class, () -> stats.snapshot(Duration.ofMinutes(6)));
+  }
+
+  @Test
+  public void concurrentRecordsAreAllCountedTest() throws Exception {
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      int recipeId = t;
+      threads.add(Thread.ofPlatform().start(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          stats.record(event("view", "recipe_viewed", recipeId));
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    now.addAndGet(MINUTE);
+    ClientEventStats.Snapshot snapshot = stats.snapshot(Duration.ofMinutes(1));
+    assertEquals(80_000, snapshot.getTotal());
+    assertEquals(80_000L, snapshot.getByType().get("view"));
+    assertEquals(8, snapshot.getByRecipeId().size());
+    assertEquals(10_000L, snapshot.getByRecipeId().get("3"));
+  }
+
+  @Test
+  public void keysBeyondLimitAreCountedAsOtherTest() {
+    for (int i = 0; i < ClientEventStats.MAX_KEYS + 10; i++) {
+      stats.record(event("type-" + i, null, null));
+    }
+    now.addAndGet(MINUTE);
+    Map<String, Long> byType = stats.snapshot(Duration.ofMinutes(1)).getByType();
+    assertEquals(ClientEventStats.MAX_KEYS + 1, byType.size());
+    assertEquals(10L, byType.get(ClientEventStats.OTHER));
+  }
+}
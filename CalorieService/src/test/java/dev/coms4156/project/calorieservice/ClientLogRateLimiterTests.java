@@ -0,0 +1,189 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.coms4156.project.calorieservice.client.ClientEvent;
+import dev.coms4156.project.calorieservice.client.ClientEventLog;
+import dev.coms4156.project.calorieservice.client.ClientLogArchiver;
+import dev.coms4156.project.calorieservice.client.ClientLogRateLimiter;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * This class contains the unit tests for the ClientLogRateLimiter class.
+ */
+public class ClientLogRateLimiterTests {
+
+  private static final long MILLI = 1_000_000;
+
+  @TempDir
+  private Path dir;
+
+  private final AtomicLong now = new AtomicLong();
+  private ClientEventLog log;
+
+  /**
+   * Closes the log opened by the test, if any.
+   */
+  @AfterEach
+  public void closeLog() {
+    if (log != null) {
+      log.close();
+    }
+  }
+
+  private ClientEventLog open(int capacity) {
+    log = new ClientEventLog(new ObjectMapper(), dir.resolve("events.log"),
+        ClientEventLog.Format.JSON, capacity, Duration.ofMinutes(1),
+        ClientEventLog.Fsync.NONE, ClientEventLog.Overflow.DROP, 4,
+        ClientLogArchiver.Policy.DEFAULT, System::currentTimeMillis);
+    return log;
+  }
+
+  private ClientLogRateLimiter limiter(double instanceRate, int instanceBurst,
+      double globalRate, int globalBurst, int maxInstances) {
+    return new ClientLogRateLimiter(true, instanceRate, instanceBurst, globalRate, globalBurst,
+        maxInstances, log == null ? open(64) : log, now::get);
+  }
+
+  @Test
+  public void instanceBucketRefillsLazilyTest() {
+    ClientLogRateLimiter limiter = limiter(10, 3, 1000, 1000, 10);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0, limiter.acquire("a"));
+    }
+    assertEquals(100 * MILLI, limiter.acquire("a"));
+    // Other instances, and events without one, have buckets of their own
+    assertEquals(0, limiter.acquire("b"));
+    assertEquals(0, limiter.acquire(null));
+
+    now.addAndGet(100 * MILLI);
+    ClientLogRateLimiter.Permit permit = limiter.acquireInstance("a");
+    assertTrue(permit.isGranted());
+    assertEquals(100 * MILLI, limiter.acquire("a"));
+    limiter.refundInstance(permit);
+    assertEquals(0, limiter.acquireInstance("a").getWait());
+
+    ClientLogRateLimiter.Metrics metrics = limiter.metrics(10);
+    assertEquals(1, metrics.getInstances().size());
+    assertEquals(2, metrics.getInstances().get(0).getLimited());
+    assertEquals(3, metrics.getTrackedInstances());
+  }
+
+  @Test
+  public void instancesBeyondLimitShareBucketTest() {
+    ClientLogRateLimiter limiter = limiter(1, 1, 1000, 1000, 2);
+    assertEquals(0, limiter.acquire("a"));
+    assertEquals(0, limiter.acquire("b"));
+    // "a" and "b" are still refilling, so "c" and "d" share the overflow bucket
+    assertEquals(0, limiter.acquire("c"));
+    assertTrue(limiter.acquire("d") > 0);
+    assertEquals(ClientLogRateLimiter.OTHER,
+        limiter.metrics(10).getInstances().get(0).getInstanceId());
+
+    // Once "a" and "b" have refilled they are swept to make room for "e", but not "e2"
+    now.addAndGet(1000 * MILLI);
+    assertEquals(0, limiter.acquire("e"));
+    assertEquals(0, limiter.acquire("e2"));
+    assertEquals(2, limiter.metrics(10).getTrackedInstances());
+  }
+
+  @Test
+  public void fullMapIsSweptAtMostOncePerSecondTest() {
+    ClientLogRateLimiter limiter = limiter(10, 1, 1000, 1000, 2);
+    assertEquals(0, limiter.acquire("a"));
+    assertEquals(0, limiter.acquire("b"));
+    // The sweep for "c" finds nothing to remove
+    assertEquals(0, limiter.acquire("c"));
+
+    // "a" and "b" have refilled, but "d" comes too soon after that sweep to run another
+    now.addAndGet(200 * MILLI);
+    assertEquals(0, limiter.acquire("d"));
+    assertEquals(3, limiter.metrics(10).getTrackedInstances());
+
+    now.addAndGet(800 * MILLI);
+    assertEquals(0, limiter.acquire("e"));
+    assertEquals(2, limiter.metrics(10).getTrackedInstances());
+  }
+
+  @Test
+  public void rejectionCountsSurviveSweepsTest() {
+    ClientLogRateLimiter limiter = limiter(1, 1, 1000, 1000, 2);
+    assertEquals(0, limiter.acquire("a"));
+    assertTrue(limiter.acquire("a") > 0);
+    assertEquals(0, limiter.acquire("b"));
+
+    // "a" and "b" have refilled, so "c" sweeps them away
+    now.addAndGet(1000 * MILLI);
+    assertEquals(0, limiter.acquire("c"));
+    ClientLogRateLimiter.Metrics metrics = limiter.metrics(10);
+    assertEquals(1, metrics.getTrackedInstances());
+    assertEquals("a", metrics.getInstances().get(0).getInstanceId());
+    assertEquals(1, metrics.getInstances().get(0).getLimited());
+  }
+
+  @Test
+  public void refundOnlyCreditsTheChargedBucketTest() {
+    ClientLogRateLimiter limiter = limiter(1, 1, 1000, 1000, 1);
+    ClientLogRateLimiter.Permit permit = limiter.acquireInstance("a");
+    assertTrue(permit.isGranted());
+    assertEquals(0, limiter.acquire("b"));
+    assertTrue(limiter.acquire("c") > 0);
+
+    // "a" is swept once refilled, and "d" and "e" then share the overflow bucket
+    now.addAndGet(1000 * MILLI);
+    assertEquals(0, limiter.acquire("d"));
+    limiter.refundInstance(permit);
+    assertTrue(limiter.acquire("e") > 0);
+    limiter.refundInstance(limiter.acquireInstance("e"));
+    assertTrue(limiter.acquire("e") > 0);
+  }
+
+  @Test
+  public void globalLimitTightensAsQueueFillsTest() throws Exception {
+    open(16);
+    ClientLogRateLimiter limiter = limiter(1000, 1000, 10, 1, 10);
+    assertEquals(0, limiter.acquireGlobal(1));
+    assertEquals(100 * MILLI, limiter.acquireGlobal(1));
+    limiter.refundGlobal(1);
+    assertEquals(0, limiter.acquireGlobal(1));
+    assertEquals(100 * MILLI, limiter.acquireGlobal(1));
+    assertEquals(10, limiter.metrics(10).getGlobalRate(), 1e-9);
+
+    // Start the writer, then queue events it will not drain for a minute
+    log.append(new ClientEvent());
+    log.flush();
+    for (int i = 0; i < 11; i++) {
+      assertTrue(log.append(new ClientEvent()));
+    }
+    now.addAndGet(100 * MILLI);
+    // 11 of 16 slots are queued, so only 62.5% of the global rate is allowed
+    assertEquals(0, limiter.acquireGlobal(1));
+    assertEquals(160 * MILLI, limiter.acquireGlobal(1));
+    ClientLogRateLimiter.Metrics metrics = limiter.metrics(10);
+    assertEquals(6.25, metrics.getGlobalRate(), 1e-9);
+    assertEquals(11, metrics.getQueueDepth());
+    assertEquals(3, metrics.getGlobalLimited());
+  }
+
+  @Test
+  public void disabledLimiterAllowsEverythingTest() {
+    ClientLogRateLimiter limiter = new ClientLogRateLimiter(false, 1, 1, 1, 1, 1, open(8),
+        now::get);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(0, limiter.acquire("a"));
+    }
+    assertEquals(0, limiter.acquireGlobal(1000));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ClientLogRateLimiter(true, 0, 1, 1, 1, 1, log, now::get));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ClientLogRateLimiter(true, 1, 1, 1, 0, 1, log, now::get));
+  }
+}
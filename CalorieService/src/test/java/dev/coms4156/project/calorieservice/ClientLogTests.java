@@ -5,16 +5,29 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.coms4156.project.calorieservice.client.ClientEvent;
+import dev.coms4156.project.calorieservice.client.ClientEventLog;
+import dev.coms4156.project.calorieservice.client.ClientEventReader;
+import dev.coms4156.project.calorieservice.client.ClientEventStats;
+import dev.coms4156.project.calorieservice.client.ClientLogRateLimiter;
 import dev.coms4156.project.calorieservice.controller.ClientLogController;
+import dev.coms4156.project.calorieservice.service.HeavyHitterService;
+import dev.coms4156.project.calorieservice.service.InteractionProfileService;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * This class contains the unit tests for the ClientLogController class.
@@ -24,6 +37,7 @@ public class ClientLogTests {
   private static final Path LOG_FILE = Path.of("logs", "client-events.log");
 
   private static ObjectMapper objectMapper;
+  private static ClientEventLog eventLog;
   private static ClientLogController controller;
 
   /**
@@ -32,7 +46,8 @@ public class ClientLogTests {
   @BeforeAll
   public static void setUpClientLogTests() throws IOException {
     objectMapper = new ObjectMapper();
-    controller = new ClientLogController(objectMapper);
+    eventLog = new ClientEventLog(objectMapper, LOG_FILE);
+    controller = new ClientLogController(objectMapper, eventLog, new HeavyHitterService());
 
     // Ensure we start with a clean state.
     deleteLogFileIfExists();
@@ -43,6 +58,7 @@ public class ClientLogTests {
    */
   @AfterAll
   public static void tearDownClientLogTests() throws IOException {
+    eventLog.close();
     // Clean up the log file after all tests are done.
     deleteLogFileIfExists();
   }
@@ -58,7 +74,7 @@ public class ClientLogTests {
    * that the log file is created with a single JSON line.
    */
   @Test
-  public void testLogClientEventCreatesFileAndWritesLine() throws IOException {
+  public void testLogClientEventCreatesFileAndWritesLine() throws Exception {
     deleteLogFileIfExists();
 
     ClientEvent event = new ClientEvent();
@@ -66,8 +82,11 @@ public class ClientLogTests {
     ResponseEntity<String> response = controller.logClientEvent(event);
 
     // Check HTTP response
-    assertEquals(HttpStatus.CREATED, response.getStatusCode());
-    assertEquals("logged", response.getBody());
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    assertEquals("accepted", response.getBody());
+
+    // The event is written in the background
+    eventLog.flush();
 
     // Check that file was created
     assertTrue(Files.exists(LOG_FILE));
@@ -84,7 +103,7 @@ public class ClientLogTests {
    * Tests that multiple client events are appended as separate lines in the log file.
    */
   @Test
-  public void testLogClientEventAppendsMultipleLines() throws IOException {
+  public void testLogClientEventAppendsMultipleLines() throws Exception {
     // Ensure clean state for this specific test.
     deleteLogFileIfExists();
 
@@ -93,6 +112,7 @@ public class ClientLogTests {
 
     controller.logClientEvent(event1);
     controller.logClientEvent(event2);
+    eventLog.flush();
 
     // Verify file exists and contains two lines
     assertTrue(Files.exists(LOG_FILE));
@@ -106,4 +126,251 @@ public class ClientLogTests {
     assertEquals(expectedJson1, lines.get(0));
     assertEquals(expectedJson2, lines.get(1));
   }
+
+  private static MockHttpServletRequest batchRequest(String contentType, String body) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/client/log/batch");
+    request.setContentType(contentType);
+    request.setContent(body.getBytes(StandardCharsets.UTF_8));
+    return request;
+  }
+
+  /**
+   * Tests that a JSON array of events is logged in order with per-event results.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testLogClientEventsFromJsonArray() throws Exception {
+    deleteLogFileIfExists();
+
+    String body = "[{\"serviceClientId\":1,\"event\":\"a\"},"
+        + "{\"serviceClientId\":-2,\"event\":\"b\"},"
+        + "{\"serviceClientId\":\"three\"},"
+        + "{\"serviceClientId\":4,\"recipeId\":7}]";
+    ResponseEntity<?> response = controller.logClientEvents(
+        batchRequest(MediaType.APPLICATION_JSON_VALUE, body));
+
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    Map<String, Object> result = (Map<String, Object>) response.getBody();
+    assertEquals(2, result.get("accepted"));
+    assertEquals(2, result.get("rejected"));
+    List<Map<String, Object>> results = (List<Map<String, Object>>) result.get("results");
+    assertEquals(4, results.size());
+    assertEquals(true, results.get(0).get("accepted"));
+    assertEquals("serviceClientId cannot be negative", results.get(1).get("error"));
+    assertEquals(false, results.get(2).get("accepted"));
+    assertEquals(3, results.get(3).get("index"));
+
+    eventLog.flush();
+    List<String> lines = Files.readAllLines(LOG_FILE);
+    assertEquals(2, lines.size());
+    assertEquals(1, objectMapper.readValue(lines.get(0), ClientEvent.class)
+        .getServiceClientId());
+    assertEquals(4, objectMapper.readValue(lines.get(1), ClientEvent.class)
+        .getServiceClientId());
+  }
+
+  /**
+   * Tests that an NDJSON body is logged one event per line.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testLogClientEventsFromNdjson() throws Exception {
+    deleteLogFileIfExists();
+
+    String body = "{\"userId\":\"alice\"}\n{\"userId\":\"bob\"}\n\n"
+        + "{\"userId\":\"carol\"}\n";
+    ResponseEntity<?> response = controller.logClientEvents(
+        batchRequest(MediaType.APPLICATION_NDJSON_VALUE, body));
+
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    assertEquals(3, ((Map<String, Object>) response.getBody()).get("accepted"));
+    eventLog.flush();
+    List<String> lines = Files.readAllLines(LOG_FILE);
+    assertEquals(3, lines.size());
+    assertEquals("carol", objectMapper.readValue(lines.get(2), ClientEvent.class).getUserId());
+  }
+
+  /**
+   * Tests that empty, malformed and oversized batches are rejected without logging.
+   */
+  @Test
+  public void testLogClientEventsRejectsBadBatches() throws Exception {
+    deleteLogFileIfExists();
+
+    assertEquals(HttpStatus.BAD_REQUEST, controller.logClientEvents(
+        batchRequest(MediaType.APPLICATION_JSON_VALUE, "[]")).getStatusCode());
+    ResponseEntity<?> malformed = controller.logClientEvents(
+        batchRequest(MediaType.APPLICATION_JSON_VALUE, "[{\"userId\":\"a\"}, {\"userId\":"));
+    assertEquals(HttpStatus.BAD_REQUEST, malformed.getStatusCode());
+    assertTrue(malformed.getBody().toString().startsWith("Malformed JSON after 1 events"));
+
+    StringBuilder tooMany = new StringBuilder("[");
+    for (int i = 0; i <= ClientLogController.MAX_BATCH_EVENTS; i++) {
+      tooMany.append(i == 0 ? "" : ",").append("{}");
+    }
+    tooMany.append(']');
+    assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, controller.logClientEvents(
+        batchRequest(MediaType.APPLICATION_JSON_VALUE, tooMany.toString())).getStatusCode());
+
+    String padding = "x".repeat((int) ClientLogController.MAX_BATCH_BYTES);
+    MockHttpServletRequest tooBig = batchRequest(MediaType.APPLICATION_JSON_VALUE,
+        "[{\"userId\":\"" + padding + "\"}]");
+    assertEquals(HttpStatus.PAYLOAD_TOO_LARGE,
+        controller.logClientEvents(tooBig).getStatusCode());
+
+    eventLog.flush();
+    assertTrue(!Files.exists(LOG_FILE) || Files.readAllLines(LOG_FILE).isEmpty());
+  }
+
+  /**
+   * Tests that logged events can be queried back as NDJSON, filtered by user and time.
+   */
+  @Test
+  public void testQueryClientEvents() throws Exception {
+    String userId = "query-user-" + System.nanoTime();
+    for (int second = 0; second < 3; second++) {
+      ClientEvent event = new ClientEvent();
+      event.setUserId(userId);
+      event.setTimestamp("2025-01-01T00:00:0" + second + "Z");
+      controller.logClientEvent(event);
+    }
+    eventLog.flush();
+
+    ResponseEntity<StreamingResponseBody> response = controller.queryClientEvents(userId, null,
+        null, "2025-01-01T00:00:01Z", null, 1000);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(2, lines.length);
+    assertEquals("2025-01-01T00:00:01Z",
+        objectMapper.readValue(lines[0], ClientEvent.class).getTimestamp());
+    assertEquals("2025-01-01T00:00:02Z",
+        objectMapper.readValue(lines[1], ClientEvent.class).getTimestamp());
+  }
+
+  /**
+   * Tests that queries with unparseable timestamps, empty ranges or bad limits are rejected.
+   */
+  @Test
+  public void testQueryClientEventsRejectsBadParameters() {
+    assertEquals(HttpStatus.BAD_REQUEST, controller.queryClientEvents(null, null, null,
+        "yesterday", null, 10).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, controller.queryClientEvents(null, null, null,
+        "2025-01-02T00:00:00Z", "2025-01-01T00:00:00Z", 10).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, controller.queryClientEvents(null, null, null,
+        null, null, 0).getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, controller.queryClientEvents(null, null, null,
+        null, null, ClientLogController.MAX_QUERY_LIMIT + 1).getStatusCode());
+  }
+
+  /**
+   * Tests that windowed stats are returned for supported windows only.
+   */
+  @Test
+  public void testGetClientEventStats() {
+    ResponseEntity<?> response = controller.getClientEventStats(null);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals("PT1M", ((ClientEventStats.Snapshot) response.getBody()).getWindow());
+    assertEquals(HttpStatus.OK, controller.getClientEventStats("15m").getStatusCode());
+
+    assertEquals(HttpStatus.BAD_REQUEST, controller.getClientEventStats("90s").getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, controller.getClientEventStats("2h").getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST,
+        controller.getClientEventStats("soon").getStatusCode());
+  }
+
+  /**
+   * Tests that only view events count towards the most viewed recipes.
+   */
+  @Test
+  public void testOnlyViewEventsCountAsViews() {
+    HeavyHitterService heavyHitters = new HeavyHitterService();
+    ClientLogController counting = new ClientLogController(objectMapper, eventLog,
+        heavyHitters);
+    for (String type : new String[] {"like", "CLICK", "view", "VIEW"}) {
+      ClientEvent event = new ClientEvent();
+      event.setType(type);
+      event.setRecipeId(42);
+      assertEquals(HttpStatus.ACCEPTED, counting.logClientEvent(event).getStatusCode());
+    }
+    ClientEvent untyped = new ClientEvent();
+    untyped.setRecipeId(42);
+    counting.logClientEvent(untyped);
+
+    assertEquals(2, heavyHitters.getTotalViews());
+    assertEquals(2, heavyHitters.getTopRecipes(1).get(0).getEstimate());
+  }
+
+  /**
+   * Tests that events over their instance's rate limit get 429 with a Retry-After, in
+   * single and batch requests, and show up in the limiter's metrics.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testLogClientEventRateLimitedPerInstance() throws Exception {
+    ClientLogRateLimiter limiter =
+        new ClientLogRateLimiter(true, 0.5, 2, 1000, 1000, 100, eventLog, () -> 0);
+    ClientLogController limited = new ClientLogController(objectMapper, eventLog,
+        new ClientEventReader(objectMapper, eventLog), new ClientEventStats(), limiter,
+        new InteractionProfileService(), new HeavyHitterService());
+
+    ClientEvent event = new ClientEvent();
+    event.setInstanceId("flood");
+    assertEquals(HttpStatus.ACCEPTED, limited.logClientEvent(event).getStatusCode());
+    assertEquals(HttpStatus.ACCEPTED, limited.logClientEvent(event).getStatusCode());
+    ResponseEntity<String> rejected = limited.logClientEvent(event);
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getStatusCode());
+    assertEquals("2", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+    String body = "[{\"instanceId\":\"flood\"},{\"instanceId\":\"quiet\"}]";
+    ResponseEntity<?> batch = limited.logClientEvents(
+        batchRequest(MediaType.APPLICATION_JSON_VALUE, body));
+    assertEquals(HttpStatus.ACCEPTED, batch.getStatusCode());
+    List<Map<String, Object>> results = (List<Map<String, Object>>)
+        ((Map<String, Object>) batch.getBody()).get("results");
+    assertEquals(false, results.get(0).get("accepted"));
+    assertEquals(true, results.get(1).get("accepted"));
+
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.logClientEvents(
+        batchRequest(MediaType.APPLICATION_JSON_VALUE, "[{\"instanceId\":\"flood\"}]"))
+        .getStatusCode());
+    eventLog.flush();
+
+    ClientLogRateLimiter.Metrics metrics =
+        (ClientLogRateLimiter.Metrics) limited.getClientLogLimits(20).getBody();
+    assertEquals(1, metrics.getInstances().size());
+    assertEquals("flood", metrics.getInstances().get(0).getInstanceId());
+    assertEquals(3, metrics.getInstances().get(0).getLimited());
+  }
+
+  /**
+   * Tests that events the log drops give their rate limit tokens back, so retrying them
+   * gets 503 again rather than 429.
+   */
+  @Test
+  public void testDroppedEventsAreNotRateLimited() throws Exception {
+    Path dir = Files.createTempDirectory("client-log");
+    ClientEventLog closedLog = new ClientEventLog(objectMapper, dir.resolve("events.log"));
+    closedLog.close();
+    ClientLogRateLimiter limiter =
+        new ClientLogRateLimiter(true, 0.5, 1, 0.5, 1, 100, closedLog, () -> 0);
+    ClientLogController dropping = new ClientLogController(objectMapper, closedLog,
+        new ClientEventReader(objectMapper, closedLog), new ClientEventStats(), limiter,
+        new InteractionProfileService(), new HeavyHitterService());
+
+    ClientEvent event = new ClientEvent();
+    event.setInstanceId("retry");
+    for (int i = 0; i < 2; i++) {
+      assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+          dropping.logClientEvent(event).getStatusCode());
+      assertEquals(HttpStatus.SERVICE_UNAVAILABLE, dropping.logClientEvents(
+          batchRequest(MediaType.APPLICATION_JSON_VALUE, "[{\"instanceId\":\"retry\"}]"))
+          .getStatusCode());
+    }
+    assertEquals(0, limiter.metrics(10).getGlobalLimited());
+    Files.deleteIfExists(dir.resolve("events.log"));
+    Files.deleteIfExists(dir);
+  }
 }
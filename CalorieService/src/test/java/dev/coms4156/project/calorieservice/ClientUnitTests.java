@@ -3,6 +3,7 @@ package dev.coms4156.project.calorieservice;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import dev.coms4156.project.calorieservice.models.Client;
@@ -540,6 +541,50 @@ public class ClientUnitTests {
     Client client6 = new Client("Test", 0);
     assertTrue(client5.equals(client6));
   }
+
+  @Test
+  public void hasLikedTest() {
+    Client testClient = new Client("TestClient", 999);
+    assertFalse(testClient.hasLiked(recipe.getRecipeId()));
+
+    testClient.likeRecipe(recipe);
+    assertTrue(testClient.hasLiked(recipe.getRecipeId()));
+    assertFalse(testClient.hasLiked(recipe1.getRecipeId()));
+
+    testClient.unlikeRecipe(recipe);
+    assertFalse(testClient.hasLiked(recipe.getRecipeId()));
+  }
+
+  @Test
+  public void hasLikedAfterDirectListEditTest() {
+    Client testClient = new Client("TestClient", 999);
+    testClient.getLikedRecipes().add(recipe2);
+    assertFalse(testClient.hasLiked(recipe2.getRecipeId()));
+    testClient.setLikedRecipes(testClient.getLikedRecipes());
+    assertTrue(testClient.hasLiked(recipe2.getRecipeId()));
+
+    ArrayList<Recipe> replacement = new ArrayList<>();
+    replacement.add(recipe1);
+    testClient.setLikedRecipes(replacement);
+    assertSame(replacement, testClient.getLikedRecipes());
+    assertFalse(testClient.hasLiked(recipe2.getRecipeId()));
+    assertTrue(testClient.hasLiked(recipe1.getRecipeId()));
+  }
+
+  @Test
+  public void unlikeOneOfDuplicateLikesTest() {
+    ArrayList<Recipe> duplicates = new ArrayList<>();
+    duplicates.add(recipe1);
+    duplicates.add(recipe1);
+    Client testClient = new Client("TestClient", 999, duplicates);
+    assertTrue(testClient.hasLiked(recipe1.getRecipeId()));
+
+    assertTrue(testClient.unlikeRecipe(recipe1));
+    assertTrue(testClient.hasLiked(recipe1.getRecipeId()));
+    assertTrue(testClient.unlikeRecipe(recipe1));
+    assertFalse(testClient.hasLiked(recipe1.getRecipeId()));
+  }
+
   /**
    * Clean up all test variables after all tests.
    */
@@ -0,0 +1,125 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.ContentVersionService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the ContentVersionService class.
+ */
+public class ContentVersionServiceTests {
+
+  private AtomicLong now;
+  private ContentVersionService versions;
+
+  /**
+   * Creates a service with a one minute TTL and a manually advanced clock.
+   */
+  @BeforeEach
+  public void setUp() {
+    now = new AtomicLong(1_000_000L);
+    versions = new ContentVersionService(Duration.ofMinutes(1), now::get);
+  }
+
+  private static Recipe recipe(int calories) {
+    ArrayList<Food> ingredients = new ArrayList<>();
+    ingredients.add(new Food("Flour", 11, calories, "Grain"));
+    return new Recipe("Cake", 1, "Dessert", ingredients, 0, 0, calories);
+  }
+
+  @Test
+  public void versionsStopAtTheLimitUntilTheyExpireTest() {
+    ContentVersionService bounded = new ContentVersionService(Duration.ofMinutes(1), 2,
+        now::get);
+    for (int recipeId = 1; recipeId <= 3; recipeId++) {
+      bounded.recordRecipe(new Recipe("Cake", recipeId, "Dessert", new ArrayList<>(), 0, 0,
+          100));
+    }
+    assertTrue(bounded.getRecipeVersion(2) != null);
+    assertNull(bounded.getRecipeVersion(3));
+
+    now.addAndGet(Duration.ofMinutes(1).toMillis());
+    String etag = bounded.recordRecipe(new Recipe("Cake", 3, "Dessert", new ArrayList<>(), 0,
+        0, 100));
+    assertEquals(etag, bounded.getRecipeVersion(3));
+    assertNull(bounded.getRecipeVersion(1));
+  }
+
+  @Test
+  public void recipeEtagIsStrongAndIgnoresViewsTest() {
+    Recipe recipe = recipe(300);
+    String etag = versions.recordRecipe(recipe);
+    assertTrue(etag.matches("\"[0-9a-f]{32}\""));
+    assertEquals(etag, versions.getRecipeVersion(1));
+
+    recipe.incrementViews();
+    recipe.incrementLikes();
+    assertEquals(etag, versions.recordRecipe(recipe));
+    assertNotEquals(etag, versions.recordRecipe(recipe(350)));
+    assertNull(versions.getRecipeVersion(2));
+  }
+
+  @Test
+  public void versionsExpireAfterTtlTest() {
+    versions.recordRecipe(recipe(300));
+    now.addAndGet(Duration.ofSeconds(59).toMillis());
+    assertEquals(versions.recordRecipe(recipe(300)), versions.getRecipeVersion(1));
+
+    now.addAndGet(Duration.ofSeconds(60).toMillis());
+    assertNull(versions.getRecipeVersion(1));
+  }
+
+  @Test
+  public void foodAlternativesIgnoreCandidateOrderTest() {
+    Food apple = new Food("Apple", 1, 95, "Fruit");
+    Food pear = new Food("Pear", 2, 80, "Fruit");
+    Food plum = new Food("Plum", 3, 40, "Fruit");
+
+    String etag = versions.recordFoodAlternatives(apple, List.of(pear, plum));
+    assertTrue(etag.startsWith("W/\""));
+    assertEquals(etag, versions.recordFoodAlternatives(apple, List.of(plum, pear)));
+    assertNotEquals(etag, versions.recordFoodAlternatives(apple, List.of(pear)));
+  }
+
+  @Test
+  public void invalidateFoodCategoryTest() {
+    versions.recordFoodAlternatives(new Food("Apple", 1, 95, "Fruit"), List.of());
+    versions.recordFoodAlternatives(new Food("Rice", 4, 200, "Grain"), List.of());
+
+    versions.invalidateFoodCategory("Fruit");
+    assertNull(versions.getFoodAlternativesVersion(1));
+    assertEquals(versions.recordFoodAlternatives(new Food("Rice", 4, 200, "Grain"), List.of()),
+        versions.getFoodAlternativesVersion(4));
+  }
+
+  @Test
+  public void invalidateFoodCategoryToleratesNullCategoryTest() {
+    versions.recordFoodAlternatives(new Food("Mystery", 2, 10, null), List.of());
+    versions.recordFoodAlternatives(new Food("Apple", 1, 95, "Fruit"), List.of());
+
+    versions.invalidateFoodCategory("Fruit");
+    assertNull(versions.getFoodAlternativesVersion(1));
+    assertNotNull(versions.getFoodAlternativesVersion(2));
+    versions.invalidateFoodCategory(null);
+    assertNull(versions.getFoodAlternativesVersion(2));
+  }
+
+  @Test
+  public void negativeTtlRejectedTest() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new ContentVersionService(Duration.ofSeconds(-1), now::get));
+  }
+}
@@ -3,6 +3,7 @@ package dev.coms4156.project.calorieservice;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -10,13 +11,17 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
 import com.google.cloud.firestore.CollectionReference;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldMask;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
@@ -25,13 +30,18 @@ import com.google.cloud.firestore.WriteResult;
 import dev.coms4156.project.calorieservice.models.Client;
 import dev.coms4156.project.calorieservice.models.Food;
 import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.FirestoreCost;
 import dev.coms4156.project.calorieservice.service.FirestoreService;
+import dev.coms4156.project.calorieservice.service.MetricsService;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -149,6 +159,71 @@ public class FirestoreServiceTests {
     assertEquals(1, result.getFoodId());
   }
 
+  @Test
+  public void operationsRecordLatencyAndDocumentsReadTest() throws Exception {
+    MetricsService metrics = new MetricsService();
+    FirestoreService measured = new FirestoreService(metrics);
+    Field dbField = FirestoreService.class.getDeclaredField("db");
+    dbField.setAccessible(true);
+    dbField.set(measured, mockFirestore);
+    DocumentSnapshot doc = mock(DocumentSnapshot.class);
+    when(doc.exists()).thenReturn(true);
+    when(doc.getData()).thenReturn(createFoodMap(1, "Apple", 95, "Fruit"));
+    ApiFuture<DocumentSnapshot> future = mock(ApiFuture.class);
+    when(future.get()).thenReturn(doc);
+    when(mockDocumentRef.get()).thenReturn(future);
+    ApiFuture<QuerySnapshot> failing = mock(ApiFuture.class);
+    when(failing.get()).thenThrow(new ExecutionException(new RuntimeException("down")));
+    when(mockFoodCollection.get()).thenReturn(failing);
+
+    FirestoreCost cost = FirestoreCost.open();
+    try {
+      measured.getFoodById(1);
+      measured.getFoodById(1);
+      assertThrows(ExecutionException.class, () -> measured.getAllFoods());
+    } finally {
+      FirestoreCost.close();
+    }
+
+    assertEquals(2, cost.getDocumentsRead());
+    assertEquals(2, metrics.counter("firestore_documents_read_total", "",
+        "operation", "getFoodById", "collection", "food").count());
+    assertEquals(2, metrics.timer("firestore_operation_seconds", "",
+        "operation", "getFoodById", "collection", "food", "outcome", "success").count());
+    assertEquals(1, metrics.timer("firestore_operation_seconds", "",
+        "operation", "getAllFoods", "collection", "food", "outcome", "error").count());
+  }
+
+  @Test
+  public void requestCostCountsRoundTripsWritesAndBytesDecodedTest() throws Exception {
+    DocumentSnapshot doc = mock(DocumentSnapshot.class);
+    when(doc.exists()).thenReturn(true);
+    when(doc.getData()).thenReturn(createFoodMap(1, "Apple", 95, "Fruit"));
+    ApiFuture<DocumentSnapshot> future = mock(ApiFuture.class);
+    when(future.get()).thenReturn(doc);
+    when(mockDocumentRef.get()).thenReturn(future);
+    ApiFuture<WriteResult> deleted = mock(ApiFuture.class);
+    when(deleted.get()).thenReturn(mock(WriteResult.class));
+    when(mockDocumentRef.delete()).thenReturn(deleted);
+
+    FirestoreCost cost = FirestoreCost.open();
+    try {
+      firestoreService.getFoodById(1);
+      firestoreService.deleteFood(1);
+    } finally {
+      FirestoreCost.close();
+    }
+
+    assertEquals(2, cost.getRoundTrips());
+    assertEquals(1, cost.getDocumentsRead());
+    assertEquals(1, cost.getDocumentsWritten());
+    // 32 per document, field names + 1, strings as UTF-8 + 1, numbers as 8
+    assertEquals(32 + 15 + 15 + 17 + 15, cost.getBytesDecoded());
+    assertEquals(2, cost.getOperations().size());
+    assertTrue(cost.serverTiming().contains("fs-round-trips;desc=2"));
+    assertTrue(cost.breakdown().contains("deleteFood x1 (read=0 written=1 "));
+  }
+
   @Test
   public void getFoodByIdReturnsNullForNonExistentTest() 
       throws ExecutionException, InterruptedException {
@@ -431,6 +506,137 @@ public class FirestoreServiceTests {
     assertEquals(1, result.size());
   }
 
+  @Test
+  public void getRecipesByCaloriesWithFieldsUsesProjectionTest() 
+      throws ExecutionException, InterruptedException {
+    Map<String, Object> projected = new HashMap<>();
+    projected.put("recipeId", 1001);
+    projected.put("category", "Dessert");
+    projected.put("views", 3);
+    projected.put("likes", 1);
+    projected.put("totalCalories", 400);
+    List<QueryDocumentSnapshot> docs = new ArrayList<>();
+    QueryDocumentSnapshot doc = mock(QueryDocumentSnapshot.class);
+    when(doc.getData()).thenReturn(projected);
+    docs.add(doc);
+
+    QuerySnapshot snapshot = mock(QuerySnapshot.class);
+    when(snapshot.getDocuments()).thenReturn(docs);
+    ApiFuture<QuerySnapshot> future = mock(ApiFuture.class);
+    when(future.get()).thenReturn(snapshot);
+    Query projection = mock(Query.class);
+    when(projection.get()).thenReturn(future);
+    when(mockRecipeCollection.whereLessThanOrEqualTo("totalCalories", 500))
+        .thenReturn(mockQuery);
+    when(mockQuery.select("recipeId", "totalCalories")).thenReturn(projection);
+
+    List<Recipe> result = firestoreService.getRecipesByCalories(500, "recipeId", "totalCalories");
+    assertEquals(1, result.size());
+    assertEquals(400, result.get(0).getTotalCalories());
+    assertTrue(result.get(0).getIngredients().isEmpty());
+    verify(mockQuery, never()).get();
+  }
+
+  @Test
+  public void getRecipesByIdsUsesOneBatchedFetchTest() 
+      throws ExecutionException, InterruptedException {
+    DocumentSnapshot found = mock(DocumentSnapshot.class);
+    when(found.exists()).thenReturn(true);
+    when(found.getData()).thenReturn(createRecipeMap(1001, "Test", "Dessert", 400));
+    DocumentSnapshot missing = mock(DocumentSnapshot.class);
+    when(missing.exists()).thenReturn(false);
+    when(mockFirestore.getAll(any(DocumentReference[].class)))
+        .thenReturn(ApiFutures.immediateFuture(List.of(found, missing)));
+    when(mockFirestore.getAll(any(DocumentReference[].class), any(FieldMask.class)))
+        .thenReturn(ApiFutures.immediateFuture(List.of(found)));
+
+    Map<Integer, Recipe> result = firestoreService.getRecipesByIds(List.of(1001, 1002));
+    assertEquals(List.of(1001), new ArrayList<>(result.keySet()));
+    assertEquals("Test", result.get(1001).getRecipeName());
+    assertEquals(1, firestoreService.getRecipesByIds(List.of(1001), "recipeId").size());
+    assertTrue(firestoreService.getRecipesByIds(List.of()).isEmpty());
+    verify(mockFirestore).getAll(any(DocumentReference[].class), any(FieldMask.class));
+  }
+
+  @Test
+  public void getFoodsByIdsReturnsExistingFoodsTest() 
+      throws ExecutionException, InterruptedException {
+    DocumentSnapshot found = mock(DocumentSnapshot.class);
+    when(found.exists()).thenReturn(true);
+    when(found.getData()).thenReturn(createFoodMap(1, "Apple", 95, "Fruit"));
+    when(mockFirestore.getAll(any(DocumentReference[].class)))
+        .thenReturn(ApiFutures.immediateFuture(List.of(found)));
+
+    Map<Integer, Food> result = firestoreService.getFoodsByIds(List.of(1));
+    assertEquals("Apple", result.get(1).getFoodName());
+  }
+
+  @Test
+  public void concurrentGetRecipeByIdSharesOneReadTest() throws Exception {
+    SettableApiFuture<DocumentSnapshot> read = SettableApiFuture.create();
+    DocumentSnapshot document = mock(DocumentSnapshot.class);
+    when(document.exists()).thenReturn(true);
+    when(document.getData()).thenAnswer(
+        invocation -> createRecipeMap(1001, "Viral", "Dessert", 400));
+    when(mockDocumentRef.get()).thenReturn(read);
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+      Future<Recipe> first = executor.submit(() -> firestoreService.getRecipeById(1001));
+      final Future<Recipe> second =
+          executor.submit(() -> firestoreService.getRecipeById(1001));
+      long deadline = System.currentTimeMillis() + 5000;
+      while (firestoreService.getReadCoalescingStats().get("documentReads").get("coalesced") < 1
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(5);
+      }
+      read.set(document);
+
+      assertEquals("Viral", first.get().getRecipeName());
+      assertEquals("Viral", second.get().getRecipeName());
+      assertNotSame(first.get(), second.get());
+    }
+    verify(mockDocumentRef, times(1)).get();
+    Map<String, Long> stats = firestoreService.getReadCoalescingStats().get("documentReads");
+    assertEquals(2L, stats.get("calls"));
+    assertEquals(1L, stats.get("coalesced"));
+    assertEquals(0L, stats.get("inFlight"));
+  }
+
+  @Test
+  public void readAfterWriteDoesNotJoinAnEarlierReadTest() throws Exception {
+    SettableApiFuture<DocumentSnapshot> earlierRead = SettableApiFuture.create();
+    DocumentSnapshot before = mock(DocumentSnapshot.class);
+    when(before.exists()).thenReturn(true);
+    when(before.getData()).thenAnswer(
+        invocation -> createRecipeMap(1001, "Before", "Dessert", 400));
+    DocumentSnapshot after = mock(DocumentSnapshot.class);
+    when(after.exists()).thenReturn(true);
+    when(after.getData()).thenAnswer(
+        invocation -> createRecipeMap(1001, "After", "Dessert", 400));
+    when(mockDocumentRef.get()).thenReturn(earlierRead, ApiFutures.immediateFuture(after));
+    when(mockDocumentRef.set(any(Map.class)))
+        .thenReturn(ApiFutures.immediateFuture(mock(WriteResult.class)));
+
+    try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+      final Future<Recipe> earlier =
+          executor.submit(() -> firestoreService.getRecipeById(1001));
+      long deadline = System.currentTimeMillis() + 5000;
+      while (firestoreService.getReadCoalescingStats().get("documentReads").get("inFlight") < 1
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(5);
+      }
+      assertTrue(firestoreService.updateRecipe(
+          new Recipe("After", 1001, "Dessert", new ArrayList<>(), 0, 0, 400)));
+
+      assertEquals("After", firestoreService.getRecipeById(1001).getRecipeName());
+      earlierRead.set(before);
+      assertEquals("Before", earlier.get().getRecipeName());
+    }
+    verify(mockDocumentRef, times(2)).get();
+    assertEquals(0L,
+        firestoreService.getReadCoalescingStats().get("documentReads").get("coalesced"));
+  }
+
   @Test
   public void deleteRecipeSuccessTest() 
       throws ExecutionException, InterruptedException {
@@ -0,0 +1,155 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.calorieservice.models.RecipeViewEstimate;
+import dev.coms4156.project.calorieservice.service.HeavyHitterService;
+import dev.coms4156.project.calorieservice.util.CountMinSketch;
+import dev.coms4156.project.calorieservice.util.SpaceSaving;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the CountMinSketch, SpaceSaving and
+ * HeavyHitterService classes.
+ */
+public class HeavyHitterTests {
+
+  /**
+   * Builds a skewed stream where recipe {@code i} in 1..20 appears {@code 1000 / i} times,
+   * mixed with 5000 views of distinct one-off recipes.
+   */
+  private static int[] skewedStream() {
+    int[] stream = new int[20000];
+    int size = 0;
+    for (int recipeId = 1; recipeId <= 20; recipeId++) {
+      for (int i = 0; i < 1000 / recipeId; i++) {
+        stream[size++] = recipeId;
+      }
+    }
+    for (int i = 0; i < 5000; i++) {
+      stream[size++] = 100000 + i;
+    }
+    int[] trimmed = Arrays.copyOf(stream, size);
+    Random random = new Random(4156);
+    for (int i = trimmed.length - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int swap = trimmed[i];
+      trimmed[i] = trimmed[j];
+      trimmed[j] = swap;
+    }
+    return trimmed;
+  }
+
+  @Test
+  public void countMinSketchNeverUndercountsTest() {
+    CountMinSketch sketch = new CountMinSketch(0.001, 0.01);
+    Map<Integer, Integer> exact = new HashMap<>();
+    for (int recipeId : skewedStream()) {
+      sketch.add(recipeId);
+      exact.merge(recipeId, 1, Integer::sum);
+    }
+    assertEquals(exact.values().stream().mapToLong(Integer::longValue).sum(),
+        sketch.totalCount());
+    for (Map.Entry<Integer, Integer> entry : exact.entrySet()) {
+      long estimate = sketch.estimate(entry.getKey());
+      assertTrue(estimate >= entry.getValue());
+      assertTrue(estimate <= entry.getValue() + sketch.errorBound());
+    }
+  }
+
+  @Test
+  public void countMinSketchInvalidParametersTest() {
+    assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 0.01));
+    assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0.01, 1));
+  }
+
+  @Test
+  public void spaceSavingFindsFrequentKeysTest() {
+    SpaceSaving spaceSaving = new SpaceSaving(50);
+    Map<Integer, Integer> exact = new HashMap<>();
+    for (int recipeId : skewedStream()) {
+      spaceSaving.add(recipeId);
+      exact.merge(recipeId, 1, Integer::sum);
+    }
+    List<SpaceSaving.Entry> top = spaceSaving.top(5);
+    assertEquals(5, top.size());
+    for (int i = 0; i < 5; i++) {
+      SpaceSaving.Entry entry = top.get(i);
+      int trueCount = exact.get(entry.getKey());
+      assertTrue(entry.getCount() >= trueCount);
+      assertTrue(entry.getCount() - entry.getError() <= trueCount);
+    }
+    assertEquals(1, top.get(0).getKey());
+  }
+
+  @Test
+  public void spaceSavingKeepsBoundsThroughEvictionsTest() {
+    SpaceSaving spaceSaving = new SpaceSaving(10);
+    Map<Integer, Integer> exact = new HashMap<>();
+    Random random = new Random(7);
+    for (int i = 0; i < 5000; i++) {
+      int recipeId = i % 3 == 0 ? random.nextInt(3) : random.nextInt(100);
+      spaceSaving.add(recipeId);
+      exact.merge(recipeId, 1, Integer::sum);
+    }
+    List<SpaceSaving.Entry> top = spaceSaving.top(10);
+    assertEquals(10, top.size());
+    long total = 0;
+    for (SpaceSaving.Entry entry : top) {
+      int trueCount = exact.get(entry.getKey());
+      assertTrue(entry.getCount() >= trueCount);
+      assertTrue(entry.getCount() - entry.getError() <= trueCount);
+      total += entry.getCount();
+    }
+    // Every occurrence is counted by exactly one monitored key
+    assertEquals(5000, total);
+    // Keys seen more than total / capacity times are always monitored
+    for (int recipeId = 0; recipeId < 3; recipeId++) {
+      int key = recipeId;
+      assertTrue(top.stream().anyMatch(entry -> entry.getKey() == key));
+    }
+  }
+
+  @Test
+  public void spaceSavingInvalidCapacityTest() {
+    assertThrows(IllegalArgumentException.class, () -> new SpaceSaving(0));
+  }
+
+  @Test
+  public void heavyHitterServiceReportsBoundedEstimatesTest() {
+    HeavyHitterService service = new HeavyHitterService();
+    Map<Integer, Integer> exact = new HashMap<>();
+    for (int recipeId : skewedStream()) {
+      service.recordView(recipeId);
+      exact.merge(recipeId, 1, Integer::sum);
+    }
+
+    List<RecipeViewEstimate> top = service.getTopRecipes(3);
+    assertEquals(3, top.size());
+    assertEquals(1, top.get(0).getRecipeId());
+    assertEquals(2, top.get(1).getRecipeId());
+    assertEquals(3, top.get(2).getRecipeId());
+    for (RecipeViewEstimate estimate : top) {
+      int trueCount = exact.get(estimate.getRecipeId());
+      assertTrue(estimate.getLowerBound() <= trueCount);
+      assertTrue(estimate.getUpperBound() >= trueCount);
+      assertTrue(estimate.getEstimate() - trueCount <= service.getErrorBound());
+    }
+    assertEquals(0.99, service.getConfidence(), 1e-9);
+  }
+
+  @Test
+  public void heavyHitterServiceEmptyTest() {
+    HeavyHitterService service = new HeavyHitterService();
+    assertTrue(service.getTopRecipes(10).isEmpty());
+    assertEquals(0, service.getTotalViews());
+    assertEquals(0, service.getErrorBound());
+  }
+}
@@ -0,0 +1,43 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import dev.coms4156.project.calorieservice.util.Histogram;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the Histogram class.
+ */
+public class HistogramUnitTests {
+
+  @Test
+  public void recordsIntoBucketsByUpperBoundTest() {
+    Histogram histogram = new Histogram(1, 5, 10);
+    histogram.record(0.5);
+    histogram.record(1);
+    histogram.record(3);
+    histogram.record(10);
+    histogram.record(50);
+
+    assertArrayEquals(new long[] {2, 3, 4, 5}, histogram.cumulativeCounts());
+    assertEquals(5, histogram.count());
+    assertEquals(64.5, histogram.sum(), 1e-9);
+    assertArrayEquals(new double[] {1, 5, 10}, histogram.bounds());
+  }
+
+  @Test
+  public void emptyHistogramTest() {
+    Histogram histogram = new Histogram();
+    histogram.record(7);
+    assertArrayEquals(new long[] {1}, histogram.cumulativeCounts());
+    assertEquals(0, new Histogram(1).count());
+  }
+
+  @Test
+  public void boundsMustIncreaseTest() {
+    assertThrows(IllegalArgumentException.class, () -> new Histogram(1, 1));
+    assertThrows(IllegalArgumentException.class, () -> new Histogram(5, 2));
+  }
+}
@@ -0,0 +1,94 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.calorieservice.util.HyperLogLog;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the HyperLogLog class.
+ */
+public class HyperLogLogUnitTests {
+
+  @Test
+  public void emptySketchEstimatesZeroTest() {
+    assertEquals(0, new HyperLogLog().estimate());
+  }
+
+  @Test
+  public void repeatedValuesCountOnceTest() {
+    HyperLogLog sketch = new HyperLogLog();
+    assertTrue(sketch.add(42));
+    for (int i = 0; i < 1000; i++) {
+      assertFalse(sketch.add(42));
+    }
+    assertEquals(1, sketch.estimate());
+  }
+
+  @Test
+  public void smallCardinalityIsNearExactTest() {
+    HyperLogLog sketch = new HyperLogLog();
+    for (int i = 0; i < 100; i++) {
+      sketch.add(i);
+    }
+    // Linear counting range, where the standard error is under 2%
+    assertTrue(Math.abs(sketch.estimate() - 100) <= 5);
+  }
+
+  @Test
+  public void largeCardinalityWithinErrorTest() {
+    HyperLogLog sketch = new HyperLogLog();
+    int distinct = 100_000;
+    for (int i = 0; i < distinct; i++) {
+      sketch.add(i);
+      sketch.add(i);
+    }
+    // Four standard errors of the 2.3% expected error
+    assertTrue(Math.abs(sketch.estimate() - distinct) < distinct * 0.092);
+  }
+
+  @Test
+  public void mergeCountsUnionTest() {
+    HyperLogLog first = new HyperLogLog();
+    HyperLogLog second = new HyperLogLog();
+    for (int i = 0; i < 600; i++) {
+      first.add(i);
+    }
+    for (int i = 400; i < 1000; i++) {
+      second.add(i);
+    }
+    first.merge(second);
+    assertTrue(Math.abs(first.estimate() - 1000) < 70);
+
+    byte[] before = first.toBytes();
+    first.merge(second);
+    assertArrayEquals(before, first.toBytes());
+  }
+
+  @Test
+  public void serializationRoundTripTest() {
+    HyperLogLog sketch = new HyperLogLog();
+    for (int i = 0; i < 5000; i++) {
+      sketch.add(i * 31L);
+    }
+    byte[] bytes = sketch.toBytes();
+    assertEquals(HyperLogLog.SERIALIZED_SIZE, bytes.length);
+    HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+    assertEquals(sketch.estimate(), restored.estimate());
+    assertArrayEquals(bytes, restored.toBytes());
+  }
+
+  @Test
+  public void fromBytesRejectsInvalidInputTest() {
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(null));
+    assertThrows(IllegalArgumentException.class, () -> HyperLogLog.fromBytes(new byte[10]));
+    byte[] wrongPrecision = new byte[HyperLogLog.SERIALIZED_SIZE];
+    wrongPrecision[0] = 14;
+    assertThrows(IllegalArgumentException.class,
+        () -> HyperLogLog.fromBytes(wrongPrecision));
+  }
+}
@@ -0,0 +1,80 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.calorieservice.util.IntDoubleHashMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the IntDoubleHashMap class.
+ */
+public class IntDoubleHashMapUnitTests {
+
+  @Test
+  public void addAndGetTest() {
+    IntDoubleHashMap map = new IntDoubleHashMap();
+    assertTrue(map.isEmpty());
+    assertEquals(0, map.get(5));
+    assertEquals(1.5, map.add(5, 1.5));
+    assertEquals(4.0, map.add(5, 2.5));
+    assertTrue(map.containsKey(5));
+    assertFalse(map.containsKey(6));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void minValueKeyTest() {
+    IntDoubleHashMap map = new IntDoubleHashMap();
+    map.add(Integer.MIN_VALUE, 2);
+    map.add(0, 1);
+    assertEquals(2, map.get(Integer.MIN_VALUE));
+    assertEquals(2, map.size());
+    assertEquals(2, map.remove(Integer.MIN_VALUE));
+    assertFalse(map.containsKey(Integer.MIN_VALUE));
+    assertEquals(1, map.size());
+  }
+
+  @Test
+  public void removeSmallestAndScaleTest() {
+    IntDoubleHashMap map = new IntDoubleHashMap(4);
+    map.add(1, 3);
+    map.add(2, 1);
+    map.add(3, 2);
+    assertEquals(1, map.removeSmallest());
+    assertFalse(map.containsKey(2));
+    map.scale(0.5);
+    assertEquals(1.5, map.get(1));
+    assertEquals(1.0, map.get(3));
+    double[] sum = new double[1];
+    map.forEach((key, value) -> sum[0] += value);
+    assertEquals(2.5, sum[0]);
+    map.clear();
+    assertEquals(0, map.removeSmallest());
+  }
+
+  @Test
+  public void matchesHashMapUnderRandomOperationsTest() {
+    IntDoubleHashMap map = new IntDoubleHashMap();
+    Map<Integer, Double> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 20_000; i++) {
+      int key = random.nextInt(500) - 250;
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.getOrDefault(key, 0.0), map.remove(key));
+        expected.remove(key);
+      } else {
+        expected.merge(key, 1.0, Double::sum);
+        map.add(key, 1.0);
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    for (int key = -250; key < 250; key++) {
+      assertEquals(expected.getOrDefault(key, 0.0), map.get(key));
+    }
+  }
+}
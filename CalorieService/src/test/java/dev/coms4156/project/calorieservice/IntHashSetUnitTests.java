@@ -0,0 +1,86 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.calorieservice.util.IntHashSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the IntHashSet class.
+ */
+public class IntHashSetUnitTests {
+
+  @Test
+  public void addAndContainsTest() {
+    IntHashSet set = new IntHashSet();
+    assertTrue(set.isEmpty());
+    assertTrue(set.add(5));
+    assertFalse(set.add(5));
+    assertTrue(set.contains(5));
+    assertFalse(set.contains(6));
+    assertEquals(1, set.size());
+  }
+
+  @Test
+  public void minValueAndZeroTest() {
+    IntHashSet set = new IntHashSet();
+    assertTrue(set.add(Integer.MIN_VALUE));
+    assertTrue(set.add(0));
+    assertTrue(set.contains(Integer.MIN_VALUE));
+    assertTrue(set.contains(0));
+    assertTrue(set.remove(Integer.MIN_VALUE));
+    assertFalse(set.contains(Integer.MIN_VALUE));
+    assertEquals(1, set.size());
+  }
+
+  @Test
+  public void removeKeepsOtherValuesReachableTest() {
+    IntHashSet set = new IntHashSet();
+    for (int i = 0; i < 1000; i++) {
+      set.add(i);
+    }
+    for (int i = 0; i < 1000; i += 2) {
+      assertTrue(set.remove(i));
+    }
+    assertFalse(set.remove(0));
+    assertEquals(500, set.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i % 2 == 1, set.contains(i));
+    }
+  }
+
+  @Test
+  public void matchesJavaSetUnderRandomOperationsTest() {
+    IntHashSet set = new IntHashSet(4);
+    Set<Integer> expected = new HashSet<>();
+    Random random = new Random(4156);
+    for (int i = 0; i < 20000; i++) {
+      int value = random.nextInt(512);
+      if (random.nextBoolean()) {
+        assertEquals(expected.add(value), set.add(value));
+      } else {
+        assertEquals(expected.remove(value), set.remove(value));
+      }
+    }
+    assertEquals(expected.size(), set.size());
+    for (int value = 0; value < 512; value++) {
+      assertEquals(expected.contains(value), set.contains(value));
+    }
+  }
+
+  @Test
+  public void clearTest() {
+    IntHashSet set = new IntHashSet();
+    set.add(1);
+    set.add(Integer.MIN_VALUE);
+    set.clear();
+    assertTrue(set.isEmpty());
+    assertFalse(set.contains(1));
+    assertFalse(set.contains(Integer.MIN_VALUE));
+  }
+}
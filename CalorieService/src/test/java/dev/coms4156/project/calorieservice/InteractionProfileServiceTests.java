@@ -0,0 +1,97 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import dev.coms4156.project.calorieservice.client.ClientEvent;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.InteractionProfileService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the InteractionProfileService class.
+ */
+public class InteractionProfileServiceTests {
+
+  private static final long HOUR = 3_600_000;
+
+  private final AtomicLong now = new AtomicLong(1_000_000);
+  private final InteractionProfileService profiles =
+      new InteractionProfileService(Duration.ofHours(1), 3, 2, 2, now::get);
+
+  private static ClientEvent event(Integer clientId, Integer recipeId, String type) {
+    ClientEvent event = new ClientEvent();
+    event.setServiceClientId(clientId);
+    event.setRecipeId(recipeId);
+    event.setType(type);
+    return event;
+  }
+
+  private static Recipe recipe(int recipeId, String category) {
+    return new Recipe("Recipe " + recipeId, recipeId, category, new ArrayList<>(), 0, 0, 100);
+  }
+
+  @Test
+  public void weightsDecayAndLikesCountMoreTest() {
+    profiles.record(event(1, 10, "view"));
+    profiles.record(event(1, 11, "like"));
+    profiles.record(event(1, null, "view"));
+    profiles.record(event(null, 10, "view"));
+    assertEquals(1.0, profiles.recipeWeight(1, 10), 1e-9);
+    assertEquals(5.0, profiles.recipeWeight(1, 11), 1e-9);
+
+    now.addAndGet(HOUR);
+    profiles.record(event(1, 10, "view"));
+    assertEquals(1.5, profiles.recipeWeight(1, 10), 1e-9);
+    assertEquals(2.5, profiles.recipeWeight(1, 11), 1e-9);
+    assertEquals(0, profiles.recipeWeight(2, 10));
+  }
+
+  @Test
+  public void categoriesCountOnceLearnedTest() {
+    profiles.record(event(1, 10, "view"));
+    assertEquals(0, profiles.categoryWeight(1, "Dessert"));
+
+    profiles.learnCategories(List.of(recipe(10, "Dessert"), recipe(20, "Soup")));
+    profiles.record(event(1, 10, "like"));
+    assertEquals(5.0, profiles.categoryWeight(1, "Dessert"), 1e-9);
+    assertEquals(0, profiles.categoryWeight(1, "Soup"));
+  }
+
+  @Test
+  public void histogramsAndClientsAreBoundedTest() {
+    profiles.record(event(1, 10, "like"));
+    profiles.record(event(1, 11, "view"));
+    profiles.record(event(1, 12, "like"));
+    // Recipe 11 is the weakest of three, so it makes room for recipe 13
+    profiles.record(event(1, 13, "like"));
+    assertEquals(0, profiles.recipeWeight(1, 11));
+    assertEquals(5.0, profiles.recipeWeight(1, 13), 1e-9);
+
+    profiles.record(event(2, 10, "view"));
+    profiles.record(event(3, 10, "view"));
+    assertEquals(1.0, profiles.recipeWeight(2, 10), 1e-9);
+    assertEquals(0, profiles.recipeWeight(3, 10));
+  }
+
+  @Test
+  public void rankPutsRecentInterestFirstTest() {
+    profiles.learnCategories(List.of(recipe(10, "Dessert"), recipe(11, "Soup")));
+    profiles.record(event(1, 11, "view"));
+    profiles.record(event(1, 10, "like"));
+
+    List<Recipe> candidates = new ArrayList<>(List.of(recipe(1, "Salad"), recipe(2, "Soup"),
+        recipe(3, "Dessert"), recipe(11, "Soup"), recipe(4, "Salad")));
+    List<Recipe> ranked = profiles.rank(1, candidates, 4);
+    assertEquals(4, ranked.size());
+    // The liked category outranks a viewed recipe, which outranks its category alone
+    assertEquals(3, ranked.get(0).getRecipeId());
+    assertEquals(11, ranked.get(1).getRecipeId());
+    assertEquals(2, ranked.get(2).getRecipeId());
+
+    assertEquals(2, profiles.rank(9, new ArrayList<>(candidates), 2).size());
+  }
+}
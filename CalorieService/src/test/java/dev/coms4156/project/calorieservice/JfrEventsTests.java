@@ -0,0 +1,140 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.FirestoreService;
+import dev.coms4156.project.calorieservice.service.JfrEvents;
+import dev.coms4156.project.calorieservice.service.MockApiService;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the tests for the Flight Recorder events registered by JfrEvents.
+ */
+public class JfrEventsTests {
+
+  @AfterEach
+  public void tearDown() {
+    JfrEvents.unregister();
+  }
+
+  @Test
+  public void serviceOperationsAreRecordedWithIdsAndSizesTest() throws Exception {
+    FirestoreService firestoreService = mock(FirestoreService.class);
+    Recipe base = new Recipe("Cake", 1, "Dessert", new ArrayList<>(), 0, 0, 500);
+    List<Recipe> candidates = new ArrayList<>(List.of(
+        new Recipe("Pie", 2, "Dessert", new ArrayList<>(), 0, 0, 300),
+        new Recipe("Tart", 3, "Dessert", new ArrayList<>(), 0, 0, 200)));
+    when(firestoreService.getRecipeById(1)).thenReturn(base);
+    when(firestoreService.getRecipesByCategoryAndCalories("Dessert", 499))
+        .thenReturn(candidates);
+    MockApiService service = new MockApiService(firestoreService);
+
+    new JfrEvents(true);
+    List<RecordedEvent> events = record(() -> service.getRecipeAlternatives(1));
+
+    RecordedEvent alternatives = only(events, "getRecipeAlternatives");
+    assertEquals(1, alternatives.getInt("recipeId"));
+    assertEquals(-1, alternatives.getInt("clientId"));
+    assertEquals("Dessert", alternatives.getString("category"));
+    assertEquals(2, alternatives.getInt("candidateCount"));
+    assertEquals(2, alternatives.getInt("resultSize"));
+    assertEquals(1, only(events, "findRecipeById").getInt("resultSize"));
+  }
+
+  @Test
+  public void firestoreOperationsAreRecordedTest() throws Exception {
+    Firestore db = mock(Firestore.class);
+    CollectionReference collection = mock(CollectionReference.class);
+    DocumentReference document = mock(DocumentReference.class);
+    DocumentSnapshot snapshot = mock(DocumentSnapshot.class);
+    ApiFuture<DocumentSnapshot> future = mock(ApiFuture.class);
+    when(db.collection("food")).thenReturn(collection);
+    when(collection.document(anyString())).thenReturn(document);
+    when(document.get()).thenReturn(future);
+    when(future.get()).thenReturn(snapshot);
+    when(snapshot.exists()).thenReturn(true);
+    when(snapshot.getData()).thenReturn(Map.of(
+        "foodId", 7L, "foodName", "Kiwi", "calories", 42L, "category", "Fruit"));
+    FirestoreService firestoreService = new FirestoreService();
+    Field dbField = FirestoreService.class.getDeclaredField("db");
+    dbField.setAccessible(true);
+    dbField.set(firestoreService, db);
+
+    JfrEvents.register();
+    List<RecordedEvent> events = record(() -> {
+      Food food = firestoreService.getFoodById(7);
+      assertEquals("Kiwi", food.getFoodName());
+      return food;
+    });
+
+    RecordedEvent read = only(events, "getFoodById");
+    assertEquals("food", read.getString("collection"));
+    assertEquals(7, read.getInt("documentId"));
+    assertEquals(1, read.getInt("resultSize"));
+    assertTrue(read.getBoolean("success"));
+  }
+
+  @Test
+  public void unregisteredEventsAreNotRecordedTest() throws Exception {
+    FirestoreService firestoreService = mock(FirestoreService.class);
+    MockApiService service = new MockApiService(firestoreService);
+
+    new JfrEvents(false);
+    assertEquals(List.of(), record(() -> service.findFoodById(1)));
+  }
+
+  /**
+   * Runs the action under a recording of the service's events and returns them.
+   */
+  private static List<RecordedEvent> record(Action action) throws Exception {
+    Path file = Files.createTempFile("jfr-events", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(JfrEvents.SERVICE_OPERATION);
+      recording.enable(JfrEvents.FIRESTORE_OPERATION);
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().startsWith("dev.coms4156."))
+          .collect(Collectors.toList());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static RecordedEvent only(List<RecordedEvent> events, String operation) {
+    List<RecordedEvent> matching = events.stream()
+        .filter(event -> operation.equals(event.getString("operation")))
+        .collect(Collectors.toList());
+    assertEquals(1, matching.size(), operation);
+    return matching.get(0);
+  }
+
+  @FunctionalInterface
+  private interface Action {
+    Object run() throws Exception;
+  }
+}
@@ -0,0 +1,95 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import dev.coms4156.project.calorieservice.config.ServerTimingAdvice;
+import dev.coms4156.project.calorieservice.controller.MetricsController;
+import dev.coms4156.project.calorieservice.service.FirestoreService;
+import dev.coms4156.project.calorieservice.service.MetricsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * This class contains the tests for the MetricsService class and the /metrics endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MetricsServiceTests {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @MockBean
+  private FirestoreService firestoreService;
+
+  @Test
+  public void metersAreCreatedOnceAndRenderedTest() {
+    MetricsService metrics = new MetricsService();
+    MetricsService.Timer timer = metrics.timer("op_seconds", "Op latency", "op", "read");
+    assertSame(timer, metrics.timer("op_seconds", "Op latency", "op", "read"));
+    timer.record(2_000_000);
+    metrics.counter("docs_total", "Docs", "op", "a \"quoted\" \\ value").increment(3);
+    metrics.summary("docs_per_request", "Docs per request", new double[] {1, 10})
+        .record(4);
+
+    String scrape = metrics.scrape();
+    assertTrue(scrape.contains("# TYPE op_seconds histogram\n"));
+    assertTrue(scrape.contains("op_seconds_bucket{op=\"read\",le=\"0.001\"} 0\n"));
+    assertTrue(scrape.contains("op_seconds_bucket{op=\"read\",le=\"0.0025\"} 1\n"));
+    assertTrue(scrape.contains("op_seconds_bucket{op=\"read\",le=\"+Inf\"} 1\n"));
+    assertTrue(scrape.contains("op_seconds_count{op=\"read\"} 1\n"));
+    assertTrue(scrape.contains("docs_total{op=\"a \\\"quoted\\\" \\\\ value\"} 3\n"));
+    assertTrue(scrape.contains("docs_per_request_bucket{le=\"10.0\"} 1\n"));
+    assertTrue(scrape.contains("docs_per_request_sum 4.0\n"));
+  }
+
+  @Test
+  public void nameKeepsItsTypeAndTagsComeInPairsTest() {
+    MetricsService metrics = new MetricsService();
+    metrics.counter("requests_total", "Requests");
+    assertThrows(IllegalArgumentException.class,
+        () -> metrics.timer("requests_total", "Requests"));
+    assertThrows(IllegalArgumentException.class,
+        () -> metrics.counter("other_total", "Other", "key"));
+  }
+
+  @Test
+  public void requestsAreTimedByEndpointPatternTest() throws Exception {
+    mockMvc.perform(get("/index")).andExpect(status().isOk());
+    mockMvc.perform(get("/no/such/path")).andExpect(status().isNotFound());
+
+    String scrape = mockMvc.perform(get("/metrics"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MetricsController.PROMETHEUS_TEXT))
+        .andReturn().getResponse().getContentAsString();
+    assertTrue(scrape.contains(
+        "http_server_requests_seconds_count{method=\"GET\",uri=\"/index\",status=\"200\"} "));
+    assertTrue(scrape.contains(
+        "http_server_requests_seconds_count{method=\"GET\",uri=\"NOT_FOUND\",status=\"404\"} "));
+    assertTrue(scrape.contains("http_server_requests_firestore_documents_read_bucket{"
+        + "method=\"GET\",uri=\"/index\",le=\"0.0\"} "));
+    assertEquals(-1, scrape.indexOf("/no/such/path"));
+  }
+
+  @Test
+  public void responsesCarryServerTimingTest() throws Exception {
+    mockMvc.perform(get("/index"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(ServerTimingAdvice.SERVER_TIMING,
+            containsString("fs-round-trips;desc=0")))
+        .andExpect(header().string(ServerTimingAdvice.SERVER_TIMING,
+            containsString("total;dur=")));
+  }
+}
@@ -8,17 +8,33 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import dev.coms4156.project.calorieservice.client.ClientEvent;
 import dev.coms4156.project.calorieservice.models.Client;
 import dev.coms4156.project.calorieservice.models.Food;
 import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.models.RecipeFields;
+import dev.coms4156.project.calorieservice.models.TrendingRecipe;
+import dev.coms4156.project.calorieservice.service.ContentVersionService;
 import dev.coms4156.project.calorieservice.service.FirestoreService;
+import dev.coms4156.project.calorieservice.service.HeavyHitterService;
+import dev.coms4156.project.calorieservice.service.InteractionProfileService;
 import dev.coms4156.project.calorieservice.service.MockApiService;
+import dev.coms4156.project.calorieservice.service.TrendingService;
+import dev.coms4156.project.calorieservice.util.HyperLogLog;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -70,8 +86,9 @@ public class MockApiServiceTests {
     testRecipes.add(testRecipe2);
     
     ArrayList<Client> testClients = new ArrayList<>();
-    Client testClient = new Client("Test Client", 1);
-    testClient.getLikedRecipes().add(testRecipe);
+    ArrayList<Recipe> likedRecipes = new ArrayList<>();
+    likedRecipes.add(testRecipe);
+    Client testClient = new Client("Test Client", 1, likedRecipes);
     testClients.add(testClient);
     
     // Mock FirestoreService to return test data - use thenAnswer to return current state
@@ -533,6 +550,121 @@ public class MockApiServiceTests {
     }
   }
 
+  @Test
+  public void viewsAndLikesFeedTrendingTest() throws ExecutionException, InterruptedException {
+    FirestoreService trendingFirestore = org.mockito.Mockito.mock(FirestoreService.class);
+    MockApiService trendingService = new MockApiService(trendingFirestore);
+    assertTrue(trendingService.getTrendingRecipes(null, 10).isEmpty());
+    Recipe viewed = new Recipe("Viewed", 1, "Dessert", new ArrayList<>(), 0, 0, 100);
+    Recipe liked = new Recipe("Liked", 2, "Dessert", new ArrayList<>(), 0, 0, 100);
+    when(trendingFirestore.getRecipeById(1)).thenReturn(viewed);
+    when(trendingFirestore.getRecipeById(2)).thenReturn(liked);
+    when(trendingFirestore.updateRecipe(any(Recipe.class))).thenReturn(true);
+
+    assertTrue(trendingService.incrementViews(1));
+    assertTrue(trendingService.incrementLikes(2));
+    assertFalse(trendingService.incrementViews(3));
+
+    List<TrendingRecipe> trending = trendingService.getTrendingRecipes("Dessert", 10);
+    assertEquals(2, trending.size());
+    assertEquals(2, trending.get(0).getRecipeId());
+    assertEquals(1, trending.get(1).getRecipeId());
+  }
+
+  @Test
+  public void recommendBatchValidTest() {
+    Map<Integer, List<Recipe>> results = new ConcurrentHashMap<>();
+    service.recommendBatch(List.of(1, 1), 500, results::put);
+    assertEquals(1, results.size());
+    List<Recipe> recommendations = results.get(1);
+    assertNotNull(recommendations);
+    assertTrue(recommendations.size() <= 10);
+    for (Recipe recipe : recommendations) {
+      assertTrue(recipe.getTotalCalories() <= 500);
+      assertFalse(recipe.getRecipeId() == 1001);
+    }
+  }
+
+  @Test
+  public void recommendBatchInvalidTest() {
+    Map<Integer, Boolean> found = new ConcurrentHashMap<>();
+    service.recommendBatch(List.of(999999, 1), null,
+        (clientId, recommendations) -> found.put(clientId, recommendations != null));
+    assertEquals(2, found.size());
+    assertFalse(found.get(999999));
+    assertTrue(found.get(1));
+  }
+
+  @Test
+  public void recommendBatchToleratesUncategorizedLikesTest()
+      throws ExecutionException, InterruptedException {
+    Client uncategorized = new Client("Uncategorized", 1);
+    uncategorized.likeRecipe(new Recipe("Plain", 10, null, new ArrayList<>(), 0, 0, 100));
+    Client mixed = new Client("Mixed", 2);
+    mixed.likeRecipe(new Recipe("Plain", 10, null, new ArrayList<>(), 0, 0, 100));
+    mixed.likeRecipe(new Recipe("Cake", 11, "Dessert", new ArrayList<>(), 0, 0, 300));
+    FirestoreService batchFirestore = org.mockito.Mockito.mock(FirestoreService.class);
+    when(batchFirestore.getClientById(1)).thenReturn(uncategorized);
+    when(batchFirestore.getClientById(2)).thenReturn(mixed);
+    Recipe pie = new Recipe("Pie", 12, "Dessert", new ArrayList<>(), 0, 0, 250);
+    when(batchFirestore.getRecipesByCategoryAndCalories("Dessert", Integer.MAX_VALUE))
+        .thenReturn(List.of(pie));
+    when(batchFirestore.getRecipesByCalories(Integer.MAX_VALUE)).thenReturn(List.of(pie));
+
+    MockApiService batchService = new MockApiService(batchFirestore);
+    Map<Integer, List<Recipe>> results = new ConcurrentHashMap<>();
+    batchService.recommendBatch(List.of(1, 2), null, results::put);
+    assertEquals(List.of(pie), results.get(1));
+    assertEquals(List.of(pie), results.get(2));
+  }
+
+  @Test
+  public void recommendBatchReportsEveryClientWhenItFailsTest()
+      throws ExecutionException, InterruptedException {
+    FirestoreService batchFirestore = org.mockito.Mockito.mock(FirestoreService.class);
+    MockApiService batchService = new MockApiService(batchFirestore);
+    when(batchFirestore.getClientById(anyInt()))
+        .thenThrow(new IllegalStateException("Firestore unavailable"));
+
+    List<Integer> reported = Collections.synchronizedList(new ArrayList<>());
+    Set<Integer> answered = ConcurrentHashMap.newKeySet();
+    batchService.recommendBatch(List.of(1, 2, 3, 2), null, (clientId, recommendations) -> {
+      reported.add(clientId);
+      if (recommendations != null) {
+        answered.add(clientId);
+      }
+    });
+    assertEquals(3, reported.size());
+    assertEquals(Set.of(1, 2, 3), new HashSet<>(reported));
+    assertTrue(answered.isEmpty());
+  }
+
+  @Test
+  public void recommendBatchQueriesEachCategoryOnceTest()
+      throws ExecutionException, InterruptedException {
+    FirestoreService batchFirestore = org.mockito.Mockito.mock(FirestoreService.class);
+    Recipe liked = new Recipe("Liked", 1, "Dessert", new ArrayList<>(), 0, 0, 100);
+    Recipe other = new Recipe("Other", 2, "Dessert", new ArrayList<>(), 0, 0, 100);
+    ArrayList<Recipe> likes = new ArrayList<>();
+    likes.add(liked);
+    when(batchFirestore.getClientById(anyInt())).thenAnswer(invocation ->
+        new Client("Batch Client", invocation.getArgument(0), new ArrayList<>(likes)));
+    when(batchFirestore.getRecipesByCategoryAndCalories(anyString(), anyInt()))
+        .thenReturn(List.of(liked, other));
+    when(batchFirestore.getRecipesByCalories(anyInt())).thenReturn(List.of(liked, other));
+
+    Map<Integer, List<Recipe>> results = new ConcurrentHashMap<>();
+    new MockApiService(batchFirestore).recommendBatch(List.of(1, 2, 3), null, results::put);
+
+    assertEquals(3, results.size());
+    for (List<Recipe> recommendations : results.values()) {
+      assertEquals(List.of(other), recommendations);
+    }
+    verify(batchFirestore, times(1)).getRecipesByCategoryAndCalories("Dessert",
+        Integer.MAX_VALUE);
+    verify(batchFirestore, times(1)).getRecipesByCalories(Integer.MAX_VALUE);
+  }
+
   @Test
   public void getRecipeAlternativesValidTest() {
     if (!recipes.isEmpty()) {
@@ -676,6 +808,153 @@ public class MockApiServiceTests {
     }
   }
 
+  @Test
+  public void uniqueViewsCountDistinctClientsTest()
+      throws ExecutionException, InterruptedException {
+    FirestoreService viewerFirestore = org.mockito.Mockito.mock(FirestoreService.class);
+    MockApiService viewerService = new MockApiService(viewerFirestore);
+    Recipe recipe = new Recipe("Viewed", 1, "Dessert", new ArrayList<>(), 0, 0, 100);
+    when(viewerFirestore.getRecipeById(1)).thenReturn(recipe);
+    when(viewerFirestore.updateRecipe(any(Recipe.class))).thenReturn(true);
+
+    assertEquals(0L, viewerService.getUniqueViews(1).get());
+    for (int i = 0; i < 3; i++) {
+      assertTrue(viewerService.incrementViews(1, 7));
+      assertTrue(viewerService.incrementViews(1, 8));
+    }
+    assertTrue(viewerService.incrementViews(1));
+
+    assertEquals(7, recipe.getViews());
+    assertEquals(2L, viewerService.getUniqueViews(1).get());
+    assertTrue(viewerService.getUniqueViews(2).isEmpty());
+    assertFalse(viewerService.incrementViews(2, 7));
+  }
+
+  @Test
+  public void uniqueViewsMergeStoredSketchTest()
+      throws ExecutionException, InterruptedException {
+    HyperLogLog stored = new HyperLogLog();
+    stored.add(1);
+    stored.add(2);
+    Recipe recipe = new Recipe("Viewed", 1, "Dessert", new ArrayList<>(), 0, 0, 100);
+    recipe.setViewerSketch(stored.toBytes());
+    FirestoreService viewerFirestore = org.mockito.Mockito.mock(FirestoreService.class);
+    when(viewerFirestore.getRecipeById(1)).thenReturn(recipe);
+    when(viewerFirestore.updateRecipe(any(Recipe.class))).thenReturn(true);
+
+    MockApiService viewerService = new MockApiService(viewerFirestore);
+    assertTrue(viewerService.incrementViews(1, 3));
+    assertEquals(3L, viewerService.getUniqueViews(1).get());
+  }
+
+  @Test
+  public void contentVersionsRecordedOnReadTest()
+      throws ExecutionException, InterruptedException {
+    FirestoreService versionFirestore = org.mockito.Mockito.mock(FirestoreService.class);
+    Recipe recipe = new Recipe("Versioned", 1, "Dessert", new ArrayList<>(), 0, 0, 100);
+    Food apple = new Food("Apple", 1, 95, "Fruit");
+    when(versionFirestore.getRecipeById(1)).thenReturn(recipe);
+    when(versionFirestore.getFoodById(1)).thenReturn(apple);
+    when(versionFirestore.getFoodsByCategoryAndCalories("Fruit", 95))
+        .thenReturn(new ArrayList<>(List.of(new Food("Pear", 2, 80, "Fruit"))));
+    when(versionFirestore.addFood(any(Food.class))).thenReturn(true);
+
+    MockApiService versionService = new MockApiService(versionFirestore);
+    assertNull(versionService.getRecipeVersion(1));
+    assertEquals(100, versionService.getTotalCalories(1).get());
+    String etag = versionService.getRecipeVersion(1);
+    assertNotNull(etag);
+    recipe.incrementViews();
+    versionService.getCalorieBreakdown(1);
+    assertEquals(etag, versionService.getRecipeVersion(1));
+
+    versionService.getFoodAlternatives(1);
+    assertNotNull(versionService.getFoodAlternativesVersion(1));
+    assertTrue(versionService.addFood(new Food("Plum", 3, 40, "Fruit")));
+    assertNull(versionService.getFoodAlternativesVersion(1));
+  }
+
+  @Test
+  public void recommendWithFieldsReadsProjectionTest()
+      throws ExecutionException, InterruptedException {
+    FirestoreService fieldsFirestore = org.mockito.Mockito.mock(FirestoreService.class);
+    Client client = new Client("Fields", 5);
+    client.likeRecipe(new Recipe("Liked", 1, "Dessert", new ArrayList<>(), 0, 0, 300));
+    RecipeFields fields = RecipeFields.parse("recipeName,totalCalories");
+    String[] read = fields.firestoreFields();
+    when(fieldsFirestore.getClientById(5)).thenReturn(client);
+    when(fieldsFirestore.getRecipesByCategoryAndCalories("Dessert", Integer.MAX_VALUE, read))
+        .thenReturn(new ArrayList<>(List.of(
+            new Recipe("Pie", 2, "Dessert", new ArrayList<>(), 0, 0, 200))));
+    when(fieldsFirestore.getRecipesByCalories(Integer.MAX_VALUE, read))
+        .thenReturn(new ArrayList<>());
+
+    MockApiService fieldsService = new MockApiService(fieldsFirestore);
+    List<Recipe> recommendations = fieldsService.recommend(5, fields);
+    assertEquals(1, recommendations.size());
+    assertEquals(2, recommendations.get(0).getRecipeId());
+    verify(fieldsFirestore, times(0))
+        .getRecipesByCategoryAndCalories("Dessert", Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void recommendRanksByInteractionProfileTest()
+      throws ExecutionException, InterruptedException {
+    FirestoreService profileFirestore = org.mockito.Mockito.mock(FirestoreService.class);
+    InteractionProfileService profiles = new InteractionProfileService();
+    MockApiService profileService = new MockApiService(profileFirestore,
+        new TrendingService(TrendingService.DEFAULT_HALF_LIFE, System::currentTimeMillis),
+        new HeavyHitterService(),
+        new ContentVersionService(Duration.ofMinutes(5), System::currentTimeMillis),
+        profiles);
+    Client client = new Client("Profile", 6);
+    client.likeRecipe(new Recipe("Liked", 1, "Dessert", new ArrayList<>(), 0, 0, 300));
+    when(profileFirestore.getClientById(6)).thenReturn(client);
+    List<Recipe> desserts = new ArrayList<>();
+    for (int recipeId = 2; recipeId < 30; recipeId++) {
+      desserts.add(new Recipe("Dessert " + recipeId, recipeId, "Dessert", new ArrayList<>(),
+          0, 0, 200));
+    }
+    when(profileFirestore.getRecipesByCategoryAndCalories("Dessert", Integer.MAX_VALUE))
+        .thenAnswer(invocation -> new ArrayList<>(desserts));
+
+    ClientEvent viewed = new ClientEvent();
+    viewed.setServiceClientId(6);
+    viewed.setRecipeId(17);
+    viewed.setType("view");
+    profiles.record(viewed);
+
+    for (int i = 0; i < 5; i++) {
+      List<Recipe> recommendations = profileService.recommend(6);
+      assertEquals(10, recommendations.size());
+      assertEquals(17, recommendations.get(0).getRecipeId());
+    }
+    assertEquals(17, profileService.recommendHealthy(6, Integer.MAX_VALUE).get(0)
+        .getRecipeId());
+    Map<Integer, List<Recipe>> batch = new ConcurrentHashMap<>();
+    profileService.recommendBatch(List.of(6), null, batch::put);
+    assertEquals(17, batch.get(6).get(0).getRecipeId());
+    verify(profileFirestore, times(0)).getRecipeById(anyInt());
+  }
+
+  @Test
+  public void batchGetReadsDistinctIdsOnceTest()
+      throws ExecutionException, InterruptedException {
+    FirestoreService batchGetFirestore = org.mockito.Mockito.mock(FirestoreService.class);
+    MockApiService batchGetService = new MockApiService(batchGetFirestore);
+    Recipe recipe = new Recipe("Cake", 1, "Dessert", new ArrayList<>(), 0, 0, 400);
+    when(batchGetFirestore.getRecipesByIds(Set.of(1, 2)))
+        .thenReturn(new LinkedHashMap<>(Map.of(1, recipe)));
+    when(batchGetFirestore.getFoodsByIds(Set.of(3)))
+        .thenThrow(new ExecutionException("Connection failed", null));
+
+    Map<Integer, Recipe> recipes = batchGetService.getRecipesByIds(List.of(1, 2, 1), null);
+    assertEquals(1, recipes.size());
+    assertNotNull(batchGetService.getRecipeVersion(1));
+    assertNull(batchGetService.getFoodsByIds(List.of(3)));
+    verify(batchGetFirestore, times(1)).getRecipesByIds(Set.of(1, 2));
+  }
+
   @Test
   public void incrementLikesValidTest() {
     if (!recipes.isEmpty()) {
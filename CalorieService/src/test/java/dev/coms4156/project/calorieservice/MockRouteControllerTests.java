@@ -2,6 +2,7 @@ package dev.coms4156.project.calorieservice;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -9,13 +10,23 @@ import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import dev.coms4156.project.calorieservice.controller.RouteController;
 import dev.coms4156.project.calorieservice.models.Food;
 import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.models.RecipeFields;
+import dev.coms4156.project.calorieservice.models.RecipeViewEstimate;
+import dev.coms4156.project.calorieservice.models.TrendingRecipe;
 import dev.coms4156.project.calorieservice.service.MockApiService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -457,6 +468,47 @@ public class MockRouteControllerTests {
     verify(mockApiService, times(1)).incrementViews(1);
   }
 
+  /**
+   * Ensures {@code POST /recipe/viewRecipe}
+   * passes the viewing client to the service when given.
+   */
+  @Test
+  void viewRecipeWithClientReturns200() throws Exception {
+    when(mockApiService.incrementViews(1, 5)).thenReturn(true);
+
+    mockMvc.perform(post("/recipe/viewRecipe").param("recipeId", "1").param("clientId", "5"))
+        .andExpect(status().isOk());
+
+    verify(mockApiService, times(1)).incrementViews(1, 5);
+  }
+
+  /**
+   * Ensures {@code GET /recipe/uniqueViews}
+   * returns HTTP 200 with the estimated unique viewers.
+   */
+  @Test
+  void uniqueViewsReturns200() throws Exception {
+    when(mockApiService.getUniqueViews(1)).thenReturn(Optional.of(12L));
+
+    mockMvc.perform(get("/recipe/uniqueViews").param("recipeId", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.recipeId").value(1))
+        .andExpect(jsonPath("$.uniqueViews").value(12));
+  }
+
+  /**
+   * Ensures {@code GET /recipe/uniqueViews}
+   * returns HTTP 404 when the recipe does not exist.
+   */
+  @Test
+  void uniqueViewsReturns404() throws Exception {
+    when(mockApiService.getUniqueViews(1)).thenReturn(Optional.empty());
+
+    mockMvc.perform(get("/recipe/uniqueViews").param("recipeId", "1"))
+        .andExpect(status().isNotFound())
+        .andExpect(jsonPath("$.message").value("Recipe not found"));
+  }
+
   // ======= 400 Tests - Atypical Inputs / Edge Cases ======================
   /*
    It should be noted that although we explictly return requests in the 400s
@@ -798,4 +850,282 @@ public class MockRouteControllerTests {
 
     verifyNoInteractions(mockApiService);
   }
+
+  /**
+   * Ensures {@code GET /recipe/trending}
+   * returns the service's trending list.
+   */
+  @Test
+  void trendingRecipesReturns200() throws Exception {
+    when(mockApiService.getTrendingRecipes("Dessert", 2)).thenReturn(
+        List.of(new TrendingRecipe(7, "Pie", "Dessert", 300, 4.5)));
+
+    mockMvc.perform(get("/recipe/trending").param("category", "Dessert").param("limit", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].recipeId").value(7))
+        .andExpect(jsonPath("$[0].score").value(4.5));
+
+    verify(mockApiService, times(1)).getTrendingRecipes("Dessert", 2);
+  }
+
+  /**
+   * Ensures {@code GET /recipe/trending}
+   * returns HTTP 400 when the limit is out of range.
+   */
+  @Test
+  void trendingRecipesReturns400() throws Exception {
+    mockMvc.perform(get("/recipe/trending").param("limit", "0"))
+        .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(mockApiService);
+  }
+
+  /**
+   * Ensures {@code GET /recipe/topViewed}
+   * returns the service's heavy-hitter report.
+   */
+  @Test
+  void topViewedRecipesReturns200() throws Exception {
+    when(mockApiService.getTopViewedRecipes(5)).thenReturn(Map.of(
+        "totalViews", 12L,
+        "recipes", List.of(new RecipeViewEstimate(7, 10, 9, 10))));
+
+    mockMvc.perform(get("/recipe/topViewed").param("limit", "5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.totalViews").value(12))
+        .andExpect(jsonPath("$.recipes[0].recipeId").value(7))
+        .andExpect(jsonPath("$.recipes[0].lowerBound").value(9));
+
+    verify(mockApiService, times(1)).getTopViewedRecipes(5);
+  }
+
+  /**
+   * Ensures {@code GET /recipe/topViewed}
+   * returns HTTP 400 when the limit is out of range.
+   */
+  @Test
+  void topViewedRecipesReturns400() throws Exception {
+    mockMvc.perform(get("/recipe/topViewed").param("limit", "51"))
+        .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(mockApiService);
+  }
+
+  /**
+   * Ensures {@code GET /recipe/totalCalorie}
+   * returns the recipe's ETag and Cache-Control with HTTP 200.
+   */
+  @Test
+  void totalCalorieReturnsEtagAndCacheControl() throws Exception {
+    when(mockApiService.getTotalCalories(7)).thenReturn(Optional.of(400));
+    when(mockApiService.getRecipeVersion(7)).thenReturn(null, "\"abc\"");
+
+    mockMvc.perform(get("/recipe/totalCalorie").param("recipeId", "7"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"abc\""))
+        .andExpect(header().string("Cache-Control", "max-age=3600"))
+        .andExpect(jsonPath("$.totalCalories").value(400));
+  }
+
+  /**
+   * Ensures {@code GET /recipe/calorieBreakdown}
+   * returns HTTP 304 without reading the recipe when the client's ETag is current.
+   */
+  @Test
+  void calorieBreakdownReturns304ForCurrentEtag() throws Exception {
+    when(mockApiService.getRecipeVersion(7)).thenReturn("\"abc\"");
+
+    mockMvc.perform(get("/recipe/calorieBreakdown").param("recipeId", "7")
+            .header("If-None-Match", "\"old\", W/\"abc\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", "\"abc\""))
+        .andExpect(header().string("Cache-Control", "max-age=3600"))
+        .andExpect(content().string(""));
+
+    verify(mockApiService, never()).getCalorieBreakdown(anyInt());
+  }
+
+  /**
+   * Ensures {@code GET /recipe/totalCalorie}
+   * reads the recipe when the client's ETag is stale.
+   */
+  @Test
+  void totalCalorieReadsRecipeForStaleEtag() throws Exception {
+    when(mockApiService.getRecipeVersion(7)).thenReturn("\"new\"");
+    when(mockApiService.getTotalCalories(7)).thenReturn(Optional.of(350));
+
+    mockMvc.perform(get("/recipe/totalCalorie").param("recipeId", "7")
+            .header("If-None-Match", "\"old\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"new\""))
+        .andExpect(jsonPath("$.totalCalories").value(350));
+
+    verify(mockApiService, times(1)).getTotalCalories(7);
+  }
+
+  /**
+   * Ensures {@code GET /food/alternative}
+   * returns HTTP 304 for a current ETag and its own Cache-Control max-age.
+   */
+  @Test
+  void foodAlternativeReturns304ForCurrentEtag() throws Exception {
+    when(mockApiService.getFoodAlternativesVersion(1)).thenReturn("W/\"abc\"");
+
+    mockMvc.perform(get("/food/alternative").param("foodId", "1")
+            .header("If-None-Match", "W/\"abc\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", "W/\"abc\""))
+        .andExpect(header().string("Cache-Control", "max-age=300"));
+
+    verify(mockApiService, never()).getFoodAlternatives(anyInt());
+  }
+
+  /**
+   * Ensures {@code GET /client/recommend}
+   * returns only the requested recipe fields.
+   */
+  @Test
+  void recommendReturnsSelectedFields() throws Exception {
+    Recipe recipe = new Recipe("Pie", 2, "Dessert",
+        new ArrayList<>(List.of(new Food("Apple", 1, 95, "Fruit"))), 4, 1, 95);
+    when(mockApiService.recommend(anyInt(), any(RecipeFields.class)))
+        .thenReturn(List.of(recipe));
+
+    mockMvc.perform(get("/client/recommend").param("clientId", "1")
+            .param("fields", "totalCalories, recipeId,recipeName"))
+        .andExpect(status().isOk())
+        .andExpect(content().json(
+            "[{\"recipeName\":\"Pie\",\"recipeId\":2,\"totalCalories\":95}]", true));
+
+    verify(mockApiService, never()).recommend(1);
+  }
+
+  /**
+   * Ensures {@code GET /recipe/alternative}
+   * projects both alternative lists.
+   */
+  @Test
+  void recipeAlternativeReturnsSelectedFields() throws Exception {
+    Recipe recipe = new Recipe("Pie", 2, "Dessert", new ArrayList<>(), 4, 1, 95);
+    when(mockApiService.getRecipeAlternatives(anyInt(), any(RecipeFields.class)))
+        .thenReturn(Optional.of(Map.of(
+            "topAlternatives", List.of(recipe), "randomAlternatives", List.of())));
+
+    mockMvc.perform(get("/recipe/alternative").param("recipeId", "1")
+            .param("fields", "recipeId"))
+        .andExpect(status().isOk())
+        .andExpect(content().json(
+            "{\"topAlternatives\":[{\"recipeId\":2}],\"randomAlternatives\":[]}", true));
+  }
+
+  /**
+   * Ensures recipe listing endpoints return HTTP 400 for an unknown field
+   * without calling the service.
+   */
+  @Test
+  void unknownFieldReturns400() throws Exception {
+    mockMvc.perform(get("/client/recommendHealthy").param("clientId", "1")
+            .param("calorieMax", "500").param("fields", "recipeId,secret"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("Unknown recipe field: secret"));
+    mockMvc.perform(get("/recipe/alternative").param("recipeId", "1")
+            .param("fields", "viewerSketch"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("Unknown recipe field: viewerSketch"));
+
+    verifyNoInteractions(mockApiService);
+  }
+
+  /**
+   * Ensures {@code POST /recipe/batchGet}
+   * returns each requested recipe keyed by id, with not-found markers.
+   */
+  @Test
+  void recipeBatchGetReturnsResultsKeyedById() throws Exception {
+    Recipe recipe = new Recipe("Pie", 2, "Dessert", new ArrayList<>(), 4, 1, 95);
+    when(mockApiService.getRecipesByIds(List.of(2, 9), null)).thenReturn(Map.of(2, recipe));
+
+    mockMvc.perform(post("/recipe/batchGet")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[2, 9]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$['2'].recipeName").value("Pie"))
+        .andExpect(jsonPath("$['9'].message").value("Recipe not found"));
+  }
+
+  /**
+   * Ensures {@code POST /recipe/batchGet}
+   * projects recipes when fields are given.
+   */
+  @Test
+  void recipeBatchGetReturnsSelectedFields() throws Exception {
+    Recipe recipe = new Recipe("Pie", 2, "Dessert", new ArrayList<>(), 4, 1, 95);
+    when(mockApiService.getRecipesByIds(any(), any(RecipeFields.class)))
+        .thenReturn(Map.of(2, recipe));
+
+    mockMvc.perform(post("/recipe/batchGet").param("fields", "recipeId,totalCalories")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[2]"))
+        .andExpect(status().isOk())
+        .andExpect(content().json("{\"2\":{\"recipeId\":2,\"totalCalories\":95}}", true));
+  }
+
+  /**
+   * Ensures {@code POST /food/batchGet}
+   * returns foods keyed by id and rejects invalid id lists.
+   */
+  @Test
+  void foodBatchGetReturnsResultsAndRejectsInvalidIds() throws Exception {
+    when(mockApiService.getFoodsByIds(List.of(1, 5)))
+        .thenReturn(Map.of(1, new Food("Apple", 1, 95, "Fruit")));
+
+    mockMvc.perform(post("/food/batchGet")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[1, 5]"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$['1'].foodName").value("Apple"))
+        .andExpect(jsonPath("$['5'].message").value("Food not found"));
+    mockMvc.perform(post("/food/batchGet")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[]"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().string("At least one food ID is required."));
+    String tooMany = IntStream.rangeClosed(0, RouteController.MAX_BATCH_GET_SIZE)
+        .mapToObj(String::valueOf)
+        .collect(Collectors.joining(",", "[", "]"));
+    mockMvc.perform(post("/recipe/batchGet")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(tooMany))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message")
+            .value("At most 100 recipe IDs may be requested at once."));
+  }
+
+  /**
+   * Ensures {@code POST /recipe/batchGet}
+   * returns HTTP 500 when the recipes cannot be read.
+   */
+  @Test
+  void recipeBatchGetReturns500() throws Exception {
+    when(mockApiService.getRecipesByIds(List.of(1), null)).thenReturn(null);
+
+    mockMvc.perform(post("/recipe/batchGet")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[1]"))
+        .andExpect(status().isInternalServerError());
+  }
+
+  /**
+   * Ensures {@code GET /stats/firestoreReads}
+   * returns the service's read coalescing counts.
+   */
+  @Test
+  void firestoreReadStatsReturns200() throws Exception {
+    when(mockApiService.getReadCoalescingStats()).thenReturn(Map.of(
+        "documentReads", Map.of("calls", 10L, "coalesced", 7L, "inFlight", 0L)));
+
+    mockMvc.perform(get("/stats/firestoreReads"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.documentReads.coalesced").value(7));
+  }
 }
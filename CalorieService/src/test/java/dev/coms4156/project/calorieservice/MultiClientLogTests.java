@@ -7,6 +7,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.coms4156.project.calorieservice.client.ClientEvent;
+import dev.coms4156.project.calorieservice.client.ClientEventLog;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -35,6 +36,9 @@ public class MultiClientLogTests {
   @Autowired
   private ObjectMapper objectMapper;
 
+  @Autowired
+  private ClientEventLog eventLog;
+
   /**
    * Cleans the log file before and after each test.
    *
@@ -88,16 +92,17 @@ public class MultiClientLogTests {
         post("/client/log")
           .contentType(MediaType.APPLICATION_JSON)
           .content(objectMapper.writeValueAsString(event1)))
-        .andExpect(status().isCreated());
+        .andExpect(status().isAccepted());
 
     // Send second event
     mockMvc.perform(
         post("/client/log")
           .contentType(MediaType.APPLICATION_JSON)
           .content(objectMapper.writeValueAsString(event2)))
-        .andExpect(status().isCreated());
+        .andExpect(status().isAccepted());
 
     // Both events should now be in the log file as separate JSON lines
+    eventLog.flush();
     List<String> lines = Files.readAllLines(LOG_FILE);
     assertEquals(2, lines.size(), "Expected two logged client events");
 
@@ -0,0 +1,170 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.coms4156.project.calorieservice.models.Client;
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.FirestoreService;
+import dev.coms4156.project.calorieservice.service.MockApiService;
+import dev.coms4156.project.calorieservice.service.ReactiveApiService;
+import dev.coms4156.project.calorieservice.service.ReactiveFirestoreService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Unit tests for ReactiveApiService with a mocked ReactiveFirestoreService.
+ */
+public class ReactiveApiServiceTests {
+
+  private ReactiveFirestoreService firestoreService;
+  private MockApiService mockApiService;
+  private ReactiveApiService service;
+
+  /**
+   * Creates the service under test before each test.
+   */
+  @BeforeEach
+  public void setUp() {
+    firestoreService = mock(ReactiveFirestoreService.class);
+    mockApiService = new MockApiService(mock(FirestoreService.class));
+    service = new ReactiveApiService(firestoreService, mockApiService);
+  }
+
+  @Test
+  public void foodAlternativesReturnsUpToFiveTest() {
+    Food apple = new Food("Apple", 1, 95, "Fruit");
+    List<Food> lower = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      lower.add(new Food("Fruit " + i, 10 + i, 50, "Fruit"));
+    }
+    when(firestoreService.getFoodById(1)).thenReturn(Mono.just(apple));
+    when(firestoreService.getFoodsByCategoryAndCalories("Fruit", 95))
+        .thenReturn(Flux.fromIterable(lower));
+    when(firestoreService.getFoodById(2)).thenReturn(Mono.empty());
+
+    assertEquals(5, service.getFoodAlternatives(1).block().size());
+    assertNull(service.getFoodAlternatives(2).block());
+  }
+
+  @Test
+  public void recommendFillsFromAllRecipesTest() {
+    Recipe liked = new Recipe("Liked", 1, "Dessert", new ArrayList<>(), 0, 0, 300);
+    Client client = new Client("Client", 5);
+    client.likeRecipe(liked);
+    when(firestoreService.getClientById(5)).thenReturn(Mono.just(client));
+    when(firestoreService.getRecipesByCategoryAndCalories("Dessert", Integer.MAX_VALUE))
+        .thenReturn(Flux.just(liked,
+            new Recipe("Pie", 2, "Dessert", new ArrayList<>(), 0, 0, 200)));
+    when(firestoreService.getRecipesByCalories(Integer.MAX_VALUE))
+        .thenReturn(Flux.just(liked,
+            new Recipe("Pie", 2, "Dessert", new ArrayList<>(), 0, 0, 200),
+            new Recipe("Soup", 3, "Lunch", new ArrayList<>(), 0, 0, 100)));
+
+    List<Recipe> recommendations = service.recommend(5).block();
+    assertEquals(2, recommendations.size());
+    assertTrue(recommendations.stream().noneMatch(recipe -> recipe.getRecipeId() == 1));
+  }
+
+  @Test
+  public void recommendEmptyForUnknownOrNoLikesTest() {
+    when(firestoreService.getClientById(6)).thenReturn(Mono.just(new Client("New", 6)));
+    when(firestoreService.getClientById(7)).thenReturn(Mono.empty());
+
+    assertNull(service.recommend(6).block());
+    assertNull(service.recommend(7).block());
+    verify(firestoreService, never()).getRecipesByCalories(anyInt());
+  }
+
+  @Test
+  public void recommendHealthyWithoutLikesUsesAnyRecipeTest() {
+    when(firestoreService.getClientById(6)).thenReturn(Mono.just(new Client("New", 6)));
+    when(firestoreService.getRecipesByCalories(250)).thenReturn(
+        Flux.just(new Recipe("Soup", 3, "Lunch", new ArrayList<>(), 0, 0, 100)));
+
+    List<Recipe> recommendations = service.recommendHealthy(6, 250).block();
+    assertEquals(1, recommendations.size());
+    assertEquals(3, recommendations.get(0).getRecipeId());
+  }
+
+  @Test
+  public void recipeAlternativesExcludeBaseRecipeTest() {
+    Recipe base = new Recipe("Cake", 1, "Dessert", new ArrayList<>(), 0, 0, 400);
+    when(firestoreService.getRecipeById(1)).thenReturn(Mono.just(base));
+    when(firestoreService.getRecipesByCategoryAndCalories("Dessert", 399)).thenReturn(
+        Flux.just(new Recipe("Pie", 2, "Dessert", new ArrayList<>(), 9, 0, 200)));
+
+    Map<String, List<Recipe>> alternatives = service.getRecipeAlternatives(1).block();
+    assertEquals(1, alternatives.get("topAlternatives").size());
+    assertTrue(alternatives.get("randomAlternatives").isEmpty());
+  }
+
+  @Test
+  public void viewsUpdateRecipeAndFeedTrackersTest() {
+    Recipe recipe = new Recipe("Cake", 1, "Dessert", new ArrayList<>(), 0, 0, 400);
+    when(firestoreService.getRecipeById(1)).thenReturn(Mono.just(recipe));
+    when(firestoreService.getRecipeById(2)).thenReturn(Mono.empty());
+    when(firestoreService.updateRecipe(any(Recipe.class))).thenReturn(Mono.just(true));
+
+    assertTrue(service.incrementViews(1, 42).block());
+    assertFalse(service.incrementViews(2, null).block());
+    assertEquals(1, recipe.getViews());
+    assertEquals(1L, service.getUniqueViews(1).block());
+    assertEquals(1, service.getTrendingRecipes(null, 10).size());
+    assertEquals(1L, service.getTopViewedRecipes(10).get("totalViews"));
+  }
+
+  @Test
+  public void viewsReportFalseOnFirestoreErrorTest() {
+    when(firestoreService.getRecipeById(1))
+        .thenReturn(Mono.error(new IllegalStateException("Connection failed")));
+
+    assertFalse(service.incrementViews(1, null).block());
+    assertTrue(service.getTrendingRecipes(null, 10).isEmpty());
+  }
+
+  @Test
+  public void likeRecipeUpdatesRecipeAndClientTest() {
+    Recipe recipe = new Recipe("Cake", 1, "Dessert", new ArrayList<>(), 0, 0, 400);
+    Client client = new Client("Client", 5);
+    when(firestoreService.getClientById(5)).thenReturn(Mono.just(client));
+    when(firestoreService.getRecipeById(1)).thenReturn(Mono.just(recipe));
+    when(firestoreService.getClientById(6)).thenReturn(Mono.empty());
+    when(firestoreService.updateRecipe(recipe)).thenReturn(Mono.just(true));
+    when(firestoreService.updateClient(client)).thenReturn(Mono.just(true));
+
+    assertTrue(service.likeRecipe(5, 1).block());
+    assertFalse(service.likeRecipe(5, 1).block());
+    assertFalse(service.likeRecipe(6, 1).block());
+    assertEquals(1, recipe.getLikes());
+    verify(firestoreService).updateClient(client);
+  }
+
+  @Test
+  public void calorieQueriesTest() {
+    ArrayList<Food> ingredients = new ArrayList<>();
+    ingredients.add(new Food("Flour", 11, 300, "Grain"));
+    ingredients.add(new Food("Sugar", 12, 100, "Sweetener"));
+    Recipe recipe = new Recipe("Cake", 1, "Dessert", ingredients, 0, 0, 400);
+    when(firestoreService.getRecipeById(1)).thenReturn(Mono.just(recipe));
+
+    assertEquals(400, service.getTotalCalories(1).block());
+    assertEquals(List.of("Flour", "Sugar"),
+        new ArrayList<>(service.getCalorieBreakdown(1).block().keySet()));
+    assertEquals(0L, service.getUniqueViews(1).block());
+  }
+}
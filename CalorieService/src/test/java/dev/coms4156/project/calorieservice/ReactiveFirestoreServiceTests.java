@@ -0,0 +1,203 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiStreamObserver;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.WriteResult;
+import dev.coms4156.project.calorieservice.models.Client;
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.FirestoreService;
+import dev.coms4156.project.calorieservice.service.ReactiveFirestoreService;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for ReactiveFirestoreService with mocked Firestore dependencies.
+ */
+@SuppressWarnings("unchecked")
+public class ReactiveFirestoreServiceTests {
+
+  private ReactiveFirestoreService reactiveFirestoreService;
+  private CollectionReference mockFoodCollection;
+  private CollectionReference mockRecipeCollection;
+  private CollectionReference mockClientCollection;
+  private Query mockQuery;
+
+  /**
+   * Sets up mocks for Firestore dependencies before each test.
+   */
+  @BeforeEach
+  public void setUp() throws Exception {
+    mockFoodCollection = mock(CollectionReference.class);
+    mockRecipeCollection = mock(CollectionReference.class);
+    mockClientCollection = mock(CollectionReference.class);
+    mockQuery = mock(Query.class);
+
+    FirestoreService firestoreService = new FirestoreService();
+    Firestore mockFirestore = mock(Firestore.class);
+    Field dbField = FirestoreService.class.getDeclaredField("db");
+    dbField.setAccessible(true);
+    dbField.set(firestoreService, mockFirestore);
+
+    when(mockFirestore.collection("food")).thenReturn(mockFoodCollection);
+    when(mockFirestore.collection("recipes")).thenReturn(mockRecipeCollection);
+    when(mockFirestore.collection("clients")).thenReturn(mockClientCollection);
+    reactiveFirestoreService = new ReactiveFirestoreService(firestoreService);
+  }
+
+  @Test
+  public void getRecipeByIdReturnsExistingRecipeTest() {
+    stubDocument(mockRecipeCollection, "1", createRecipeMap(1, "Cake", "Dessert", 400));
+
+    Recipe recipe = reactiveFirestoreService.getRecipeById(1).block();
+    assertEquals(1, recipe.getRecipeId());
+    assertEquals("Cake", recipe.getRecipeName());
+  }
+
+  @Test
+  public void getRecipeByIdCompletesEmptyForMissingRecipeTest() {
+    stubDocument(mockRecipeCollection, "2", null);
+
+    assertNull(reactiveFirestoreService.getRecipeById(2).block());
+  }
+
+  @Test
+  public void getRecipeByIdPropagatesFailureTest() {
+    DocumentReference docRef = mock(DocumentReference.class);
+    when(mockRecipeCollection.document("3")).thenReturn(docRef);
+    when(docRef.get()).thenReturn(
+        ApiFutures.immediateFailedFuture(new IllegalStateException("Connection failed")));
+
+    assertThrows(IllegalStateException.class,
+        () -> reactiveFirestoreService.getRecipeById(3).block());
+  }
+
+  @Test
+  public void queryStreamsEachDocumentTest() {
+    when(mockRecipeCollection.whereEqualTo("category", "Dessert")).thenReturn(mockQuery);
+    when(mockQuery.whereLessThanOrEqualTo("totalCalories", 500)).thenReturn(mockQuery);
+    DocumentSnapshot first = mockSnapshot(createRecipeMap(1, "Cake", "Dessert", 400));
+    DocumentSnapshot second = mockSnapshot(createRecipeMap(2, "Pie", "Dessert", 300));
+    doAnswer(invocation -> {
+      ApiStreamObserver<DocumentSnapshot> observer = invocation.getArgument(0);
+      observer.onNext(first);
+      observer.onNext(second);
+      observer.onCompleted();
+      return null;
+    }).when(mockQuery).stream(any());
+
+    List<Recipe> recipes = reactiveFirestoreService
+        .getRecipesByCategoryAndCalories("Dessert", 500).collectList().block();
+    assertEquals(2, recipes.size());
+    assertEquals(1, recipes.get(0).getRecipeId());
+    assertEquals(2, recipes.get(1).getRecipeId());
+  }
+
+  @Test
+  public void queryPropagatesStreamErrorTest() {
+    when(mockFoodCollection.whereEqualTo("category", "Fruit")).thenReturn(mockQuery);
+    when(mockQuery.whereLessThan("calories", 100)).thenReturn(mockQuery);
+    doAnswer(invocation -> {
+      ApiStreamObserver<DocumentSnapshot> observer = invocation.getArgument(0);
+      observer.onError(new IllegalStateException("Stream failed"));
+      return null;
+    }).when(mockQuery).stream(any());
+
+    assertThrows(IllegalStateException.class, () -> reactiveFirestoreService
+        .getFoodsByCategoryAndCalories("Fruit", 100).collectList().block());
+  }
+
+  @Test
+  public void getClientByIdLoadsLikedRecipesInOrderTest() {
+    Map<String, Object> clientMap = new HashMap<>();
+    clientMap.put("clientId", 7);
+    clientMap.put("clientname", "Reactive Client");
+    clientMap.put("likedRecipeIds", List.of(2L, 9L, 1L));
+    stubDocument(mockClientCollection, "7", clientMap);
+    stubDocument(mockRecipeCollection, "1", createRecipeMap(1, "Cake", "Dessert", 400));
+    stubDocument(mockRecipeCollection, "2", createRecipeMap(2, "Salad", "Lunch", 150));
+    stubDocument(mockRecipeCollection, "9", null);
+
+    Client client = reactiveFirestoreService.getClientById(7).block();
+    assertEquals("Reactive Client", client.getClientname());
+    assertEquals(2, client.getLikedRecipes().size());
+    assertEquals(2, client.getLikedRecipes().get(0).getRecipeId());
+    assertEquals(1, client.getLikedRecipes().get(1).getRecipeId());
+    assertTrue(client.hasLiked(1));
+  }
+
+  @Test
+  public void addFoodWritesOnlyNewFoodTest() {
+    final DocumentReference existingRef = stubDocument(mockFoodCollection, "1",
+        createFoodMap(1, "Apple", 95, "Fruit"));
+    DocumentReference newRef = stubDocument(mockFoodCollection, "2", null);
+    when(newRef.set(anyMap())).thenReturn(ApiFutures.immediateFuture(mock(WriteResult.class)));
+
+    assertFalse(reactiveFirestoreService.addFood(new Food("Apple", 1, 95, "Fruit")).block());
+    assertTrue(reactiveFirestoreService.addFood(new Food("Pear", 2, 80, "Fruit")).block());
+    assertFalse(reactiveFirestoreService.addFood(null).block());
+    verify(existingRef, never()).set(anyMap());
+    verify(newRef).set(anyMap());
+  }
+
+  private DocumentReference stubDocument(CollectionReference collection, String id,
+      Map<String, Object> data) {
+    DocumentReference docRef = mock(DocumentReference.class);
+    DocumentSnapshot snapshot = mockSnapshot(data);
+    when(collection.document(id)).thenReturn(docRef);
+    when(docRef.get()).thenReturn(ApiFutures.immediateFuture(snapshot));
+    return docRef;
+  }
+
+  private DocumentSnapshot mockSnapshot(Map<String, Object> data) {
+    DocumentSnapshot snapshot = mock(DocumentSnapshot.class);
+    when(snapshot.exists()).thenReturn(data != null);
+    when(snapshot.getData()).thenReturn(data);
+    return snapshot;
+  }
+
+  private Map<String, Object> createFoodMap(int id, String name, int calories, String category) {
+    Map<String, Object> map = new HashMap<>();
+    map.put("foodId", id);
+    map.put("foodName", name);
+    map.put("calories", calories);
+    map.put("category", category);
+    return map;
+  }
+
+  private Map<String, Object> createRecipeMap(int id, String name, String category,
+      int calories) {
+    Map<String, Object> map = new HashMap<>();
+    map.put("recipeId", id);
+    map.put("recipeName", name);
+    map.put("category", category);
+    map.put("views", 10);
+    map.put("likes", 5);
+    map.put("totalCalories", calories);
+    map.put("ingredients", new ArrayList<>());
+    return map;
+  }
+}
@@ -0,0 +1,167 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import dev.coms4156.project.calorieservice.config.ReactiveConfig;
+import dev.coms4156.project.calorieservice.controller.ReactiveRouteHandler;
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.ReactiveApiService;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mocking Framework tests for the reactive routes served by
+ * {@link dev.coms4156.project.calorieservice.controller.ReactiveRouteHandler}.
+ */
+@WebFluxTest
+@Import({ReactiveConfig.class, ReactiveRouteHandler.class})
+public class ReactiveRouteHandlerTests {
+
+  @Autowired
+  private WebTestClient webTestClient;
+
+  @MockBean
+  private ReactiveApiService reactiveApiService;
+
+  /**
+   * Ensures {@code GET /food/alternative} returns the alternatives with HTTP 200.
+   */
+  @Test
+  void foodAlternativeReturns200() {
+    when(reactiveApiService.getFoodAlternatives(1))
+        .thenReturn(Mono.just(List.of(new Food("Pear", 2, 80, "Fruit"))));
+
+    webTestClient.get().uri("/food/alternative?foodId=1").exchange()
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$[0].foodName").isEqualTo("Pear");
+  }
+
+  /**
+   * Ensures {@code GET /food/alternative} returns HTTP 404 for an unknown food.
+   */
+  @Test
+  void foodAlternativeReturns404() {
+    when(reactiveApiService.getFoodAlternatives(1)).thenReturn(Mono.empty());
+
+    webTestClient.get().uri("/food/alternative?foodId=1").exchange()
+        .expectStatus().isNotFound()
+        .expectBody(String.class).isEqualTo("Food with ID 1 not found.");
+  }
+
+  /**
+   * Ensures a missing or malformed required parameter returns HTTP 400
+   * without calling the service.
+   */
+  @Test
+  void missingParameterReturns400() {
+    webTestClient.get().uri("/client/recommend").exchange()
+        .expectStatus().isBadRequest();
+    webTestClient.get().uri("/recipe/totalCalorie?recipeId=abc").exchange()
+        .expectStatus().isBadRequest();
+
+    verifyNoInteractions(reactiveApiService);
+  }
+
+  /**
+   * Ensures {@code GET /client/recommend} returns HTTP 200 with a message when there
+   * are no recommendations, and HTTP 404 for an unknown client.
+   */
+  @Test
+  void recommendEmptyAndNotFound() {
+    when(reactiveApiService.recommend(1)).thenReturn(Mono.just(new ArrayList<>()));
+    when(reactiveApiService.recommend(2)).thenReturn(Mono.empty());
+
+    webTestClient.get().uri("/client/recommend?clientId=1").exchange()
+        .expectStatus().isOk()
+        .expectBody(String.class).isEqualTo("No recommendations found for client 1.");
+    webTestClient.get().uri("/client/recommend?clientId=2").exchange()
+        .expectStatus().isNotFound();
+  }
+
+  /**
+   * Ensures {@code GET /recipe/totalCalorie} returns HTTP 500 when the service fails.
+   */
+  @Test
+  void totalCalorieReturns500() {
+    when(reactiveApiService.getTotalCalories(1))
+        .thenReturn(Mono.error(new RuntimeException("Service failure")));
+
+    webTestClient.get().uri("/recipe/totalCalorie?recipeId=1").exchange()
+        .expectStatus().is5xxServerError()
+        .expectBody(String.class).isEqualTo("Error occurred when getting total calorie.");
+  }
+
+  /**
+   * Ensures {@code GET /recipe/trending} rejects an out-of-range limit.
+   */
+  @Test
+  void trendingRejectsLimit() {
+    webTestClient.get().uri("/recipe/trending?limit=51").exchange()
+        .expectStatus().isBadRequest()
+        .expectBody().jsonPath("$.message").isEqualTo("Limit must be between 1 and 50");
+  }
+
+  /**
+   * Ensures {@code POST /recipe/viewRecipe} passes the viewing client to the service.
+   */
+  @Test
+  void viewRecipeWithClientReturns200() {
+    when(reactiveApiService.incrementViews(1, 5)).thenReturn(Mono.just(true));
+    when(reactiveApiService.incrementViews(2, null)).thenReturn(Mono.just(false));
+
+    webTestClient.post().uri("/recipe/viewRecipe?recipeId=1&clientId=5").exchange()
+        .expectStatus().isOk()
+        .expectBody().jsonPath("$.message").isEqualTo("Recipe view recorded");
+    webTestClient.post().uri("/recipe/viewRecipe?recipeId=2").exchange()
+        .expectStatus().isNotFound()
+        .expectBody().jsonPath("$.message").isEqualTo("Recipe not found");
+
+    verify(reactiveApiService).incrementViews(1, 5);
+  }
+
+  /**
+   * Ensures {@code POST /recipe/addRecipe} returns HTTP 201 for a new recipe,
+   * HTTP 409 for a duplicate, and HTTP 400 without an id.
+   */
+  @Test
+  void addRecipeStatuses() {
+    when(reactiveApiService.addRecipe(any(Recipe.class)))
+        .thenReturn(Mono.just(true), Mono.just(false));
+    Recipe recipe = new Recipe("Cake", 10, "Dessert", new ArrayList<>(), 0, 0, 400);
+
+    webTestClient.post().uri("/recipe/addRecipe").contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(recipe).exchange()
+        .expectStatus().isCreated()
+        .expectBody().jsonPath("$.recipeId").isEqualTo(10);
+    webTestClient.post().uri("/recipe/addRecipe").contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(recipe).exchange()
+        .expectStatus().isEqualTo(409);
+    webTestClient.post().uri("/recipe/addRecipe").contentType(MediaType.APPLICATION_JSON)
+        .bodyValue("{\"recipeName\":\"No Id\"}").exchange()
+        .expectStatus().isBadRequest()
+        .expectBody().jsonPath("$.message").isEqualTo("Recipe id must be provided");
+  }
+
+  /**
+   * Ensures {@code POST /client/likeRecipe} returns HTTP 400 when the like fails.
+   */
+  @Test
+  void clientLikeRecipeReturns400() {
+    when(reactiveApiService.likeRecipe(1, 2)).thenReturn(Mono.just(false));
+
+    webTestClient.post().uri("/client/likeRecipe?clientId=1&recipeId=2").exchange()
+        .expectStatus().isBadRequest();
+  }
+}
@@ -0,0 +1,62 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.models.RecipeFields;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the RecipeFields class.
+ */
+public class RecipeFieldsUnitTests {
+
+  @Test
+  public void parseReturnsNullForAllFieldsTest() {
+    assertNull(RecipeFields.parse(null));
+    assertNull(RecipeFields.parse(""));
+    assertNull(RecipeFields.parse(" , "));
+  }
+
+  @Test
+  public void parseRejectsUnknownFieldTest() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> RecipeFields.parse("recipeId,viewerSketch"));
+    assertEquals("Unknown recipe field: viewerSketch", e.getMessage());
+  }
+
+  @Test
+  public void projectKeepsSelectedFieldsInOrderTest() {
+    ArrayList<Food> ingredients = new ArrayList<>();
+    ingredients.add(new Food("Flour", 11, 300, "Grain"));
+    Recipe recipe = new Recipe("Cake", 1, "Dessert", ingredients, 3, 2, 300);
+    RecipeFields fields = RecipeFields.parse("totalCalories, recipeName ,recipeId,recipeId");
+
+    Map<String, Object> projected = fields.project(recipe);
+    assertEquals(List.of("recipeName", "recipeId", "totalCalories"),
+        new ArrayList<>(projected.keySet()));
+    assertEquals(300, projected.get("totalCalories"));
+    assertTrue(fields.includes("recipeName"));
+    assertFalse(fields.includes("ingredients"));
+    assertEquals(1, fields.project(List.of(recipe)).size());
+  }
+
+  @Test
+  public void firestoreFieldsAddRankingFieldsTest() {
+    assertArrayEquals(
+        new String[] {"recipeId", "category", "views", "likes", "totalCalories", "recipeName"},
+        RecipeFields.parse("recipeName").firestoreFields());
+    assertArrayEquals(
+        new String[] {"recipeId", "category", "views", "likes", "totalCalories", "ingredients"},
+        RecipeFields.parse("ingredients,views").firestoreFields());
+  }
+}
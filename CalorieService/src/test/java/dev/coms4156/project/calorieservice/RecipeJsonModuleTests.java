@@ -0,0 +1,160 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import dev.coms4156.project.calorieservice.config.RecipeJsonModule;
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the RecipeJsonModule class.
+ */
+public class RecipeJsonModuleTests {
+
+  private final ObjectMapper plainMapper = new ObjectMapper();
+  private RecipeJsonModule module;
+  private ObjectMapper cachingMapper;
+
+  /**
+   * Creates a mapper with a module that caches at most two recipes.
+   */
+  @BeforeEach
+  public void setUp() {
+    module = new RecipeJsonModule(2);
+    cachingMapper = new ObjectMapper().registerModule(module);
+  }
+
+  /**
+   * Returns a recipe as read from Firestore, at version 1000.
+   */
+  private static Recipe recipe(int recipeId) {
+    ArrayList<Food> ingredients = new ArrayList<>();
+    ingredients.add(new Food("Flour", 11, 300, "Grain"));
+    ingredients.add(new Food("Sugar", 12, 100, "Sweetener"));
+    Recipe recipe = new Recipe("Cake " + recipeId, recipeId, "Dessert", ingredients, 3, 1, 400);
+    recipe.setVersion(1000);
+    return recipe;
+  }
+
+  /**
+   * Returns a recipe with the given id and version but a different name, so whether its
+   * JSON came from the cache shows in the name written.
+   */
+  private static Recipe renamed(int recipeId) {
+    Recipe recipe = recipe(recipeId);
+    recipe.setRecipeName("Renamed " + recipeId);
+    recipe.setVersion(1000);
+    return recipe;
+  }
+
+  @Test
+  public void cachedJsonMatchesJacksonTest() throws Exception {
+    Recipe recipe = recipe(1);
+    String expected = plainMapper.writeValueAsString(recipe);
+
+    assertEquals(expected, cachingMapper.writeValueAsString(recipe));
+    assertEquals(1, module.cachedRecipeCount());
+    assertEquals(expected, cachingMapper.writeValueAsString(recipe(1)));
+    assertEquals(plainMapper.writeValueAsString(List.of(recipe, recipe(2))),
+        cachingMapper.writeValueAsString(List.of(recipe, recipe(2))));
+    assertEquals(plainMapper.writeValueAsString(Map.of("recipes", List.of(recipe))),
+        cachingMapper.writeValueAsString(Map.of("recipes", List.of(recipe))));
+  }
+
+  @Test
+  public void changedRecipeIsSerializedAgainTest() throws Exception {
+    Recipe recipe = recipe(1);
+    cachingMapper.writeValueAsString(recipe);
+
+    recipe.incrementViews();
+    assertEquals(0, recipe.getVersion());
+    assertEquals(plainMapper.writeValueAsString(recipe),
+        cachingMapper.writeValueAsString(recipe));
+
+    ArrayList<Food> ingredients = new ArrayList<>(recipe.getIngredients());
+    ingredients.set(0, new Food("Flour", 11, 250, "Grain"));
+    recipe.setIngredients(ingredients);
+    recipe.setVersion(2000);
+    String json = cachingMapper.writeValueAsString(recipe);
+    assertEquals(plainMapper.writeValueAsString(recipe), json);
+    assertTrue(json.contains("\"totalCalories\":350"));
+    assertTrue(cachingMapper.writeValueAsString(renamed(1)).contains("Renamed 1"));
+  }
+
+  @Test
+  public void ingredientsEditedInPlaceAreSerializedAgainTest() throws Exception {
+    Recipe recipe = recipe(1);
+    cachingMapper.writeValueAsString(recipe);
+
+    recipe.getIngredients().get(0).setCalories(250);
+    String json = cachingMapper.writeValueAsString(recipe);
+    assertEquals(plainMapper.writeValueAsString(recipe), json);
+    assertTrue(json.contains("\"calories\":250"));
+
+    recipe.getIngredients().add(new Food("Sugar", 12, 40, "Sweetener"));
+    json = cachingMapper.writeValueAsString(recipe);
+    assertEquals(plainMapper.writeValueAsString(recipe), json);
+    assertTrue(json.contains("Sugar"));
+  }
+
+  @Test
+  public void unversionedRecipeIsNotCachedTest() throws Exception {
+    Recipe recipe = recipe(1);
+    recipe.setVersion(0);
+    assertEquals(plainMapper.writeValueAsString(recipe),
+        cachingMapper.writeValueAsString(recipe));
+    assertEquals(0, module.cachedRecipeCount());
+  }
+
+  @Test
+  public void cachedJsonUsesTheMappersSettingsTest() throws Exception {
+    ObjectMapper escaping = JsonMapper.builder()
+        .enable(JsonWriteFeature.ESCAPE_NON_ASCII)
+        .addModule(new RecipeJsonModule(2))
+        .build();
+    Recipe recipe = recipe(1);
+    recipe.setRecipeName("Crème brûlée");
+    recipe.setVersion(1000);
+
+    String json = escaping.writeValueAsString(recipe);
+    assertTrue(json.contains("Cr\\u00E8me"), json);
+    assertEquals(json, escaping.writeValueAsString(recipe));
+  }
+
+  @Test
+  public void leastRecentlyWrittenRecipeIsEvictedTest() throws Exception {
+    cachingMapper.writeValueAsString(recipe(1));
+    cachingMapper.writeValueAsString(recipe(2));
+    cachingMapper.writeValueAsString(recipe(1));
+    cachingMapper.writeValueAsString(recipe(3));
+
+    assertEquals(2, module.cachedRecipeCount());
+    assertTrue(cachingMapper.writeValueAsString(renamed(1)).contains("Cake 1"));
+    assertTrue(cachingMapper.writeValueAsString(renamed(2)).contains("Renamed 2"));
+  }
+
+  @Test
+  public void recipeRoundTripsThroughCachedJsonTest() throws Exception {
+    cachingMapper.writeValueAsString(recipe(1));
+    Recipe read = cachingMapper.readValue(cachingMapper.writeValueAsString(recipe(1)),
+        Recipe.class);
+    assertEquals("Cake 1", read.getRecipeName());
+    assertEquals(2, read.getIngredients().size());
+    assertEquals(400, read.getTotalCalories());
+  }
+
+  @Test
+  public void negativeSizeRejectedTest() {
+    assertThrows(IllegalArgumentException.class, () -> new RecipeJsonModule(-1));
+  }
+}
@@ -0,0 +1,88 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.coms4156.project.calorieservice.models.Food;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.MockApiService;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+/**
+ * Tests for gzip compression of large responses by the embedded server.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ResponseCompressionTests {
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @MockBean
+  private MockApiService mockApiService;
+
+  private final HttpClient httpClient = HttpClient.newHttpClient();
+
+  private static List<Recipe> recipes() {
+    List<Recipe> recipes = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      ArrayList<Food> ingredients = new ArrayList<>();
+      for (int j = 0; j < 5; j++) {
+        ingredients.add(new Food("Ingredient " + j, i * 10 + j, 50, "Pantry"));
+      }
+      recipes.add(new Recipe("Recipe " + i, i, "Dinner", ingredients, 0, 0, 250));
+    }
+    return recipes;
+  }
+
+  private HttpResponse<byte[]> get(String path) throws IOException, InterruptedException {
+    HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+        .header("Accept-Encoding", "gzip")
+        .build();
+    return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  @Test
+  public void largeJsonResponseIsGzippedTest() throws Exception {
+    List<Recipe> recipes = recipes();
+    when(mockApiService.recommend(1)).thenReturn(recipes);
+
+    HttpResponse<byte[]> response = get("/client/recommend?clientId=1");
+    assertEquals(200, response.statusCode());
+    assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+
+    byte[] json;
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+      json = in.readAllBytes();
+    }
+    assertTrue(response.body().length < json.length);
+    assertEquals(objectMapper.writeValueAsString(recipes), new String(json, "UTF-8"));
+  }
+
+  @Test
+  public void smallResponseIsNotCompressedTest() throws Exception {
+    when(mockApiService.recommend(2)).thenReturn(null);
+
+    HttpResponse<byte[]> response = get("/client/recommend?clientId=2");
+    assertEquals(404, response.statusCode());
+    assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+    assertEquals("Client with ID 2 not found.", new String(response.body(), "UTF-8"));
+  }
+}
@@ -0,0 +1,95 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.calorieservice.util.RingBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the RingBuffer class.
+ */
+public class RingBufferUnitTests {
+
+  @Test
+  public void capacityRoundsUpToPowerOfTwoTest() {
+    assertEquals(1, new RingBuffer<Integer>(1).capacity());
+    assertEquals(8, new RingBuffer<Integer>(5).capacity());
+    assertEquals(8, new RingBuffer<Integer>(8).capacity());
+    assertThrows(IllegalArgumentException.class, () -> new RingBuffer<Integer>(0));
+  }
+
+  @Test
+  public void offerAndPollKeepOrderTest() {
+    RingBuffer<Integer> buffer = new RingBuffer<>(4);
+    assertNull(buffer.poll());
+    for (int lap = 0; lap < 3; lap++) {
+      for (int i = 0; i < 4; i++) {
+        assertTrue(buffer.offer(lap * 10 + i));
+      }
+      assertFalse(buffer.offer(99));
+      assertEquals(4, buffer.size());
+      for (int i = 0; i < 4; i++) {
+        assertEquals(lap * 10 + i, buffer.poll());
+      }
+      assertTrue(buffer.isEmpty());
+    }
+    assertEquals(12, buffer.offered());
+    assertEquals(12, buffer.polled());
+    assertThrows(NullPointerException.class, () -> buffer.offer(null));
+  }
+
+  @Test
+  public void drainToStopsAtMaxTest() {
+    RingBuffer<Integer> buffer = new RingBuffer<>(8);
+    for (int i = 0; i < 6; i++) {
+      buffer.offer(i);
+    }
+    List<Integer> drained = new ArrayList<>();
+    assertEquals(4, buffer.drainTo(drained, 4));
+    assertEquals(List.of(0, 1, 2, 3), drained);
+    assertEquals(2, buffer.drainTo(drained, 10));
+    assertEquals(0, buffer.drainTo(drained, 10));
+  }
+
+  @Test
+  public void concurrentProducersLoseNothingTest() throws Exception {
+    RingBuffer<Integer> buffer = new RingBuffer<>(64);
+    int producers = 8;
+    int perProducer = 5_000;
+    Set<Integer> seen = new HashSet<>();
+    List<Future<?>> futures = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+      for (int p = 0; p < producers; p++) {
+        int base = p * perProducer;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < perProducer; i++) {
+            while (!buffer.offer(base + i)) {
+              Thread.onSpinWait();
+            }
+          }
+        }));
+      }
+      while (seen.size() < producers * perProducer) {
+        Integer value = buffer.poll();
+        if (value != null) {
+          assertTrue(seen.add(value));
+        }
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    assertTrue(buffer.isEmpty());
+  }
+}
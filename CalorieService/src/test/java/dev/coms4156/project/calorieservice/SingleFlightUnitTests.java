@@ -0,0 +1,95 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import dev.coms4156.project.calorieservice.util.SingleFlight;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the SingleFlight class.
+ */
+public class SingleFlightUnitTests {
+
+  private static void awaitCoalesced(SingleFlight<?, ?> flight, long expected)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (flight.coalesced() < expected && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  public void concurrentCallsShareOneLoadTest() throws Exception {
+    SingleFlight<String, Object> flight = new SingleFlight<>();
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    Object result = new Object();
+    List<Future<Object>> futures = new ArrayList<>();
+    try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> flight.execute("recipe/1", () -> {
+          loads.incrementAndGet();
+          release.await();
+          return result;
+        })));
+      }
+      awaitCoalesced(flight, 7);
+      release.countDown();
+      for (Future<Object> future : futures) {
+        assertSame(result, future.get());
+      }
+    }
+    assertEquals(1, loads.get());
+    assertEquals(8, flight.calls());
+    assertEquals(7, flight.coalesced());
+    assertEquals(0, flight.inFlight());
+  }
+
+  @Test
+  public void sequentialCallsLoadAgainTest() throws Exception {
+    SingleFlight<Integer, Integer> flight = new SingleFlight<>();
+    AtomicInteger loads = new AtomicInteger();
+
+    assertEquals(1, flight.execute(1, loads::incrementAndGet));
+    assertEquals(2, flight.execute(1, loads::incrementAndGet));
+    assertEquals(3, flight.execute(2, loads::incrementAndGet));
+    assertEquals(0, flight.coalesced());
+  }
+
+  @Test
+  public void failureIsSharedAndForgottenTest() throws Exception {
+    SingleFlight<String, String> flight = new SingleFlight<>();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutionException failure = new ExecutionException("Connection failed", null);
+    try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+      final Future<String> leader = executor.submit(() -> flight.execute("key", () -> {
+        started.countDown();
+        release.await();
+        throw failure;
+      }));
+      // The follower must find the leader's load in flight, not start its own
+      started.await();
+      final Future<String> follower = executor.submit(() -> flight.execute("key", () -> "unused"));
+      awaitCoalesced(flight, 1);
+      release.countDown();
+
+      ExecutionException leaderError = assertThrows(ExecutionException.class, leader::get);
+      assertSame(failure, leaderError.getCause());
+      ExecutionException followerError = assertThrows(ExecutionException.class, follower::get);
+      assertSame(failure, followerError.getCause());
+    }
+    assertEquals("ok", flight.execute("key", () -> "ok"));
+  }
+}
@@ -0,0 +1,214 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Firestore;
+import dev.coms4156.project.calorieservice.config.TracingFilter;
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.service.FirestoreCost;
+import dev.coms4156.project.calorieservice.service.FirestoreService;
+import dev.coms4156.project.calorieservice.service.MockApiService;
+import dev.coms4156.project.calorieservice.service.Span;
+import dev.coms4156.project.calorieservice.service.Tracing;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * This class contains the tests for the trace spans started through Tracing.
+ */
+public class TracingTests {
+
+  private Tracing.Config saved;
+
+  /**
+   * Records every span, saving the settings other tests, and cached application contexts,
+   * were using.
+   */
+  @BeforeEach
+  public void setUp() {
+    saved = Tracing.config();
+    Tracing.configure(true, 1.0, 100, false);
+  }
+
+  /**
+   * Puts back the settings saved before the test.
+   */
+  @AfterEach
+  public void tearDown() {
+    Tracing.configure(saved);
+  }
+
+  @Test
+  public void serviceSpansNestUnderTheCurrentSpanTest() throws Exception {
+    FirestoreService firestoreService = mock(FirestoreService.class);
+    Recipe base = new Recipe("Cake", 1, "Dessert", new ArrayList<>(), 0, 0, 500);
+    when(firestoreService.getRecipeById(1)).thenReturn(base);
+    when(firestoreService.getRecipesByCategoryAndCalories("Dessert", 499))
+        .thenReturn(new ArrayList<>(List.of(
+            new Recipe("Pie", 2, "Dessert", new ArrayList<>(), 0, 0, 300))));
+    MockApiService service = new MockApiService(firestoreService);
+
+    Span root = Tracing.startSpan("request");
+    try (root) {
+      service.getRecipeAlternatives(1);
+    }
+    assertNull(Tracing.current());
+
+    Span alternatives = only("MockApiService.getRecipeAlternatives");
+    Span find = only("MockApiService.findRecipeById");
+    assertEquals(root.getTraceId(), alternatives.getTraceId());
+    assertEquals(root.getSpanId(), alternatives.getParentSpanId());
+    assertEquals(alternatives.getSpanId(), find.getParentSpanId());
+    assertEquals(1, alternatives.getAttributes().get("recipe.id"));
+    assertEquals("Dessert", alternatives.getAttributes().get("category"));
+    assertEquals(1, alternatives.getAttributes().get("result.size"));
+    assertNull(root.getParentSpanId());
+  }
+
+  @Test
+  public void firestoreSpansRecordTheOperationTest() throws Exception {
+    Firestore db = mock(Firestore.class);
+    CollectionReference collection = mock(CollectionReference.class);
+    DocumentReference document = mock(DocumentReference.class);
+    DocumentSnapshot snapshot = mock(DocumentSnapshot.class);
+    ApiFuture<DocumentSnapshot> future = mock(ApiFuture.class);
+    when(db.collection("food")).thenReturn(collection);
+    when(collection.document(anyString())).thenReturn(document);
+    when(document.get()).thenReturn(future);
+    when(future.get()).thenReturn(snapshot);
+    when(snapshot.exists()).thenReturn(true);
+    when(snapshot.getData()).thenReturn(Map.of(
+        "foodId", 7L, "foodName", "Kiwi", "calories", 42L, "category", "Fruit"));
+    FirestoreService firestoreService = new FirestoreService();
+    Field dbField = FirestoreService.class.getDeclaredField("db");
+    dbField.setAccessible(true);
+    dbField.set(firestoreService, db);
+
+    firestoreService.getFoodById(7);
+
+    Map<String, Object> attributes = only("FirestoreService.getFoodById").getAttributes();
+    assertEquals("firestore", attributes.get("db.system"));
+    assertEquals("food", attributes.get("db.collection"));
+    assertEquals(7, attributes.get("db.document.id"));
+    assertEquals(1, attributes.get("result.size"));
+    assertEquals("success", attributes.get("outcome"));
+  }
+
+  @Test
+  public void traceparentIsContinuedTest() {
+    String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+    try (Span span = Tracing.startServerSpan("GET", "00-" + traceId + "-00f067aa0ba902b7-01")) {
+      assertEquals(traceId, span.getTraceId());
+      assertEquals("00f067aa0ba902b7", span.getParentSpanId());
+      assertTrue(span.traceparent().startsWith("00-" + traceId + "-"));
+    }
+    try (Span span = Tracing.startServerSpan("GET", "00-" + traceId + "-00f067aa0ba902b7-00")) {
+      assertFalse(span.isSampled());
+      Tracing.startSpan("child").close();
+    }
+    try (Span span = Tracing.startServerSpan("GET", "not a traceparent")) {
+      assertTrue(span.isSampled());
+      assertNull(span.getParentSpanId());
+    }
+    assertEquals(2, Tracing.recentSpans(null, 10).size());
+    assertEquals(1, Tracing.recentSpans(traceId, 10).size());
+  }
+
+  @Test
+  public void unsampledTracesRecordNothingTest() {
+    Tracing.configure(true, 0, 100, false);
+    try (Span root = Tracing.startSpan("request")) {
+      try (Span child = Tracing.startSpan("child")) {
+        child.setAttribute("key", "value");
+        assertFalse(child.isSampled());
+        assertSame(child, Tracing.current());
+      }
+      assertSame(root, Tracing.current());
+    }
+    assertNull(Tracing.current());
+    assertEquals(List.of(), Tracing.recentSpans(null, 10));
+  }
+
+  @Test
+  public void wrappedWorkKeepsTheTraceAndCostOnAnotherThreadTest() throws Exception {
+    FirestoreCost cost = FirestoreCost.open();
+    AtomicReference<FirestoreCost> seenCost = new AtomicReference<>();
+    Span root = Tracing.startSpan("request");
+    try (root) {
+      Runnable task = Tracing.wrap(() -> {
+        seenCost.set(FirestoreCost.current());
+        Tracing.startSpan("worker").close();
+      });
+      CompletableFuture.runAsync(task).get();
+    } finally {
+      FirestoreCost.close();
+    }
+
+    Span worker = only("worker");
+    assertEquals(root.getSpanId(), worker.getParentSpanId());
+    assertSame(cost, seenCost.get());
+  }
+
+  @Test
+  public void filterNamesTheRequestSpanByEndpointTest() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/recipe/totalCalorie");
+    request.addHeader(TracingFilter.TRACEPARENT,
+        "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    new TracingFilter().doFilter(request, response, (req, res) -> {
+      req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/recipe/totalCalorie");
+      Tracing.startSpan("MockApiService.getTotalCalories").close();
+    });
+
+    Span server = only("GET /recipe/totalCalorie");
+    assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", server.getTraceId());
+    assertEquals(200, server.getAttributes().get("http.status_code"));
+    assertEquals(server.getSpanId(), only("MockApiService.getTotalCalories").getParentSpanId());
+  }
+
+  private static Span only(String name) {
+    List<Span> matching = Tracing.recentSpans(null, 100).stream()
+        .filter(span -> name.equals(span.getName()))
+        .toList();
+    assertEquals(1, matching.size(), name);
+    return matching.get(0);
+  }
+
+  @Test
+  public void closingTracingPutsBackTheSettingsItReplacedTest() {
+    final Tracing.Config before = Tracing.config();
+    Tracing tracing = new Tracing(false, 0.5, 10, true);
+    assertFalse(Tracing.config().isEnabled());
+    assertEquals(0.5, Tracing.config().getSampleRate());
+    tracing.close();
+    assertSame(before, Tracing.config());
+
+    // Settings changed by someone else since are left alone
+    tracing = new Tracing(false, 0.5, 10, true);
+    Tracing.configure(true, 0.25, 10, false);
+    tracing.close();
+    assertEquals(0.25, Tracing.config().getSampleRate());
+  }
+}
@@ -0,0 +1,139 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import dev.coms4156.project.calorieservice.models.Recipe;
+import dev.coms4156.project.calorieservice.models.TrendingRecipe;
+import dev.coms4156.project.calorieservice.service.TrendingService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class contains the unit tests for the TrendingService class.
+ */
+public class TrendingServiceTests {
+
+  private AtomicLong now;
+  private TrendingService trending;
+
+  /**
+   * Creates a service with a one hour half-life and a manually advanced clock.
+   */
+  @BeforeEach
+  public void setUp() {
+    now = new AtomicLong(1_000_000L);
+    trending = new TrendingService(Duration.ofHours(1), now::get);
+  }
+
+  private static Recipe recipe(int recipeId, String category) {
+    return new Recipe("Recipe " + recipeId, recipeId, category, new ArrayList<>(), 0, 0, 100);
+  }
+
+  @Test
+  public void emptyTrendingTest() {
+    assertTrue(trending.getTrending(null, 10).isEmpty());
+    assertTrue(trending.getTrending("Dessert", 10).isEmpty());
+  }
+
+  @Test
+  public void decayedRecipesAreEvictedAtTheLimitTest() {
+    TrendingService bounded = new TrendingService(Duration.ofHours(1), 100, now::get);
+    for (int recipeId = 1; recipeId <= 1000; recipeId++) {
+      now.addAndGet(60_000L);
+      bounded.recordView(recipe(recipeId, null));
+    }
+
+    assertTrue(bounded.scoredRecipes() <= 100);
+    List<TrendingRecipe> top = bounded.getTrending(null, TrendingService.MAX_LIMIT);
+    assertEquals(TrendingService.MAX_LIMIT, top.size());
+    assertEquals(1000, top.get(0).getRecipeId());
+    assertEquals(951, top.get(TrendingService.MAX_LIMIT - 1).getRecipeId());
+  }
+
+  @Test
+  public void likesOutweighViewsTest() {
+    Recipe viewed = recipe(1, "Dessert");
+    Recipe liked = recipe(2, "Dessert");
+    trending.recordView(viewed);
+    trending.recordView(viewed);
+    trending.recordLike(liked);
+
+    List<TrendingRecipe> top = trending.getTrending(null, 10);
+    assertEquals(2, top.size());
+    assertEquals(2, top.get(0).getRecipeId());
+    assertEquals(5.0, top.get(0).getScore(), 1e-9);
+    assertEquals(2.0, top.get(1).getScore(), 1e-9);
+  }
+
+  @Test
+  public void scoresHalveEveryHalfLifeTest() {
+    trending.recordView(recipe(1, "Dessert"));
+    now.addAndGet(Duration.ofHours(2).toMillis());
+    assertEquals(0.25, trending.getTrending(null, 1).get(0).getScore(), 1e-9);
+  }
+
+  @Test
+  public void recentActivityOvertakesOldActivityTest() {
+    Recipe old = recipe(1, "Dessert");
+    Recipe fresh = recipe(2, "Dessert");
+    for (int i = 0; i < 8; i++) {
+      trending.recordView(old);
+    }
+    now.addAndGet(Duration.ofHours(4).toMillis());
+    trending.recordView(fresh);
+
+    List<TrendingRecipe> top = trending.getTrending("Dessert", 10);
+    assertEquals(2, top.get(0).getRecipeId());
+    assertEquals(1, top.get(1).getRecipeId());
+  }
+
+  @Test
+  public void categoryFilterTest() {
+    trending.recordLike(recipe(1, "Dessert"));
+    trending.recordView(recipe(2, "Salad"));
+
+    List<TrendingRecipe> salads = trending.getTrending("Salad", 10);
+    assertEquals(1, salads.size());
+    assertEquals(2, salads.get(0).getRecipeId());
+    assertEquals("Salad", salads.get(0).getCategory());
+    assertEquals(2, trending.getTrending(null, 10).size());
+  }
+
+  @Test
+  public void limitAndCapacityTest() {
+    for (int i = 1; i <= TrendingService.MAX_LIMIT + 20; i++) {
+      Recipe recipe = recipe(i, "Dessert");
+      for (int j = 0; j < i; j++) {
+        trending.recordView(recipe);
+      }
+    }
+    assertEquals(3, trending.getTrending(null, 3).size());
+
+    List<TrendingRecipe> top = trending.getTrending(null, TrendingService.MAX_LIMIT);
+    assertEquals(TrendingService.MAX_LIMIT, top.size());
+    assertEquals(TrendingService.MAX_LIMIT + 20, top.get(0).getRecipeId());
+    for (int i = 1; i < top.size(); i++) {
+      assertTrue(top.get(i - 1).getScore() >= top.get(i).getScore());
+    }
+  }
+
+  @Test
+  public void concurrentUpdatesAreNotLostTest() {
+    Recipe recipe = recipe(1, "Dessert");
+    IntStream.range(0, 10_000).parallel().forEach(i -> trending.recordView(recipe));
+    assertEquals(10_000.0, trending.getTrending(null, 1).get(0).getScore(), 1e-6);
+  }
+
+  @Test
+  public void invalidHalfLifeTest() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new TrendingService(Duration.ZERO, now::get));
+  }
+}
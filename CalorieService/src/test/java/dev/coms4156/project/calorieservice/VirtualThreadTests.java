@@ -0,0 +1,97 @@
+package dev.coms4156.project.calorieservice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.coms4156.project.calorieservice.client.ClientEvent;
+import dev.coms4156.project.calorieservice.client.ClientEventLog;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Tests for running the service with virtual threads enabled.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "spring.threads.virtual.enabled=true")
+public class VirtualThreadTests {
+
+  private static final Path LOG_FILE = Path.of("logs", "client-events.log");
+
+  @Autowired
+  private ServletWebServerApplicationContext context;
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private ClientEventLog eventLog;
+
+  /**
+   * Cleans the log file before and after each test.
+   *
+   * @throws IOException if file operations fail
+   */
+  @BeforeEach
+  @AfterEach
+  public void cleanLogFile() throws IOException {
+    Files.deleteIfExists(LOG_FILE);
+  }
+
+  @Test
+  public void tomcatUsesVirtualThreadExecutorTest() {
+    TomcatWebServer server = (TomcatWebServer) context.getWebServer();
+    assertInstanceOf(VirtualThreadExecutor.class,
+        server.getTomcat().getConnector().getProtocolHandler().getExecutor());
+  }
+
+  @Test
+  public void concurrentClientLogsAreAllWrittenTest() throws Exception {
+    int requests = 200;
+    List<Future<ResponseEntity<String>>> responses = new ArrayList<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < requests; i++) {
+        ClientEvent event = new ClientEvent();
+        event.setInstanceId("instance-" + i);
+        event.setServiceClientId(i);
+        event.setEvent("recipe_viewed");
+        responses.add(executor.submit(
+            () -> restTemplate.postForEntity("/client/log", event, String.class)));
+      }
+      for (Future<ResponseEntity<String>> response : responses) {
+        assertEquals(HttpStatus.ACCEPTED, response.get().getStatusCode());
+      }
+    }
+    eventLog.flush();
+
+    List<String> lines = Files.readAllLines(LOG_FILE);
+    assertEquals(requests, lines.size());
+    Set<Integer> clientIds = new HashSet<>();
+    for (String line : lines) {
+      clientIds.add(objectMapper.readValue(line, ClientEvent.class).getServiceClientId());
+    }
+    assertEquals(requests, clientIds.size());
+  }
+}